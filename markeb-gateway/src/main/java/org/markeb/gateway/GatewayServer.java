@@ -3,8 +3,10 @@ package org.markeb.gateway;
 import org.markeb.gateway.backend.BackendChannelManager;
 import org.markeb.gateway.config.GatewayConfig;
 import org.markeb.gateway.handler.FrontendChannelInitializer;
+import org.markeb.gateway.ratelimit.RateLimiter;
 import org.markeb.gateway.route.NodeRouter;
 import org.markeb.gateway.session.SessionManager;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -40,6 +42,12 @@ public class GatewayServer {
     @Autowired
     private NodeRouter nodeRouter;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired(required = false)
+    private NetworkInstrumentation instrumentation;
+
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private Channel serverChannel;
@@ -66,7 +74,10 @@ public class GatewayServer {
                         sessionManager,
                         backendChannelManager,
                         nodeRouter,
-                        config.getReadIdleTimeout()
+                        config.getReadIdleTimeout(),
+                        instrumentation,
+                        config.isZeroCopyForward(),
+                        rateLimiter
                 ));
 
         try {
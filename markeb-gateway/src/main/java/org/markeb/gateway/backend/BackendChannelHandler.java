@@ -1,6 +1,7 @@
 package org.markeb.gateway.backend;
 
 import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.heartbeat.NodeLoad;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleStateEvent;
@@ -8,11 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 后端连接处理器
- * 处理游戏节点的响应和心跳保活
+ * 处理游戏节点的响应和心跳保活，心跳状态记录在 {@link BackendConnection} 上供连接池选择时参考，
+ * 心跳响应中附带的节点负载交给 {@link BackendChannelManager#recordLoad} 供负载路由使用
  */
 public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPacket> {
 
@@ -30,25 +31,28 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
     private static final int MAX_MISSED_HEARTBEATS = 3;
 
     private final BackendChannelManager channelManager;
+    private final BackendConnection connection;
     private final String nodeAddress;
-    private final AtomicInteger missedHeartbeats = new AtomicInteger(0);
 
-    public BackendChannelHandler(BackendChannelManager channelManager, String nodeAddress) {
+    public BackendChannelHandler(BackendChannelManager channelManager, BackendConnection connection) {
         this.channelManager = channelManager;
-        this.nodeAddress = nodeAddress;
+        this.connection = connection;
+        this.nodeAddress = connection.getNodeAddress();
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, GatewayPacket msg) {
         // 收到任何消息都重置丢失计数
-        missedHeartbeats.set(0);
+        connection.recordReceived(msg.bodyLength());
 
         // 心跳响应不传递给业务层
         if (msg.getMsgId() == HEARTBEAT_RESPONSE_ID) {
-            long latency = calculateHeartbeatLatency(msg);
-            if (latency >= 0) {
-                log.debug("Heartbeat response from backend {}, latency: {}ms", nodeAddress, latency);
-            }
+            handleHeartbeatResponse(msg);
+            return;
+        }
+
+        // 节点主动下发的推送/广播/分组通知
+        if (channelManager.handleNotice(msg)) {
             return;
         }
 
@@ -58,13 +62,14 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        log.info("Backend channel active: {}", nodeAddress);
+        connection.onConnected();
+        log.info("Backend channel active: {}", connection);
         super.channelActive(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        log.info("Backend channel inactive: {}", nodeAddress);
+        log.info("Backend channel inactive: {}", connection);
         super.channelInactive(ctx);
     }
 
@@ -78,7 +83,8 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
                 }
                 case READER_IDLE -> {
                     // 读空闲：检测连接是否存活
-                    int missed = missedHeartbeats.incrementAndGet();
+                    // 丢失心跳的连接不再承载新请求，直到再次收到数据
+                    int missed = connection.missHeartbeat();
                     if (missed >= MAX_MISSED_HEARTBEATS) {
                         log.warn("Backend {} missed {} heartbeats, closing connection",
                                 nodeAddress, missed);
@@ -99,11 +105,7 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
      * 发送心跳请求
      */
     private void sendHeartbeat(ChannelHandlerContext ctx) {
-        byte[] body = new byte[8];
-        ByteBuffer.wrap(body).putLong(System.currentTimeMillis());
-
-        GatewayPacket heartbeat = new GatewayPacket(0, HEARTBEAT_REQUEST_ID, (short) 0, body);
-        ctx.writeAndFlush(heartbeat).addListener(f -> {
+        ctx.writeAndFlush(heartbeatRequest()).addListener(f -> {
             if (f.isSuccess()) {
                 log.debug("Heartbeat sent to backend: {}", nodeAddress);
             } else {
@@ -113,22 +115,36 @@ public class BackendChannelHandler extends SimpleChannelInboundHandler<GatewayPa
     }
 
     /**
-     * 计算心跳延迟
+     * 心跳请求：clientTime (8 bytes)
      */
-    private long calculateHeartbeatLatency(GatewayPacket response) {
+    static GatewayPacket heartbeatRequest() {
+        byte[] body = new byte[8];
+        ByteBuffer.wrap(body).putLong(System.currentTimeMillis());
+        return new GatewayPacket(0, HEARTBEAT_REQUEST_ID, (short) 0, body);
+    }
+
+    /**
+     * 处理心跳响应：serverTime (8 bytes) + clientTime (8 bytes) [+ 节点负载 (16 bytes)]
+     */
+    private void handleHeartbeatResponse(GatewayPacket response) {
         byte[] body = response.getBody();
         if (body == null || body.length < 16) {
-            return -1;
+            return;
         }
 
         ByteBuffer buffer = ByteBuffer.wrap(body);
         buffer.getLong(); // skip serverTime
         long clientTime = buffer.getLong();
-
         if (clientTime > 0) {
-            return System.currentTimeMillis() - clientTime;
+            long latency = System.currentTimeMillis() - clientTime;
+            connection.recordHeartbeat(latency);
+            log.debug("Heartbeat response from backend {}, latency: {}ms", nodeAddress, latency);
+        }
+
+        NodeLoad load = NodeLoad.decode(buffer);
+        if (load != null) {
+            channelManager.recordLoad(nodeAddress, load);
         }
-        return -1;
     }
 
     @Override
@@ -1,52 +1,104 @@
 package org.markeb.gateway.backend;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.markeb.gateway.broadcast.BroadcastService;
+import org.markeb.gateway.config.GatewayConfig;
+import org.markeb.gateway.route.NodeLoadTracker;
 import org.markeb.gateway.session.GatewaySession;
-import org.markeb.gateway.session.SessionManager;
 import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.gateway.backend.BackendLink;
+import org.markeb.net.gateway.backend.PendingRequestTable;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.heartbeat.NodeLoad;
+import org.markeb.net.idle.SharedIdleStateHandler;
+import org.markeb.net.metrics.NetworkInstrumentation;
+import org.markeb.proto.notice.Forward.BroadcastNotice;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.GroupNotice;
+import org.markeb.proto.notice.Forward.PushBatchNotice;
+import org.markeb.proto.notice.Forward.PushNotice;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 后端连接管理器
- * 管理网关到游戏节点的连接
+ * 管理网关到游戏节点的连接，每个节点维护一个 {@link BackendChannelPool}
  */
 @Component
 public class BackendChannelManager {
 
     private static final Logger log = LoggerFactory.getLogger(BackendChannelManager.class);
 
+    /**
+     * 节点下发的通知ID，与 forward.proto 中的 noticeId 一致
+     */
+    private static final int PUSH_NOTICE_ID = 20002;
+    private static final int BROADCAST_NOTICE_ID = 20003;
+    private static final int GROUP_NOTICE_ID = 20004;
+    private static final int COMPACT_PUSH_NOTICE_ID = 20006;
+    private static final int PUSH_BATCH_NOTICE_ID = 20007;
+
     private final EventLoopGroup workerGroup = new NioEventLoopGroup(4);
 
     /**
-     * nodeAddress -> Channel（到后端节点的连接）
+     * nodeAddress -> 连接池（到后端节点的连接）
      */
-    private final Map<String, Channel> backendChannels = new ConcurrentHashMap<>();
+    private final Map<String, BackendChannelPool> backendPools = new ConcurrentHashMap<>();
 
     /**
-     * pendingKey (sessionId:seq) -> sessionId
+     * (sessionId, seq) -> 发起请求的会话
      * 用于后端响应时找到对应的前端会话
      */
-    private final Map<String, Integer> pendingRequests = new ConcurrentHashMap<>();
+    private PendingRequestTable<GatewaySession> pendingRequests;
 
     @Autowired
-    private SessionManager sessionManager;
+    private GatewayConfig gatewayConfig;
+
+    @Autowired
+    private BroadcastService broadcastService;
+
+    @Autowired
+    private NodeLoadTracker loadTracker;
+
+    @Autowired(required = false)
+    private NetworkInstrumentation instrumentation;
+
+    @PostConstruct
+    public void init() {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(gatewayConfig.getPendingTimeout());
+        pendingRequests = new PendingRequestTable<>(timeoutMillis, TimeUnit.MILLISECONDS);
+        // 定期清理后端一直未响应的请求
+        long period = Math.max(100, timeoutMillis / 4);
+        workerGroup.scheduleAtFixedRate(this::expirePendingRequests, period, period, TimeUnit.MILLISECONDS);
+        // 心跳只在写空闲时发送，繁忙的连接收不到负载上报，这里定期主动探测
+        long probeInterval = gatewayConfig.getLoadProbeIntervalMillis();
+        if (probeInterval > 0) {
+            workerGroup.scheduleAtFixedRate(this::probeLoad, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
 
     /**
      * 转发请求到后端节点
@@ -56,76 +108,173 @@ public class BackendChannelManager {
      * @param packet      协议包
      */
     public CompletableFuture<Void> forward(String nodeAddress, GatewaySession session, GatewayPacket packet) {
-        Channel backend = getOrCreateChannel(nodeAddress);
-        if (backend == null || !backend.isActive()) {
+        BackendChannelPool pool = getPool(nodeAddress);
+        if (pool == null) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException("Backend not available: " + nodeAddress));
         }
+        return forward(pool, session, packet);
+    }
 
-        // 构建内部协议包（带 sessionId）
-        GatewayPacket internalPacket = new GatewayPacket(
-                session.getSessionId(),
-                packet.getMsgId(),
-                packet.getSeq(),
-                packet.getBody()
-        );
+    /**
+     * 通过已解析的后端句柄转发请求，不再按地址查找连接池
+     *
+     * @param pool    后端连接池（由 {@link #getPool(String)} 解析）
+     * @param session 网关会话
+     * @param packet  协议包
+     */
+    public CompletableFuture<Void> forward(BackendChannelPool pool, GatewaySession session, GatewayPacket packet) {
+        if (pool.isClosed()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Backend closed: " + pool.getNodeAddress()));
+        }
+        BackendConnection connection = pool.select(session.getSessionId());
+
+        // 构建内部协议包（只改写 sessionId，消息体共享，由写出路径释放）
+        GatewayPacket internalPacket = packet.retainedWithSessionId(session.getSessionId());
 
         // 记录 pending 请求
-        String pendingKey = internalPacket.getPendingKey();
-        pendingRequests.put(pendingKey, session.getSessionId());
-
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        backend.writeAndFlush(internalPacket).addListener(f -> {
-            if (f.isSuccess()) {
-                session.updateActiveTime();
-                future.complete(null);
-            } else {
-                pendingRequests.remove(pendingKey);
-                future.completeExceptionally(f.cause());
-            }
-        });
+        int sessionId = session.getSessionId();
+        int seq = packet.getSeq();
+        pendingRequests.put(sessionId, seq, session);
 
-        return future;
+        // 连接建立期间请求在连接内排队，不阻塞调用线程；建连失败时立即失败
+        return connection.write(internalPacket, packet.bodyLength())
+                .whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        pendingRequests.remove(sessionId, seq);
+                    }
+                });
     }
 
     /**
      * 处理后端响应
      */
     public void handleResponse(String nodeAddress, GatewayPacket packet) {
-        String pendingKey = packet.getPendingKey();
-        Integer sessionId = pendingRequests.remove(pendingKey);
+        int sessionId = packet.getSessionId();
+        int seq = packet.getSeq();
+        GatewaySession session = pendingRequests.remove(sessionId, seq);
 
-        if (sessionId == null) {
-            log.warn("No pending request for key: {}", pendingKey);
+        if (session == null) {
+            // 直接记录原始字段，未命中时不拼接 key 字符串
+            log.warn("No pending request for session {} seq {}", sessionId, seq);
             return;
         }
 
-        sessionManager.getSession(sessionId).ifPresentOrElse(
-                session -> {
-                    if (session.isActive()) {
-                        // 回给客户端（不带 sessionId）
-                        GatewayPacket clientPacket = new GatewayPacket(
-                                0, packet.getMsgId(), packet.getSeq(), packet.getBody());
-                        session.send(clientPacket);
+        if (session.isActive()) {
+            // 回给客户端（不带 sessionId）
+            session.send(packet.retainedWithSessionId(0));
+        } else {
+            log.warn("Session {} is not active, dropping response", session.getSessionId());
+        }
+    }
+
+    /**
+     * 处理节点主动下发的通知（推送、广播、分组变更）
+     *
+     * @return 是否为通知消息（已处理）
+     */
+    public boolean handleNotice(GatewayPacket packet) {
+        int msgId = packet.getMsgId();
+        if (msgId != PUSH_NOTICE_ID && msgId != COMPACT_PUSH_NOTICE_ID && msgId != PUSH_BATCH_NOTICE_ID
+                && msgId != BROADCAST_NOTICE_ID && msgId != GROUP_NOTICE_ID) {
+            return false;
+        }
+        try {
+            if (msgId == PUSH_BATCH_NOTICE_ID) {
+                PushBatchNotice notice = PushBatchNotice.parseFrom(noticeBody(packet));
+                for (CompactPushNotice entry : notice.getEntriesList()) {
+                    push(entry);
+                }
+                if (instrumentation != null) {
+                    instrumentation.recordPushBatch(notice.getEntriesCount());
+                }
+            } else if (msgId == COMPACT_PUSH_NOTICE_ID) {
+                push(CompactPushNotice.parseFrom(noticeBody(packet)));
+            } else if (msgId == PUSH_NOTICE_ID) {
+                PushNotice notice = PushNotice.parseFrom(noticeBody(packet));
+                broadcastService.pushToPlayers(parsePlayerIds(notice.getPlayerIdsList()),
+                        notice.getMsgId(), wrap(notice.getPayload()));
+            } else if (msgId == BROADCAST_NOTICE_ID) {
+                BroadcastNotice notice = BroadcastNotice.parseFrom(noticeBody(packet));
+                if (notice.getGroup().isEmpty()) {
+                    broadcastService.broadcastAll(notice.getMsgId(), wrap(notice.getPayload()));
+                } else {
+                    broadcastService.broadcastGroup(notice.getGroup(), notice.getMsgId(), wrap(notice.getPayload()));
+                }
+            } else {
+                GroupNotice notice = GroupNotice.parseFrom(noticeBody(packet));
+                for (long playerId : parsePlayerIds(notice.getPlayerIdsList())) {
+                    if (notice.getLeave()) {
+                        broadcastService.leaveGroup(notice.getGroup(), playerId);
                     } else {
-                        log.warn("Session {} is not active, dropping response", sessionId);
+                        broadcastService.joinGroup(notice.getGroup(), playerId);
                     }
-                },
-                () -> log.warn("Session {} not found for response", sessionId)
-        );
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            log.error("Invalid notice from backend, msgId {}", msgId, e);
+        }
+        return true;
+    }
+
+    private void push(CompactPushNotice notice) {
+        broadcastService.pushToPlayers(toArray(notice.getPlayerIdsList()), notice.getMsgId(), wrap(notice.getPayload()));
+    }
+
+    private static ByteBuffer noticeBody(GatewayPacket packet) {
+        ByteBuf content = packet.content();
+        if (content != null) {
+            return content.nioBuffer();
+        }
+        byte[] body = packet.getBody();
+        return body == null ? ByteBuffer.allocate(0) : ByteBuffer.wrap(body);
+    }
+
+    private static long[] toArray(List<Long> playerIds) {
+        long[] ids = new long[playerIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = playerIds.get(i);
+        }
+        return ids;
+    }
+
+    private static long[] parsePlayerIds(List<String> playerIds) {
+        long[] ids = new long[playerIds.size()];
+        int count = 0;
+        for (String playerId : playerIds) {
+            try {
+                ids[count++] = Long.parseLong(playerId);
+            } catch (NumberFormatException e) {
+                log.warn("Invalid playerId in notice: {}", playerId);
+                count--;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
     }
 
     /**
-     * 获取或创建到后端的连接
+     * 包装 payload，不拷贝；广播编码时一次性写入帧缓冲区
      */
-    private Channel getOrCreateChannel(String nodeAddress) {
-        return backendChannels.computeIfAbsent(nodeAddress, this::createChannel);
+    private static ByteBuf wrap(ByteString payload) {
+        return payload.isEmpty() ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(payload.asReadOnlyByteBuffer());
     }
 
     /**
-     * 创建到后端的连接
+     * 获取或创建到后端的连接池，建连异步进行
+     *
+     * @param nodeAddress 节点地址 (host:port)
+     * @return 连接池，地址非法时返回 null
      */
-    private Channel createChannel(String nodeAddress) {
+    public BackendChannelPool getPool(String nodeAddress) {
+        BackendChannelPool pool = backendPools.get(nodeAddress);
+        if (pool != null) {
+            return pool;
+        }
+        return backendPools.computeIfAbsent(nodeAddress, this::createPool);
+    }
+
+    private BackendChannelPool createPool(String nodeAddress) {
         String[] parts = nodeAddress.split(":");
         if (parts.length != 2) {
             log.error("Invalid node address: {}", nodeAddress);
@@ -141,70 +290,128 @@ public class BackendChannelManager {
             return null;
         }
 
+        InetSocketAddress remoteAddress = InetSocketAddress.createUnresolved(host, port);
+        BackendChannelPool pool = new BackendChannelPool(nodeAddress, gatewayConfig.getBackendPoolSize(),
+                connection -> createLink(connection, remoteAddress));
+        if (instrumentation != null) {
+            pool.forEach(instrumentation::registerBackendConnection);
+        }
+        return pool;
+    }
+
+    /**
+     * 创建到后端的连接（不发起连接）
+     */
+    private BackendLink createLink(BackendConnection connection, InetSocketAddress remoteAddress) {
         Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(workerGroup)
                 .channel(NioSocketChannel.class)
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
-                        ch.pipeline()
+                        ChannelPipeline pipeline = ch.pipeline();
+                        if (instrumentation != null) {
+                            pipeline.addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+                        }
+                        pipeline
                                 // 读空闲60秒检测连接存活，写空闲30秒发送心跳
-                                .addLast(new IdleStateHandler(60, 30, 0, TimeUnit.SECONDS))
-                                .addLast(new GatewayDecoder(false))
-                                .addLast(new GatewayEncoder(false))
-                                .addLast(new BackendChannelHandler(BackendChannelManager.this, nodeAddress));
+                                .addLast(new SharedIdleStateHandler(60, 30, 0, TimeUnit.SECONDS))
+                                .addLast(new GatewayDecoder(false, gatewayConfig.isZeroCopyForward()))
+                                .addLast(new GatewayEncoder(false));
+                        if (instrumentation != null) {
+                            pipeline.addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+                        }
+                        pipeline.addLast(new BackendChannelHandler(BackendChannelManager.this, connection));
                     }
                 });
 
-        try {
-            ChannelFuture cf = bootstrap.connect(new InetSocketAddress(host, port)).sync();
-            Channel channel = cf.channel();
-
-            // 监听连接关闭
-            channel.closeFuture().addListener(f -> {
-                log.info("Backend channel closed: {}", nodeAddress);
-                backendChannels.remove(nodeAddress);
-            });
-
-            log.info("Connected to backend node: {}", nodeAddress);
-            return channel;
-        } catch (Exception e) {
-            log.error("Failed to connect to backend: {}", nodeAddress, e);
-            return null;
-        }
+        return new BackendLink(connection.toString(), bootstrap, remoteAddress,
+                gatewayConfig.getBackendMaxQueuedWrites(),
+                gatewayConfig.getBackendReconnectInitialDelayMillis(),
+                gatewayConfig.getBackendReconnectMaxDelayMillis());
     }
 
     /**
      * 清理会话相关的 pending 请求
      */
     public void cleanupSession(int sessionId) {
-        String prefix = sessionId + ":";
-        pendingRequests.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
+        pendingRequests.removeSession(sessionId);
+    }
+
+    /**
+     * 当前 pending 请求数
+     */
+    public int pendingCount() {
+        return pendingRequests.size();
+    }
+
+    private void expirePendingRequests() {
+        int expired = pendingRequests.expire((sessionId, seq, session) ->
+                log.debug("Pending request expired, session {} seq {}", sessionId, seq));
+        if (expired > 0) {
+            log.warn("Expired {} pending requests without backend response", expired);
+        }
+    }
+
+    /**
+     * 记录节点在心跳响应中上报的负载
+     */
+    void recordLoad(String nodeAddress, NodeLoad load) {
+        loadTracker.record(nodeAddress, load);
+    }
+
+    /**
+     * 向每个节点的一条连接发送心跳，节点在响应中附带负载
+     */
+    private void probeLoad() {
+        for (BackendChannelPool pool : backendPools.values()) {
+            BackendConnection connection = pool.anyActive();
+            Channel channel = connection != null ? connection.getChannel() : null;
+            if (channel != null) {
+                channel.writeAndFlush(BackendChannelHandler.heartbeatRequest(), channel.voidPromise());
+            }
+        }
+    }
+
+    /**
+     * 遍历所有后端连接，用于导出每条连接的吞吐量、待写出字节数和心跳状态
+     */
+    public void forEachConnection(Consumer<BackendConnection> action) {
+        backendPools.values().forEach(pool -> pool.forEach(action));
     }
 
     /**
      * 关闭指定节点的连接
      */
     public void closeChannel(String nodeAddress) {
-        Channel channel = backendChannels.remove(nodeAddress);
-        if (channel != null && channel.isActive()) {
-            channel.close();
+        BackendChannelPool pool = backendPools.remove(nodeAddress);
+        if (pool != null) {
+            closePool(pool);
+        }
+        loadTracker.remove(nodeAddress);
+    }
+
+    private WriteBufferWaterMark writeBufferWaterMark() {
+        int high = gatewayConfig.getBackendWriteBufferHighWaterMark();
+        return new WriteBufferWaterMark(high / 2, high);
+    }
+
+    private void closePool(BackendChannelPool pool) {
+        pool.close();
+        if (instrumentation != null) {
+            pool.forEach(instrumentation::unregisterBackendConnection);
         }
     }
 
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down backend channel manager...");
-        backendChannels.values().forEach(ch -> {
-            try {
-                ch.close().sync();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        backendPools.values().forEach(this::closePool);
+        backendPools.clear();
         workerGroup.shutdownGracefully();
     }
 }
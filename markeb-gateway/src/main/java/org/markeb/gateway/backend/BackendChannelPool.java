@@ -0,0 +1,152 @@
+package org.markeb.gateway.backend;
+
+import org.markeb.net.gateway.backend.BackendLink;
+
+import java.util.function.Consumer;
+
+/**
+ * 单个后端节点的连接池
+ * <p>
+ * 每个节点维护固定数量的连接，连接由 Bootstrap 轮流分配到不同的 EventLoop，
+ * 避免所有会话的流量挤在一条 TCP 流、一个 IO 线程上造成队头阻塞。
+ * 每条连接是一个 {@link BackendLink}：创建池时异步发起全部连接，断开后各自按退避策略重连。
+ * </p>
+ * <p>
+ * 选择规则：
+ * <ul>
+ *   <li>按 sessionId 固定映射到一个主槽位，同一会话的请求始终走同一条连接，保证会话内有序</li>
+ *   <li>主槽位不可用（断开、不可写、心跳异常）时顺序探测后续槽位，此时该会话的顺序只在切换瞬间不做保证</li>
+ *   <li>所有连接都饱和时选择待写出字节最少的活跃连接，由出站缓冲区承担背压</li>
+ *   <li>没有活跃连接时优先选择正在建连的槽位，请求在连接内排队；全部处于退避时由主槽位快速失败</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 对外作为已解析的后端句柄，路由表和会话可以直接持有，转发时不再按地址查找连接池。
+ * </p>
+ */
+public final class BackendChannelPool {
+
+    /**
+     * 为槽位创建连接的回调
+     */
+    @FunctionalInterface
+    interface LinkFactory {
+
+        BackendLink create(BackendConnection connection);
+    }
+
+    private final String nodeAddress;
+    private final BackendConnection[] connections;
+
+    private volatile boolean closed;
+
+    BackendChannelPool(String nodeAddress, int size, LinkFactory linkFactory) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("pool size must be positive: " + size);
+        }
+        this.nodeAddress = nodeAddress;
+        this.connections = new BackendConnection[size];
+        for (int i = 0; i < size; i++) {
+            BackendConnection connection = new BackendConnection(nodeAddress, i);
+            connection.attach(linkFactory.create(connection));
+            connections[i] = connection;
+        }
+        for (BackendConnection connection : connections) {
+            connection.getLink().connect();
+        }
+    }
+
+    public String getNodeAddress() {
+        return nodeAddress;
+    }
+
+    public int size() {
+        return connections.length;
+    }
+
+    /**
+     * 是否已关闭，关闭后持有者应重新解析
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 为会话选择一条连接，不会阻塞
+     */
+    BackendConnection select(int sessionId) {
+        int size = connections.length;
+        int home = homeSlot(sessionId, size);
+        BackendConnection homeConnection = connections[home];
+        if (homeConnection.isAvailable()) {
+            return homeConnection;
+        }
+
+        BackendConnection fallback = null;
+        BackendConnection connecting = null;
+        for (int i = 0; i < size; i++) {
+            int slot = home + i;
+            if (slot >= size) {
+                slot -= size;
+            }
+            BackendConnection connection = connections[slot];
+            if (connection.isActive()) {
+                if (connection.isAvailable()) {
+                    return connection;
+                }
+                if (fallback == null || connection.getPendingBytes() < fallback.getPendingBytes()) {
+                    fallback = connection;
+                }
+            } else if (connecting == null && connection.isConnecting()) {
+                connecting = connection;
+            }
+        }
+        if (fallback != null) {
+            return fallback;
+        }
+        return connecting != null ? connecting : homeConnection;
+    }
+
+    /**
+     * 任意一条已连接的连接
+     *
+     * @return 连接，没有已连接的连接时返回 null
+     */
+    BackendConnection anyActive() {
+        for (BackendConnection connection : connections) {
+            if (connection.isActive()) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 遍历池中所有连接
+     */
+    void forEach(Consumer<BackendConnection> action) {
+        for (BackendConnection connection : connections) {
+            action.accept(connection);
+        }
+    }
+
+    /**
+     * 关闭池中所有连接，之后不再重连
+     */
+    void close() {
+        closed = true;
+        for (BackendConnection connection : connections) {
+            connection.getLink().close();
+        }
+    }
+
+    private static int homeSlot(int sessionId, int size) {
+        int h = sessionId * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & 0x7FFFFFFF) % size;
+    }
+
+    @Override
+    public String toString() {
+        return nodeAddress;
+    }
+}
@@ -0,0 +1,203 @@
+package org.markeb.gateway.backend;
+
+import org.markeb.net.gateway.backend.BackendLink;
+import org.markeb.net.metrics.BackendConnectionStats;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池中的一条后端连接
+ * <p>
+ * 底层为自动重连的 {@link BackendLink}，槽位在重连前后保持不变，统计跨重连累计。
+ * 记录该连接的收发统计和心跳健康状态，供连接选择和指标导出使用。
+ * 统计只做 {@link LongAdder} 累加，待写出字节数在读取时从出站缓冲区计算。
+ * </p>
+ */
+public class BackendConnection implements BackendConnectionStats {
+
+    private final String nodeAddress;
+    private final int slot;
+
+    private BackendLink link;
+
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * 连续读空闲（未收到任何数据）的次数，收到数据即清零
+     */
+    private volatile int missedHeartbeats;
+    private volatile long heartbeatLatencyMillis = -1;
+
+    BackendConnection(String nodeAddress, int slot) {
+        this.nodeAddress = nodeAddress;
+        this.slot = slot;
+    }
+
+    void attach(BackendLink link) {
+        this.link = link;
+    }
+
+    BackendLink getLink() {
+        return link;
+    }
+
+    @Override
+    public String getNodeAddress() {
+        return nodeAddress;
+    }
+
+    /**
+     * 在连接池中的槽位
+     */
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * 当前底层连接，未连接时返回 null
+     */
+    public Channel getChannel() {
+        return link.channel();
+    }
+
+    @Override
+    public boolean isActive() {
+        return link.isConnected();
+    }
+
+    /**
+     * 是否正在建立连接（此时写入会排队）
+     */
+    public boolean isConnecting() {
+        return link.isConnecting();
+    }
+
+    public boolean isWritable() {
+        Channel ch = link.channel();
+        return ch != null && ch.isWritable();
+    }
+
+    /**
+     * 连接建立期间排队的写入数
+     */
+    public int getQueuedWrites() {
+        return link.queuedWrites();
+    }
+
+    /**
+     * 心跳是否正常：最近一个读空闲周期内收到过数据
+     */
+    public boolean isHealthy() {
+        return missedHeartbeats == 0;
+    }
+
+    /**
+     * 是否可以承载新请求：连接活跃、可写且心跳正常
+     */
+    public boolean isAvailable() {
+        return isActive() && isWritable() && isHealthy();
+    }
+
+    /**
+     * 出站缓冲区中待写出的字节数
+     */
+    @Override
+    public long getPendingBytes() {
+        Channel ch = link.channel();
+        if (ch == null) {
+            return 0;
+        }
+        ChannelOutboundBuffer buffer = ch.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public int getMissedHeartbeats() {
+        return missedHeartbeats;
+    }
+
+    /**
+     * 最近一次心跳往返延迟（毫秒），未知时为 -1
+     */
+    @Override
+    public long getHeartbeatLatencyMillis() {
+        return heartbeatLatencyMillis;
+    }
+
+    /**
+     * 写入并刷新，未连接时由 {@link BackendLink} 排队或快速失败
+     */
+    CompletableFuture<Void> write(Object msg, int bodySize) {
+        recordSent(bodySize);
+        return link.write(msg);
+    }
+
+    void recordSent(int bodySize) {
+        messagesSent.increment();
+        if (bodySize > 0) {
+            bytesSent.add(bodySize);
+        }
+    }
+
+    void recordReceived(int bodySize) {
+        messagesReceived.increment();
+        if (bodySize > 0) {
+            bytesReceived.add(bodySize);
+        }
+        if (missedHeartbeats != 0) {
+            missedHeartbeats = 0;
+        }
+    }
+
+    /**
+     * 底层连接（重新）建立
+     */
+    void onConnected() {
+        missedHeartbeats = 0;
+    }
+
+    void recordHeartbeat(long latencyMillis) {
+        heartbeatLatencyMillis = latencyMillis;
+    }
+
+    /**
+     * 读空闲时调用
+     *
+     * @return 累计丢失的心跳次数
+     */
+    int missHeartbeat() {
+        return ++missedHeartbeats;
+    }
+
+    @Override
+    public String toString() {
+        return nodeAddress + "#" + slot;
+    }
+}
@@ -0,0 +1,274 @@
+package org.markeb.gateway.broadcast;
+
+import org.markeb.gateway.session.GatewaySession;
+import org.markeb.gateway.session.SessionManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.collection.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 广播服务
+ * <p>
+ * 同一条消息只编码一次：按客户端协议（length + msgId + seq + body）写入一个池化缓冲区，
+ * 每个目标连接拿到它的 {@code retainedDuplicate()}，不再逐连接经过编码器重新序列化。
+ * </p>
+ * <p>
+ * 目标连接按所属 EventLoop 分组，每个 EventLoop 只提交一个任务，在自己的线程内一次性写完并逐个刷新，
+ * 避免从外部线程逐连接 writeAndFlush 产生的大量跨线程任务。不可写的连接直接丢弃本次广播，防止慢客户端堆积内存。
+ * </p>
+ * <p>
+ * 支持三种目标：所有已认证会话、玩家ID列表、命名分组（公会/世界/房间）。
+ * 分组成员以 sessionId 为键存放在原始类型哈希表中，已断开的会话在下次广播时顺带剔除。
+ * </p>
+ */
+@Component
+public class BroadcastService {
+
+    private static final Logger log = LoggerFactory.getLogger(BroadcastService.class);
+
+    /**
+     * 客户端协议头长度：msgId(4) + seq(4)
+     */
+    private static final int CLIENT_HEADER_LENGTH = 8;
+
+    private final SessionManager sessionManager;
+
+    /**
+     * 分组名 -> 分组
+     */
+    private final Map<String, SessionGroup> groups = new ConcurrentHashMap<>();
+
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public BroadcastService(SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    // ============ 广播 ============
+
+    /**
+     * 广播给所有已认证的会话
+     *
+     * @return 投递的连接数
+     */
+    public int broadcastAll(int msgId, ByteBuf payload) {
+        Map<EventLoop, List<Channel>> targets = new IdentityHashMap<>();
+        sessionManager.forEachSession(session -> {
+            if (session.isAuthenticated()) {
+                addTarget(targets, session);
+            }
+        });
+        return dispatch(targets, msgId, payload);
+    }
+
+    /**
+     * 推送给指定玩家
+     *
+     * @return 投递的连接数
+     */
+    public int pushToPlayers(long[] playerIds, int msgId, ByteBuf payload) {
+        Map<EventLoop, List<Channel>> targets = new IdentityHashMap<>();
+        for (long playerId : playerIds) {
+            sessionManager.getSessionByPlayerId(playerId).ifPresent(session -> addTarget(targets, session));
+        }
+        return dispatch(targets, msgId, payload);
+    }
+
+    /**
+     * 广播给分组内的所有会话
+     *
+     * @return 投递的连接数，分组不存在时为 0
+     */
+    public int broadcastGroup(String group, int msgId, ByteBuf payload) {
+        SessionGroup sessionGroup = groups.get(group);
+        if (sessionGroup == null) {
+            return 0;
+        }
+        Map<EventLoop, List<Channel>> targets = new IdentityHashMap<>();
+        synchronized (sessionGroup) {
+            sessionGroup.members.values().removeIf(session -> !session.isActive());
+            for (GatewaySession session : sessionGroup.members.values()) {
+                addTarget(targets, session);
+            }
+        }
+        return dispatch(targets, msgId, payload);
+    }
+
+    // ============ 分组管理 ============
+
+    /**
+     * 加入分组
+     */
+    public void joinGroup(String group, GatewaySession session) {
+        SessionGroup sessionGroup = groups.computeIfAbsent(group, k -> new SessionGroup());
+        synchronized (sessionGroup) {
+            sessionGroup.members.put(session.getSessionId(), session);
+        }
+    }
+
+    /**
+     * 按玩家ID加入分组，玩家不在线时忽略
+     */
+    public void joinGroup(String group, long playerId) {
+        sessionManager.getSessionByPlayerId(playerId).ifPresent(session -> joinGroup(group, session));
+    }
+
+    /**
+     * 离开分组
+     */
+    public void leaveGroup(String group, int sessionId) {
+        SessionGroup sessionGroup = groups.get(group);
+        if (sessionGroup != null) {
+            synchronized (sessionGroup) {
+                sessionGroup.members.remove(sessionId);
+            }
+        }
+    }
+
+    /**
+     * 按玩家ID离开分组
+     */
+    public void leaveGroup(String group, long playerId) {
+        sessionManager.getSessionByPlayerId(playerId)
+                .ifPresent(session -> leaveGroup(group, session.getSessionId()));
+    }
+
+    /**
+     * 解散分组
+     */
+    public void removeGroup(String group) {
+        groups.remove(group);
+    }
+
+    /**
+     * 分组成员数（含尚未剔除的已断开会话）
+     */
+    public int groupSize(String group) {
+        SessionGroup sessionGroup = groups.get(group);
+        if (sessionGroup == null) {
+            return 0;
+        }
+        synchronized (sessionGroup) {
+            return sessionGroup.members.size();
+        }
+    }
+
+    // ============ 统计 ============
+
+    public long getBroadcasts() {
+        return broadcasts.sum();
+    }
+
+    public long getDeliveries() {
+        return deliveries.sum();
+    }
+
+    /**
+     * 因连接不可写而丢弃的投递数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // ============ 内部实现 ============
+
+    private static void addTarget(Map<EventLoop, List<Channel>> targets, GatewaySession session) {
+        Channel channel = session.getFrontendChannel();
+        if (channel != null && channel.isActive()) {
+            targets.computeIfAbsent(channel.eventLoop(), k -> new ArrayList<>()).add(channel);
+        }
+    }
+
+    /**
+     * 编码一次并分发到各 EventLoop
+     */
+    private int dispatch(Map<EventLoop, List<Channel>> targets, int msgId, ByteBuf payload) {
+        broadcasts.increment();
+        if (targets.isEmpty()) {
+            return 0;
+        }
+
+        ByteBuf frame = encode(msgId, payload);
+        int total = 0;
+        try {
+            for (Map.Entry<EventLoop, List<Channel>> entry : targets.entrySet()) {
+                List<Channel> channels = entry.getValue();
+                total += channels.size();
+                // 每个 EventLoop 任务持有一个引用，任务结束时释放
+                frame.retain();
+                EventLoop eventLoop = entry.getKey();
+                if (eventLoop.inEventLoop()) {
+                    writeAll(channels, frame);
+                } else {
+                    try {
+                        eventLoop.execute(() -> writeAll(channels, frame));
+                    } catch (RejectedExecutionException e) {
+                        // EventLoop 已关闭
+                        frame.release();
+                    }
+                }
+            }
+        } finally {
+            frame.release();
+        }
+        return total;
+    }
+
+    private void writeAll(List<Channel> channels, ByteBuf frame) {
+        try {
+            // 只刷新实际写入的连接，跳过的连接（不可写的慢客户端）不触发多余的 flush
+            Channel[] written = new Channel[channels.size()];
+            int count = 0;
+            for (Channel channel : channels) {
+                if (channel.isActive() && channel.isWritable()) {
+                    channel.write(frame.retainedDuplicate(), channel.voidPromise());
+                    written[count++] = channel;
+                } else {
+                    dropped.increment();
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                written[i].flush();
+            }
+            deliveries.add(count);
+        } catch (Exception e) {
+            log.error("Broadcast write failed", e);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf encode(int msgId, ByteBuf payload) {
+        int bodyLen = payload == null ? 0 : payload.readableBytes();
+        ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer(4 + CLIENT_HEADER_LENGTH + bodyLen);
+        frame.writeInt(CLIENT_HEADER_LENGTH + bodyLen);
+        frame.writeInt(msgId);
+        frame.writeInt(0);
+        if (bodyLen > 0) {
+            frame.writeBytes(payload, payload.readerIndex(), bodyLen);
+        }
+        return frame;
+    }
+
+    /**
+     * 分组成员，sessionId -> 会话，访问时对分组对象加锁
+     */
+    private static final class SessionGroup {
+        final IntObjectHashMap<GatewaySession> members = new IntObjectHashMap<>();
+    }
+}
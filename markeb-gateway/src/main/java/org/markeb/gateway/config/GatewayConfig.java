@@ -39,9 +39,59 @@ public class GatewayConfig {
     private Map<String, String> nodes = new HashMap<>();
 
     /**
-     * 默认路由策略
+     * 登录时选择节点的路由策略（{@code RouteStrategy.Type} 名称）
      */
-    private String routeStrategy = "ROUND_ROBIN";
+    private String routeStrategy = "LEAST_LOADED";
+
+    /**
+     * 负载探测间隔（毫秒），网关按此间隔向每个节点发送附带负载的心跳
+     */
+    private long loadProbeIntervalMillis = 2000;
+
+    /**
+     * 节点负载过期时间（毫秒），超过后该节点视为负载未知
+     */
+    private long loadStaleMillis = 10_000;
+
+    /**
+     * 后端请求超时（秒），超时未响应的 pending 请求会被丢弃
+     */
+    private int pendingTimeout = 30;
+
+    /**
+     * 零拷贝转发：只解析和改写协议头，消息体不复制
+     */
+    private boolean zeroCopyForward = true;
+
+    /**
+     * 限流配置
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    /**
+     * 每个后端节点的连接数
+     */
+    private int backendPoolSize = 4;
+
+    /**
+     * 后端连接出站缓冲区高水位（字节），超过后连接视为饱和，新请求优先选择其他连接
+     */
+    private int backendWriteBufferHighWaterMark = 256 * 1024;
+
+    /**
+     * 后端连接建立期间最多排队的请求数（每条连接），超过后新请求立即失败
+     */
+    private int backendMaxQueuedWrites = 1024;
+
+    /**
+     * 后端首次重连延迟（毫秒），之后每次失败翻倍
+     */
+    private long backendReconnectInitialDelayMillis = 200;
+
+    /**
+     * 后端最大重连延迟（毫秒）
+     */
+    private long backendReconnectMaxDelayMillis = 30_000;
 
     public int getPort() {
         return port;
@@ -90,5 +140,207 @@ public class GatewayConfig {
     public void setRouteStrategy(String routeStrategy) {
         this.routeStrategy = routeStrategy;
     }
-}
 
+    public long getLoadProbeIntervalMillis() {
+        return loadProbeIntervalMillis;
+    }
+
+    public void setLoadProbeIntervalMillis(long loadProbeIntervalMillis) {
+        this.loadProbeIntervalMillis = loadProbeIntervalMillis;
+    }
+
+    public long getLoadStaleMillis() {
+        return loadStaleMillis;
+    }
+
+    public void setLoadStaleMillis(long loadStaleMillis) {
+        this.loadStaleMillis = loadStaleMillis;
+    }
+
+    public int getPendingTimeout() {
+        return pendingTimeout;
+    }
+
+    public void setPendingTimeout(int pendingTimeout) {
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    public int getBackendPoolSize() {
+        return backendPoolSize;
+    }
+
+    public void setBackendPoolSize(int backendPoolSize) {
+        this.backendPoolSize = backendPoolSize;
+    }
+
+    public int getBackendWriteBufferHighWaterMark() {
+        return backendWriteBufferHighWaterMark;
+    }
+
+    public void setBackendWriteBufferHighWaterMark(int backendWriteBufferHighWaterMark) {
+        this.backendWriteBufferHighWaterMark = backendWriteBufferHighWaterMark;
+    }
+
+    public int getBackendMaxQueuedWrites() {
+        return backendMaxQueuedWrites;
+    }
+
+    public void setBackendMaxQueuedWrites(int backendMaxQueuedWrites) {
+        this.backendMaxQueuedWrites = backendMaxQueuedWrites;
+    }
+
+    public long getBackendReconnectInitialDelayMillis() {
+        return backendReconnectInitialDelayMillis;
+    }
+
+    public void setBackendReconnectInitialDelayMillis(long backendReconnectInitialDelayMillis) {
+        this.backendReconnectInitialDelayMillis = backendReconnectInitialDelayMillis;
+    }
+
+    public long getBackendReconnectMaxDelayMillis() {
+        return backendReconnectMaxDelayMillis;
+    }
+
+    public void setBackendReconnectMaxDelayMillis(long backendReconnectMaxDelayMillis) {
+        this.backendReconnectMaxDelayMillis = backendReconnectMaxDelayMillis;
+    }
+
+    public boolean isZeroCopyForward() {
+        return zeroCopyForward;
+    }
+
+    public void setZeroCopyForward(boolean zeroCopyForward) {
+        this.zeroCopyForward = zeroCopyForward;
+    }
+
+    public RateLimitConfig getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimitConfig rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * 限流配置
+     */
+    public static class RateLimitConfig {
+
+        /**
+         * 是否启用限流
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单连接每秒令牌数
+         */
+        private double sessionPermitsPerSecond = 50;
+
+        /**
+         * 单连接桶容量（突发量）
+         */
+        private double sessionBurst = 50;
+
+        /**
+         * 单 IP 每秒令牌数（该 IP 所有连接合计），0 表示不按 IP 限流
+         */
+        private double ipPermitsPerSecond = 500;
+
+        /**
+         * 单 IP 桶容量
+         */
+        private double ipBurst = 1000;
+
+        /**
+         * 最多跟踪的 IP 数，超出后淘汰最久未访问的
+         */
+        private int ipMaxEntries = 100_000;
+
+        /**
+         * 未单独配置的消息消耗的令牌数
+         */
+        private int defaultCost = 1;
+
+        /**
+         * 按消息ID配置的令牌消耗（msgId -> cost），0 表示该消息不限流
+         */
+        private Map<Integer, Integer> messageCosts = new HashMap<>();
+
+        /**
+         * 连续超限多少次后断开连接，0 表示只丢弃消息不断开
+         */
+        private int maxViolations = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSessionPermitsPerSecond() {
+            return sessionPermitsPerSecond;
+        }
+
+        public void setSessionPermitsPerSecond(double sessionPermitsPerSecond) {
+            this.sessionPermitsPerSecond = sessionPermitsPerSecond;
+        }
+
+        public double getSessionBurst() {
+            return sessionBurst;
+        }
+
+        public void setSessionBurst(double sessionBurst) {
+            this.sessionBurst = sessionBurst;
+        }
+
+        public double getIpPermitsPerSecond() {
+            return ipPermitsPerSecond;
+        }
+
+        public void setIpPermitsPerSecond(double ipPermitsPerSecond) {
+            this.ipPermitsPerSecond = ipPermitsPerSecond;
+        }
+
+        public double getIpBurst() {
+            return ipBurst;
+        }
+
+        public void setIpBurst(double ipBurst) {
+            this.ipBurst = ipBurst;
+        }
+
+        public int getIpMaxEntries() {
+            return ipMaxEntries;
+        }
+
+        public void setIpMaxEntries(int ipMaxEntries) {
+            this.ipMaxEntries = ipMaxEntries;
+        }
+
+        public int getDefaultCost() {
+            return defaultCost;
+        }
+
+        public void setDefaultCost(int defaultCost) {
+            this.defaultCost = defaultCost;
+        }
+
+        public Map<Integer, Integer> getMessageCosts() {
+            return messageCosts;
+        }
+
+        public void setMessageCosts(Map<Integer, Integer> messageCosts) {
+            this.messageCosts = messageCosts;
+        }
+
+        public int getMaxViolations() {
+            return maxViolations;
+        }
+
+        public void setMaxViolations(int maxViolations) {
+            this.maxViolations = maxViolations;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package org.markeb.gateway.handler;
 
 import org.markeb.gateway.backend.BackendChannelManager;
+import org.markeb.gateway.ratelimit.RateLimitHandler;
+import org.markeb.gateway.ratelimit.RateLimiter;
 import org.markeb.gateway.route.NodeRouter;
 import org.markeb.gateway.session.SessionManager;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.idle.SharedIdleStateHandler;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
 
@@ -20,27 +24,68 @@ public class FrontendChannelInitializer extends ChannelInitializer<SocketChannel
     private final BackendChannelManager backendChannelManager;
     private final NodeRouter nodeRouter;
     private final int readIdleTimeout;
+    private final NetworkInstrumentation instrumentation;
+    private final boolean zeroCopyForward;
+    private final RateLimiter rateLimiter;
 
     public FrontendChannelInitializer(SessionManager sessionManager,
                                        BackendChannelManager backendChannelManager,
                                        NodeRouter nodeRouter,
                                        int readIdleTimeout) {
+        this(sessionManager, backendChannelManager, nodeRouter, readIdleTimeout, null);
+    }
+
+    public FrontendChannelInitializer(SessionManager sessionManager,
+                                       BackendChannelManager backendChannelManager,
+                                       NodeRouter nodeRouter,
+                                       int readIdleTimeout,
+                                       NetworkInstrumentation instrumentation) {
+        this(sessionManager, backendChannelManager, nodeRouter, readIdleTimeout, instrumentation, false, null);
+    }
+
+    /**
+     * @param zeroCopyForward 零拷贝转发：只解析协议头，消息体不复制
+     * @param rateLimiter     限流策略，为 null 时不限流
+     */
+    public FrontendChannelInitializer(SessionManager sessionManager,
+                                      BackendChannelManager backendChannelManager,
+                                      NodeRouter nodeRouter,
+                                      int readIdleTimeout,
+                                      NetworkInstrumentation instrumentation,
+                                      boolean zeroCopyForward,
+                                      RateLimiter rateLimiter) {
         this.sessionManager = sessionManager;
         this.backendChannelManager = backendChannelManager;
         this.nodeRouter = nodeRouter;
         this.readIdleTimeout = readIdleTimeout;
+        this.instrumentation = instrumentation;
+        this.zeroCopyForward = zeroCopyForward;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
-        ch.pipeline()
+        ChannelPipeline pipeline = ch.pipeline();
+        // 网络埋点（字节层）
+        if (instrumentation != null) {
+            pipeline.addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+        }
+        pipeline
                 // 空闲检测
-                .addLast(new IdleStateHandler(readIdleTimeout, 0, 0, TimeUnit.SECONDS))
+                .addLast(new SharedIdleStateHandler(readIdleTimeout, 0, 0, TimeUnit.SECONDS))
                 // 编解码器（前端协议，不带 sessionId）
-                .addLast(new GatewayDecoder(true))
-                .addLast(new GatewayEncoder(true))
-                // 业务处理器
-                .addLast(new FrontendHandler(sessionManager, backendChannelManager, nodeRouter));
+                .addLast(new GatewayDecoder(true, zeroCopyForward))
+                .addLast(new GatewayEncoder(true));
+        // 网络埋点（消息层）
+        if (instrumentation != null) {
+            pipeline.addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+        }
+        // 限流
+        if (rateLimiter != null && rateLimiter.isEnabled()) {
+            pipeline.addLast(new RateLimitHandler(rateLimiter));
+        }
+        // 业务处理器
+        pipeline.addLast(new FrontendHandler(sessionManager, backendChannelManager, nodeRouter));
     }
 }
 
@@ -1,8 +1,8 @@
 package org.markeb.gateway.handler;
 
 import org.markeb.gateway.backend.BackendChannelManager;
+import org.markeb.gateway.route.NodeRoute;
 import org.markeb.gateway.route.NodeRouter;
-import org.markeb.gateway.route.strategy.RouteStrategy;
 import org.markeb.gateway.session.GatewaySession;
 import org.markeb.gateway.session.SessionManager;
 import org.markeb.net.gateway.GatewayPacket;
@@ -72,13 +72,7 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
             return;
         }
 
-        // 速率限制检查
-        if (!session.tryConsume()) {
-            log.warn("Rate limit exceeded for session {}, dropping msgId {}", session.getSessionId(), msg.getMsgId());
-            // 可选：如果违规太频繁，直接断开连接
-            // ctx.close();
-            return;
-        }
+        // 速率限制由前置的 RateLimitHandler 完成
 
         // 收到任何消息都重置丢失计数
         missedHeartbeats.set(0);
@@ -140,11 +134,11 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
         session.setState(GatewaySession.SessionState.AUTHENTICATING);
 
         // 选择节点
-        nodeRouter.selectNode(session, RouteStrategy.Type.ROUND_ROBIN)
+        nodeRouter.selectNode(session)
                 .ifPresentOrElse(
-                        nodeAddress -> {
+                        route -> {
                             // 转发登录请求到后端
-                            backendChannelManager.forward(nodeAddress, session, packet)
+                            backendChannelManager.forward(route.getBackend(), session, packet)
                                     .whenComplete((v, ex) -> {
                                         if (ex != null) {
                                             log.error("Forward login failed for session {}",
@@ -161,24 +155,21 @@ public class FrontendHandler extends SimpleChannelInboundHandler<GatewayPacket>
     }
 
     /**
-     * 路由消息到后端节点
+     * 路由消息到后端节点，使用会话缓存的路由
      */
     private void routeToBackend(GatewayPacket packet) {
-        nodeRouter.getNodeAddress(session.getNodeId())
-                .ifPresentOrElse(
-                        nodeAddress -> {
-                            backendChannelManager.forward(nodeAddress, session, packet)
-                                    .exceptionally(ex -> {
-                                        log.error("Forward failed for session {} msgId {}",
-                                                session.getSessionId(), packet.getMsgId(), ex);
-                                        return null;
-                                    });
-                        },
-                        () -> {
-                            log.error("Node {} not found for session {}",
-                                    session.getNodeId(), session.getSessionId());
-                        }
-                );
+        NodeRoute route = nodeRouter.resolve(session);
+        if (route == null) {
+            log.error("Node {} not found for session {}",
+                    session.getNodeId(), session.getSessionId());
+            return;
+        }
+        backendChannelManager.forward(route.getBackend(), session, packet)
+                .exceptionally(ex -> {
+                    log.error("Forward failed for session {} msgId {}",
+                            session.getSessionId(), packet.getMsgId(), ex);
+                    return null;
+                });
     }
 
     @Override
@@ -0,0 +1,89 @@
+package org.markeb.gateway.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按来源 IP 聚合的限流器
+ * <p>
+ * 同一 IP 的所有连接共用一个 {@link TokenBucket}，防止单个 IP 开大量连接绕过单连接限流。
+ * 桶存放在容量有限的 LRU 中，超出容量时淘汰最久未访问的 IP，内存不随攻击来源数无限增长。
+ * 按 IP 哈希分段加锁，不同 EventLoop 上的连接很少竞争同一把锁。
+ * </p>
+ */
+public class IpRateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final Stripe[] stripes;
+
+    /**
+     * @param permitsPerSecond 每个 IP 每秒补充的令牌数
+     * @param burst            每个 IP 的桶容量
+     * @param maxEntries       最多跟踪的 IP 数
+     */
+    public IpRateLimiter(double permitsPerSecond, double burst, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.stripes = new Stripe[STRIPES];
+        int perStripe = Math.max(1, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * 尝试为指定 IP 消耗令牌
+     */
+    public boolean tryAcquire(String ip, int cost, long nowNanos) {
+        if (cost <= 0) {
+            return true;
+        }
+        int h = ip.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            TokenBucket bucket = stripe.get(ip);
+            if (bucket == null) {
+                bucket = new TokenBucket(permitsPerSecond, burst, nowNanos);
+                stripe.put(ip, bucket);
+            }
+            return bucket.tryConsume(cost, nowNanos);
+        }
+    }
+
+    /**
+     * 当前跟踪的 IP 数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 按访问顺序淘汰的 LRU 分段
+     */
+    private static final class Stripe extends LinkedHashMap<String, TokenBucket> {
+
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(Math.min(maxEntries, 1024), 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.markeb.gateway.ratelimit;
+
+import org.markeb.net.gateway.GatewayPacket;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * 前端连接限流处理器
+ * <p>
+ * 放在解码器之后、业务处理器之前。持有本连接的 {@link TokenBucket}，只在 EventLoop 内访问，
+ * 每条消息只做一次 {@link System#nanoTime()} 和几次原始类型运算；同时按来源 IP 做聚合限流。
+ * 超限的消息直接释放丢弃，连续超限达到阈值时断开连接。
+ * </p>
+ * <p>
+ * 本处理器持有连接状态，不可共享，每个连接需要新建实例。
+ * </p>
+ */
+public class RateLimitHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitHandler.class);
+
+    private final RateLimiter rateLimiter;
+
+    private TokenBucket bucket;
+    private String ip;
+    private int violations;
+
+    public RateLimitHandler(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        bucket = rateLimiter.newSessionBucket(System.nanoTime());
+        SocketAddress remote = ctx.channel().remoteAddress();
+        if (remote instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            ip = inet.getAddress().getHostAddress();
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof GatewayPacket packet) || bucket == null) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        int cost = rateLimiter.costOf(packet.getMsgId());
+        if (cost <= 0) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (bucket.tryConsume(cost, now)) {
+            if (rateLimiter.tryAcquireIp(ip, cost, now)) {
+                violations = 0;
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            // 被 IP 限流拒绝的消息不占用本连接的配额
+            bucket.refund(cost);
+        }
+
+        ReferenceCountUtil.release(msg);
+        rateLimiter.recordRejected();
+        violations++;
+        int maxViolations = rateLimiter.getMaxViolations();
+        if (maxViolations > 0 && violations >= maxViolations) {
+            log.warn("Rate limit exceeded {} times in a row from {}, closing", violations, ctx.channel().remoteAddress());
+            rateLimiter.recordDisconnected();
+            ctx.close();
+        } else if (log.isDebugEnabled()) {
+            log.debug("Rate limit exceeded from {}, dropping msgId {}", ctx.channel().remoteAddress(), packet.getMsgId());
+        }
+    }
+}
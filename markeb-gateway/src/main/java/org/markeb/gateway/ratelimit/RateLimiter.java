@@ -0,0 +1,107 @@
+package org.markeb.gateway.ratelimit;
+
+import org.markeb.gateway.config.GatewayConfig;
+import io.netty.util.collection.IntObjectHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关限流策略
+ * <p>
+ * 由 {@link GatewayConfig.RateLimitConfig} 构建：单连接令牌桶 + 按 IP 聚合的令牌桶，每种消息按配置消耗不同数量的令牌。
+ * 单连接的桶由 {@link RateLimitHandler} 持有并在 EventLoop 内访问，本类只保存共享的策略和 IP 桶。
+ * </p>
+ */
+@Component
+public class RateLimiter {
+
+    @Autowired
+    private GatewayConfig gatewayConfig;
+
+    private GatewayConfig.RateLimitConfig config;
+    private IntObjectHashMap<Integer> messageCosts;
+    private IpRateLimiter ipLimiter;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        config = gatewayConfig.getRateLimit();
+        messageCosts = new IntObjectHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : config.getMessageCosts().entrySet()) {
+            messageCosts.put(entry.getKey().intValue(), entry.getValue());
+        }
+        if (config.getIpPermitsPerSecond() > 0) {
+            ipLimiter = new IpRateLimiter(config.getIpPermitsPerSecond(), config.getIpBurst(), config.getIpMaxEntries());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 新建单连接令牌桶
+     */
+    public TokenBucket newSessionBucket(long nowNanos) {
+        return new TokenBucket(config.getSessionPermitsPerSecond(), config.getSessionBurst(), nowNanos);
+    }
+
+    /**
+     * 消息消耗的令牌数
+     */
+    public int costOf(int msgId) {
+        Integer cost = messageCosts.get(msgId);
+        return cost != null ? cost : config.getDefaultCost();
+    }
+
+    /**
+     * 按 IP 聚合限流
+     *
+     * @param ip 来源 IP，null 表示未知（不限流）
+     */
+    public boolean tryAcquireIp(String ip, int cost, long nowNanos) {
+        return ipLimiter == null || ip == null || ipLimiter.tryAcquire(ip, cost, nowNanos);
+    }
+
+    /**
+     * 连续超限多少次后断开，0 表示不断开
+     */
+    public int getMaxViolations() {
+        return config.getMaxViolations();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordDisconnected() {
+        disconnected.increment();
+    }
+
+    /**
+     * 被限流丢弃的消息数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 因持续超限被断开的连接数
+     */
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    /**
+     * 当前跟踪的 IP 数
+     */
+    public int getTrackedIps() {
+        return ipLimiter == null ? 0 : ipLimiter.size();
+    }
+}
@@ -0,0 +1,72 @@
+package org.markeb.gateway.ratelimit;
+
+/**
+ * 令牌桶
+ * <p>
+ * 状态全部是原始类型字段，按调用方传入的 {@link System#nanoTime()} 惰性补充令牌，不分配对象、不使用原子操作。
+ * 非线程安全：单连接的桶只在所属 EventLoop 上访问，共享的桶由调用方加锁。
+ * </p>
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量（允许的突发量）
+     * @param nowNanos         当前时间（{@link System#nanoTime()}）
+     */
+    public TokenBucket(double permitsPerSecond, double burst, long nowNanos) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive: " + burst);
+        }
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerSecond / 1_000_000_000d;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试消耗令牌
+     *
+     * @param cost     消耗的令牌数，0 表示不限流
+     * @param nowNanos 当前时间（{@link System#nanoTime()}）
+     * @return 令牌足够时返回 true 并扣减
+     */
+    public boolean tryConsume(int cost, long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= cost) {
+            tokens -= cost;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 退还已扣减的令牌，不超过桶容量
+     * <p>
+     * 用于先扣本桶、后续的聚合限流又拒绝时撤销本次扣减。
+     * </p>
+     */
+    public void refund(int cost) {
+        tokens = Math.min(capacity, tokens + cost);
+    }
+
+    /**
+     * 当前剩余令牌数（不补充）
+     */
+    public double available() {
+        return tokens;
+    }
+}
@@ -0,0 +1,117 @@
+package org.markeb.gateway.route;
+
+import org.markeb.gateway.config.GatewayConfig;
+import org.markeb.net.heartbeat.NodeLoad;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 节点负载记录
+ * <p>
+ * 节点在心跳响应中上报 {@link NodeLoad}，这里按节点地址取其负载分数（{@link NodeLoad#score()}）并做指数平滑，
+ * 避免单次 GC 或瞬时积压造成选择抖动。分数越小越空闲，大致以"一个满载 CPU"为 1：
+ * <ul>
+ *   <li>CPU：千分比 / 1000</li>
+ *   <li>调度延迟：每 50ms 记 1</li>
+ *   <li>邮箱积压：每 1000 条记 1</li>
+ *   <li>在线 Actor：每 10000 个记 1</li>
+ * </ul>
+ * 两次上报之间分配给节点的新会话按在线 Actor 计入分数，防止所有登录在下次上报前涌向同一个节点；
+ * 收到新的上报后清零。超过过期时间没有上报的节点视为负载未知。
+ * </p>
+ */
+@Component
+public class NodeLoadTracker {
+
+    /**
+     * 平滑系数，新样本所占比重
+     */
+    private static final double SMOOTHING = 0.3;
+
+    private final Map<String, LoadState> loads = new ConcurrentHashMap<>();
+
+    @Autowired
+    private GatewayConfig gatewayConfig;
+
+    private long staleNanos;
+
+    @PostConstruct
+    public void init() {
+        staleNanos = TimeUnit.MILLISECONDS.toNanos(gatewayConfig.getLoadStaleMillis());
+    }
+
+    /**
+     * 记录节点上报的负载
+     *
+     * @param address 节点地址 (host:port)
+     */
+    public void record(String address, NodeLoad load) {
+        loads.computeIfAbsent(address, k -> new LoadState())
+                .update(load.score(), load, System.nanoTime(), staleNanos);
+    }
+
+    /**
+     * 会话已分配到节点（尚未体现在节点上报中）
+     */
+    public void onAssigned(String address) {
+        LoadState state = loads.get(address);
+        if (state != null) {
+            state.assigned.incrementAndGet();
+        }
+    }
+
+    /**
+     * 节点当前负载分数
+     *
+     * @return 分数，负载未知或已过期时返回 {@link Double#NaN}
+     */
+    public double score(String address) {
+        LoadState state = loads.get(address);
+        if (state == null || System.nanoTime() - state.updatedNanos > staleNanos) {
+            return Double.NaN;
+        }
+        return state.smoothed + state.assigned.get() * NodeLoad.actorScore();
+    }
+
+    /**
+     * 最近一次上报的原始负载
+     *
+     * @return 负载，从未上报时返回 null
+     */
+    public NodeLoad lastLoad(String address) {
+        LoadState state = loads.get(address);
+        return state != null ? state.last : null;
+    }
+
+    /**
+     * 移除节点负载记录（节点下线时调用）
+     */
+    public void remove(String address) {
+        loads.remove(address);
+    }
+
+    private static final class LoadState {
+        volatile double smoothed;
+        volatile long updatedNanos;
+        volatile NodeLoad last;
+        final AtomicInteger assigned = new AtomicInteger();
+
+        synchronized void update(double score, NodeLoad load, long now, long staleNanos) {
+            // 首次上报或上次数据已过期时不与旧值平滑
+            if (last == null || now - updatedNanos > staleNanos) {
+                smoothed = score;
+            } else {
+                smoothed = smoothed + SMOOTHING * (score - smoothed);
+            }
+            last = load;
+            assigned.set(0);
+            updatedNanos = now;
+        }
+    }
+}
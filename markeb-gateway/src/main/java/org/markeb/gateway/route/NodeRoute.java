@@ -0,0 +1,59 @@
+package org.markeb.gateway.route;
+
+import org.markeb.gateway.backend.BackendChannelPool;
+
+/**
+ * 节点路由
+ * <p>
+ * 节点ID、地址和已解析的后端连接池，不可变。会话缓存自己的路由，转发时直接使用其中的连接池。
+ * 节点从路由表下线、地址变化或连接池关闭后路由失效，会话下次转发时重新解析。
+ * </p>
+ */
+public final class NodeRoute {
+
+    private final String nodeId;
+    private final String address;
+    private final BackendChannelPool backend;
+
+    /**
+     * 已被新的路由表淘汰
+     */
+    private volatile boolean retired;
+
+    NodeRoute(String nodeId, String address, BackendChannelPool backend) {
+        this.nodeId = nodeId;
+        this.address = address;
+        this.backend = backend;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 节点地址 (host:port)
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    public BackendChannelPool getBackend() {
+        return backend;
+    }
+
+    /**
+     * 路由是否仍然有效
+     */
+    public boolean isActive() {
+        return !retired && !backend.isClosed();
+    }
+
+    void retire() {
+        retired = true;
+    }
+
+    @Override
+    public String toString() {
+        return nodeId + "->" + address;
+    }
+}
@@ -1,8 +1,13 @@
 package org.markeb.gateway.route;
 
+import org.markeb.gateway.backend.BackendChannelManager;
+import org.markeb.gateway.backend.BackendChannelPool;
+import org.markeb.gateway.config.GatewayConfig;
 import org.markeb.gateway.route.strategy.RouteStrategy;
 import org.markeb.gateway.route.strategy.RouteStrategyFactory;
 import org.markeb.gateway.session.GatewaySession;
+import org.markeb.service.registry.ServiceChangeListener;
+import org.markeb.service.registry.ServiceDiscovery;
 import org.markeb.service.registry.ServiceInstance;
 import org.markeb.service.registry.ServiceRegistry;
 import org.slf4j.Logger;
@@ -10,15 +15,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 节点路由器
  * 负责将请求路由到合适的游戏节点
  * 使用策略模式支持多种负载均衡策略
+ * <p>
+ * 路由信息保存在不可变的 {@link RoutingTable} 快照中，只在 {@link ServiceDiscovery#subscribe} 的变更事件
+ * 或静态节点变化时重建并原子替换。每个路由持有预先解析好的后端连接池，
+ * 转发路径只读一次 volatile 快照和一次 Map，不再查询注册中心、也不再拼接地址字符串。
+ * </p>
  */
 @Component
 public class NodeRouter {
@@ -27,28 +43,86 @@ public class NodeRouter {
 
     private static final String NODE_SERVICE_NAME = "markeb-node";
 
+    @Autowired(required = false)
+    private ServiceDiscovery serviceDiscovery;
+
     @Autowired(required = false)
     private ServiceRegistry serviceRegistry;
 
     @Autowired
     private RouteStrategyFactory strategyFactory;
 
+    @Autowired
+    private BackendChannelManager backendChannelManager;
+
+    @Autowired
+    private GatewayConfig gatewayConfig;
+
+    /**
+     * 登录时使用的路由策略，为 null 时使用默认策略
+     */
+    private RouteStrategy.Type loginStrategy;
+
     /**
      * 静态节点配置（当没有服务注册时使用）
      */
     private final Map<String, String> staticNodes = new ConcurrentHashMap<>();
 
+    /**
+     * 注册中心最近一次推送的节点列表，只在持有 this 锁时修改
+     */
+    private List<ServiceInstance> discoveredNodes = List.of();
+
+    /**
+     * 当前路由表快照
+     */
+    private volatile RoutingTable routingTable = RoutingTable.EMPTY;
+
+    private final ServiceChangeListener changeListener = this::onNodesChanged;
+
+    @PostConstruct
+    public void init() {
+        try {
+            loginStrategy = RouteStrategy.Type.valueOf(gatewayConfig.getRouteStrategy());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown route strategy {}, use default", gatewayConfig.getRouteStrategy());
+            loginStrategy = null;
+        }
+        if (serviceDiscovery != null) {
+            onNodesChanged(NODE_SERVICE_NAME, serviceDiscovery.getInstances(NODE_SERVICE_NAME));
+            serviceDiscovery.subscribe(NODE_SERVICE_NAME, changeListener);
+        } else if (serviceRegistry != null) {
+            // 没有服务发现时只能在启动时加载一次
+            log.warn("No ServiceDiscovery available, node list of {} will not be watched", NODE_SERVICE_NAME);
+            onNodesChanged(NODE_SERVICE_NAME, serviceRegistry.getInstances(NODE_SERVICE_NAME));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (serviceDiscovery != null) {
+            serviceDiscovery.unsubscribe(NODE_SERVICE_NAME, changeListener);
+        }
+    }
+
+    /**
+     * 使用配置的路由策略（{@code markeb.gateway.route-strategy}）为会话选择节点
+     */
+    public Optional<NodeRoute> selectNode(GatewaySession session) {
+        return selectNode(session, loginStrategy);
+    }
+
     /**
      * 为会话选择节点
      *
      * @param session      网关会话
      * @param strategyType 路由策略类型
-     * @return 节点地址 (host:port)
+     * @return 节点路由，选中后缓存到会话
      */
-    public Optional<String> selectNode(GatewaySession session, RouteStrategy.Type strategyType) {
+    public Optional<NodeRoute> selectNode(GatewaySession session, RouteStrategy.Type strategyType) {
         // 如果会话已绑定节点，直接返回
         if (session.getNodeId() != null) {
-            return getNodeAddress(session.getNodeId());
+            return Optional.ofNullable(resolve(session));
         }
 
         // 获取路由策略
@@ -58,78 +132,69 @@ public class NodeRouter {
             return Optional.empty();
         }
 
-        // 获取可用节点列表
-        List<ServiceInstance> nodes = getAvailableNodes();
-        if (nodes.isEmpty()) {
-            // 尝试使用静态配置
-            if (!staticNodes.isEmpty()) {
-                return selectFromStaticNodes(session, strategy);
-            }
+        RoutingTable table = routingTable;
+        String nodeId;
+        List<ServiceInstance> nodes = table.instances();
+        if (!nodes.isEmpty()) {
+            // 使用策略选择节点
+            ServiceInstance selected = strategy.select(nodes, session);
+            nodeId = selected != null ? selected.getInstanceId() : null;
+        } else if (!table.staticNodeIds().isEmpty()) {
+            // 使用静态配置
+            nodeId = strategy.selectFromNodeIds(table.staticNodeIds(), session);
+        } else {
             log.warn("No available nodes for routing");
             return Optional.empty();
         }
 
-        // 使用策略选择节点
-        ServiceInstance selected = strategy.select(nodes, session);
-        if (selected != null) {
-            String nodeId = selected.getInstanceId();
-            session.setNodeId(nodeId);
-            log.debug("Selected node {} using strategy {} for session {}",
-                    nodeId, strategy.getType(), session.getSessionId());
-            return Optional.of(selected.getHost() + ":" + selected.getPort());
+        NodeRoute route = nodeId != null ? table.get(nodeId) : null;
+        if (route == null) {
+            return Optional.empty();
         }
-
-        return Optional.empty();
+        session.setNodeId(nodeId);
+        session.setRoute(route);
+        log.debug("Selected node {} using strategy {} for session {}",
+                nodeId, strategy.getType(), session.getSessionId());
+        return Optional.of(route);
     }
 
     /**
-     * 获取指定节点的地址
+     * 解析会话绑定节点的路由
+     * <p>
+     * 优先使用会话缓存的路由；缓存失效时从当前快照查找并重新缓存。
+     * </p>
+     *
+     * @return 节点路由，会话未绑定节点或节点已下线时返回 null
      */
-    public Optional<String> getNodeAddress(String nodeId) {
-        // 先从服务注册中心查找
-        if (serviceRegistry != null) {
-            List<ServiceInstance> instances = serviceRegistry.getInstances(NODE_SERVICE_NAME);
-            for (ServiceInstance instance : instances) {
-                if (nodeId.equals(instance.getInstanceId())) {
-                    return Optional.of(instance.getHost() + ":" + instance.getPort());
-                }
-            }
+    public NodeRoute resolve(GatewaySession session) {
+        NodeRoute route = session.getRoute();
+        if (route != null && route.isActive()) {
+            return route;
         }
-
-        // 从静态配置查找
-        String address = staticNodes.get(nodeId);
-        return Optional.ofNullable(address);
+        String nodeId = session.getNodeId();
+        if (nodeId == null) {
+            return null;
+        }
+        route = routingTable.get(nodeId);
+        if (route != null) {
+            session.setRoute(route);
+        }
+        return route;
     }
 
     /**
-     * 获取可用节点列表
+     * 获取指定节点的地址
      */
-    private List<ServiceInstance> getAvailableNodes() {
-        if (serviceRegistry == null) {
-            return List.of();
-        }
-        return serviceRegistry.getInstances(NODE_SERVICE_NAME);
+    public Optional<String> getNodeAddress(String nodeId) {
+        NodeRoute route = routingTable.get(nodeId);
+        return route != null ? Optional.of(route.getAddress()) : Optional.empty();
     }
 
     /**
-     * 从静态配置选择节点
+     * 当前路由表中的节点数
      */
-    private Optional<String> selectFromStaticNodes(GatewaySession session, RouteStrategy strategy) {
-        if (staticNodes.isEmpty()) {
-            return Optional.empty();
-        }
-
-        List<String> nodeIds = List.copyOf(staticNodes.keySet());
-        String selectedId = strategy.selectFromNodeIds(nodeIds, session);
-
-        if (selectedId != null) {
-            session.setNodeId(selectedId);
-            log.debug("Selected static node {} using strategy {} for session {}",
-                    selectedId, strategy.getType(), session.getSessionId());
-            return Optional.ofNullable(staticNodes.get(selectedId));
-        }
-
-        return Optional.empty();
+    public int getRouteCount() {
+        return routingTable.size();
     }
 
     /**
@@ -137,6 +202,7 @@ public class NodeRouter {
      */
     public void addStaticNode(String nodeId, String address) {
         staticNodes.put(nodeId, address);
+        rebuild();
         log.info("Added static node: {} -> {}", nodeId, address);
     }
 
@@ -145,6 +211,7 @@ public class NodeRouter {
      */
     public void removeStaticNode(String nodeId) {
         staticNodes.remove(nodeId);
+        rebuild();
         log.info("Removed static node: {}", nodeId);
     }
 
@@ -154,4 +221,82 @@ public class NodeRouter {
     public Map<String, String> getStaticNodes() {
         return Map.copyOf(staticNodes);
     }
+
+    /**
+     * 注册中心推送的节点变更
+     */
+    private synchronized void onNodesChanged(String serviceName, List<ServiceInstance> instances) {
+        discoveredNodes = instances == null ? List.of() : List.copyOf(instances);
+        rebuild();
+        log.info("Nodes of {} changed, {} instances, {} routes", serviceName,
+                discoveredNodes.size(), routingTable.size());
+    }
+
+    /**
+     * 重建路由表并原子替换
+     * <p>
+     * 节点ID和地址都没变的路由原样复用，缓存了它的会话不受影响；
+     * 被淘汰的路由标记失效，不再被任何路由引用的地址关闭其连接池。
+     * </p>
+     */
+    private synchronized void rebuild() {
+        RoutingTable old = routingTable;
+        Map<String, NodeRoute> routes = new HashMap<>();
+        List<ServiceInstance> available = new ArrayList<>();
+        List<String> staticNodeIds = new ArrayList<>();
+
+        for (ServiceInstance instance : discoveredNodes) {
+            if (!instance.isHealthy() || !instance.isEnabled()) {
+                continue;
+            }
+            NodeRoute route = route(old, instance.getInstanceId(), instance.getAddress());
+            if (route != null) {
+                routes.put(route.getNodeId(), route);
+                available.add(instance);
+            }
+        }
+        for (Map.Entry<String, String> entry : staticNodes.entrySet()) {
+            if (routes.containsKey(entry.getKey())) {
+                continue;
+            }
+            NodeRoute route = route(old, entry.getKey(), entry.getValue());
+            if (route != null) {
+                routes.put(route.getNodeId(), route);
+                staticNodeIds.add(route.getNodeId());
+            }
+        }
+
+        routingTable = new RoutingTable(routes, available, staticNodeIds);
+
+        Set<String> liveAddresses = new HashSet<>();
+        for (NodeRoute route : routes.values()) {
+            liveAddresses.add(route.getAddress());
+        }
+        for (NodeRoute route : old.routes()) {
+            if (routes.get(route.getNodeId()) != route) {
+                route.retire();
+                if (!liveAddresses.contains(route.getAddress())) {
+                    backendChannelManager.closeChannel(route.getAddress());
+                }
+            }
+        }
+    }
+
+    /**
+     * 复用旧路由或为节点创建新路由
+     *
+     * @return 路由，地址非法时返回 null
+     */
+    private NodeRoute route(RoutingTable old, String nodeId, String address) {
+        NodeRoute route = old.get(nodeId);
+        if (route != null && route.getAddress().equals(address) && route.isActive()) {
+            return route;
+        }
+        BackendChannelPool backend = backendChannelManager.getPool(address);
+        if (backend == null) {
+            log.warn("Skip node {} with invalid address {}", nodeId, address);
+            return null;
+        }
+        return new NodeRoute(nodeId, address, backend);
+    }
 }
@@ -0,0 +1,59 @@
+package org.markeb.gateway.route;
+
+import org.markeb.service.registry.ServiceInstance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由表快照
+ * <p>
+ * 不可变，只在服务变更事件或静态节点变化时整体重建并原子替换，读取方不加锁。
+ * </p>
+ */
+final class RoutingTable {
+
+    static final RoutingTable EMPTY = new RoutingTable(Map.of(), List.of(), List.of());
+
+    /**
+     * nodeId -> 路由
+     */
+    private final Map<String, NodeRoute> routes;
+
+    /**
+     * 注册中心中健康且启用的节点，供路由策略选择
+     */
+    private final List<ServiceInstance> instances;
+
+    /**
+     * 静态配置的节点ID，注册中心没有可用节点时使用
+     */
+    private final List<String> staticNodeIds;
+
+    RoutingTable(Map<String, NodeRoute> routes, List<ServiceInstance> instances, List<String> staticNodeIds) {
+        this.routes = Map.copyOf(routes);
+        this.instances = List.copyOf(instances);
+        this.staticNodeIds = List.copyOf(staticNodeIds);
+    }
+
+    NodeRoute get(String nodeId) {
+        return routes.get(nodeId);
+    }
+
+    Collection<NodeRoute> routes() {
+        return routes.values();
+    }
+
+    List<ServiceInstance> instances() {
+        return instances;
+    }
+
+    List<String> staticNodeIds() {
+        return staticNodeIds;
+    }
+
+    int size() {
+        return routes.size();
+    }
+}
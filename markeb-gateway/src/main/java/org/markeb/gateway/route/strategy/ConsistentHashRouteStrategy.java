@@ -2,21 +2,31 @@ package org.markeb.gateway.route.strategy;
 
 import org.markeb.gateway.session.GatewaySession;
 import org.markeb.service.registry.ServiceInstance;
+import org.markeb.service.registry.partition.HashRing;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 一致性哈希路由策略
  * 根据玩家ID进行哈希，确保同一玩家的请求总是路由到同一节点
  * 适用于需要会话亲和性的场景
+ * <p>
+ * 使用带虚拟节点的 {@link HashRing}，虚拟节点数按 {@link ServiceInstance#getWeight()} 放大，
+ * 节点扩缩容时只迁移约 1/N 的玩家。哈希环按节点成员（ID + 权重）缓存，成员不变时不会重建；
+ * 路由表快照未变化时节点列表是同一个对象，只比较一次引用。
+ * </p>
  */
 @Component
 public class ConsistentHashRouteStrategy extends AbstractRouteStrategy {
 
     private final RoundRobinRouteStrategy fallbackStrategy;
 
+    private volatile CachedRing instanceRing;
+    private volatile CachedRing nodeIdRing;
+
     @Autowired
     public ConsistentHashRouteStrategy(RoundRobinRouteStrategy fallbackStrategy) {
         this.fallbackStrategy = fallbackStrategy;
@@ -29,32 +39,65 @@ public class ConsistentHashRouteStrategy extends AbstractRouteStrategy {
 
     @Override
     protected ServiceInstance doSelect(List<ServiceInstance> nodes, GatewaySession session) {
-        Long playerId = session.getPlayerId();
-        if (playerId == null) {
+        long playerId = session.getPlayerId();
+        if (playerId == GatewaySession.NO_PLAYER) {
             // 玩家ID为空时降级为轮询策略
             return fallbackStrategy.doSelect(nodes, session);
         }
-        int index = calculateIndex(playerId, nodes.size());
-        return nodes.get(index);
+        return nodes.get(instanceRing(nodes).locate(playerId));
     }
 
     @Override
     protected String doSelectFromNodeIds(List<String> nodeIds, GatewaySession session) {
-        Long playerId = session.getPlayerId();
-        if (playerId == null) {
+        long playerId = session.getPlayerId();
+        if (playerId == GatewaySession.NO_PLAYER) {
             // 玩家ID为空时返回第一个节点
             return nodeIds.get(0);
         }
-        int index = calculateIndex(playerId, nodeIds.size());
-        return nodeIds.get(index);
+        return nodeIds.get(nodeIdRing(nodeIds).locate(playerId));
+    }
+
+    private HashRing instanceRing(List<ServiceInstance> nodes) {
+        CachedRing cached = instanceRing;
+        if (cached != null && cached.source == nodes) {
+            return cached.ring;
+        }
+        int size = nodes.size();
+        String[] ids = new String[size];
+        double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = nodes.get(i).getInstanceId();
+            weights[i] = nodes.get(i).getWeight();
+        }
+        cached = rebuildIfChanged(cached, nodes, ids, weights);
+        instanceRing = cached;
+        return cached.ring;
+    }
+
+    private HashRing nodeIdRing(List<String> nodeIds) {
+        CachedRing cached = nodeIdRing;
+        if (cached != null && cached.source == nodeIds) {
+            return cached.ring;
+        }
+        cached = rebuildIfChanged(cached, nodeIds, nodeIds.toArray(new String[0]), null);
+        nodeIdRing = cached;
+        return cached.ring;
     }
 
     /**
-     * 根据玩家ID计算节点索引
+     * 成员与缓存一致时只替换列表引用，否则重建哈希环
      */
-    private int calculateIndex(long playerId, int size) {
-        int hash = Math.abs(Long.hashCode(playerId));
-        return hash % size;
+    private static CachedRing rebuildIfChanged(CachedRing cached, List<?> source, String[] ids, double[] weights) {
+        if (cached != null && Arrays.equals(cached.ids, ids) && Arrays.equals(cached.weights, weights)) {
+            return new CachedRing(source, ids, weights, cached.ring);
+        }
+        HashRing ring = new HashRing(Arrays.asList(ids), weights, HashRing.DEFAULT_VIRTUAL_NODES);
+        return new CachedRing(source, ids, weights, ring);
     }
-}
 
+    /**
+     * 哈希环及其对应的节点成员，下标与 source 列表一致
+     */
+    private record CachedRing(List<?> source, String[] ids, double[] weights, HashRing ring) {
+    }
+}
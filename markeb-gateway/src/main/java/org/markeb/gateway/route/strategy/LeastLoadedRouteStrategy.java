@@ -0,0 +1,83 @@
+package org.markeb.gateway.route.strategy;
+
+import org.markeb.gateway.route.NodeLoadTracker;
+import org.markeb.gateway.session.GatewaySession;
+import org.markeb.service.registry.ServiceInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最低负载路由策略
+ * 随机取两个节点，选择负载分数（除以权重）较低的一个（power of two choices）
+ * <p>
+ * 负载来自节点在心跳响应中的上报，见 {@link NodeLoadTracker}。只比较两个随机节点而不是取全局最小，
+ * 多个网关基于同一批稍旧的数据选择时不会同时涌向同一个节点。
+ * </p>
+ * <p>
+ * 两个节点中只有一个有有效负载时选择它（没有上报的节点可能已经卡住）；
+ * 都没有有效负载时降级为轮询。静态节点没有负载上报，同样使用轮询。
+ * </p>
+ */
+@Component
+public class LeastLoadedRouteStrategy extends AbstractRouteStrategy {
+
+    private final NodeLoadTracker loadTracker;
+    private final RoundRobinRouteStrategy fallbackStrategy;
+
+    @Autowired
+    public LeastLoadedRouteStrategy(NodeLoadTracker loadTracker, RoundRobinRouteStrategy fallbackStrategy) {
+        this.loadTracker = loadTracker;
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.LEAST_LOADED;
+    }
+
+    @Override
+    protected ServiceInstance doSelect(List<ServiceInstance> nodes, GatewaySession session) {
+        int size = nodes.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        ServiceInstance a = nodes.get(first);
+        ServiceInstance b = nodes.get(second);
+        String addressA = a.getAddress();
+        String addressB = b.getAddress();
+        double scoreA = weightedScore(a, addressA);
+        double scoreB = weightedScore(b, addressB);
+
+        ServiceInstance selected;
+        String address;
+        if (Double.isNaN(scoreA) && Double.isNaN(scoreB)) {
+            return fallbackStrategy.doSelect(nodes, session);
+        } else if (Double.isNaN(scoreB) || (!Double.isNaN(scoreA) && scoreA <= scoreB)) {
+            selected = a;
+            address = addressA;
+        } else {
+            selected = b;
+            address = addressB;
+        }
+        loadTracker.onAssigned(address);
+        return selected;
+    }
+
+    @Override
+    protected String doSelectFromNodeIds(List<String> nodeIds, GatewaySession session) {
+        return fallbackStrategy.doSelectFromNodeIds(nodeIds, session);
+    }
+
+    private double weightedScore(ServiceInstance instance, String address) {
+        double score = loadTracker.score(address);
+        double weight = instance.getWeight();
+        return weight > 0 ? score / weight : score;
+    }
+}
@@ -33,7 +33,12 @@ public interface RouteStrategy {
         /**
          * 指定节点
          */
-        DESIGNATED
+        DESIGNATED,
+
+        /**
+         * 最低负载（根据节点上报的负载做两选一）
+         */
+        LEAST_LOADED
     }
 
     /**
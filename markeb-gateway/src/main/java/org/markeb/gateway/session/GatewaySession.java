@@ -1,13 +1,11 @@
 package org.markeb.gateway.session;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import org.markeb.gateway.route.NodeRoute;
 import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * 网关会话
@@ -16,39 +14,56 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class GatewaySession {
 
     /**
-     * 会话ID（网关内唯一）
+     * 状态变化回调
      */
-    private final int sessionId;
+    @FunctionalInterface
+    public interface StateListener {
+
+        void onStateChanged(GatewaySession session, SessionState from, SessionState to);
+    }
+
+    /**
+     * 未绑定玩家时 {@link #getPlayerId()} 的返回值，玩家 ID 从 1 开始分配
+     */
+    public static final long NO_PLAYER = 0L;
+
+    private static final AtomicReferenceFieldUpdater<GatewaySession, SessionState> STATE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(GatewaySession.class, SessionState.class, "state");
 
     /**
-     * 限流桶
+     * 会话ID（网关内唯一）
      */
-    private final Bucket bucket;
+    private final int sessionId;
 
     /**
-     * 玩家ID（登录后绑定）
+     * 玩家ID（登录后绑定），未绑定时为 {@link #NO_PLAYER}
      */
-    private volatile Long playerId;
+    private volatile long playerId = NO_PLAYER;
 
     /**
      * 绑定的区服/节点ID
      */
     private volatile String nodeId;
 
+    /**
+     * 绑定节点的已解析路由（含后端连接池），由 NodeRouter 缓存，转发时直接使用
+     */
+    private volatile NodeRoute route;
+
     /**
      * 前端连接（客户端到网关）
      */
     private final Channel frontendChannel;
 
     /**
-     * 会话创建时间
+     * 会话创建时间（毫秒）
      */
-    private final LocalDateTime createTime;
+    private final long createTime;
 
     /**
-     * 最后活跃时间
+     * 最后活跃时间（毫秒），只在前端连接的 EventLoop 内更新
      */
-    private volatile LocalDateTime lastActiveTime;
+    private long lastActiveTime;
 
     /**
      * 消息序列号生成器
@@ -60,32 +75,35 @@ public class GatewaySession {
      */
     private volatile SessionState state = SessionState.CONNECTED;
 
+    /**
+     * 状态变化回调，可为 null
+     */
+    private final StateListener stateListener;
+
     public GatewaySession(int sessionId, Channel frontendChannel) {
+        this(sessionId, frontendChannel, null);
+    }
+
+    public GatewaySession(int sessionId, Channel frontendChannel, StateListener stateListener) {
         this.sessionId = sessionId;
         this.frontendChannel = frontendChannel;
-        this.createTime = LocalDateTime.now();
+        this.stateListener = stateListener;
+        this.createTime = System.currentTimeMillis();
         this.lastActiveTime = this.createTime;
-        
-        // 初始化限流桶：每秒 50 个请求
-        Bandwidth limit = Bandwidth.classic(50, Refill.greedy(50, Duration.ofSeconds(1)));
-        this.bucket = Bucket.builder()
-                .addLimit(limit)
-                .build();
-    }
-
-    public boolean tryConsume() {
-        return bucket.tryConsume(1);
     }
 
     public int getSessionId() {
         return sessionId;
     }
 
-    public Long getPlayerId() {
+    /**
+     * @return 绑定的玩家ID，未绑定时返回 {@link #NO_PLAYER}
+     */
+    public long getPlayerId() {
         return playerId;
     }
 
-    public void setPlayerId(Long playerId) {
+    public void setPlayerId(long playerId) {
         this.playerId = playerId;
     }
 
@@ -93,24 +111,39 @@ public class GatewaySession {
         return nodeId;
     }
 
+    /**
+     * 绑定节点，节点变化时清除缓存的路由
+     */
     public void setNodeId(String nodeId) {
+        NodeRoute cached = route;
+        if (cached != null && !cached.getNodeId().equals(nodeId)) {
+            route = null;
+        }
         this.nodeId = nodeId;
     }
 
+    public NodeRoute getRoute() {
+        return route;
+    }
+
+    public void setRoute(NodeRoute route) {
+        this.route = route;
+    }
+
     public Channel getFrontendChannel() {
         return frontendChannel;
     }
 
-    public LocalDateTime getCreateTime() {
+    public long getCreateTime() {
         return createTime;
     }
 
-    public LocalDateTime getLastActiveTime() {
+    public long getLastActiveTime() {
         return lastActiveTime;
     }
 
     public void updateActiveTime() {
-        this.lastActiveTime = LocalDateTime.now();
+        this.lastActiveTime = System.currentTimeMillis();
     }
 
     public int nextSeq() {
@@ -121,8 +154,26 @@ public class GatewaySession {
         return state;
     }
 
-    public void setState(SessionState state) {
-        this.state = state;
+    /**
+     * 切换状态，状态确有变化时通知回调
+     * <p>
+     * 进入 {@link SessionState#CLOSED} 后不再离开，之后的切换被忽略。
+     * </p>
+     *
+     * @return 切换前的状态
+     */
+    public SessionState setState(SessionState newState) {
+        SessionState current;
+        do {
+            current = state;
+            if (current == newState || current == SessionState.CLOSED) {
+                return current;
+            }
+        } while (!STATE_UPDATER.compareAndSet(this, current, newState));
+        if (stateListener != null) {
+            stateListener.onStateChanged(this, current, newState);
+        }
+        return current;
     }
 
     public boolean isActive() {
@@ -130,15 +181,17 @@ public class GatewaySession {
     }
 
     public boolean isAuthenticated() {
-        return playerId != null && state == SessionState.AUTHENTICATED;
+        return playerId != NO_PLAYER && state == SessionState.AUTHENTICATED;
     }
 
     /**
-     * 发送消息到客户端
+     * 发送消息到客户端，连接已断开时释放消息
      */
     public void send(Object msg) {
         if (isActive()) {
             frontendChannel.writeAndFlush(msg);
+        } else {
+            ReferenceCountUtil.release(msg);
         }
     }
 
@@ -146,7 +199,7 @@ public class GatewaySession {
      * 关闭会话
      */
     public void close() {
-        state = SessionState.CLOSED;
+        setState(SessionState.CLOSED);
         if (frontendChannel != null && frontendChannel.isActive()) {
             frontendChannel.close();
         }
@@ -1,19 +1,27 @@
 package org.markeb.gateway.session;
 
 import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * 会话管理器
  * 管理所有客户端到网关的会话
+ * <p>
+ * 索引结构：
+ * <ul>
+ *   <li>Channel -> 会话：存放在 Channel 属性中，按连接查找不再拼接 channelId 字符串</li>
+ *   <li>sessionId -> 会话、playerId -> 会话：原始类型键的分段并发哈希表，不装箱</li>
+ * </ul>
+ * 在线数和已认证数由计数器维护，在创建/移除会话和会话状态切换时更新，读取为 O(1)。
+ * </p>
  */
 @Component
 public class SessionManager {
@@ -21,36 +29,56 @@ public class SessionManager {
     private static final Logger log = LoggerFactory.getLogger(SessionManager.class);
 
     /**
-     * sessionId -> GatewaySession
+     * 前端连接上绑定的会话
      */
-    private final Map<Integer, GatewaySession> sessions = new ConcurrentHashMap<>();
+    public static final AttributeKey<GatewaySession> SESSION_KEY = AttributeKey.valueOf("gatewaySession");
 
     /**
-     * playerId -> sessionId（用于通过玩家ID快速查找会话）
+     * sessionId -> GatewaySession
      */
-    private final Map<Long, Integer> playerSessions = new ConcurrentHashMap<>();
+    private final StripedLongObjectMap<GatewaySession> sessions = new StripedLongObjectMap<>();
 
     /**
-     * channelId -> sessionId
+     * playerId -> GatewaySession（用于通过玩家ID快速查找会话）
      */
-    private final Map<String, Integer> channelSessions = new ConcurrentHashMap<>();
+    private final StripedLongObjectMap<GatewaySession> playerSessions = new StripedLongObjectMap<>();
 
     /**
      * sessionId 生成器
      */
     private final AtomicInteger sessionIdGenerator = new AtomicInteger(0);
 
+    /**
+     * 在线会话数
+     */
+    private final AtomicInteger connectedCount = new AtomicInteger();
+
+    /**
+     * 处于 AUTHENTICATED 状态的会话数
+     */
+    private final AtomicInteger authenticatedCount = new AtomicInteger();
+
+    private final GatewaySession.StateListener stateListener = (session, from, to) -> {
+        if (from == GatewaySession.SessionState.AUTHENTICATED) {
+            authenticatedCount.decrementAndGet();
+        }
+        if (to == GatewaySession.SessionState.AUTHENTICATED) {
+            authenticatedCount.incrementAndGet();
+        }
+    };
+
     /**
      * 创建新会话
      */
     public GatewaySession createSession(Channel channel) {
         int sessionId = sessionIdGenerator.incrementAndGet();
-        GatewaySession session = new GatewaySession(sessionId, channel);
+        GatewaySession session = new GatewaySession(sessionId, channel, stateListener);
 
         sessions.put(sessionId, session);
-        channelSessions.put(channel.id().asLongText(), sessionId);
+        channel.attr(SESSION_KEY).set(session);
+        connectedCount.incrementAndGet();
 
-        log.info("Created session: {}", session);
+        log.debug("Created session: {}", session);
         return session;
     }
 
@@ -64,22 +92,27 @@ public class SessionManager {
             return;
         }
 
-        // 检查是否已有该玩家的会话（踢掉旧连接）
-        Integer oldSessionId = playerSessions.get(playerId);
-        if (oldSessionId != null && oldSessionId != sessionId) {
-            GatewaySession oldSession = sessions.get(oldSessionId);
-            if (oldSession != null) {
-                log.info("Kicking old session for player {}: {}", playerId, oldSessionId);
-                oldSession.close();
-                removeSession(oldSessionId);
-            }
+        long previousPlayerId = session.getPlayerId();
+        if (previousPlayerId != GatewaySession.NO_PLAYER && previousPlayerId != playerId) {
+            playerSessions.remove(previousPlayerId, session);
         }
-
         session.setPlayerId(playerId);
         session.setState(GatewaySession.SessionState.AUTHENTICATED);
-        playerSessions.put(playerId, sessionId);
 
-        log.info("Bound player {} to session {}", playerId, sessionId);
+        // 检查是否已有该玩家的会话（踢掉旧连接）
+        GatewaySession oldSession = playerSessions.put(playerId, session);
+        if (oldSession != null && oldSession != session) {
+            log.info("Kicking old session for player {}: {}", playerId, oldSession.getSessionId());
+            oldSession.close();
+            removeSession(oldSession.getSessionId());
+        }
+        if (session.getState() == GatewaySession.SessionState.CLOSED) {
+            // 绑定期间连接已断开
+            playerSessions.remove(playerId, session);
+            return;
+        }
+
+        log.debug("Bound player {} to session {}", playerId, sessionId);
     }
 
     /**
@@ -104,22 +137,14 @@ public class SessionManager {
      * 通过 Channel 获取会话
      */
     public Optional<GatewaySession> getSessionByChannel(Channel channel) {
-        Integer sessionId = channelSessions.get(channel.id().asLongText());
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(sessions.get(sessionId));
+        return Optional.ofNullable(channel.attr(SESSION_KEY).get());
     }
 
     /**
      * 通过玩家ID获取会话
      */
     public Optional<GatewaySession> getSessionByPlayerId(long playerId) {
-        Integer sessionId = playerSessions.get(playerId);
-        if (sessionId == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(sessions.get(sessionId));
+        return Optional.ofNullable(playerSessions.get(playerId));
     }
 
     /**
@@ -128,13 +153,7 @@ public class SessionManager {
     public void removeSession(int sessionId) {
         GatewaySession session = sessions.remove(sessionId);
         if (session != null) {
-            if (session.getPlayerId() != null) {
-                playerSessions.remove(session.getPlayerId());
-            }
-            if (session.getFrontendChannel() != null) {
-                channelSessions.remove(session.getFrontendChannel().id().asLongText());
-            }
-            log.info("Removed session: {}", session);
+            detach(session);
         }
     }
 
@@ -142,33 +161,59 @@ public class SessionManager {
      * 通过 Channel 移除会话
      */
     public void removeSessionByChannel(Channel channel) {
-        Integer sessionId = channelSessions.get(channel.id().asLongText());
-        if (sessionId != null) {
-            removeSession(sessionId);
+        GatewaySession session = channel.attr(SESSION_KEY).get();
+        if (session != null && sessions.remove(session.getSessionId(), session)) {
+            detach(session);
         }
     }
 
     /**
-     * 获取所有会话
+     * 获取所有会话的快照
+     * <p>
+     * 会复制一份列表，只需遍历时使用 {@link #forEachSession(Consumer)}。
+     * </p>
      */
     public Collection<GatewaySession> getAllSessions() {
         return sessions.values();
     }
 
+    /**
+     * 遍历所有会话，回调中不能创建或移除会话
+     */
+    public void forEachSession(Consumer<GatewaySession> action) {
+        sessions.forEach(action);
+    }
+
     /**
      * 获取在线会话数
      */
     public int getSessionCount() {
-        return sessions.size();
+        return connectedCount.get();
     }
 
     /**
      * 获取已认证的会话数
      */
     public long getAuthenticatedCount() {
-        return sessions.values().stream()
-                .filter(GatewaySession::isAuthenticated)
-                .count();
+        return authenticatedCount.get();
+    }
+
+    /**
+     * 清理会话的索引和状态，调用方已将其从 sessions 中移除
+     */
+    private void detach(GatewaySession session) {
+        long playerId = session.getPlayerId();
+        if (playerId != GatewaySession.NO_PLAYER) {
+            // 旧会话被踢时，playerId 已指向新会话，不能误删
+            playerSessions.remove(playerId, session);
+        }
+        Channel channel = session.getFrontendChannel();
+        if (channel != null) {
+            channel.attr(SESSION_KEY).compareAndSet(session, null);
+        }
+        session.setState(GatewaySession.SessionState.CLOSED);
+        connectedCount.decrementAndGet();
+        log.debug("Removed session: {}", session);
     }
 
     /**
@@ -186,12 +231,16 @@ public class SessionManager {
 
     /**
      * 广播消息给所有已认证的玩家
+     * <p>
+     * 每个会话都会经过编码器重新编码，大范围广播请使用 {@link org.markeb.gateway.broadcast.BroadcastService}。
+     * </p>
      */
     public void broadcast(Object msg) {
-        sessions.values().stream()
-                .filter(GatewaySession::isAuthenticated)
-                .filter(GatewaySession::isActive)
-                .forEach(session -> session.send(msg));
+        forEachSession(session -> {
+            if (session.isAuthenticated() && session.isActive()) {
+                session.send(msg);
+            }
+        });
     }
 }
 
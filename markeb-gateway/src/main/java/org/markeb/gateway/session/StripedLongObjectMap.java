@@ -0,0 +1,256 @@
+package org.markeb.gateway.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 以原始 long 为键的并发哈希表
+ * <p>
+ * 按键分段，每个分段是一张开放寻址表，查找和更新不装箱、不创建节点对象。写入在分段锁内进行；
+ * 读取不加锁，每次查找只读一次分段当前的表。int 键（如 sessionId）直接拓宽为 long 使用。
+ * </p>
+ * <p>
+ * 槽位一旦写入键就不再改变：删除只把值换成墓碑，同一个键再次写入时复用原槽位，墓碑在扩容重建时清除。
+ * 值以 volatile 语义写入，读到非空值时对应槽位的键必然可见，因此读线程不会把一个键的值当作另一个键的值返回。
+ * </p>
+ *
+ * @param <V> 值类型
+ */
+final class StripedLongObjectMap<V> {
+
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 已删除槽位的值，查找时视为不存在但继续探测
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    StripedLongObjectMap() {
+        this(DEFAULT_STRIPES);
+    }
+
+    StripedLongObjectMap(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: " + stripeCount);
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long h = hash(key);
+        Table table = stripes[(int) h & stripeMask].table;
+        int index = table.find(key, h);
+        if (index < 0) {
+            return null;
+        }
+        Object value = table.values.get(index);
+        return value == TOMBSTONE ? null : (V) value;
+    }
+
+    /**
+     * @return 被替换的旧值，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long h = hash(key);
+        Stripe stripe = stripes[(int) h & stripeMask];
+        synchronized (stripe) {
+            Table table = stripe.table;
+            int index = table.find(key, h);
+            if (index >= 0) {
+                Object old = table.values.getAndSet(index, value);
+                if (old == TOMBSTONE) {
+                    stripe.size++;
+                    return null;
+                }
+                return (V) old;
+            }
+            if (stripe.used + 1 > table.threshold()) {
+                table = stripe.rehash(stripe.size + 1);
+            }
+            index = table.emptySlot(h);
+            table.keys[index] = key;
+            // 先写键再以 volatile 语义发布值
+            table.values.set(index, value);
+            stripe.used++;
+            stripe.size++;
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        long h = hash(key);
+        Stripe stripe = stripes[(int) h & stripeMask];
+        synchronized (stripe) {
+            Table table = stripe.table;
+            int index = table.find(key, h);
+            if (index < 0) {
+                return null;
+            }
+            Object old = table.values.getAndSet(index, TOMBSTONE);
+            if (old == TOMBSTONE) {
+                return null;
+            }
+            stripe.size--;
+            return (V) old;
+        }
+    }
+
+    /**
+     * 仅当键当前映射到指定值（同一对象）时移除
+     */
+    boolean remove(long key, V value) {
+        long h = hash(key);
+        Stripe stripe = stripes[(int) h & stripeMask];
+        synchronized (stripe) {
+            Table table = stripe.table;
+            int index = table.find(key, h);
+            if (index < 0 || table.values.get(index) != value) {
+                return false;
+            }
+            table.values.set(index, TOMBSTONE);
+            stripe.size--;
+            return true;
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 逐分段遍历，回调在分段锁内执行，不能回头修改本表
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> action) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                AtomicReferenceArray<Object> values = stripe.table.values;
+                for (int i = 0; i < values.length(); i++) {
+                    Object value = values.get(i);
+                    if (value != null && value != TOMBSTONE) {
+                        action.accept((V) value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 所有值的快照
+     */
+    List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        forEach(values::add);
+        return values;
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * 分段：表引用以 volatile 发布，计数只在分段锁内读写
+     */
+    private static final class Stripe {
+
+        private volatile Table table = new Table(INITIAL_CAPACITY);
+
+        /**
+         * 存活的键数
+         */
+        private int size;
+
+        /**
+         * 已占用的槽位数（含墓碑）
+         */
+        private int used;
+
+        /**
+         * 按存活键数重建表并发布，清除墓碑
+         */
+        Table rehash(int expected) {
+            int capacity = INITIAL_CAPACITY;
+            while (capacity * 3 / 4 < expected * 2) {
+                capacity <<= 1;
+            }
+            Table old = table;
+            Table rebuilt = new Table(capacity);
+            for (int i = 0; i < old.keys.length; i++) {
+                Object value = old.values.get(i);
+                if (value != null && value != TOMBSTONE) {
+                    int index = rebuilt.emptySlot(hash(old.keys[i]));
+                    rebuilt.keys[index] = old.keys[i];
+                    rebuilt.values.lazySet(index, value);
+                }
+            }
+            used = size;
+            table = rebuilt;
+            return rebuilt;
+        }
+    }
+
+    /**
+     * 线性探测的开放寻址表，值为 null 的槽位从未使用过，探测到即结束
+     */
+    private static final class Table {
+
+        final long[] keys;
+        final AtomicReferenceArray<Object> values;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        int threshold() {
+            return keys.length * 3 / 4;
+        }
+
+        /**
+         * @return 键所在的槽位（值可能是墓碑），不存在时返回 -1
+         */
+        int find(long key, long h) {
+            for (int index = (int) (h >>> 32) & mask; ; index = (index + 1) & mask) {
+                if (values.get(index) == null) {
+                    return -1;
+                }
+                if (keys[index] == key) {
+                    return index;
+                }
+            }
+        }
+
+        int emptySlot(long h) {
+            int index = (int) (h >>> 32) & mask;
+            while (values.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+}
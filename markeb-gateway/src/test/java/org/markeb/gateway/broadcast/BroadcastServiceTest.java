@@ -0,0 +1,199 @@
+package org.markeb.gateway.broadcast;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.gateway.session.SessionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 广播：同一帧只编码一次并以 retainedDuplicate 分发、每个 EventLoop 只提交一个任务、
+ * 写入时已断开的连接不泄漏引用
+ * <p>
+ * 前端连接用 local transport 模拟，写到前端连接的帧由对端原样收到，可以取回底层的共享帧检查引用计数。
+ * </p>
+ */
+class BroadcastServiceTest {
+
+    private static final int MSG_ID = 7;
+    private static final byte[] BODY = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private final BlockingQueue<ByteBuf> received = new LinkedBlockingQueue<>();
+    private final List<EventLoop> loops = new ArrayList<>();
+    private final SessionManager sessionManager = new SessionManager();
+    private final BroadcastService broadcastService = new BroadcastService(sessionManager);
+    private LocalAddress address;
+    private long nextPlayerId = 1;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        address = new LocalAddress("broadcast-test-" + System.nanoTime());
+        new ServerBootstrap()
+                .group(loop(new DefaultEventLoop()))
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        received.add((ByteBuf) msg);
+                    }
+                })
+                .bind(address).sync();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ByteBuf buf;
+        while ((buf = received.poll()) != null) {
+            buf.release();
+        }
+        for (EventLoop loop : loops) {
+            loop.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test
+    void encodedOnceAndGroupedByEventLoop() throws InterruptedException {
+        CountingEventLoop first = loop(new CountingEventLoop());
+        CountingEventLoop second = loop(new CountingEventLoop());
+        for (int i = 0; i < 3; i++) {
+            connect(first);
+        }
+        for (int i = 0; i < 2; i++) {
+            connect(second);
+        }
+        first.external.set(0);
+        second.external.set(0);
+
+        assertEquals(5, broadcastService.broadcastAll(MSG_ID, Unpooled.wrappedBuffer(BODY)));
+        List<ByteBuf> frames = take(5);
+
+        // 每个 EventLoop 只从外部线程提交了一次写任务
+        assertEquals(1, first.external.get());
+        assertEquals(1, second.external.get());
+        ByteBuf shared = frames.get(0).unwrap();
+        for (ByteBuf frame : frames) {
+            assertSame(shared, frame.unwrap(), "every channel gets a duplicate of the same frame");
+            assertFrame(frame);
+        }
+        assertEquals(5, broadcastService.getDeliveries());
+
+        frames.forEach(ByteBuf::release);
+        assertEquals(0, shared.refCnt());
+    }
+
+    @Test
+    void channelClosedBeforeWriteReleasesItsReference() throws InterruptedException {
+        CountingEventLoop loop = loop(new CountingEventLoop());
+        connect(loop);
+        Channel closing = connect(loop);
+
+        // 阻塞 EventLoop，让关闭任务排在广播任务之前：选目标时连接仍然活跃，写入时已断开
+        CountDownLatch gate = new CountDownLatch(1);
+        loop.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closing.close();
+        assertEquals(2, broadcastService.broadcastAll(MSG_ID, Unpooled.wrappedBuffer(BODY)));
+        gate.countDown();
+        loop.submit(() -> {
+        }).sync();
+
+        ByteBuf frame = take(1).get(0);
+        assertFrame(frame);
+        assertEquals(1, broadcastService.getDeliveries());
+        assertEquals(1, broadcastService.getDropped());
+
+        ByteBuf shared = frame.unwrap();
+        frame.release();
+        assertEquals(0, shared.refCnt());
+    }
+
+    @Test
+    void noTargetsEncodesNothing() {
+        assertEquals(0, broadcastService.broadcastAll(MSG_ID, Unpooled.wrappedBuffer(BODY)));
+        assertEquals(0, broadcastService.pushToPlayers(new long[]{42}, MSG_ID, Unpooled.wrappedBuffer(BODY)));
+        assertEquals(0, broadcastService.broadcastGroup("missing", MSG_ID, Unpooled.wrappedBuffer(BODY)));
+        assertEquals(3, broadcastService.getBroadcasts());
+    }
+
+    /**
+     * 在指定 EventLoop 上建立一个前端连接并绑定玩家
+     */
+    private Channel connect(EventLoop loop) throws InterruptedException {
+        Channel channel = new Bootstrap()
+                .group(loop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+        int sessionId = sessionManager.createSession(channel).getSessionId();
+        sessionManager.bindPlayer(sessionId, nextPlayerId++);
+        return channel;
+    }
+
+    private List<ByteBuf> take(int count) throws InterruptedException {
+        List<ByteBuf> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ByteBuf frame = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "received " + i + " of " + count + " frames");
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private static void assertFrame(ByteBuf frame) {
+        int index = frame.readerIndex();
+        assertEquals(8 + BODY.length, frame.getInt(index));
+        assertEquals(MSG_ID, frame.getInt(index + 4));
+        assertEquals(0, frame.getInt(index + 8));
+        byte[] body = new byte[BODY.length];
+        frame.getBytes(index + 12, body);
+        assertArrayEquals(BODY, body);
+    }
+
+    private <L extends EventLoop> L loop(L loop) {
+        loops.add(loop);
+        return loop;
+    }
+
+    /**
+     * 统计从外部线程提交的任务数
+     */
+    private static final class CountingEventLoop extends DefaultEventLoop {
+
+        final AtomicInteger external = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable task) {
+            if (!inEventLoop()) {
+                external.incrementAndGet();
+            }
+            super.execute(task);
+        }
+    }
+}
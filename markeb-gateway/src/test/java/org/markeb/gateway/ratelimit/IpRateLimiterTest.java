@@ -0,0 +1,52 @@
+package org.markeb.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按 IP 聚合限流：同一 IP 共用配额，跟踪的 IP 数受 LRU 容量限制，被淘汰的 IP 重新获得满桶
+ */
+class IpRateLimiterTest {
+
+    @Test
+    void connectionsFromSameIpShareOneBucket() {
+        IpRateLimiter limiter = new IpRateLimiter(1, 3, 1024);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1", 2, 0));
+        assertTrue(limiter.tryAcquire("10.0.0.1", 1, 0));
+        assertFalse(limiter.tryAcquire("10.0.0.1", 1, 0));
+        // 其他 IP 不受影响
+        assertTrue(limiter.tryAcquire("10.0.0.2", 3, 0));
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void zeroCostIsNotTracked() {
+        IpRateLimiter limiter = new IpRateLimiter(1, 1, 1024);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1", 0, 0));
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void leastRecentlyUsedIpsAreEvicted() {
+        // 16 个分段，每段最多 1 个 IP
+        IpRateLimiter limiter = new IpRateLimiter(1, 1, 16);
+        assertTrue(limiter.tryAcquire("192.168.0.1", 1, 0));
+        assertFalse(limiter.tryAcquire("192.168.0.1", 1, 0));
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("10.0." + (i >> 8) + "." + (i & 0xFF), 1, 0);
+        }
+
+        assertTrue(limiter.size() <= 16, "tracked " + limiter.size());
+        // 已被淘汰，重新建桶后配额是满的
+        assertTrue(limiter.tryAcquire("192.168.0.1", 1, 0));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IpRateLimiter(1, 1, 0));
+    }
+}
@@ -0,0 +1,72 @@
+package org.markeb.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶：按时间补充、不超过容量、退还扣减
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void startsFullAndRejectsWhenEmpty() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryConsume(1, 0));
+        }
+        assertFalse(bucket.tryConsume(1, 0));
+        assertEquals(0, bucket.available(), 1e-9);
+    }
+
+    @Test
+    void refillsByElapsedTime() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        assertTrue(bucket.tryConsume(5, 0));
+
+        // 10 个/秒，200ms 补充 2 个
+        assertFalse(bucket.tryConsume(3, SECOND / 5));
+        assertTrue(bucket.tryConsume(2, SECOND / 5));
+        assertFalse(bucket.tryConsume(1, SECOND / 5));
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        assertTrue(bucket.tryConsume(5, 0));
+
+        // 空闲一分钟也只补满到容量
+        assertTrue(bucket.tryConsume(5, 60 * SECOND));
+        assertFalse(bucket.tryConsume(1, 60 * SECOND));
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotRefill() {
+        TokenBucket bucket = new TokenBucket(10, 5, SECOND);
+        assertTrue(bucket.tryConsume(5, SECOND));
+
+        assertFalse(bucket.tryConsume(1, 0));
+    }
+
+    @Test
+    void refundRestoresTokensUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        assertTrue(bucket.tryConsume(3, 0));
+
+        bucket.refund(3);
+        assertEquals(5, bucket.available(), 1e-9);
+        bucket.refund(3);
+        assertEquals(5, bucket.available(), 1e-9);
+    }
+
+    @Test
+    void rejectsInvalidRates() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0, 0));
+    }
+}
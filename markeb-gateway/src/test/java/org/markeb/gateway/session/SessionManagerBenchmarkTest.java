@@ -0,0 +1,184 @@
+package org.markeb.gateway.session;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话管理器规模测试：20 万会话下的创建、绑定、三种索引查找、顶号和移除。
+ * <p>
+ * 校验各索引之间以及在线数、已认证数计数器在整个过程中与实际状态一致；
+ * 计时用例标记为 {@code benchmark}，默认构建不执行，用 {@code mvn test -Pbenchmark} 运行。
+ */
+class SessionManagerBenchmarkTest {
+
+    private static final int SESSIONS = 200_000;
+    private static final long PLAYER_BASE = 10_000_000_000L;
+    /**
+     * 查找在每条转发消息的路径上，单次平均耗时上限
+     */
+    private static final long LOOKUP_BUDGET_NANOS = 1_000;
+    /**
+     * 创建、绑定和移除只在连接建立、登录和断开时发生，单次平均耗时上限
+     */
+    private static final long UPDATE_BUDGET_NANOS = 20_000;
+
+    @Test
+    @Tag("benchmark")
+    void benchmark(TestReporter reporter) {
+        SessionManager manager = new SessionManager();
+        Channel[] channels = new Channel[SESSIONS];
+        int[] sessionIds = new int[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            channels[i] = new EmbeddedChannel(false, false);
+        }
+        Map<String, String> report = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionIds[i] = manager.createSession(channels[i]).getSessionId();
+        }
+        long create = perOp(report, "create", start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            manager.bindPlayer(sessionIds[i], PLAYER_BASE + i);
+        }
+        long bind = perOp(report, "bind", start);
+
+        long found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            if (manager.getSession(sessionIds[i]).isPresent()) {
+                found++;
+            }
+        }
+        long bySessionId = perOp(report, "lookupBySessionId", start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            if (manager.getSessionByPlayerId(PLAYER_BASE + i).isPresent()) {
+                found++;
+            }
+        }
+        long byPlayerId = perOp(report, "lookupByPlayerId", start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            if (manager.getSessionByChannel(channels[i]).isPresent()) {
+                found++;
+            }
+        }
+        long byChannel = perOp(report, "lookupByChannel", start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            manager.removeSession(sessionIds[i]);
+        }
+        long remove = perOp(report, "remove", start);
+        reporter.publishEntry(report);
+
+        assertEquals(3L * SESSIONS, found);
+        assertEquals(0, manager.getSessionCount());
+        assertBudget("create", create, UPDATE_BUDGET_NANOS);
+        assertBudget("bind", bind, UPDATE_BUDGET_NANOS);
+        assertBudget("lookup by sessionId", bySessionId, LOOKUP_BUDGET_NANOS);
+        assertBudget("lookup by playerId", byPlayerId, LOOKUP_BUDGET_NANOS);
+        assertBudget("lookup by channel", byChannel, LOOKUP_BUDGET_NANOS);
+        assertBudget("remove", remove, UPDATE_BUDGET_NANOS);
+    }
+
+    @Test
+    void lookupBindRemove() {
+        SessionManager manager = new SessionManager();
+        Channel[] channels = new Channel[SESSIONS];
+        int[] sessionIds = new int[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            channels[i] = new EmbeddedChannel(false, false);
+            sessionIds[i] = manager.createSession(channels[i]).getSessionId();
+        }
+        assertEquals(SESSIONS, manager.getSessionCount());
+        assertEquals(0, manager.getAuthenticatedCount());
+
+        for (int i = 0; i < SESSIONS; i++) {
+            manager.bindPlayer(sessionIds[i], PLAYER_BASE + i);
+        }
+        assertEquals(SESSIONS, manager.getAuthenticatedCount());
+
+        // 三种索引都指向同一个会话
+        int mismatched = 0;
+        for (int i = 0; i < SESSIONS; i++) {
+            GatewaySession session = manager.getSession(sessionIds[i]).orElse(null);
+            if (session == null
+                    || manager.getSessionByPlayerId(PLAYER_BASE + i).orElse(null) != session
+                    || manager.getSessionByChannel(channels[i]).orElse(null) != session) {
+                mismatched++;
+            }
+        }
+        assertEquals(0, mismatched);
+
+        // 同一玩家在新连接上重新登录，旧会话被踢下线
+        GatewaySession relogin = manager.createSession(new EmbeddedChannel(false, false));
+        manager.bindPlayer(relogin.getSessionId(), PLAYER_BASE);
+        assertEquals(SESSIONS, manager.getSessionCount());
+        assertEquals(SESSIONS, manager.getAuthenticatedCount());
+        assertSame(relogin, manager.getSessionByPlayerId(PLAYER_BASE).orElseThrow());
+        assertTrue(manager.getSession(sessionIds[0]).isEmpty());
+        assertTrue(manager.getSessionByChannel(channels[0]).isEmpty());
+
+        for (int i = 1; i < SESSIONS; i++) {
+            manager.removeSession(sessionIds[i]);
+        }
+        manager.removeSessionByChannel(relogin.getFrontendChannel());
+
+        assertEquals(0, manager.getSessionCount());
+        assertEquals(0, manager.getAuthenticatedCount());
+        assertTrue(manager.getSessionByPlayerId(PLAYER_BASE + 1).isEmpty());
+        assertTrue(manager.getAllSessions().isEmpty());
+    }
+
+    @Test
+    void authenticatedCountFollowsStateTransitions() {
+        SessionManager manager = new SessionManager();
+        GatewaySession session = manager.createSession(new EmbeddedChannel(false, false));
+
+        session.setState(GatewaySession.SessionState.AUTHENTICATING);
+        assertEquals(0, manager.getAuthenticatedCount());
+
+        manager.bindPlayer(session.getSessionId(), 1L);
+        manager.bindPlayer(session.getSessionId(), 1L);
+        assertEquals(1, manager.getAuthenticatedCount());
+
+        session.close();
+        assertEquals(0, manager.getAuthenticatedCount());
+        assertEquals(1, manager.getSessionCount());
+
+        // 关闭后的状态切换被忽略
+        session.setState(GatewaySession.SessionState.AUTHENTICATED);
+        assertEquals(0, manager.getAuthenticatedCount());
+
+        manager.removeSession(session.getSessionId());
+        manager.removeSession(session.getSessionId());
+        assertEquals(0, manager.getSessionCount());
+    }
+
+    /**
+     * 记录一个阶段的单次平均耗时（纳秒）
+     */
+    private static long perOp(Map<String, String> report, String phase, long startNanos) {
+        long nanos = (System.nanoTime() - startNanos) / SESSIONS;
+        report.put(phase + "NanosPerOp", String.valueOf(nanos));
+        return nanos;
+    }
+
+    private static void assertBudget(String phase, long nanosPerOp, long budgetNanos) {
+        assertTrue(nanosPerOp < budgetNanos, phase + " exceeds budget: " + nanosPerOp + " ns/op");
+    }
+}
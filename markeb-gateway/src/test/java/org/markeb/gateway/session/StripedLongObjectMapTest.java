@@ -0,0 +1,109 @@
+package org.markeb.gateway.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 原始 long 键并发表：墓碑删除、扩容重建、条件删除，以及写入期间无锁读取只返回本键的值
+ */
+class StripedLongObjectMapTest {
+
+    @Test
+    void putGetRemove() {
+        StripedLongObjectMap<String> map = new StripedLongObjectMap<>(4);
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(-1L, "minus"));
+        assertEquals("zero", map.put(0L, "zero2"));
+
+        assertEquals("zero2", map.get(0L));
+        assertEquals("minus", map.get(-1L));
+        assertNull(map.get(1L));
+        assertEquals(2, map.size());
+
+        assertEquals("zero2", map.remove(0L));
+        assertNull(map.remove(0L));
+        assertNull(map.get(0L));
+        assertEquals(1, map.size());
+
+        // 墓碑槽位被同一个键复用
+        assertNull(map.put(0L, "again"));
+        assertEquals("again", map.get(0L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void conditionalRemoveMatchesIdentity() {
+        StripedLongObjectMap<String> map = new StripedLongObjectMap<>(1);
+        String value = new String("v");
+        map.put(7L, value);
+
+        assertFalse(map.remove(7L, new String("v")));
+        assertFalse(map.remove(8L, value));
+        assertTrue(map.remove(7L, value));
+        assertFalse(map.remove(7L, value));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void growsAndDropsTombstones() {
+        StripedLongObjectMap<Long> map = new StripedLongObjectMap<>(2);
+        int keys = 10_000;
+        for (long round = 0; round < 3; round++) {
+            for (long k = 0; k < keys; k++) {
+                map.put(k * 31 + round * keys * 31, k);
+            }
+            for (long k = 0; k < keys; k += 2) {
+                assertEquals(Long.valueOf(k), map.remove(k * 31 + round * keys * 31));
+            }
+        }
+        assertEquals(3 * keys / 2, map.size());
+        for (long round = 0; round < 3; round++) {
+            for (long k = 0; k < keys; k++) {
+                Long value = map.get(k * 31 + round * keys * 31);
+                assertEquals(k % 2 == 0 ? null : k, value);
+            }
+        }
+        Set<Long> values = new HashSet<>(map.values());
+        assertEquals(keys / 2, values.size());
+    }
+
+    @Test
+    void lockFreeReadsNeverSeeAnotherKeysValue() throws InterruptedException {
+        StripedLongObjectMap<Long> map = new StripedLongObjectMap<>(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (long k = 0; k < 1_000; k++) {
+                    Long value = map.get(k);
+                    if (value != null && value != k) {
+                        failure.compareAndSet(null, "key " + k + " returned " + value);
+                    }
+                }
+            }
+        });
+        reader.start();
+        try {
+            // 反复插入、删除触发墓碑堆积和重建
+            for (int round = 0; round < 200; round++) {
+                for (long k = 0; k < 1_000; k++) {
+                    map.put(k, k);
+                }
+                for (long k = 0; k < 1_000; k++) {
+                    map.remove(k);
+                }
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,124 @@
+package org.markeb.mesh.match;
+
+import org.markeb.net.heartbeat.NodeLoad;
+import org.markeb.service.registry.ServiceChangeListener;
+import org.markeb.service.registry.ServiceDiscovery;
+import org.markeb.service.registry.ServiceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对局节点选择
+ * <p>
+ * 订阅注册中心的游戏节点，节点定期把 {@link NodeLoad} 写入实例元数据。选择时随机取两个节点，
+ * 取负载分数除以权重较小的一个（两次随机选择），避免多个匹配实例同时涌向同一个"最空闲"节点。
+ * 两次元数据更新之间本实例分配给节点的玩家按在线 Actor 计入分数，收到新的负载后清零。
+ * </p>
+ */
+@Component
+public class GameNodeSelector {
+
+    private static final Logger log = LoggerFactory.getLogger(GameNodeSelector.class);
+
+    private static final String NODE_SERVICE_NAME = "markeb-node";
+
+    private final ServiceDiscovery serviceDiscovery;
+    private final ServiceChangeListener changeListener = this::onNodesChanged;
+
+    private volatile List<Candidate> candidates = List.of();
+
+    @Autowired
+    public GameNodeSelector(ObjectProvider<ServiceDiscovery> serviceDiscovery) {
+        this(serviceDiscovery.getIfAvailable());
+    }
+
+    GameNodeSelector(ServiceDiscovery serviceDiscovery) {
+        this.serviceDiscovery = serviceDiscovery;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (serviceDiscovery == null) {
+            log.warn("No ServiceDiscovery available, matches will be assigned to the default node");
+            return;
+        }
+        onNodesChanged(NODE_SERVICE_NAME, serviceDiscovery.getInstances(NODE_SERVICE_NAME));
+        serviceDiscovery.subscribe(NODE_SERVICE_NAME, changeListener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (serviceDiscovery != null) {
+            serviceDiscovery.unsubscribe(NODE_SERVICE_NAME, changeListener);
+        }
+    }
+
+    /**
+     * 为一局对局选择游戏节点
+     *
+     * @param players 对局人数，计入所选节点的负载估算
+     * @return 游戏节点，没有可用节点时返回 empty
+     */
+    public Optional<ServiceInstance> select(int players) {
+        List<Candidate> current = candidates;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        Candidate selected;
+        if (current.size() == 1) {
+            selected = current.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(current.size());
+            int second = random.nextInt(current.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Candidate a = current.get(first);
+            Candidate b = current.get(second);
+            selected = a.score() <= b.score() ? a : b;
+        }
+        selected.assigned.addAndGet(players);
+        return Optional.of(selected.instance);
+    }
+
+    private synchronized void onNodesChanged(String serviceName, List<ServiceInstance> instances) {
+        List<Candidate> rebuilt = new ArrayList<>();
+        if (instances != null) {
+            for (ServiceInstance instance : instances) {
+                if (instance.isHealthy() && instance.isEnabled() && instance.getWeight() > 0) {
+                    NodeLoad load = NodeLoad.fromMetadata(instance.getMetadata());
+                    rebuilt.add(new Candidate(instance, load != null ? load.score() : 0));
+                }
+            }
+        }
+        candidates = List.copyOf(rebuilt);
+        log.debug("Game nodes refreshed: {}", rebuilt.size());
+    }
+
+    private static final class Candidate {
+        final ServiceInstance instance;
+        final double load;
+        final AtomicInteger assigned = new AtomicInteger();
+
+        Candidate(ServiceInstance instance, double load) {
+            this.instance = instance;
+            this.load = load;
+        }
+
+        double score() {
+            return (load + assigned.get() * NodeLoad.actorScore()) / instance.getWeight();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.markeb.mesh.match;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 匹配桶
+ * <p>
+ * 同一游戏模式、同一区域的等待请求。请求同时按（评分, 入队序号）和入队序号建立两个有序索引，
+ * 入队和移除都是 O(log n)。
+ * </p>
+ * <p>
+ * 匹配时从等待最久的请求开始作为锚点，在评分索引上以锚点为中心向两侧扩展，
+ * 每次选取评分更接近的一侧，直到凑齐人数或超出评分窗口。评分窗口和可接受延迟随锚点的等待时间放宽。
+ * </p>
+ */
+final class MatchBucket {
+
+    private static final Comparator<MatchRequest> BY_RATING = Comparator
+            .comparingInt(MatchRequest::getRating)
+            .thenComparingLong(MatchRequest::getSequence);
+
+    private static final Comparator<MatchRequest> BY_WAIT = Comparator.comparingLong(MatchRequest::getSequence);
+
+    private final TreeSet<MatchRequest> byRating = new TreeSet<>(BY_RATING);
+    private final TreeSet<MatchRequest> byWait = new TreeSet<>(BY_WAIT);
+
+    /**
+     * 上一轮匹配后是否还有锚点可能在窗口放宽后凑齐
+     */
+    private boolean widenable;
+
+    synchronized void add(MatchRequest request) {
+        byRating.add(request);
+        byWait.add(request);
+    }
+
+    synchronized boolean remove(MatchRequest request) {
+        byWait.remove(request);
+        return byRating.remove(request);
+    }
+
+    synchronized int size() {
+        return byWait.size();
+    }
+
+    /**
+     * 取出桶内全部请求，按入队顺序
+     */
+    synchronized List<MatchRequest> drain() {
+        List<MatchRequest> drained = new ArrayList<>(byWait);
+        byWait.clear();
+        byRating.clear();
+        widenable = false;
+        return drained;
+    }
+
+    /**
+     * 在桶内尽可能多地凑出对局，凑出的请求已从桶中移除
+     *
+     * @param requiredPlayers 每局人数
+     * @param config          匹配配置
+     * @param now             当前时间
+     * @return 凑出的对局
+     */
+    synchronized List<List<MatchRequest>> match(int requiredPlayers, MatchService.MatchConfig config,
+                                                LocalDateTime now) {
+        List<List<MatchRequest>> matches = new ArrayList<>();
+        widenable = false;
+        int failures = 0;
+        MatchRequest anchor = byWait.isEmpty() ? null : byWait.first();
+        while (anchor != null && byWait.size() >= requiredPlayers && failures < config.getMaxAnchorFailures()) {
+            List<MatchRequest> group = collect(anchor, requiredPlayers, config, now);
+            if (group == null) {
+                // 锚点当前窗口内人数不足，换下一个锚点，等待窗口放宽后再试
+                failures++;
+            } else {
+                for (MatchRequest request : group) {
+                    byRating.remove(request);
+                    byWait.remove(request);
+                }
+                matches.add(group);
+            }
+            anchor = byWait.higher(anchor);
+        }
+        if (failures >= config.getMaxAnchorFailures()) {
+            // 本轮提前结束，剩余锚点留到下一轮
+            widenable = true;
+        }
+        return matches;
+    }
+
+    /**
+     * 上一轮匹配中是否有凑不齐人数、但评分窗口或可接受延迟尚未到上限的锚点
+     */
+    synchronized boolean isWidenable() {
+        return widenable;
+    }
+
+    private List<MatchRequest> collect(MatchRequest anchor, int requiredPlayers, MatchService.MatchConfig config,
+                                       LocalDateTime now) {
+        long waitMillis = Math.max(0, Duration.between(anchor.getRequestTime(), now).toMillis());
+        int window = config.ratingWindow(waitMillis);
+        int latencyLimit = config.latencyLimit(waitMillis);
+
+        List<MatchRequest> group = new ArrayList<>(requiredPlayers);
+        group.add(anchor);
+        Iterator<MatchRequest> down = byRating.headSet(anchor, false).descendingIterator();
+        Iterator<MatchRequest> up = byRating.tailSet(anchor, false).iterator();
+        MatchRequest lower = next(down, anchor, window, latencyLimit);
+        MatchRequest upper = next(up, anchor, window, latencyLimit);
+        while (group.size() < requiredPlayers && (lower != null || upper != null)) {
+            if (upper == null || (lower != null
+                    && anchor.getRating() - lower.getRating() <= upper.getRating() - anchor.getRating())) {
+                group.add(lower);
+                lower = next(down, anchor, window, latencyLimit);
+            } else {
+                group.add(upper);
+                upper = next(up, anchor, window, latencyLimit);
+            }
+        }
+        if (group.size() == requiredPlayers) {
+            return group;
+        }
+        if (window < config.getMaxRatingWindow() || latencyLimit < config.getMaxLatencyLimit()) {
+            widenable = true;
+        }
+        return null;
+    }
+
+    /**
+     * 沿评分索引取下一个可接受的请求，超出评分窗口时返回 null
+     */
+    private static MatchRequest next(Iterator<MatchRequest> iterator, MatchRequest anchor, int window,
+                                     int latencyLimit) {
+        while (iterator.hasNext()) {
+            MatchRequest request = iterator.next();
+            if (Math.abs(request.getRating() - anchor.getRating()) > window) {
+                return null;
+            }
+            if (request.getLatency() <= latencyLimit) {
+                return request;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package org.markeb.mesh.match;
+
+import org.markeb.service.registry.ServiceDiscovery;
+import org.markeb.service.registry.ServiceInstance;
+import org.markeb.service.registry.config.ServiceAutoRegistrar;
+import org.markeb.service.registry.partition.PartitionTable;
+import org.markeb.service.registry.partition.ServicePartitioner;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 匹配分区归属
+ * <p>
+ * 多个匹配服务实例按（游戏模式, 区域）划分匹配桶：分区键在注册中心的匹配服务实例上做一致性哈希，
+ * 每个分区只由归属实例排队和匹配，同一分区的玩家总是落在同一个实例上，增加实例即可扩容。
+ * 请求方（节点）使用相同的分区键和 {@link ServicePartitioner} 计算归属，直接把请求发给归属实例。
+ * </p>
+ * <p>
+ * 没有服务发现（单机部署）或注册中心中还没有任何匹配服务实例时，所有分区都归本实例。
+ * </p>
+ */
+@Component
+public class MatchPartitions {
+
+    private final ServicePartitioner partitioner;
+
+    /**
+     * 本实例注册的地址，注册中心可能为实例另行生成ID（如 Nacos），因此按地址识别本实例
+     */
+    private final Supplier<String> localAddress;
+
+    @Autowired
+    public MatchPartitions(ObjectProvider<ServiceDiscovery> serviceDiscovery,
+                           ObjectProvider<ServiceAutoRegistrar> registrar,
+                           @Value("${markeb.registry.service-name:${spring.application.name:markeb-mesh}}") String serviceName) {
+        this(serviceDiscovery.getIfAvailable() != null
+                        ? new ServicePartitioner(serviceDiscovery.getIfAvailable(), serviceName)
+                        : null,
+                () -> {
+                    ServiceAutoRegistrar autoRegistrar = registrar.getIfAvailable();
+                    ServiceInstance instance = autoRegistrar != null ? autoRegistrar.getRegisteredInstance() : null;
+                    return instance != null ? instance.getAddress() : null;
+                });
+    }
+
+    MatchPartitions(ServicePartitioner partitioner, Supplier<String> localAddress) {
+        this.partitioner = partitioner;
+        this.localAddress = localAddress;
+    }
+
+    /**
+     * 所有分区都归本实例
+     */
+    static MatchPartitions standalone() {
+        return new MatchPartitions(null, () -> null);
+    }
+
+    /**
+     * 分区键
+     * <p>
+     * 请求方计算归属时必须使用相同的格式。
+     * </p>
+     */
+    public static String key(String gameMode, String region) {
+        return gameMode + ":" + (region != null ? region : MatchPool.DEFAULT_REGION);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (partitioner != null) {
+            partitioner.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (partitioner != null) {
+            partitioner.stop();
+        }
+    }
+
+    /**
+     * 添加归属变更监听
+     */
+    public void addListener(Consumer<PartitionTable> listener) {
+        if (partitioner != null) {
+            partitioner.addListener(listener);
+        }
+    }
+
+    /**
+     * 分区是否归本实例
+     */
+    public boolean isLocal(String partitionKey) {
+        ServiceInstance owner = owner(partitionKey);
+        return owner == null || owner.getAddress().equals(localAddress.get());
+    }
+
+    /**
+     * 分区的归属实例
+     *
+     * @return 归属实例，单机部署或没有可用实例时返回 null
+     */
+    public ServiceInstance owner(String partitionKey) {
+        if (partitioner == null || localAddress.get() == null) {
+            // 本实例未注册到注册中心时不参与分区，所有请求都在本地处理
+            return null;
+        }
+        return partitioner.owner(partitionKey);
+    }
+}
@@ -0,0 +1,147 @@
+package org.markeb.mesh.match;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 单个游戏模式的匹配池
+ * <p>
+ * 按区域划分匹配桶，不同区域的玩家不会匹配到一起，各桶独立加锁，匹配时并行处理。
+ * </p>
+ */
+public class MatchPool {
+
+    /**
+     * 未指定区域的请求归入的默认区域
+     */
+    static final String DEFAULT_REGION = "default";
+
+    private final String gameMode;
+    private final int requiredPlayers;
+    private final Map<String, MatchBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 是否已提交立即执行的匹配任务，多次入队只触发一次
+     */
+    private final AtomicBoolean matchPending = new AtomicBoolean();
+
+    /**
+     * 是否已提交等待窗口放宽的重试任务
+     */
+    private final AtomicBoolean retryPending = new AtomicBoolean();
+
+    public MatchPool(String gameMode, int requiredPlayers) {
+        this.gameMode = gameMode;
+        this.requiredPlayers = requiredPlayers;
+    }
+
+    /**
+     * 加入匹配池
+     */
+    public void add(MatchRequest request) {
+        request.setSequence(sequence.incrementAndGet());
+        buckets.computeIfAbsent(region(request), k -> new MatchBucket()).add(request);
+        size.incrementAndGet();
+    }
+
+    /**
+     * 从匹配池移除
+     *
+     * @return 请求已被匹配或不在池中时返回 false
+     */
+    public boolean remove(MatchRequest request) {
+        MatchBucket bucket = buckets.get(region(request));
+        if (bucket != null && bucket.remove(request)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取出指定区域桶内的全部请求，用于把分区移交给其他实例
+     *
+     * @param regions 要取出的区域
+     * @return 取出的请求，已从池中移除
+     */
+    public List<MatchRequest> drain(Predicate<String> regions) {
+        List<MatchRequest> drained = new ArrayList<>();
+        for (Map.Entry<String, MatchBucket> entry : buckets.entrySet()) {
+            if (regions.test(entry.getKey())) {
+                drained.addAll(entry.getValue().drain());
+            }
+        }
+        size.addAndGet(-drained.size());
+        return drained;
+    }
+
+    /**
+     * 各区域桶并行匹配，人数不足的桶直接跳过
+     *
+     * @param config   匹配配置
+     * @param now      当前时间
+     * @param executor 并行执行器
+     * @return 凑出的对局，其中的请求已从池中移除
+     */
+    public List<List<MatchRequest>> match(MatchService.MatchConfig config, LocalDateTime now, Executor executor) {
+        List<CompletableFuture<List<List<MatchRequest>>>> futures = new ArrayList<>();
+        for (MatchBucket bucket : buckets.values()) {
+            if (bucket.size() >= requiredPlayers) {
+                futures.add(CompletableFuture.supplyAsync(() -> bucket.match(requiredPlayers, config, now), executor));
+            }
+        }
+        List<List<MatchRequest>> matches = new ArrayList<>();
+        for (CompletableFuture<List<List<MatchRequest>>> future : futures) {
+            matches.addAll(future.join());
+        }
+        size.addAndGet(-matches.size() * requiredPlayers);
+        return matches;
+    }
+
+    /**
+     * 是否有桶在窗口放宽后可能凑出新的对局
+     */
+    public boolean isWidenable() {
+        for (MatchBucket bucket : buckets.values()) {
+            if (bucket.size() >= requiredPlayers && bucket.isWidenable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    AtomicBoolean matchPending() {
+        return matchPending;
+    }
+
+    AtomicBoolean retryPending() {
+        return retryPending;
+    }
+
+    public String getGameMode() {
+        return gameMode;
+    }
+
+    public int getRequiredPlayers() {
+        return requiredPlayers;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private static String region(MatchRequest request) {
+        return request.getRegion() != null ? request.getRegion() : DEFAULT_REGION;
+    }
+}
@@ -0,0 +1,34 @@
+package org.markeb.mesh.match;
+
+/**
+ * 匹配分区不归本实例
+ * <p>
+ * 提交到非归属实例的请求，以及实例成员变化后移交出去的等待请求，以此异常结束，
+ * 请求方应向 {@link #getOwnerAddress()} 重新提交。
+ * </p>
+ */
+public class MatchRedirectException extends RuntimeException {
+
+    private final String partitionKey;
+    private final String ownerInstanceId;
+    private final String ownerAddress;
+
+    public MatchRedirectException(String partitionKey, String ownerInstanceId, String ownerAddress) {
+        super("Match partition " + partitionKey + " is owned by " + ownerInstanceId + " (" + ownerAddress + ")");
+        this.partitionKey = partitionKey;
+        this.ownerInstanceId = ownerInstanceId;
+        this.ownerAddress = ownerAddress;
+    }
+
+    public String getPartitionKey() {
+        return partitionKey;
+    }
+
+    public String getOwnerInstanceId() {
+        return ownerInstanceId;
+    }
+
+    public String getOwnerAddress() {
+        return ownerAddress;
+    }
+}
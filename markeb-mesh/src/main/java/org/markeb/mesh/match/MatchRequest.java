@@ -23,10 +23,20 @@ public class MatchRequest {
     private String gameMode;
 
     /**
-     * 玩家评分（用于匹配）
+     * 玩家评分（用于匹配），入队后不可修改
      */
     private int rating;
 
+    /**
+     * 匹配区域，同一区域的玩家才会被匹配到一起
+     */
+    private String region;
+
+    /**
+     * 玩家到该区域的网络延迟（毫秒），0 表示未知
+     */
+    private int latency;
+
     /**
      * 请求时间
      */
@@ -37,6 +47,11 @@ public class MatchRequest {
      */
     private MatchStatus status = MatchStatus.WAITING;
 
+    /**
+     * 入队序号，由匹配池分配，用于索引排序
+     */
+    private long sequence;
+
     public MatchRequest() {
         this.requestTime = LocalDateTime.now();
     }
@@ -48,6 +63,12 @@ public class MatchRequest {
         this.rating = rating;
     }
 
+    public MatchRequest(String playerId, String gameMode, int rating, String region, int latency) {
+        this(playerId, gameMode, rating);
+        this.region = region;
+        this.latency = latency;
+    }
+
     // Getters and Setters
 
     public String getRequestId() {
@@ -82,6 +103,22 @@ public class MatchRequest {
         this.rating = rating;
     }
 
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getLatency() {
+        return latency;
+    }
+
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+
     public LocalDateTime getRequestTime() {
         return requestTime;
     }
@@ -98,6 +135,14 @@ public class MatchRequest {
         this.status = status;
     }
 
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public enum MatchStatus {
         /**
          * 等待匹配
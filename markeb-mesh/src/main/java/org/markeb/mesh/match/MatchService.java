@@ -1,9 +1,16 @@
 package org.markeb.mesh.match;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.markeb.service.registry.ServiceInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -11,6 +18,19 @@ import java.util.concurrent.*;
 
 /**
  * 匹配服务
+ * <p>
+ * 匹配由事件驱动：匹配池人数达到开局人数时立即提交一轮匹配；一轮结束后仍有锚点因窗口不足凑不齐时，
+ * 在下一次窗口放宽时再匹配一轮。人数不足或窗口已到上限的匹配池不产生任何调度。
+ * </p>
+ * <p>
+ * 每个请求入池时在调度器上登记一个超时任务，匹配成功或取消时撤销。调度器的任务队列是按到期时间排序的堆，
+ * 撤销即从堆中移除，超时处理的开销只与事件数有关，与等待人数无关。
+ * </p>
+ * <p>
+ * 部署多个实例时，每个（游戏模式, 区域）分区只由 {@link MatchPartitions} 计算出的归属实例处理，
+ * 提交到其他实例的请求以 {@link MatchRedirectException} 拒绝；实例成员变化后，
+ * 不再归本实例的分区中的等待请求同样以该异常结束，由请求方向新的归属实例重新提交。
+ * </p>
  */
 @Service
 public class MatchService {
@@ -18,9 +38,20 @@ public class MatchService {
     private static final Logger log = LoggerFactory.getLogger(MatchService.class);
 
     /**
-     * 匹配队列（gameMode -> 请求队列）
+     * 评分窗口和可接受延迟按整秒放宽，重试间隔与之对齐
      */
-    private final Map<String, Queue<MatchRequest>> matchQueues = new ConcurrentHashMap<>();
+    private static final long WIDEN_INTERVAL_MS = 1000;
+
+    /**
+     * 未接入注册中心（单机开发）时分配的默认游戏节点
+     */
+    private static final String DEFAULT_NODE_ID = "node-1";
+    private static final String DEFAULT_NODE_ADDRESS = "127.0.0.1:9000";
+
+    /**
+     * 匹配池（gameMode -> 按区域和评分索引的等待请求）
+     */
+    private final Map<String, MatchPool> matchPools = new ConcurrentHashMap<>();
 
     /**
      * 玩家请求映射（playerId -> request）
@@ -33,44 +64,100 @@ public class MatchService {
     private final Map<String, CompletableFuture<MatchResult>> pendingMatches = new ConcurrentHashMap<>();
 
     /**
-     * 匹配执行器
+     * 超时任务（requestId -> 超时任务）
+     */
+    private final Map<String, ScheduledFuture<?>> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * 各游戏模式的排队时长（gameMode -> Timer）
+     */
+    private final Map<String, Timer> timeToMatch = new ConcurrentHashMap<>();
+
+    /**
+     * 匹配和超时调度器
      */
-    private final ScheduledExecutorService matchExecutor = Executors.newScheduledThreadPool(2);
+    private final ScheduledExecutorService matchExecutor;
+
+    /**
+     * 各区域桶并行匹配的执行器
+     */
+    private final Executor matchWorkers;
 
     /**
      * 匹配配置
      */
-    private final MatchConfig config = new MatchConfig();
+    private final MatchConfig config;
+
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+    private final MatchPartitions partitions;
+    private final GameNodeSelector nodeSelector;
+
+    @Autowired
+    public MatchService(ObjectProvider<MeterRegistry> meterRegistry, MatchPartitions partitions,
+                        GameNodeSelector nodeSelector) {
+        this(new MatchConfig(), Clock.systemDefaultZone(), newScheduler(), Executors.newWorkStealingPool(),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new), partitions, nodeSelector);
+    }
+
+    MatchService(MatchConfig config, Clock clock, ScheduledExecutorService matchExecutor, Executor matchWorkers,
+                 MeterRegistry meterRegistry, MatchPartitions partitions, GameNodeSelector nodeSelector) {
+        this.config = config;
+        this.clock = clock;
+        this.matchExecutor = matchExecutor;
+        this.matchWorkers = matchWorkers;
+        this.meterRegistry = meterRegistry;
+        this.partitions = partitions;
+        this.nodeSelector = nodeSelector;
+        partitions.addListener(table -> matchExecutor.execute(this::handOverPartitions));
+    }
 
-    public MatchService() {
-        // 启动匹配任务
-        matchExecutor.scheduleAtFixedRate(this::processMatching, 1, 1, TimeUnit.SECONDS);
-        // 启动超时检查任务
-        matchExecutor.scheduleAtFixedRate(this::checkTimeout, 5, 5, TimeUnit.SECONDS);
+    private static ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2);
+        // 撤销的超时任务立即移出堆，避免匹配成功的请求在堆中滞留到超时时间
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
     }
 
     /**
      * 提交匹配请求
      */
     public CompletableFuture<MatchResult> submitRequest(MatchRequest request) {
+        // 分区不归本实例时让请求方转发到归属实例
+        String partitionKey = MatchPartitions.key(request.getGameMode(), request.getRegion());
+        if (!partitions.isLocal(partitionKey)) {
+            return CompletableFuture.failedFuture(redirect(partitionKey));
+        }
+
         // 检查是否已在匹配中
-        if (playerRequests.containsKey(request.getPlayerId())) {
+        if (playerRequests.putIfAbsent(request.getPlayerId(), request) != null) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException("Player already in matching: " + request.getPlayerId()));
         }
 
         request.setRequestId(UUID.randomUUID().toString());
+        request.setRequestTime(LocalDateTime.now(clock));
         request.setStatus(MatchRequest.MatchStatus.WAITING);
 
-        // 加入队列
-        Queue<MatchRequest> queue = matchQueues.computeIfAbsent(
-                request.getGameMode(), k -> new ConcurrentLinkedQueue<>());
-        queue.offer(request);
-        playerRequests.put(request.getPlayerId(), request);
-
-        // 创建结果 Future
+        // 先登记结果 Future 和超时任务，避免入池后立即被匹配时找不到
         CompletableFuture<MatchResult> future = new CompletableFuture<>();
         pendingMatches.put(request.getRequestId(), future);
+        deadlines.put(request.getRequestId(), matchExecutor.schedule(() -> expire(request),
+                config.getMatchTimeout().toMillis(), TimeUnit.MILLISECONDS));
+
+        // 加入匹配池，人数达标时触发匹配
+        MatchPool pool = pool(request.getGameMode());
+        pool.add(request);
+        if (!partitions.isLocal(partitionKey)) {
+            // 入池期间分区已移交，移交任务可能已执行过，这里自行移出
+            if (pool.remove(request)) {
+                handOver(request);
+            }
+            return future;
+        }
+        if (pool.size() >= pool.getRequiredPlayers()) {
+            scheduleMatching(pool);
+        }
 
         log.info("Player {} submitted match request for mode {}", 
                 request.getPlayerId(), request.getGameMode());
@@ -80,21 +167,25 @@ public class MatchService {
 
     /**
      * 取消匹配
+     *
+     * @return 未在匹配中或已匹配成功时返回 false
      */
     public boolean cancelRequest(String playerId) {
-        MatchRequest request = playerRequests.remove(playerId);
+        MatchRequest request = playerRequests.get(playerId);
         if (request == null) {
             return false;
         }
 
-        request.setStatus(MatchRequest.MatchStatus.CANCELLED);
-
-        // 从队列移除
-        Queue<MatchRequest> queue = matchQueues.get(request.getGameMode());
-        if (queue != null) {
-            queue.remove(request);
+        // 从匹配池移除，移除失败说明已被匹配或已超时
+        MatchPool pool = matchPools.get(request.getGameMode());
+        if (pool == null || !pool.remove(request)) {
+            return false;
         }
 
+        request.setStatus(MatchRequest.MatchStatus.CANCELLED);
+        playerRequests.remove(playerId, request);
+        cancelDeadline(request);
+
         // 完成 Future
         CompletableFuture<MatchResult> future = pendingMatches.remove(request.getRequestId());
         if (future != null) {
@@ -106,62 +197,76 @@ public class MatchService {
     }
 
     /**
-     * 处理匹配逻辑
+     * 提交一轮匹配，已有待执行的匹配时不重复提交
      */
-    private void processMatching() {
-        for (Map.Entry<String, Queue<MatchRequest>> entry : matchQueues.entrySet()) {
-            String gameMode = entry.getKey();
-            Queue<MatchRequest> queue = entry.getValue();
+    private void scheduleMatching(MatchPool pool) {
+        if (pool.matchPending().compareAndSet(false, true)) {
+            matchExecutor.execute(() -> {
+                // 先清除标记再匹配：匹配期间新入池的请求会再提交一轮
+                pool.matchPending().set(false);
+                processMatching(pool);
+            });
+        }
+    }
 
-            int requiredPlayers = config.getRequiredPlayers(gameMode);
-            if (queue.size() < requiredPlayers) {
-                continue;
-            }
+    /**
+     * 在下一次窗口放宽时再匹配一轮
+     */
+    private void scheduleRetry(MatchPool pool) {
+        if (pool.retryPending().compareAndSet(false, true)) {
+            matchExecutor.schedule(() -> {
+                pool.retryPending().set(false);
+                processMatching(pool);
+            }, WIDEN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
 
-            // 尝试匹配
-            List<MatchRequest> candidates = new ArrayList<>();
-            for (MatchRequest request : queue) {
-                if (request.getStatus() == MatchRequest.MatchStatus.WAITING) {
-                    candidates.add(request);
-                    if (candidates.size() >= requiredPlayers) {
-                        break;
-                    }
-                }
+    /**
+     * 处理匹配逻辑
+     */
+    private void processMatching(MatchPool pool) {
+        if (pool.size() < pool.getRequiredPlayers()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (List<MatchRequest> group : pool.match(config, now, matchWorkers)) {
+                createMatch(pool.getGameMode(), group, now);
             }
-
-            if (candidates.size() >= requiredPlayers) {
-                // 匹配成功
-                createMatch(gameMode, candidates);
+            if (pool.isWidenable()) {
+                scheduleRetry(pool);
             }
+        } catch (Exception e) {
+            log.error("Failed to process matching for mode {}", pool.getGameMode(), e);
         }
     }
 
     /**
      * 创建匹配
      */
-    private void createMatch(String gameMode, List<MatchRequest> requests) {
+    private void createMatch(String gameMode, List<MatchRequest> requests, LocalDateTime now) {
         String matchId = UUID.randomUUID().toString();
         List<String> playerIds = new ArrayList<>();
+        Timer timer = timeToMatch.computeIfAbsent(gameMode, this::newTimeToMatchTimer);
 
         for (MatchRequest request : requests) {
             request.setStatus(MatchRequest.MatchStatus.MATCHED);
             playerIds.add(request.getPlayerId());
+            timer.record(Duration.between(request.getRequestTime(), now));
 
-            // 从队列和映射中移除
-            Queue<MatchRequest> queue = matchQueues.get(gameMode);
-            if (queue != null) {
-                queue.remove(request);
-            }
-            playerRequests.remove(request.getPlayerId());
+            // 已由匹配池移除，这里只清理映射和超时任务
+            playerRequests.remove(request.getPlayerId(), request);
+            cancelDeadline(request);
         }
 
         // 创建匹配结果
         MatchResult result = new MatchResult(matchId, gameMode, playerIds);
         result.setRoomId("room_" + matchId.substring(0, 8));
 
-        // TODO: 从服务注册中心选择一个游戏节点
-        result.setNodeId("node-1");
-        result.setNodeAddress("127.0.0.1:9000");
+        // 按负载选择游戏节点
+        Optional<ServiceInstance> node = nodeSelector.select(requests.size());
+        result.setNodeId(node.map(ServiceInstance::getInstanceId).orElse(DEFAULT_NODE_ID));
+        result.setNodeAddress(node.map(ServiceInstance::getAddress).orElse(DEFAULT_NODE_ADDRESS));
 
         log.info("Match created: {} with players {}", matchId, playerIds);
 
@@ -175,43 +280,94 @@ public class MatchService {
     }
 
     /**
-     * 检查超时请求
+     * 请求超时
      */
-    private void checkTimeout() {
-        LocalDateTime now = LocalDateTime.now();
-        Duration timeout = config.getMatchTimeout();
+    private void expire(MatchRequest request) {
+        deadlines.remove(request.getRequestId());
+
+        // 移除失败说明已被匹配或已取消
+        MatchPool pool = matchPools.get(request.getGameMode());
+        if (pool == null || !pool.remove(request)) {
+            return;
+        }
 
-        for (Map.Entry<String, MatchRequest> entry : playerRequests.entrySet()) {
-            MatchRequest request = entry.getValue();
-            if (request.getStatus() == MatchRequest.MatchStatus.WAITING) {
-                Duration waiting = Duration.between(request.getRequestTime(), now);
-                if (waiting.compareTo(timeout) > 0) {
-                    // 超时
-                    request.setStatus(MatchRequest.MatchStatus.TIMEOUT);
-                    playerRequests.remove(entry.getKey());
+        request.setStatus(MatchRequest.MatchStatus.TIMEOUT);
+        playerRequests.remove(request.getPlayerId(), request);
 
-                    Queue<MatchRequest> queue = matchQueues.get(request.getGameMode());
-                    if (queue != null) {
-                        queue.remove(request);
-                    }
+        CompletableFuture<MatchResult> future = pendingMatches.remove(request.getRequestId());
+        if (future != null) {
+            future.completeExceptionally(new TimeoutException("Match timeout"));
+        }
 
-                    CompletableFuture<MatchResult> future = pendingMatches.remove(request.getRequestId());
-                    if (future != null) {
-                        future.completeExceptionally(new TimeoutException("Match timeout"));
-                    }
+        log.info("Player {} match request timeout", request.getPlayerId());
+    }
 
-                    log.info("Player {} match request timeout", request.getPlayerId());
+    /**
+     * 实例成员变化后，把不再归本实例的分区中的等待请求移交出去
+     */
+    private void handOverPartitions() {
+        try {
+            for (MatchPool pool : matchPools.values()) {
+                List<MatchRequest> drained = pool.drain(
+                        region -> !partitions.isLocal(MatchPartitions.key(pool.getGameMode(), region)));
+                for (MatchRequest request : drained) {
+                    handOver(request);
+                }
+                if (!drained.isEmpty()) {
+                    log.info("Handed over {} requests of mode {}", drained.size(), pool.getGameMode());
                 }
             }
+        } catch (Exception e) {
+            log.error("Failed to hand over match partitions", e);
+        }
+    }
+
+    /**
+     * 结束已移出匹配池的请求，通知请求方向归属实例重新提交
+     */
+    private void handOver(MatchRequest request) {
+        request.setStatus(MatchRequest.MatchStatus.CANCELLED);
+        playerRequests.remove(request.getPlayerId(), request);
+        cancelDeadline(request);
+
+        CompletableFuture<MatchResult> future = pendingMatches.remove(request.getRequestId());
+        if (future != null) {
+            future.completeExceptionally(redirect(MatchPartitions.key(request.getGameMode(), request.getRegion())));
+        }
+    }
+
+    private MatchRedirectException redirect(String partitionKey) {
+        ServiceInstance owner = partitions.owner(partitionKey);
+        return owner != null
+                ? new MatchRedirectException(partitionKey, owner.getInstanceId(), owner.getAddress())
+                : new MatchRedirectException(partitionKey, null, null);
+    }
+
+    private void cancelDeadline(MatchRequest request) {
+        ScheduledFuture<?> deadline = deadlines.remove(request.getRequestId());
+        if (deadline != null) {
+            deadline.cancel(false);
         }
     }
 
+    private Timer newTimeToMatchTimer(String gameMode) {
+        return Timer.builder("mesh.match.time")
+                .description("从提交匹配请求到匹配成功的排队时长")
+                .tag("mode", gameMode)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
     /**
      * 获取队列中的玩家数
      */
     public int getQueueSize(String gameMode) {
-        Queue<MatchRequest> queue = matchQueues.get(gameMode);
-        return queue != null ? queue.size() : 0;
+        MatchPool pool = matchPools.get(gameMode);
+        return pool != null ? pool.size() : 0;
+    }
+
+    private MatchPool pool(String gameMode) {
+        return matchPools.computeIfAbsent(gameMode, mode -> new MatchPool(mode, config.getRequiredPlayers(mode)));
     }
 
     /**
@@ -227,10 +383,59 @@ public class MatchService {
 
         private Duration matchTimeout = Duration.ofMinutes(3);
 
+        /**
+         * 初始评分窗口（锚点评分上下浮动范围）
+         */
+        private int ratingWindow = 100;
+
+        /**
+         * 每等待一秒评分窗口放宽的量
+         */
+        private int ratingWindowGrowth = 20;
+
+        /**
+         * 评分窗口上限
+         */
+        private int maxRatingWindow = 1000;
+
+        /**
+         * 初始可接受延迟（毫秒）
+         */
+        private int latencyLimit = 80;
+
+        /**
+         * 每等待一秒可接受延迟放宽的量（毫秒）
+         */
+        private int latencyLimitGrowth = 10;
+
+        /**
+         * 可接受延迟上限（毫秒）
+         */
+        private int maxLatencyLimit = 300;
+
+        /**
+         * 单个桶一轮匹配中允许凑不齐人数的锚点数，超过后结束本轮，避免在稀疏的桶上反复扫描
+         */
+        private int maxAnchorFailures = 1024;
+
         public int getRequiredPlayers(String gameMode) {
             return requiredPlayers.getOrDefault(gameMode, 2);
         }
 
+        /**
+         * 按等待时间计算评分窗口
+         */
+        public int ratingWindow(long waitMillis) {
+            return (int) Math.min(maxRatingWindow, ratingWindow + ratingWindowGrowth * (waitMillis / 1000));
+        }
+
+        /**
+         * 按等待时间计算可接受延迟
+         */
+        public int latencyLimit(long waitMillis) {
+            return (int) Math.min(maxLatencyLimit, latencyLimit + latencyLimitGrowth * (waitMillis / 1000));
+        }
+
         public Duration getMatchTimeout() {
             return matchTimeout;
         }
@@ -238,6 +443,46 @@ public class MatchService {
         public void setMatchTimeout(Duration matchTimeout) {
             this.matchTimeout = matchTimeout;
         }
+
+        public void setRatingWindow(int ratingWindow) {
+            this.ratingWindow = ratingWindow;
+        }
+
+        public void setRatingWindowGrowth(int ratingWindowGrowth) {
+            this.ratingWindowGrowth = ratingWindowGrowth;
+        }
+
+        public void setMaxRatingWindow(int maxRatingWindow) {
+            this.maxRatingWindow = maxRatingWindow;
+        }
+
+        public void setLatencyLimit(int latencyLimit) {
+            this.latencyLimit = latencyLimit;
+        }
+
+        public void setLatencyLimitGrowth(int latencyLimitGrowth) {
+            this.latencyLimitGrowth = latencyLimitGrowth;
+        }
+
+        public void setMaxLatencyLimit(int maxLatencyLimit) {
+            this.maxLatencyLimit = maxLatencyLimit;
+        }
+
+        public int getMaxRatingWindow() {
+            return maxRatingWindow;
+        }
+
+        public int getMaxLatencyLimit() {
+            return maxLatencyLimit;
+        }
+
+        public int getMaxAnchorFailures() {
+            return maxAnchorFailures;
+        }
+
+        public void setMaxAnchorFailures(int maxAnchorFailures) {
+            this.maxAnchorFailures = maxAnchorFailures;
+        }
     }
 }
 
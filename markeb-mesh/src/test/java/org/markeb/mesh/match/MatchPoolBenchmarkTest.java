@@ -0,0 +1,143 @@
+package org.markeb.mesh.match;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 匹配索引模拟压测：100 万个大逃杀请求（每局 100 人），分布在 8 个区域，评分服从正态分布。
+ * <p>
+ * 按 1 秒一轮推进时间，评分窗口随等待时间放宽，统计匹配耗时、匹配率和每局的评分跨度；
+ * 另外测量 100 万个请求乱序取消的耗时。标记为 {@code benchmark}，默认构建不执行，用 {@code mvn test -Pbenchmark} 运行。
+ */
+@Tag("benchmark")
+class MatchPoolBenchmarkTest {
+
+    private static final int REQUESTS = 1_000_000;
+    private static final String MODE = "battle_royale";
+    private static final String[] REGIONS = {"cn-east", "cn-south", "cn-north", "ap-se", "ap-ne", "eu-west", "us-east",
+            "us-west"};
+    private static final int MAX_ROUNDS = 60;
+    /**
+     * 100 万个请求全部匹配完（含首轮一次清空积压）的耗时上限
+     */
+    private static final long MATCH_BUDGET_MILLIS = 10_000;
+    /**
+     * 取消在请求线程上同步执行，单次平均耗时上限
+     */
+    private static final long CANCEL_BUDGET_NANOS = 10_000;
+
+    @Test
+    void matchOneMillionRequests(TestReporter reporter) {
+        MatchService.MatchConfig config = new MatchService.MatchConfig();
+        MatchPool pool = new MatchPool(MODE, config.getRequiredPlayers(MODE));
+        List<MatchRequest> requests = generate(new Random(42), LocalDateTime.now());
+        ExecutorService workers = Executors.newWorkStealingPool();
+        try {
+            long start = System.nanoTime();
+            for (MatchRequest request : requests) {
+                pool.add(request);
+            }
+            long insertNanos = System.nanoTime() - start;
+
+            LocalDateTime now = LocalDateTime.now();
+            int matches = 0;
+            int rounds = 0;
+            long spreadSum = 0;
+            int maxSpread = 0;
+            long maxRoundNanos = 0;
+            start = System.nanoTime();
+            while (rounds < MAX_ROUNDS && pool.size() >= pool.getRequiredPlayers()) {
+                long roundStart = System.nanoTime();
+                List<List<MatchRequest>> groups = pool.match(config, now, workers);
+                maxRoundNanos = Math.max(maxRoundNanos, System.nanoTime() - roundStart);
+                for (List<MatchRequest> group : groups) {
+                    int spread = spread(group);
+                    assertEquals(pool.getRequiredPlayers(), group.size());
+                    assertEquals(1, group.stream().map(MatchRequest::getRegion).distinct().count());
+                    spreadSum += spread;
+                    maxSpread = Math.max(maxSpread, spread);
+                    matches++;
+                }
+                now = now.plusSeconds(1);
+                rounds++;
+            }
+            long matchNanos = System.nanoTime() - start;
+
+            int matched = matches * pool.getRequiredPlayers();
+            reporter.publishEntry(Map.of(
+                    "insertMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(insertNanos)),
+                    "matchMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(matchNanos)),
+                    "maxRoundMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(maxRoundNanos)),
+                    "matches", String.valueOf(matches),
+                    "rounds", String.valueOf(rounds),
+                    "matchedPercent", String.format("%.1f", matched * 100.0 / REQUESTS),
+                    "avgSpread", String.valueOf(matches == 0 ? 0 : spreadSum / matches),
+                    "maxSpread", String.valueOf(maxSpread)));
+            assertEquals(REQUESTS - matched, pool.size());
+            assertTrue(matched >= REQUESTS * 0.95, "matched " + matched);
+            assertTrue(maxSpread <= 2 * config.ratingWindow(TimeUnit.HOURS.toMillis(1)), "max spread " + maxSpread);
+            assertTrue(matchNanos < TimeUnit.MILLISECONDS.toNanos(MATCH_BUDGET_MILLIS),
+                    "matching exceeds budget: " + TimeUnit.NANOSECONDS.toMillis(matchNanos) + " ms");
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelOneMillionRequests(TestReporter reporter) {
+        MatchPool pool = new MatchPool(MODE, 100);
+        List<MatchRequest> requests = generate(new Random(7), LocalDateTime.now());
+        for (MatchRequest request : requests) {
+            pool.add(request);
+        }
+        Collections.shuffle(requests, new Random(7));
+
+        long start = System.nanoTime();
+        for (MatchRequest request : requests) {
+            assertTrue(pool.remove(request));
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        reporter.publishEntry("cancelMillis", String.valueOf(TimeUnit.NANOSECONDS.toMillis(cancelNanos)));
+        assertEquals(0, pool.size());
+        assertFalse(pool.remove(requests.get(0)));
+        assertTrue(cancelNanos / REQUESTS < CANCEL_BUDGET_NANOS, "cancel exceeds budget: " + cancelNanos / REQUESTS + " ns");
+    }
+
+    private static List<MatchRequest> generate(Random random, LocalDateTime now) {
+        List<MatchRequest> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            int rating = (int) Math.max(0, Math.min(3000, 1500 + random.nextGaussian() * 300));
+            String region = REGIONS[random.nextInt(REGIONS.length)];
+            int latency = 20 + random.nextInt(130);
+            MatchRequest request = new MatchRequest("p" + i, MODE, rating, region, latency);
+            request.setRequestId("r" + i);
+            request.setRequestTime(now.minusNanos(random.nextInt(30_000) * 1_000_000L));
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static int spread(List<MatchRequest> group) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (MatchRequest request : group) {
+            min = Math.min(min, request.getRating());
+            max = Math.max(max, request.getRating());
+        }
+        return max - min;
+    }
+}
@@ -0,0 +1,353 @@
+package org.markeb.mesh.match;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.markeb.service.registry.ServiceDiscovery;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.LongStream;
+
+/**
+ * 匹配模拟
+ * <p>
+ * 按场景生成玩家到达序列（泊松到达、活动开始时的集中涌入），评分和区域按给定分布抽样，
+ * 在 {@link VirtualScheduler} 的虚拟时钟上驱动 {@link MatchService}：匹配、窗口放宽重试和超时都由虚拟时间触发，
+ * 区域桶在调用线程上串行匹配。同一场景和随机种子总是得到相同的匹配结果。
+ * </p>
+ * <p>
+ * 同一调度周期（{@link Scenario#tick(Duration)}）内到达的请求只触发一轮匹配，模拟真实调度线程上的合并。
+ * 报告吞吐、排队时长分位数、每局评分跨度（公平性）和每局消耗的 CPU 时间。
+ * </p>
+ */
+final class MatchSimulation {
+
+    private static final long START_MILLIS = Duration.ofDays(365 * 50L).toMillis();
+
+    private MatchSimulation() {
+    }
+
+    /**
+     * 运行场景
+     */
+    static Report run(Scenario scenario) {
+        Random random = new Random(scenario.seed);
+        long[] arrivals = scenario.arrivals(random);
+        VirtualScheduler scheduler = new VirtualScheduler(START_MILLIS);
+        MatchService service = new MatchService(scenario.config, scheduler.clock(), scheduler, Runnable::run,
+                new SimpleMeterRegistry(), MatchPartitions.standalone(), new GameNodeSelector((ServiceDiscovery) null));
+
+        Map<String, Integer> ratings = new HashMap<>(arrivals.length * 2);
+        Map<String, Integer> spreads = new LinkedHashMap<>();
+        List<Long> waits = new ArrayList<>(arrivals.length);
+        int[] timeouts = new int[1];
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long wallStart = System.nanoTime();
+
+        long tickEnd = Long.MIN_VALUE;
+        for (int i = 0; i < arrivals.length; i++) {
+            long at = START_MILLIS + arrivals[i];
+            if (at >= tickEnd) {
+                // 进入新的调度周期，先执行此前到期的匹配、重试和超时
+                scheduler.advanceTo(at);
+                tickEnd = at + scenario.tick.toMillis();
+            } else {
+                scheduler.setTime(at);
+            }
+
+            String playerId = "p" + i;
+            int rating = scenario.ratings.applyAsInt(random);
+            ratings.put(playerId, rating);
+            MatchRequest request = new MatchRequest(playerId, scenario.gameMode, rating,
+                    scenario.region(random), scenario.latencies.applyAsInt(random));
+            long submitted = scheduler.now();
+            CompletableFuture<MatchResult> future = service.submitRequest(request);
+            future.whenComplete((result, error) -> {
+                if (result != null) {
+                    waits.add(scheduler.now() - submitted);
+                    spreads.computeIfAbsent(result.getMatchId(), id -> spread(result.getPlayerIds(), ratings));
+                } else if (unwrap(error) instanceof TimeoutException) {
+                    timeouts[0]++;
+                }
+            });
+        }
+        // 到达结束后继续推进，直到所有请求匹配成功或超时
+        scheduler.advanceTo(START_MILLIS + scenario.duration.toMillis() + scenario.config.getMatchTimeout().toMillis()
+                + Duration.ofSeconds(1).toMillis());
+
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+        long wallNanos = System.nanoTime() - wallStart;
+        return Report.of(scenario, arrivals.length, waits, spreads, timeouts[0],
+                service.getQueueSize(scenario.gameMode), cpuNanos, wallNanos);
+    }
+
+    private static int spread(List<String> playerIds, Map<String, Integer> ratings) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (String playerId : playerIds) {
+            int rating = ratings.get(playerId);
+            min = Math.min(min, rating);
+            max = Math.max(max, rating);
+        }
+        return max - min;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 到达过程，生成相对场景开始时间的到达时刻（毫秒）
+     */
+    @FunctionalInterface
+    interface Arrivals {
+
+        void generate(long durationMillis, Random random, LongConsumer arrival);
+
+        /**
+         * 泊松到达
+         *
+         * @param perSecond 平均每秒到达人数
+         */
+        static Arrivals poisson(double perSecond) {
+            return (durationMillis, random, arrival) -> {
+                double meanGapMillis = 1000.0 / perSecond;
+                double time = -Math.log(1 - random.nextDouble()) * meanGapMillis;
+                while (time < durationMillis) {
+                    arrival.accept((long) time);
+                    time += -Math.log(1 - random.nextDouble()) * meanGapMillis;
+                }
+            };
+        }
+
+        /**
+         * 集中涌入，例如活动开始时大量玩家在短时间内进入匹配
+         *
+         * @param at      开始时刻
+         * @param players 涌入人数
+         * @param window  涌入持续时长，人数在其中均匀分布
+         */
+        static Arrivals burst(Duration at, int players, Duration window) {
+            return (durationMillis, random, arrival) -> {
+                long start = at.toMillis();
+                long length = Math.max(1, window.toMillis());
+                for (int i = 0; i < players; i++) {
+                    long time = start + (long) (random.nextDouble() * length);
+                    if (time < durationMillis) {
+                        arrival.accept(time);
+                    }
+                }
+            };
+        }
+
+        /**
+         * 叠加另一个到达过程
+         */
+        default Arrivals and(Arrivals other) {
+            return (durationMillis, random, arrival) -> {
+                generate(durationMillis, random, arrival);
+                other.generate(durationMillis, random, arrival);
+            };
+        }
+    }
+
+    /**
+     * 评分正态分布，截断到 [0, 2 * mean]
+     */
+    static ToIntFunction<Random> normal(int mean, int stddev) {
+        return random -> (int) Math.max(0, Math.min(2L * mean, Math.round(mean + random.nextGaussian() * stddev)));
+    }
+
+    /**
+     * [min, max] 均匀分布
+     */
+    static ToIntFunction<Random> uniform(int min, int max) {
+        return random -> min + random.nextInt(max - min + 1);
+    }
+
+    /**
+     * 模拟场景
+     */
+    static final class Scenario {
+        private final String name;
+        private String gameMode = "1v1";
+        private Duration duration = Duration.ofHours(1);
+        private Duration tick = Duration.ofMillis(10);
+        private Arrivals arrivals = Arrivals.poisson(10);
+        private ToIntFunction<Random> ratings = normal(1500, 300);
+        private ToIntFunction<Random> latencies = uniform(20, 150);
+        private String[] regions = {MatchPool.DEFAULT_REGION};
+        private double[] regionWeights = {1};
+        private MatchService.MatchConfig config = new MatchService.MatchConfig();
+        private long seed = 42;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        Scenario gameMode(String gameMode) {
+            this.gameMode = gameMode;
+            return this;
+        }
+
+        /**
+         * 到达持续时长，之后不再有新玩家，已排队的玩家继续匹配直到成功或超时
+         */
+        Scenario duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * 调度周期，同一周期内到达的请求合并为一轮匹配
+         */
+        Scenario tick(Duration tick) {
+            this.tick = tick;
+            return this;
+        }
+
+        Scenario arrivals(Arrivals arrivals) {
+            this.arrivals = arrivals;
+            return this;
+        }
+
+        Scenario ratings(ToIntFunction<Random> ratings) {
+            this.ratings = ratings;
+            return this;
+        }
+
+        Scenario latencies(ToIntFunction<Random> latencies) {
+            this.latencies = latencies;
+            return this;
+        }
+
+        /**
+         * 区域分布
+         *
+         * @param weights 区域 -> 相对权重
+         */
+        Scenario regions(Map<String, Double> weights) {
+            this.regions = weights.keySet().stream().sorted().toArray(String[]::new);
+            this.regionWeights = new double[regions.length];
+            double total = 0;
+            for (int i = 0; i < regions.length; i++) {
+                total += weights.get(regions[i]);
+                regionWeights[i] = total;
+            }
+            for (int i = 0; i < regions.length; i++) {
+                regionWeights[i] /= total;
+            }
+            return this;
+        }
+
+        Scenario config(MatchService.MatchConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        Scenario seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        private long[] arrivals(Random random) {
+            LongStream.Builder times = LongStream.builder();
+            arrivals.generate(duration.toMillis(), random, times::add);
+            return times.build().sorted().toArray();
+        }
+
+        private String region(Random random) {
+            double point = random.nextDouble();
+            for (int i = 0; i < regions.length - 1; i++) {
+                if (point < regionWeights[i]) {
+                    return regions[i];
+                }
+            }
+            return regions[regions.length - 1];
+        }
+    }
+
+    /**
+     * 模拟结果
+     *
+     * @param scenario          场景名称
+     * @param arrivals          到达人数
+     * @param matches           对局数
+     * @param matched           匹配成功人数
+     * @param timeouts          超时人数
+     * @param queued            结束时仍在排队的人数
+     * @param matchesPerMinute  按到达时长计的每分钟对局数
+     * @param waitP50Millis     排队时长 p50（毫秒）
+     * @param waitP90Millis     排队时长 p90（毫秒）
+     * @param waitP99Millis     排队时长 p99（毫秒）
+     * @param waitMaxMillis     最长排队时长（毫秒）
+     * @param spreadAvg         每局评分跨度平均值
+     * @param spreadP99         每局评分跨度 p99
+     * @param spreadMax         每局评分跨度最大值
+     * @param cpuMicrosPerMatch 每局消耗的 CPU 时间（微秒），包括入队、取消超时任务等全部开销
+     * @param wallMillis        模拟耗时（毫秒）
+     */
+    record Report(String scenario, int arrivals, int matches, int matched, int timeouts, int queued,
+                  double matchesPerMinute, long waitP50Millis, long waitP90Millis, long waitP99Millis,
+                  long waitMaxMillis, double spreadAvg, int spreadP99, int spreadMax, double cpuMicrosPerMatch,
+                  long wallMillis) {
+
+        static Report of(Scenario scenario, int arrivals, List<Long> waits, Map<String, Integer> spreads,
+                         int timeouts, int queued, long cpuNanos, long wallNanos) {
+            long[] sortedWaits = waits.stream().mapToLong(Long::longValue).sorted().toArray();
+            int[] sortedSpreads = spreads.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int matches = sortedSpreads.length;
+            return new Report(scenario.name, arrivals, matches, sortedWaits.length, timeouts, queued,
+                    matches / Math.max(1.0, scenario.duration.toMillis() / 60_000.0),
+                    percentile(sortedWaits, 0.5), percentile(sortedWaits, 0.9), percentile(sortedWaits, 0.99),
+                    sortedWaits.length == 0 ? 0 : sortedWaits[sortedWaits.length - 1],
+                    Arrays.stream(sortedSpreads).average().orElse(0),
+                    matches == 0 ? 0 : sortedSpreads[Math.min(matches - 1, (int) (matches * 0.99))],
+                    matches == 0 ? 0 : sortedSpreads[matches - 1],
+                    matches == 0 ? 0 : cpuNanos / 1000.0 / matches,
+                    wallNanos / 1_000_000);
+        }
+
+        /**
+         * 与另一次运行的匹配结果是否相同（不比较 CPU 和耗时）
+         */
+        boolean sameOutcome(Report other) {
+            return arrivals == other.arrivals && matches == other.matches && matched == other.matched
+                    && timeouts == other.timeouts && queued == other.queued
+                    && waitP50Millis == other.waitP50Millis && waitP99Millis == other.waitP99Millis
+                    && waitMaxMillis == other.waitMaxMillis && spreadAvg == other.spreadAvg
+                    && spreadMax == other.spreadMax;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-22s arrivals %,9d | matched %5.1f%% timeout %,7d queued %,5d | %,8.1f matches/min"
+                            + " | wait p50 %,6d p90 %,6d p99 %,6d max %,7d ms | spread avg %5.1f p99 %4d max %4d"
+                            + " | cpu %,7.1f us/match | wall %,6d ms",
+                    scenario, arrivals, arrivals == 0 ? 0 : matched * 100.0 / arrivals, timeouts, queued,
+                    matchesPerMinute, waitP50Millis, waitP90Millis, waitP99Millis, waitMaxMillis, spreadAvg,
+                    spreadP99, spreadMax, cpuMicrosPerMatch, wallMillis);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.markeb.mesh.match;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 匹配模拟回归：在虚拟时钟上跑几个典型场景，经 {@link TestReporter} 报告吞吐、排队时长分位数、评分跨度和每局 CPU，
+ * 并对匹配率、排队时长和公平性设下限，调参或改动匹配算法后对比输出即可。
+ */
+class MatchSimulationTest {
+
+    private static final Map<String, Double> REGIONS = Map.of(
+            "cn-east", 4.0, "cn-south", 3.0, "cn-north", 2.0, "ap-se", 1.0, "eu-west", 0.5, "us-east", 0.5);
+
+    @Test
+    void sameSeedSameOutcome(TestReporter reporter) {
+        MatchSimulation.Scenario scenario = new MatchSimulation.Scenario("determinism")
+                .gameMode("5v5")
+                .duration(Duration.ofMinutes(20))
+                .arrivals(MatchSimulation.Arrivals.poisson(20))
+                .regions(REGIONS)
+                .seed(7);
+        MatchSimulation.Report first = MatchSimulation.run(scenario);
+        MatchSimulation.Report second = MatchSimulation.run(scenario);
+        reporter.publishEntry("report", first.toString());
+        assertTrue(first.sameOutcome(second), first + "\n" + second);
+        assertAccounted(first, "5v5");
+    }
+
+    @Test
+    void steadyDuel(TestReporter reporter) {
+        MatchSimulation.Report report = MatchSimulation.run(new MatchSimulation.Scenario("1v1 steady 20/s")
+                .gameMode("1v1")
+                .duration(Duration.ofMinutes(30))
+                .arrivals(MatchSimulation.Arrivals.poisson(20))
+                .regions(REGIONS));
+        reporter.publishEntry("report", report.toString());
+        assertAccounted(report, "1v1");
+        assertTrue(report.matched() >= report.arrivals() * 0.999, report.toString());
+        assertTrue(report.waitP99Millis() <= Duration.ofSeconds(15).toMillis(), report.toString());
+        // 初始评分窗口 ±100，平均跨度应在一个窗口宽度之内
+        assertTrue(report.spreadAvg() <= 2 * 100, report.toString());
+    }
+
+    @Test
+    void eventStartBurst(TestReporter reporter) {
+        // 平时每秒 5 人，活动开始后 1 分钟内涌入 3 万人
+        MatchSimulation.Report report = MatchSimulation.run(new MatchSimulation.Scenario("5v5 event burst")
+                .gameMode("5v5")
+                .duration(Duration.ofMinutes(40))
+                .arrivals(MatchSimulation.Arrivals.poisson(5)
+                        .and(MatchSimulation.Arrivals.burst(Duration.ofMinutes(10), 30_000, Duration.ofMinutes(1))))
+                .regions(REGIONS));
+        reporter.publishEntry("report", report.toString());
+        assertAccounted(report, "5v5");
+        assertTrue(report.matched() >= report.arrivals() * 0.99, report.toString());
+        assertTrue(report.waitP50Millis() <= Duration.ofSeconds(5).toMillis(), report.toString());
+        assertTrue(report.spreadP99() <= 2 * new MatchService.MatchConfig().getMaxRatingWindow(), report.toString());
+    }
+
+    @Test
+    void battleRoyale(TestReporter reporter) {
+        MatchSimulation.Report report = MatchSimulation.run(new MatchSimulation.Scenario("battle_royale 30/s")
+                .gameMode("battle_royale")
+                .duration(Duration.ofMinutes(20))
+                .arrivals(MatchSimulation.Arrivals.poisson(30))
+                .regions(REGIONS));
+        reporter.publishEntry("report", report.toString());
+        assertAccounted(report, "battle_royale");
+        assertTrue(report.matched() >= report.arrivals() * 0.95, report.toString());
+        assertTrue(report.waitP99Millis() < new MatchService.MatchConfig().getMatchTimeout().toMillis(),
+                report.toString());
+    }
+
+    @Test
+    void sparseRegionTimesOut(TestReporter reporter) {
+        // 人数极少的区域凑不齐，应按超时时间结束而不是一直排队
+        MatchSimulation.Report report = MatchSimulation.run(new MatchSimulation.Scenario("battle_royale sparse")
+                .gameMode("battle_royale")
+                .duration(Duration.ofMinutes(10))
+                .arrivals(MatchSimulation.Arrivals.poisson(0.1))
+                .regions(REGIONS));
+        reporter.publishEntry("report", report.toString());
+        assertAccounted(report, "battle_royale");
+        assertEquals(0, report.queued());
+        assertEquals(report.arrivals(), report.timeouts());
+    }
+
+    /**
+     * 每个到达的玩家要么匹配成功、要么超时、要么仍在排队，且每局人数正确
+     */
+    private static void assertAccounted(MatchSimulation.Report report, String gameMode) {
+        assertEquals(report.arrivals(), report.matched() + report.timeouts() + report.queued(), report.toString());
+        assertEquals(report.matches() * new MatchService.MatchConfig().getRequiredPlayers(gameMode), report.matched());
+    }
+}
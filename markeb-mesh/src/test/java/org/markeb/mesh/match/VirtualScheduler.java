@@ -0,0 +1,248 @@
+package org.markeb.mesh.match;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟时间调度器
+ * <p>
+ * 任务不在后台线程执行，只在调用 {@link #advanceTo(long)} 时于调用线程上按（到期时间, 提交顺序）依次执行，
+ * 执行时把 {@link #clock()} 拨到任务的到期时间。同样的输入总是得到同样的执行顺序，几小时的排队几秒内模拟完。
+ * </p>
+ */
+final class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private static final Comparator<Task<?>> ORDER = Comparator
+            .comparingLong((Task<?> task) -> task.time)
+            .thenComparingLong(task -> task.sequence);
+
+    private final TreeSet<Task<?>> queue = new TreeSet<>(ORDER);
+    private final VirtualClock clock;
+    private long sequence;
+    private boolean shutdown;
+
+    VirtualScheduler(long startMillis) {
+        this.clock = new VirtualClock(startMillis);
+    }
+
+    Clock clock() {
+        return clock;
+    }
+
+    long now() {
+        return clock.millis;
+    }
+
+    /**
+     * 只拨动时钟，不执行到期任务，用于同一调度周期内的多个事件
+     */
+    void setTime(long millis) {
+        clock.millis = Math.max(clock.millis, millis);
+    }
+
+    /**
+     * 依次执行到期时间不晚于 {@code millis} 的任务（包括执行过程中新提交的），然后把时钟拨到 {@code millis}
+     */
+    void advanceTo(long millis) {
+        while (!queue.isEmpty() && queue.first().time <= millis) {
+            Task<?> task = queue.pollFirst();
+            clock.millis = Math.max(clock.millis, task.time);
+            task.run();
+        }
+        clock.millis = Math.max(clock.millis, millis);
+    }
+
+    /**
+     * 待执行的任务数
+     */
+    int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(() -> {
+            command.run();
+            return null;
+        }, clock.millis + unit.toMillis(Math.max(0, delay)), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new Task<>(callable, clock.millis + unit.toMillis(Math.max(0, delay)), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return enqueue(new Task<>(() -> {
+            command.run();
+            return null;
+        }, clock.millis + unit.toMillis(initialDelay), unit.toMillis(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        // 任务不占用虚拟时间，固定延迟与固定频率相同
+        return scheduleAtFixedRate(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        queue.clear();
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private <V> Task<V> enqueue(Task<V> task) {
+        if (!shutdown) {
+            task.sequence = sequence++;
+            queue.add(task);
+        }
+        return task;
+    }
+
+    private final class Task<V> implements ScheduledFuture<V>, Runnable {
+        private final Callable<V> callable;
+        private final long period;
+        private long time;
+        private long sequence;
+        private boolean cancelled;
+        private boolean done;
+        private V result;
+        private Throwable failure;
+
+        Task(Callable<V> callable, long time, long period) {
+            this.callable = callable;
+            this.time = time;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = callable.call();
+            } catch (Throwable e) {
+                failure = e;
+                done = true;
+                return;
+            }
+            if (period > 0 && !cancelled) {
+                time += period;
+                enqueue(this);
+            } else {
+                done = true;
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - clock.millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            queue.remove(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public V get() throws ExecutionException {
+            if (!isDone()) {
+                throw new IllegalStateException("Virtual task has not run yet, advance the scheduler first");
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return result;
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws ExecutionException {
+            return get();
+        }
+    }
+
+    private static final class VirtualClock extends Clock {
+        private long millis;
+
+        VirtualClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException("Virtual clock is fixed to UTC");
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
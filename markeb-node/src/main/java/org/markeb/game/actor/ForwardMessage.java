@@ -0,0 +1,16 @@
+package org.markeb.game.actor;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * 网关转发的客户端消息
+ * <p>
+ * I/O 线程只取出消息ID和负载投递到玩家 Actor，解析和业务处理都在 Actor 中执行。
+ * 负载保持为 {@link ByteString}，解析时直接读取，不复制为 byte[]。
+ * </p>
+ *
+ * @param msgId   业务消息ID
+ * @param payload 业务消息体
+ */
+public record ForwardMessage(int msgId, ByteString payload) {
+}
@@ -1,7 +1,7 @@
 package org.markeb.game.actor;
 
-import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
+import org.markeb.game.netty.BatchedChannelWriter;
 import org.markeb.net.msg.IGameParser;
 import org.markeb.net.register.GameActorContext;
 import org.markeb.proto.notice.Forward.PushNotice;
@@ -9,32 +9,52 @@ import io.netty.channel.Channel;
 
 public class Player implements GameActorContext {
 
-    private final String playerId;
+    private final long playerId;
     private final Channel channel;
+    private final BatchedChannelWriter writer;
     private final IGameParser<Message> gameParser;
+    private final boolean compactPlayerId;
 
-    public Player(String playerId, Channel channel, IGameParser<Message> gameParser) {
+    public Player(long playerId, Channel channel, IGameParser<Message> gameParser, boolean compactPlayerId) {
         this.playerId = playerId;
         this.channel = channel;
+        this.writer = BatchedChannelWriter.of(channel);
         this.gameParser = gameParser;
+        this.compactPlayerId = compactPlayerId;
     }
 
-    public String getPlayerId() {
+    public long getPlayerId() {
         return playerId;
     }
 
+    public Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 所在网关是否支持 int64 玩家 ID 的推送，不支持时推送使用字符串玩家 ID 的 {@link PushNotice}
+     */
+    public boolean isCompactPlayerId() {
+        return compactPlayerId;
+    }
+
     public void send(Message msg) {
         if (channel != null && channel.isActive()) {
             @SuppressWarnings("unchecked")
             int msgId = gameParser.messageId((Class<Message>) msg.getClass());
 
-            PushNotice push = PushNotice.newBuilder()
-                    .addPlayerIds(playerId)
-                    .setMsgId(msgId)
-                    .setPayload(ByteString.copyFrom(msg.toByteArray()))
-                    .build();
-
-            channel.writeAndFlush(push);
+            if (compactPlayerId) {
+                // 同一网关连接上的推送合并为批量帧
+                writer.push(playerId, msgId, msg.toByteString());
+            } else {
+                // 兼容未升级的网关：逐条发送，只合并 flush
+                PushNotice push = PushNotice.newBuilder()
+                        .addPlayerIds(Long.toString(playerId))
+                        .setMsgId(msgId)
+                        .setPayload(msg.toByteString())
+                        .build();
+                writer.write(push);
+            }
         }
     }
 
@@ -1,13 +1,21 @@
 package org.markeb.game.actor;
 
+import com.google.protobuf.Message;
 import org.markeb.actor.ActorBehavior;
 import org.markeb.actor.ActorContext;
 import org.markeb.actor.message.NetworkMessage;
 import org.markeb.actor.message.SystemMessage;
+import org.markeb.net.message.LazyProtobufMessage;
+import org.markeb.net.msg.IMessagePool;
+import org.markeb.net.register.IContextHandle;
+import org.markeb.persistent.DataCenter;
 import org.markeb.proto.message.Test;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Set;
+
 /**
  * 玩家 Actor 行为定义
  * <p>
@@ -19,6 +27,22 @@ public class PlayerActorBehavior implements ActorBehavior<PlayerState> {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerActorBehavior.class);
 
+    /**
+     * 脏数据刷盘定时器
+     */
+    private static final String FLUSH_TIMER = "flush";
+
+    /**
+     * 脏数据刷盘间隔（毫秒），间隔内对同一属性的多次修改合并为一次写入
+     */
+    private static final long FLUSH_INTERVAL_MS = 5_000;
+
+    private final IMessagePool<Message> messagePool;
+
+    public PlayerActorBehavior(IMessagePool<Message> messagePool) {
+        this.messagePool = messagePool;
+    }
+
     @Override
     public PlayerState onMessage(ActorContext context, PlayerState state, Object message) throws Exception {
         log.debug("Player {} received message: {}", state.getPlayerId(), message.getClass().getSimpleName());
@@ -28,6 +52,11 @@ public class PlayerActorBehavior implements ActorBehavior<PlayerState> {
             return handleSystemMessage(context, state, systemMessage);
         }
 
+        // 处理网关转发的消息
+        if (message instanceof ForwardMessage forwardMessage) {
+            return handleForwardMessage(state, forwardMessage);
+        }
+
         // 处理网络消息
         if (message instanceof NetworkMessage<?> networkMessage) {
             return handleNetworkMessage(context, state, networkMessage);
@@ -42,15 +71,23 @@ public class PlayerActorBehavior implements ActorBehavior<PlayerState> {
             case SystemMessage.Start start -> {
                 log.info("Player {} actor started", state.getPlayerId());
                 state.setLastLoginTime(System.currentTimeMillis());
+                state.setFlushScheduleId(context.schedulePeriodic(
+                        new SystemMessage.Timer(FLUSH_TIMER, null), FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS));
             }
             case SystemMessage.Stop stop -> {
                 log.info("Player {} actor stopping", state.getPlayerId());
                 state.setLastLogoutTime(System.currentTimeMillis());
+                if (state.getFlushScheduleId() != null) {
+                    context.cancelSchedule(state.getFlushScheduleId());
+                    state.setFlushScheduleId(null);
+                }
+                flushOnLogout(state);
             }
             case SystemMessage.Tick tick -> {
                 // 定时器心跳，可以做一些定时任务
                 log.trace("Player {} tick at {}", state.getPlayerId(), tick.timestamp());
             }
+            case SystemMessage.Timer timer when FLUSH_TIMER.equals(timer.timerId()) -> flush(state);
             case SystemMessage.Timer timer -> {
                 log.debug("Player {} timer {} triggered", state.getPlayerId(), timer.timerId());
             }
@@ -59,24 +96,90 @@ public class PlayerActorBehavior implements ActorBehavior<PlayerState> {
         return state;
     }
 
+    /**
+     * 只把上次刷盘后修改过的属性写出，没有修改时不产生写入
+     * <p>
+     * 交接给持久化层失败时把取出的属性重新标脏，下一轮刷盘再写，不丢修改。
+     * </p>
+     */
+    private void flush(PlayerState state) {
+        Set<String> dirty = state.dirtyTracker().drain();
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            DataCenter.updateAsync(state, dirty);
+        } catch (Exception e) {
+            state.dirtyTracker().markAll(dirty);
+            log.error("Failed to flush player {} fields {}, retry on next flush", state.getPlayerId(), dirty, e);
+        }
+    }
+
+    /**
+     * 下线时写出剩余修改，并且不等持久化层下一轮合并刷出，立即发出
+     */
+    private void flushOnLogout(PlayerState state) {
+        flush(state);
+        try {
+            DataCenter.flush(PlayerState.class, state.getId());
+        } catch (Exception e) {
+            log.error("Failed to flush player {} on logout", state.getPlayerId(), e);
+        }
+    }
+
     private PlayerState handleNetworkMessage(ActorContext context, PlayerState state, NetworkMessage<?> message) {
         Object payload = message.getPayload();
+        try {
+            // 延迟解析的消息在 Actor 线程解析，I/O 线程只负责投递
+            if (payload instanceof LazyProtobufMessage lazy) {
+                payload = lazy.unwrap();
+            }
+
+            // 处理测试消息
+            if (payload instanceof Test.ReqTestMessage req) {
+                log.info("Player {} handling ReqTestMessage", state.getPlayerId());
 
-        // 处理测试消息
-        if (payload instanceof Test.ReqTestMessage req) {
-            log.info("Player {} handling ReqTestMessage", state.getPlayerId());
+                // 构建响应
+                Test.ResTestMessage response = Test.ResTestMessage.newBuilder()
+                        .setResult(true)
+                        .build();
 
-            // 构建响应
-            Test.ResTestMessage response = Test.ResTestMessage.newBuilder()
-                    .setResult(true)
-                    .build();
+                // 发送响应
+                message.reply(response);
+            }
 
-            // 发送响应
-            message.reply(response);
+            // 处理其他协议消息...
+        } finally {
+            ReferenceCountUtil.release(message.getPayload());
         }
 
-        // 处理其他协议消息...
+        return state;
+    }
 
+    private PlayerState handleForwardMessage(PlayerState state, ForwardMessage message) {
+        Player player = state.getPlayer();
+        if (player == null) {
+            log.warn("Player {} has no gateway context, message {} dropped", state.getPlayerId(), message.msgId());
+            return state;
+        }
+        try {
+            // 直接从 ByteString 解析，不复制为 byte[]
+            Message innerMsg = messagePool.messageParser().parseFrom(message.msgId(), message.payload());
+
+            @SuppressWarnings("unchecked")
+            IContextHandle<Player, Message> handler = (IContextHandle<Player, Message>) messagePool
+                    .getHandler(innerMsg);
+            if (handler != null) {
+                Message rep = handler.invoke(player, innerMsg);
+                if (rep != null) {
+                    player.send(rep);
+                }
+            } else {
+                log.warn("Message handler not found for message: {}", innerMsg.getClass().getSimpleName());
+            }
+        } catch (Throwable e) {
+            log.error("Error handling message {} for player {}", message.msgId(), state.getPlayerId(), e);
+        }
         return state;
     }
 
@@ -1,19 +1,29 @@
 package org.markeb.game.actor;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
 import org.markeb.actor.ActorConfig;
 import org.markeb.actor.ActorRef;
 import org.markeb.actor.ActorSystem;
+import org.markeb.actor.game.LoginAdmission;
 import org.markeb.actor.message.NetworkMessage;
 import org.markeb.actor.message.SystemMessage;
 import io.netty.channel.Channel;
+import jakarta.annotation.PreDestroy;
+import org.markeb.net.msg.IMessagePool;
+import org.markeb.persistent.DataCenter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 玩家 Actor 服务
@@ -26,76 +36,247 @@ public class PlayerActorService {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerActorService.class);
 
+    /**
+     * 同时进行中的登录数上限
+     */
+    private static final int LOGIN_CONCURRENCY = 256;
+
+    /**
+     * 排队等待的登录数上限
+     */
+    private static final int LOGIN_QUEUE = 100_000;
+
+    /**
+     * 加载玩家数据的线程数，读存储会阻塞，不能占用 I/O 线程和 Actor 线程
+     */
+    private static final int LOAD_THREADS = 16;
+
+    /**
+     * 玩家 Actor 邮箱容量，绑定期间缓存的转发消息也以此为上限
+     */
+    private static final int MAILBOX_CAPACITY = 1000;
+
     private final ActorSystem actorSystem;
     private final PlayerActorBehavior playerBehavior;
     private final Map<Long, Channel> playerChannels = new ConcurrentHashMap<>();
+    private final Map<Long, PendingBind> pendingBinds = new ConcurrentHashMap<>();
+    private final LoginAdmission admission = new LoginAdmission(LOGIN_CONCURRENCY, LOGIN_QUEUE);
+    private final ExecutorService loader = Executors.newFixedThreadPool(LOAD_THREADS, r -> {
+        Thread thread = new Thread(r, "player-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    public PlayerActorService(ActorSystem actorSystem) {
+    public PlayerActorService(ActorSystem actorSystem, IMessagePool<Message> messagePool) {
         this.actorSystem = actorSystem;
-        this.playerBehavior = new PlayerActorBehavior();
+        this.playerBehavior = new PlayerActorBehavior(messagePool);
+    }
+
+    @PreDestroy
+    public void stop() {
+        loader.shutdownNow();
     }
 
     /**
      * 玩家登录
+     * <p>
+     * 经准入控制排队后执行，调用线程不等待。已在线时旧 Actor 先处理完邮箱中的消息再停止，
+     * 之后在加载线程上读取玩家数据并创建新 Actor。
+     * </p>
      *
      * @param playerId 玩家 ID
      * @param channel  连接通道
-     * @return Actor 引用
-     */
-    public ActorRef login(long playerId, Channel channel) {
-        // 检查是否已在线
-        Optional<ActorRef> existing = actorSystem.lookup(playerId);
-        if (existing.isPresent()) {
-            log.info("Player {} already online, kicking old connection", playerId);
-            // 踢掉旧连接
-            Channel oldChannel = playerChannels.get(playerId);
-            if (oldChannel != null && oldChannel.isActive()) {
-                oldChannel.close();
+     * @return 新 Actor 的引用，排队已满时以 {@link java.util.concurrent.RejectedExecutionException} 失败
+     */
+    public CompletableFuture<ActorRef> login(long playerId, Channel channel) {
+        return admission.submit(() -> {
+            CompletableFuture<Void> stopped;
+            Optional<ActorRef> existing = actorSystem.lookup(playerId);
+            if (existing.isEmpty()) {
+                stopped = CompletableFuture.completedFuture(null);
+            } else {
+                log.info("Player {} already online, kicking old connection", playerId);
+                // 踢掉旧连接
+                Channel oldChannel = playerChannels.get(playerId);
+                if (oldChannel != null && oldChannel.isActive()) {
+                    oldChannel.close();
+                }
+                existing.get().tell(new SystemMessage.Stop());
+                stopped = actorSystem.stopGracefully(playerId);
             }
-            actorSystem.stop(playerId);
-        }
+            return stopped.thenCompose(ignored -> load(playerId))
+                    .thenApply(state -> spawn(playerId, channel, state));
+        });
+    }
+
+    private ActorRef spawn(long playerId, Channel channel, PlayerState initialState) {
+        // 保存 Channel 映射
+        playerChannels.put(playerId, channel);
+        ActorRef actorRef = spawn(playerId, initialState);
+        log.info("Player {} logged in, executor type: {}", playerId, actorSystem.getExecutorType());
+        return actorRef;
+    }
 
-        // 创建初始状态
-        PlayerState initialState = new PlayerState(playerId);
+    /**
+     * 在加载线程上读取玩家数据，没有记录时创建新玩家并保存；未启用持久化时直接创建
+     * <p>
+     * 必须在旧 Actor 停止之后调用：旧 Actor 下线时写出的修改已同步进缓存，读到的是最新数据。
+     * </p>
+     */
+    private CompletableFuture<PlayerState> load(long playerId) {
+        if (DataCenter.getService() == null) {
+            return CompletableFuture.completedFuture(new PlayerState(playerId));
+        }
+        return CompletableFuture.supplyAsync(() -> DataCenter.find(PlayerState.class, playerId)
+                .orElseGet(() -> {
+                    PlayerState created = new PlayerState(playerId);
+                    DataCenter.saveAsync(created);
+                    log.info("Player {} has no record, created", playerId);
+                    return created;
+                }), loader);
+    }
 
-        // 创建 Actor
+    private ActorRef spawn(long playerId, PlayerState initialState) {
         ActorConfig config = ActorConfig.builder()
-                .mailboxCapacity(1000)  // 限制邮箱大小
+                .mailboxCapacity(MAILBOX_CAPACITY)  // 限制邮箱大小
                 .continueOnException(true)  // 异常后继续处理
                 .build();
 
         ActorRef actorRef = actorSystem.spawn(playerId, initialState, playerBehavior, config);
 
-        // 保存 Channel 映射
-        playerChannels.put(playerId, channel);
-
         // 发送启动消息
         actorRef.tell(new SystemMessage.Start());
-
-        log.info("Player {} logged in, executor type: {}", playerId, actorSystem.getExecutorType());
         return actorRef;
     }
 
     /**
-     * 玩家登出
+     * 网关绑定玩家
+     * <p>
+     * 为经网关转发的玩家创建 Actor，之后该玩家的转发消息都投递到这个 Actor 的邮箱中串行处理。
+     * 与 {@link #login} 一样经准入控制排队执行。网关连接由多个玩家共享，重复绑定时不关闭连接，
+     * 旧 Actor 先处理完邮箱中已入队的转发消息和停止消息（落盘）再停止，之后加载玩家数据并创建新 Actor。
+     * 从调用到新 Actor 启动期间（含排队）到达的转发消息先缓存，新 Actor 启动后按到达顺序补投。
+     * </p>
+     *
+     * @param playerId 玩家 ID
+     * @param player   玩家上下文
+     * @return 新 Actor 的引用，排队已满时以 {@link java.util.concurrent.RejectedExecutionException} 失败
+     */
+    public CompletableFuture<ActorRef> bind(long playerId, Player player) {
+        PendingBind pending = pendingBinds.compute(playerId,
+                (id, existing) -> (existing != null ? existing : new PendingBind()).retain());
+        return admission.submit(() -> {
+            CompletableFuture<Void> stopped;
+            if (actorSystem.lookup(playerId).isEmpty()) {
+                stopped = CompletableFuture.completedFuture(null);
+            } else {
+                log.info("Player {} rebound, replacing old actor", playerId);
+                actorSystem.tell(playerId, new SystemMessage.Stop());
+                stopped = actorSystem.stopGracefully(playerId);
+            }
+            return stopped.thenCompose(ignored -> load(playerId))
+                    .thenApply(state -> {
+                        state.setPlayer(player);
+                        return spawn(playerId, state);
+                    });
+        }).whenComplete((actorRef, error) -> releaseBind(playerId, pending, error == null));
+    }
+
+    /**
+     * 最后一个进行中的绑定结束时补投缓存的转发消息；绑定失败时没有可投递的 Actor，丢弃并记录
+     */
+    private void releaseBind(long playerId, PendingBind pending, boolean bound) {
+        if (pendingBinds.computeIfPresent(playerId, (id, p) -> p.release() ? null : p) != null) {
+            return;
+        }
+        synchronized (pending) {
+            if (bound) {
+                for (ForwardMessage message : pending.forwards) {
+                    if (!actorSystem.tell(playerId, message)) {
+                        log.warn("Player {} replay of forwarded message {} failed", playerId, message.msgId());
+                    }
+                }
+            } else if (!pending.forwards.isEmpty()) {
+                log.warn("Bind player {} failed, {} forwarded messages dropped", playerId, pending.forwards.size());
+            }
+            pending.forwards.clear();
+            pending.replayed = true;
+        }
+    }
+
+    /**
+     * 网关解绑玩家
+     * <p>
+     * 先投递停止消息，Actor 处理完邮箱中的消息后停止。
+     * </p>
      *
      * @param playerId 玩家 ID
+     * @return Actor 停止后完成的 Future
      */
-    public void logout(long playerId) {
-        // 发送停止消息
+    public CompletableFuture<Void> unbind(long playerId) {
         actorSystem.tell(playerId, new SystemMessage.Stop());
+        return actorSystem.stopGracefully(playerId);
+    }
 
-        // 延迟停止 Actor，让停止消息有机会被处理
-        CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+    /**
+     * 批量解绑，网关断开时该网关上的所有玩家一起下线
+     *
+     * @param playerIds 玩家 ID 列表
+     * @return 所有 Actor 停止后完成的 Future
+     */
+    public CompletableFuture<Void> unbindAll(long[] playerIds) {
+        SystemMessage.Stop stop = new SystemMessage.Stop();
+        for (long playerId : playerIds) {
+            actorSystem.tell(playerId, stop);
+        }
+        return actorSystem.stopAllGracefully(playerIds);
+    }
+
+    /**
+     * 投递网关转发的消息
+     * <p>
+     * 在 I/O 线程调用，只入队，不解析。绑定进行中时先缓存，新 Actor 启动后补投。
+     * </p>
+     *
+     * @param playerId 玩家 ID
+     * @param msgId    业务消息ID
+     * @param payload  业务消息体
+     * @return 是否成功投递或缓存
+     */
+    public boolean forward(long playerId, int msgId, ByteString payload) {
+        ForwardMessage message = new ForwardMessage(msgId, payload);
+        PendingBind pending = pendingBinds.get(playerId);
+        if (pending != null) {
+            synchronized (pending) {
+                if (!pending.replayed) {
+                    if (pending.forwards.size() >= MAILBOX_CAPACITY) {
+                        log.warn("Player {} is binding and has {} pending forwards, message {} dropped",
+                                playerId, MAILBOX_CAPACITY, msgId);
+                        return false;
+                    }
+                    pending.forwards.add(message);
+                    return true;
+                }
             }
-            actorSystem.stop(playerId);
-            playerChannels.remove(playerId);
-            log.info("Player {} logged out", playerId);
-        });
+        }
+        return actorSystem.tell(playerId, message);
+    }
+
+    /**
+     * 玩家登出
+     * <p>
+     * 先投递停止消息，Actor 处理完邮箱中的消息后停止，不占用任何线程等待。
+     * </p>
+     *
+     * @param playerId 玩家 ID
+     * @return Actor 停止后完成的 Future
+     */
+    public CompletableFuture<Void> logout(long playerId) {
+        // 立即移除映射，避免误删停止期间重新登录写入的新连接
+        playerChannels.remove(playerId);
+        actorSystem.tell(playerId, new SystemMessage.Stop());
+        return actorSystem.stopGracefully(playerId)
+                .thenRun(() -> log.info("Player {} logged out", playerId));
     }
 
     /**
@@ -192,5 +373,28 @@ public class PlayerActorService {
         return actorSystem.actorCount();
     }
 
-}
+    /**
+     * 进行中的绑定
+     * <p>
+     * 同一玩家的多次绑定共用一个实例，{@code binds} 只在 {@link #pendingBinds} 的 compute 中修改；
+     * {@code forwards} 和 {@code replayed} 由实例自身的锁保护，补投在锁内完成，保证先到的消息先投递。
+     * </p>
+     */
+    private static final class PendingBind {
+        private final List<ForwardMessage> forwards = new ArrayList<>();
+        private boolean replayed;
+        private int binds;
 
+        PendingBind retain() {
+            binds++;
+            return this;
+        }
+
+        /**
+         * @return 是否是最后一个进行中的绑定
+         */
+        boolean release() {
+            return --binds == 0;
+        }
+    }
+}
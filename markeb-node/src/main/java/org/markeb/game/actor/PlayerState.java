@@ -1,14 +1,25 @@
 package org.markeb.game.actor;
 
+import org.markeb.persistent.annotation.PersistentEntity;
+import org.markeb.persistent.entity.DirtyTrackable;
+import org.markeb.persistent.entity.DirtyTracker;
+import org.markeb.persistent.entity.Identifiable;
+import org.springframework.data.annotation.Id;
+
 /**
  * 玩家状态
  * <p>
  * 存储玩家的运行时状态数据。
  * 这个对象在 Actor 内部是线程安全的，因为所有操作都是串行的。
  * </p>
+ * <p>
+ * 持久化属性的修改都经过 setter 或业务方法并记录脏标记，由 Actor 定时只把修改过的属性刷到数据库。
+ * </p>
  */
-public class PlayerState {
+@PersistentEntity(collection = "player")
+public class PlayerState implements Identifiable<Long>, DirtyTrackable {
 
+    @Id
     private long playerId;
     private String nickname;
     private int level;
@@ -17,6 +28,18 @@ public class PlayerState {
     private long lastLoginTime;
     private long lastLogoutTime;
 
+    /**
+     * 网关转发模式下的玩家上下文，业务处理器以它为接收者
+     */
+    private transient Player player;
+
+    /**
+     * 定时刷盘任务 ID
+     */
+    private transient String flushScheduleId;
+
+    private final transient DirtyTracker dirtyTracker = new DirtyTracker();
+
     public PlayerState() {
     }
 
@@ -35,12 +58,23 @@ public class PlayerState {
         this.playerId = playerId;
     }
 
+    @Override
+    public Long getId() {
+        return playerId;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.playerId = id;
+    }
+
     public String getNickname() {
         return nickname;
     }
 
     public void setNickname(String nickname) {
         this.nickname = nickname;
+        dirtyTracker.mark("nickname");
     }
 
     public int getLevel() {
@@ -49,6 +83,7 @@ public class PlayerState {
 
     public void setLevel(int level) {
         this.level = level;
+        dirtyTracker.mark("level");
     }
 
     public long getExperience() {
@@ -57,14 +92,17 @@ public class PlayerState {
 
     public void setExperience(long experience) {
         this.experience = experience;
+        dirtyTracker.mark("experience");
     }
 
     public void addExperience(long exp) {
         this.experience += exp;
+        dirtyTracker.mark("experience");
         // 简单的升级逻辑
         while (this.experience >= getExpForNextLevel()) {
             this.experience -= getExpForNextLevel();
             this.level++;
+            dirtyTracker.mark("level");
         }
     }
 
@@ -78,15 +116,18 @@ public class PlayerState {
 
     public void setGold(long gold) {
         this.gold = gold;
+        dirtyTracker.mark("gold");
     }
 
     public void addGold(long amount) {
         this.gold += amount;
+        dirtyTracker.mark("gold");
     }
 
     public boolean deductGold(long amount) {
         if (this.gold >= amount) {
             this.gold -= amount;
+            dirtyTracker.mark("gold");
             return true;
         }
         return false;
@@ -98,6 +139,7 @@ public class PlayerState {
 
     public void setLastLoginTime(long lastLoginTime) {
         this.lastLoginTime = lastLoginTime;
+        dirtyTracker.mark("lastLoginTime");
     }
 
     public long getLastLogoutTime() {
@@ -106,6 +148,28 @@ public class PlayerState {
 
     public void setLastLogoutTime(long lastLogoutTime) {
         this.lastLogoutTime = lastLogoutTime;
+        dirtyTracker.mark("lastLogoutTime");
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public void setPlayer(Player player) {
+        this.player = player;
+    }
+
+    public String getFlushScheduleId() {
+        return flushScheduleId;
+    }
+
+    public void setFlushScheduleId(String flushScheduleId) {
+        this.flushScheduleId = flushScheduleId;
+    }
+
+    @Override
+    public DirtyTracker dirtyTracker() {
+        return dirtyTracker;
     }
 
     @Override
@@ -0,0 +1,110 @@
+package org.markeb.game.load;
+
+import org.markeb.actor.ActorSystem;
+import org.markeb.net.heartbeat.NodeLoad;
+import org.markeb.net.heartbeat.NodeLoadProvider;
+import org.markeb.service.registry.config.ServiceAutoRegistrar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点负载采样
+ * <p>
+ * 每秒在独立线程上采样一次在线 Actor 数、邮箱积压、调度延迟和进程 CPU，
+ * 心跳响应直接读取最近一次的快照，不在 IO 线程上做统计。
+ * 调度延迟为采样任务实际执行时间与计划时间之差，GC 停顿或 CPU 饱和时会明显增大。
+ * </p>
+ * <p>
+ * 每隔几次采样把快照写入注册中心的实例元数据，供匹配服务等不持有节点心跳的服务按负载选择节点。
+ * </p>
+ */
+@Component
+public class NodeLoadSampler implements NodeLoadProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeLoadSampler.class);
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 每多少次采样发布一次到注册中心，注册中心变更会推送给所有订阅方，不宜过于频繁
+     */
+    private static final int PUBLISH_EVERY_SAMPLES = 5;
+
+    private final ActorSystem actorSystem;
+    private final ServiceAutoRegistrar registrar;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "node-load-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile NodeLoad current = NodeLoad.EMPTY;
+    private long nextSampleNanos;
+    private int samples;
+
+    public NodeLoadSampler(ActorSystem actorSystem, ObjectProvider<ServiceAutoRegistrar> registrar) {
+        this.actorSystem = actorSystem;
+        this.registrar = registrar.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void start() {
+        nextSampleNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS);
+        scheduler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public NodeLoad currentLoad() {
+        return current;
+    }
+
+    private void sample() {
+        try {
+            long now = System.nanoTime();
+            long lagMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(now - nextSampleNanos));
+            nextSampleNanos += TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS);
+            if (nextSampleNanos < now) {
+                // 落后超过一个周期时不追赶，避免延迟被重复计入
+                nextSampleNanos = now + TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS);
+            }
+
+            current = new NodeLoad(
+                    actorSystem.actorCount(),
+                    (int) Math.min(Integer.MAX_VALUE, actorSystem.mailboxBacklog()),
+                    (int) Math.min(Integer.MAX_VALUE, lagMillis),
+                    cpuPermille());
+            if (registrar != null && ++samples % PUBLISH_EVERY_SAMPLES == 0) {
+                registrar.updateMetadata(current.toMetadata());
+            }
+        } catch (Exception e) {
+            log.warn("Sample node load failed", e);
+        }
+    }
+
+    private static int cpuPermille() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            double load = sunOs.getProcessCpuLoad();
+            if (load >= 0) {
+                return (int) Math.round(load * 1000);
+            }
+        }
+        return -1;
+    }
+}
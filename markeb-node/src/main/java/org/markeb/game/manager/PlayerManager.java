@@ -1,18 +1,33 @@
 package org.markeb.game.manager;
 
+import io.netty.channel.Channel;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
 import org.markeb.game.actor.Player;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
+/**
+ * 玩家上下文索引
+ * <p>
+ * 以原始 long 玩家 ID 为键，查找和更新不装箱。按玩家 ID 分段，每个分段持有一张以 volatile 发布的只读表：
+ * 查找不加锁，直接读分段当前的表；写入只在会话绑定/解绑时发生，在分段锁内复制本分段的表、修改后整体替换。
+ * 每次写入只复制约 1/{@value #STRIPES} 的条目。
+ * </p>
+ */
 public class PlayerManager {
 
-    private final Map<String, Player> playerMap = new ConcurrentHashMap<>();
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
 
     private static final PlayerManager INSTANCE = new PlayerManager();
 
     private PlayerManager() {
-
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
     }
 
     public static PlayerManager getInstance() {
@@ -20,15 +35,76 @@ public class PlayerManager {
     }
 
     public void addPlayer(Player player) {
-        playerMap.put(player.getPlayerId(), player);
+        Stripe stripe = stripe(player.getPlayerId());
+        synchronized (stripe) {
+            LongObjectHashMap<Player> copy = stripe.copy();
+            copy.put(player.getPlayerId(), player);
+            stripe.players = copy;
+        }
     }
 
-    public Player getPlayer(String id) {
-        return playerMap.get(id);
+    public Player getPlayer(long id) {
+        return stripe(id).players.get(id);
     }
 
-    public void removePlayer(String id) {
-        playerMap.remove(id);
+    public void removePlayer(long id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            if (stripe.players.containsKey(id)) {
+                LongObjectHashMap<Player> copy = stripe.copy();
+                copy.remove(id);
+                stripe.players = copy;
+            }
+        }
     }
 
+    /**
+     * 移除经指定网关连接绑定的所有玩家
+     *
+     * @return 被移除的玩家 ID
+     */
+    public long[] removePlayers(Channel gateway) {
+        long[] ids = new long[16];
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                LongObjectHashMap<Player> copy = null;
+                for (LongObjectMap.PrimitiveEntry<Player> entry : stripe.players.entries()) {
+                    if (entry.value().getChannel() == gateway) {
+                        if (copy == null) {
+                            copy = stripe.copy();
+                        }
+                        copy.remove(entry.key());
+                        if (count == ids.length) {
+                            ids = Arrays.copyOf(ids, count * 2);
+                        }
+                        ids[count++] = entry.key();
+                    }
+                }
+                if (copy != null) {
+                    stripe.players = copy;
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private Stripe stripe(long id) {
+        // 取乘法哈希的高位，连续的玩家 ID 也能均匀分到各分段
+        return stripes[(int) ((id * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    /**
+     * 分段：表发布后不再修改，写入在分段锁内替换整张表
+     */
+    private static final class Stripe {
+
+        private volatile LongObjectHashMap<Player> players = new LongObjectHashMap<>();
+
+        LongObjectHashMap<Player> copy() {
+            LongObjectHashMap<Player> copy = new LongObjectHashMap<>(Math.max(8, players.size() * 2));
+            copy.putAll(players);
+            return copy;
+        }
+    }
 }
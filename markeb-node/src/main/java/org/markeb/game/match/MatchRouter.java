@@ -0,0 +1,72 @@
+package org.markeb.game.match;
+
+import org.markeb.service.registry.ServiceDiscovery;
+import org.markeb.service.registry.ServiceInstance;
+import org.markeb.service.registry.partition.ServicePartitioner;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Optional;
+
+/**
+ * 匹配请求路由
+ * <p>
+ * 匹配服务按（游戏模式, 区域）分区部署在多个实例上，这里与匹配服务使用相同的分区键和一致性哈希，
+ * 直接算出分区的归属实例，匹配请求发给该实例，不经过转发。
+ * 实例成员变化期间双方看到的成员可能短暂不一致，匹配服务会以重定向拒绝不归它的请求，重新路由即可。
+ * </p>
+ */
+@Component
+public class MatchRouter {
+
+    private static final String MESH_SERVICE_NAME = "markeb-mesh";
+
+    /**
+     * 未指定区域的请求归入的默认区域，与匹配服务一致
+     */
+    private static final String DEFAULT_REGION = "default";
+
+    private final ServicePartitioner partitioner;
+
+    public MatchRouter(ObjectProvider<ServiceDiscovery> serviceDiscovery) {
+        ServiceDiscovery discovery = serviceDiscovery.getIfAvailable();
+        this.partitioner = discovery != null ? new ServicePartitioner(discovery, MESH_SERVICE_NAME) : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (partitioner != null) {
+            partitioner.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (partitioner != null) {
+            partitioner.stop();
+        }
+    }
+
+    /**
+     * 匹配分区的归属实例
+     *
+     * @param gameMode 游戏模式
+     * @param region   区域，为 null 时使用默认区域
+     * @return 归属实例，没有服务发现或没有可用的匹配服务实例时返回 empty
+     */
+    public Optional<ServiceInstance> route(String gameMode, String region) {
+        if (partitioner == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(partitioner.owner(partitionKey(gameMode, region)));
+    }
+
+    /**
+     * 分区键，格式与匹配服务的 MatchPartitions.key 一致
+     */
+    static String partitionKey(String gameMode, String region) {
+        return gameMode + ":" + (region != null ? region : DEFAULT_REGION);
+    }
+}
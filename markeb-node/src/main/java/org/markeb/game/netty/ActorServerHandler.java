@@ -1,11 +1,11 @@
 package org.markeb.game.netty;
 
-import org.markeb.actor.ActorRef;
 import org.markeb.actor.message.NetworkMessage;
 import com.google.protobuf.Message;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.markeb.game.actor.PlayerActorService;
@@ -17,19 +17,25 @@ import static org.markeb.game.netty.ChannelAttributeKey.PLAYER_ID_KEY;
  * <p>
  * 将网络消息转发给对应的玩家 Actor 处理，实现消息的串行化处理。
  * </p>
+ * <p>
+ * 接收 {@link Message} 或开启延迟解析时的 {@link org.markeb.net.message.LazyProtobufMessage}。
+ * 延迟消息原样投递，所有权随之转给 Actor，由 Actor 线程解析并释放；投递失败时在这里释放。
+ * </p>
  */
-public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
+public class ActorServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private static final Logger log = LoggerFactory.getLogger(ActorServerHandler.class);
 
     private final PlayerActorService playerActorService;
 
     public ActorServerHandler(PlayerActorService playerActorService) {
+        // 不自动释放：延迟消息要交给 Actor 线程解析
+        super(false);
         this.playerActorService = playerActorService;
     }
 
     @Override
-    public void channelRead0(ChannelHandlerContext ctx, Message msg) {
+    public void channelRead0(ChannelHandlerContext ctx, Object msg) {
         Channel channel = ctx.channel();
         Long playerId = channel.attr(PLAYER_ID_KEY).get();
 
@@ -43,7 +49,9 @@ public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
         // 将消息转发给玩家 Actor
         boolean sent = playerActorService.handleMessage(playerId, msg, channel);
         if (!sent) {
+            ReferenceCountUtil.release(msg);
             log.warn("Failed to send message to player {}, actor may not exist", playerId);
+            return;
         }
 
         log.debug("Forwarded message {} to player {}", msg.getClass().getSimpleName(), playerId);
@@ -52,15 +60,24 @@ public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
     /**
      * 处理登录消息
      */
-    private void handleLoginMessage(ChannelHandlerContext ctx, Message msg) {
+    private void handleLoginMessage(ChannelHandlerContext ctx, Object msg) {
         // TODO: 实现登录逻辑，验证后创建玩家 Actor
         // 示例：假设第一条消息包含玩家 ID
         long playerId = extractPlayerId(msg);
-        if (playerId > 0) {
-            Channel channel = ctx.channel();
+        if (playerId <= 0) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        Channel channel = ctx.channel();
 
-            // 创建玩家 Actor
-            ActorRef actorRef = playerActorService.login(playerId, channel);
+        // 创建玩家 Actor，经准入控制排队，不阻塞 I/O 线程
+        playerActorService.login(playerId, channel).whenComplete((actorRef, error) -> {
+            if (error != null) {
+                ReferenceCountUtil.release(msg);
+                log.warn("Player {} login rejected: {}", playerId, error.getMessage());
+                channel.close();
+                return;
+            }
 
             // 保存玩家 ID 到 Channel
             channel.attr(PLAYER_ID_KEY).set(playerId);
@@ -68,14 +85,16 @@ public class ActorServerHandler extends SimpleChannelInboundHandler<Message> {
             log.info("Player {} authenticated, actor created", playerId);
 
             // 转发登录消息给 Actor
-            playerActorService.handleMessage(playerId, msg, channel);
-        }
+            if (!playerActorService.handleMessage(playerId, msg, channel)) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
     }
 
     /**
      * 从消息中提取玩家 ID
      */
-    private long extractPlayerId(Message msg) {
+    private long extractPlayerId(Object msg) {
         // TODO: 根据实际的登录协议实现
         // 这里返回一个临时 ID 用于测试
         return System.currentTimeMillis();
@@ -0,0 +1,187 @@
+package org.markeb.game.netty;
+
+import com.google.protobuf.ByteString;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.PushBatchNotice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 网关连接的批量出站写入器
+ * <p>
+ * 多个玩家 Actor 共享同一条网关连接，逐条 writeAndFlush 会让每条回包都跨线程提交一次任务并触发一次系统调用。
+ * 这里由各 Actor 线程把消息放入多生产者单消费者队列，队列由空变为非空时向连接的 EventLoop 提交一次排空任务，
+ * 排空时逐条 write 后只 flush 一次。
+ * </p>
+ * <p>
+ * 通过 {@link #push(long, int, ByteString)} 写入的推送在排空时合并为一个 {@link PushBatchNotice} 帧，
+ * 相邻且消息ID和消息体相同的推送合并为一个多目标条目。只合并相邻条目，保证每个玩家收到的顺序与写入顺序一致。
+ * </p>
+ * <p>
+ * 调度标记在排空任务结束时才清除，标记为真期间队列只有一个消费者。连接已断开或 EventLoop 已关闭时，
+ * 队列中的消息被释放丢弃。
+ * </p>
+ */
+public final class BatchedChannelWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchedChannelWriter.class);
+
+    private static final AttributeKey<BatchedChannelWriter> WRITER_KEY =
+            AttributeKey.valueOf(BatchedChannelWriter.class, "writer");
+
+    /**
+     * 单个批量帧的消息体字节数上限，超过后拆为多帧，避免超过网关的最大帧长度
+     */
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    private final Channel channel;
+    private final Queue<Object> pending = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+
+    // 以下字段只在 EventLoop 上访问
+    private PushBatchNotice.Builder batch;
+    private CompactPushNotice.Builder lastEntry;
+    private int batchBytes;
+    private int written;
+
+    private BatchedChannelWriter(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 获取连接对应的写入器，不存在时创建
+     */
+    public static BatchedChannelWriter of(Channel channel) {
+        BatchedChannelWriter writer = channel.attr(WRITER_KEY).get();
+        if (writer == null) {
+            BatchedChannelWriter created = new BatchedChannelWriter(channel);
+            writer = channel.attr(WRITER_KEY).setIfAbsent(created);
+            if (writer == null) {
+                writer = created;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * 写入消息，在下一次排空时随同批消息一起 flush
+     */
+    public void write(Object msg) {
+        enqueue(msg);
+    }
+
+    /**
+     * 写入一条推送，在下一次排空时与同批推送合并为一个批量帧
+     */
+    public void push(long playerId, int msgId, ByteString payload) {
+        enqueue(new Push(playerId, msgId, payload));
+    }
+
+    private void enqueue(Object item) {
+        pending.offer(item);
+        scheduleDrain();
+    }
+
+    /**
+     * 队列非空且没有排空任务时提交一次；EventLoop 拒绝时由当前线程释放队列中的消息
+     */
+    private void scheduleDrain() {
+        while (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                channel.eventLoop().execute(drainTask);
+                return;
+            } catch (RejectedExecutionException e) {
+                // 持有标记期间没有其他消费者，释放后清除标记，再检查释放期间是否有新消息入队
+                int dropped = discardPending();
+                scheduled.set(false);
+                log.warn("EventLoop of {} rejected the drain task, {} messages dropped", channel, dropped);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            if (!channel.isActive()) {
+                discardPending();
+                return;
+            }
+            written = 0;
+            Object item;
+            while ((item = pending.poll()) != null) {
+                if (item instanceof Push push) {
+                    append(push);
+                } else {
+                    // 普通消息前先写出已积攒的推送，保持写入顺序
+                    writeBatch();
+                    channel.write(item, channel.voidPromise());
+                    written++;
+                }
+            }
+            writeBatch();
+            if (written > 0) {
+                channel.flush();
+            }
+        } finally {
+            // 排空结束才清除标记：最后一次 poll 之后、清除标记之前入队的消息没有提交任务，这里补提交
+            scheduled.set(false);
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * @return 释放的消息数
+     */
+    private int discardPending() {
+        int dropped = 0;
+        Object item;
+        while ((item = pending.poll()) != null) {
+            ReferenceCountUtil.release(item);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private void append(Push push) {
+        if (lastEntry != null && lastEntry.getMsgId() == push.msgId && lastEntry.getPayload().equals(push.payload)) {
+            lastEntry.addPlayerIds(push.playerId);
+            batchBytes += Long.BYTES;
+            return;
+        }
+        if (batchBytes + push.payload.size() > MAX_BATCH_BYTES) {
+            writeBatch();
+        }
+        if (batch == null) {
+            batch = PushBatchNotice.newBuilder();
+        }
+        lastEntry = batch.addEntriesBuilder()
+                .addPlayerIds(push.playerId)
+                .setMsgId(push.msgId)
+                .setPayload(push.payload);
+        batchBytes += push.payload.size() + Long.BYTES;
+    }
+
+    private void writeBatch() {
+        if (batch == null) {
+            return;
+        }
+        // 只有一个条目时直接发送单条推送，省去一层包装
+        Object msg = batch.getEntriesCount() == 1 ? batch.getEntries(0) : batch.build();
+        channel.write(msg, channel.voidPromise());
+        written++;
+        batch = null;
+        lastEntry = null;
+        batchBytes = 0;
+    }
+
+    private record Push(long playerId, int msgId, ByteString payload) {
+    }
+}
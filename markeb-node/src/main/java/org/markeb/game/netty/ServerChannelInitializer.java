@@ -2,10 +2,18 @@ package org.markeb.game.netty;
 
 import com.google.protobuf.Message;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
+import org.markeb.game.actor.PlayerActorService;
+import org.markeb.net.codec.GatewayInternalPacketEncoder;
+import org.markeb.net.config.NetworkProperties;
+import org.markeb.net.heartbeat.HeartbeatHandler;
+import org.markeb.net.heartbeat.NodeLoadProvider;
+import org.markeb.net.heartbeat.PacketHeartbeatFactory;
+import org.markeb.net.idle.SharedIdleStateHandler;
 import org.markeb.net.msg.IMessagePool;
 import org.markeb.net.netty.NettyProperties;
+import org.markeb.net.protocol.ProtocolType;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.TimeUnit;
@@ -15,23 +23,42 @@ public class ServerChannelInitializer extends ChannelInitializer<SocketChannel>
 
     private final IMessagePool<Message> messagePool;
     private final NettyProperties nettyProperties;
+    private final PlayerActorService playerActorService;
+    private final boolean compactPlayerId;
+    private final PacketHeartbeatFactory heartbeatFactory;
+    private final int maxMissedHeartbeats;
 
-    public ServerChannelInitializer(IMessagePool<Message> messagePool, NettyProperties nettyProperties) {
+    public ServerChannelInitializer(IMessagePool<Message> messagePool, NettyProperties nettyProperties,
+                                    PlayerActorService playerActorService, NetworkProperties networkProperties,
+                                    NodeLoadProvider loadProvider) {
         this.messagePool = messagePool;
         this.nettyProperties = nettyProperties;
+        this.playerActorService = playerActorService;
+        this.compactPlayerId = networkProperties.getGameServer().isCompactPlayerId();
+        // 节点只经网关内部协议接入，心跳响应附带节点负载供网关负载路由使用
+        this.heartbeatFactory = new PacketHeartbeatFactory(ProtocolType.GATEWAY_INTERNAL, loadProvider);
+        this.maxMissedHeartbeats = networkProperties.getHeartbeat().getMaxMissedHeartbeats();
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
-        ch.pipeline().addLast("idleStateHandler",
-                new IdleStateHandler(nettyProperties.getReaderIdleTime(),
+        initPipeline(ch.pipeline());
+    }
+
+    void initPipeline(ChannelPipeline pipeline) {
+        pipeline.addLast("idleStateHandler",
+                new SharedIdleStateHandler(nettyProperties.getReaderIdleTime(),
                         nettyProperties.getWriterIdleTime(),
                         nettyProperties.getAllIdleTime(),
                         TimeUnit.SECONDS));
 
-        ch.pipeline().addLast(messagePool.decoder());
-        ch.pipeline().addLast(messagePool.encoder());
+        pipeline.addLast(messagePool.decoder());
+        pipeline.addLast(messagePool.encoder());
+
+        // 网关心跳由解码器输出为 Packet，在业务处理器之前应答，不进入 ServerHandler
+        pipeline.addLast(new GatewayInternalPacketEncoder());
+        pipeline.addLast("heartbeat", new HeartbeatHandler(heartbeatFactory, maxMissedHeartbeats));
 
-        ch.pipeline().addLast(new ServerHandler(messagePool));
+        pipeline.addLast(new ServerHandler(messagePool, playerActorService, compactPlayerId));
     }
 }
@@ -1,12 +1,17 @@
 package org.markeb.game.netty;
 
 import org.markeb.game.actor.Player;
+import org.markeb.game.actor.PlayerActorService;
 import org.markeb.game.manager.PlayerManager;
+import org.markeb.net.message.LazyProtobufMessage;
 import org.markeb.net.msg.IMessagePool;
-import org.markeb.net.register.IContextHandle;
+import org.markeb.proto.notice.Forward.CompactForwardNotice;
 import org.markeb.proto.notice.Forward.ForwardNotice;
+import org.markeb.proto.notice.Session.CompactSessionBindNotice;
+import org.markeb.proto.notice.Session.CompactSessionUnbindNotice;
 import org.markeb.proto.notice.Session.SessionBindNotice;
 import org.markeb.proto.notice.Session.SessionUnbindNotice;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
 import io.netty.channel.ChannelHandlerContext;
@@ -15,27 +20,60 @@ import io.netty.handler.codec.TooLongFrameException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ServerHandler extends SimpleChannelInboundHandler<Message> {
+public class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private static final Logger log = LoggerFactory.getLogger(ServerHandler.class);
 
     private final IMessagePool<Message> messagePool;
+    private final PlayerActorService playerActorService;
+    private final boolean compactPlayerId;
 
-    public ServerHandler(IMessagePool<Message> messagePool) {
+    public ServerHandler(IMessagePool<Message> messagePool, PlayerActorService playerActorService,
+                         boolean compactPlayerId) {
         this.messagePool = messagePool;
+        this.playerActorService = playerActorService;
+        this.compactPlayerId = compactPlayerId;
     }
 
     /**
      * 接收消息
      */
     @Override
-    public void channelRead0(ChannelHandlerContext ctx, Message msg) {
-        if (msg instanceof ForwardNotice) {
-            handleForwardNotice(ctx, (ForwardNotice) msg);
-        } else if (msg instanceof SessionBindNotice) {
-            handleSessionBindNotice(ctx, (SessionBindNotice) msg);
-        } else if (msg instanceof SessionUnbindNotice) {
-            handleSessionUnbindNotice(ctx, (SessionUnbindNotice) msg);
+    public void channelRead0(ChannelHandlerContext ctx, Object in) {
+        // 网关通知是路由信封，必须读出玩家 ID 才能投递，所以延迟解析模式下也在 I/O 线程解析信封；
+        // 信封里的业务消息体仍以 ByteString 投递，由玩家 Actor 解析。包装对象由父类在返回后释放
+        Message msg;
+        if (in instanceof LazyProtobufMessage lazy) {
+            msg = lazy.unwrap();
+        } else if (in instanceof Message message) {
+            msg = message;
+        } else {
+            // 解码器之外的入站对象（如未被前面的处理器消费的原始数据），父类在返回后释放
+            log.warn("Unexpected inbound {} from {}, dropped", in.getClass().getName(),
+                    ctx.channel().remoteAddress());
+            return;
+        }
+        if (msg instanceof CompactForwardNotice notice) {
+            handleForward(notice.getPlayerId(), notice.getMsgId(), notice.getPayload());
+        } else if (msg instanceof ForwardNotice notice) {
+            long playerId = parsePlayerId(notice.getPlayerId());
+            if (playerId >= 0) {
+                handleForward(playerId, notice.getMsgId(), notice.getPayload());
+            }
+        } else if (msg instanceof CompactSessionBindNotice notice) {
+            handleSessionBind(ctx, notice.getPlayerId());
+        } else if (msg instanceof SessionBindNotice notice) {
+            long playerId = parsePlayerId(notice.getPlayerId());
+            if (playerId >= 0) {
+                handleSessionBind(ctx, playerId);
+            }
+        } else if (msg instanceof CompactSessionUnbindNotice notice) {
+            handleSessionUnbind(notice.getPlayerId());
+        } else if (msg instanceof SessionUnbindNotice notice) {
+            long playerId = parsePlayerId(notice.getPlayerId());
+            if (playerId >= 0) {
+                handleSessionUnbind(playerId);
+            }
         } else {
             // 处理其他系统级消息
             log.info("Received system message: {} from {}", msg.getClass().getSimpleName(),
@@ -43,48 +81,46 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
         }
     }
 
-    private void handleForwardNotice(ChannelHandlerContext ctx, ForwardNotice notice) {
-        String playerId = notice.getPlayerId();
-        Player player = PlayerManager.getInstance().getPlayer(playerId);
-
-        if (player != null) {
-            try {
-                Message innerMsg = messagePool.messageParser().parseFrom(notice.getMsgId(),
-                        notice.getPayload().toByteArray());
-
-                @SuppressWarnings("unchecked")
-                IContextHandle<Player, Message> handler = (IContextHandle<Player, Message>) messagePool
-                        .getHandler(innerMsg);
-                if (handler != null) {
-                    Message rep = handler.invoke(player, innerMsg);
-                    if (rep != null) {
-                        player.send(rep);
-                    }
-                } else {
-                    log.warn("Message handler not found for message: {}", innerMsg.getClass().getSimpleName());
-                }
-            } catch (Throwable e) {
-                log.error("Error handling message for player {}", playerId, e);
-            }
-        } else {
+    private void handleForward(long playerId, int msgId, ByteString payload) {
+        // I/O 线程只做分发：解析和业务处理都在玩家 Actor 中执行，慢处理器不会阻塞共享该网关连接的其他玩家
+        if (!playerActorService.forward(playerId, msgId, payload)) {
             log.warn("Player {} not found on this node", playerId);
         }
     }
 
-    private void handleSessionBindNotice(ChannelHandlerContext ctx, SessionBindNotice notice) {
-        String playerId = notice.getPlayerId();
-        // 绑定时创建玩家对象，持有 Gateway Channel
-        Player player = new Player(playerId, ctx.channel(), messagePool.messageParser());
+    private void handleSessionBind(ChannelHandlerContext ctx, long playerId) {
+        // 绑定时创建玩家对象，持有 Gateway Channel，并为其创建 Actor
+        Player player = new Player(playerId, ctx.channel(), messagePool.messageParser(), compactPlayerId);
         PlayerManager.getInstance().addPlayer(player);
-        log.info("Player bound: {} from {}", playerId, ctx.channel().remoteAddress());
+        playerActorService.bind(playerId, player).whenComplete((actorRef, error) -> {
+            if (error != null) {
+                log.warn("Bind player {} failed: {}", playerId, String.valueOf(error));
+            } else {
+                log.info("Player bound: {} from {}", playerId, ctx.channel().remoteAddress());
+            }
+        });
     }
 
-    private void handleSessionUnbindNotice(ChannelHandlerContext ctx, SessionUnbindNotice notice) {
-        String playerId = notice.getPlayerId();
+    private void handleSessionUnbind(long playerId) {
         PlayerManager.getInstance().removePlayer(playerId);
+        playerActorService.unbind(playerId);
         log.info("Player unbound: {}", playerId);
     }
 
+    /**
+     * 解析旧版通知中的字符串玩家 ID
+     *
+     * @return 玩家 ID，无法解析时返回 -1
+     */
+    private static long parsePlayerId(String playerId) {
+        try {
+            return Long.parseLong(playerId);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid playerId in notice: {}", playerId);
+            return -1;
+        }
+    }
+
     /**
      * 建立新连接
      */
@@ -98,8 +134,12 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
      */
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        log.info("Gateway disconnected: {}", ctx.channel().remoteAddress());
-        // 当网关断开时，可能需要清理该网关下的所有玩家，这里暂且保留
+        // 网关断开时该网关上的所有玩家一起下线，Actor 处理完已入队的消息后停止
+        long[] playerIds = PlayerManager.getInstance().removePlayers(ctx.channel());
+        if (playerIds.length > 0) {
+            playerActorService.unbindAll(playerIds);
+        }
+        log.info("Gateway disconnected: {}, {} players unbound", ctx.channel().remoteAddress(), playerIds.length);
     }
 
     /**
@@ -0,0 +1,227 @@
+package org.markeb.game.scene;
+
+import io.netty.util.collection.LongObjectHashMap;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 九宫格视野索引
+ * <p>
+ * 把场景划分为边长相同的格子，每个格子用原始 long 数组保存其中的实体 ID，实体的视野为所在格子及相邻的 8 个格子。
+ * 格内删除采用与末尾交换的方式，实体记录自己在格内的下标，进出格子都是 O(1)。
+ * </p>
+ * <p>
+ * 跨格移动时只遍历新旧九宫格的差集：旧范围独有的格子产生离开事件，新范围独有的格子产生进入事件，
+ * 重叠的格子不产生任何事件。视野是对称的，每个事件同时通知双方。
+ * </p>
+ * <p>
+ * 非线程安全，只在所属场景 Actor 内使用。
+ * </p>
+ */
+public final class AoiGrid {
+
+    private static final int INITIAL_CELL_CAPACITY = 8;
+
+    private final float cellSize;
+    private final int cols;
+    private final int rows;
+    private final long[][] cells;
+    private final int[] cellCounts;
+    private final LongObjectHashMap<Entry> entities = new LongObjectHashMap<>();
+
+    /**
+     * @param width    场景宽度
+     * @param height   场景高度
+     * @param cellSize 格子边长，一般取视野半径
+     */
+    public AoiGrid(float width, float height, float cellSize) {
+        if (width <= 0 || height <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("Invalid grid size: " + width + "x" + height + ", cell " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new long[cols * rows][];
+        this.cellCounts = new int[cols * rows];
+    }
+
+    /**
+     * 实体进入场景
+     *
+     * @return 实体已在场景中时返回 false
+     */
+    public boolean enter(long id, float x, float y, AoiListener listener) {
+        if (entities.containsKey(id)) {
+            return false;
+        }
+        Entry entry = new Entry();
+        int cx = cellX(x);
+        int cy = cellY(y);
+        notifyRange(id, cx - 1, cx + 1, cy - 1, cy + 1, true, listener);
+        entities.put(id, entry);
+        addToCell(id, entry, cx + cy * cols);
+        return true;
+    }
+
+    /**
+     * 实体离开场景
+     *
+     * @return 实体不在场景中时返回 false
+     */
+    public boolean leave(long id, AoiListener listener) {
+        Entry entry = entities.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        removeFromCell(entry);
+        int cx = entry.cell % cols;
+        int cy = entry.cell / cols;
+        notifyRange(id, cx - 1, cx + 1, cy - 1, cy + 1, false, listener);
+        return true;
+    }
+
+    /**
+     * 实体移动
+     *
+     * @return 实体不在场景中时返回 false
+     */
+    public boolean move(long id, float x, float y, AoiListener listener) {
+        Entry entry = entities.get(id);
+        if (entry == null) {
+            return false;
+        }
+        int ncx = cellX(x);
+        int ncy = cellY(y);
+        int newCell = ncx + ncy * cols;
+        if (newCell == entry.cell) {
+            return true;
+        }
+        int ocx = entry.cell % cols;
+        int ocy = entry.cell / cols;
+        removeFromCell(entry);
+        notifyDiff(id, ocx, ocy, ncx, ncy, false, listener);
+        notifyDiff(id, ncx, ncy, ocx, ocy, true, listener);
+        addToCell(id, entry, newCell);
+        return true;
+    }
+
+    /**
+     * 遍历实体视野内的其他实体
+     *
+     * @param id       实体 ID
+     * @param consumer 接收视野内的实体 ID
+     * @return 视野内的实体数，实体不在场景中时返回 -1
+     */
+    public int forEachVisible(long id, LongConsumer consumer) {
+        Entry entry = entities.get(id);
+        if (entry == null) {
+            return -1;
+        }
+        int cx = entry.cell % cols;
+        int cy = entry.cell / cols;
+        int visible = 0;
+        for (int y = Math.max(0, cy - 1), maxY = Math.min(rows - 1, cy + 1); y <= maxY; y++) {
+            for (int x = Math.max(0, cx - 1), maxX = Math.min(cols - 1, cx + 1); x <= maxX; x++) {
+                int cell = x + y * cols;
+                long[] ids = cells[cell];
+                for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+                    if (ids[i] != id) {
+                        consumer.accept(ids[i]);
+                        visible++;
+                    }
+                }
+            }
+        }
+        return visible;
+    }
+
+    public boolean contains(long id) {
+        return entities.containsKey(id);
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * 通知 from 九宫格中不在 to 九宫格范围内的格子
+     */
+    private void notifyDiff(long id, int fromX, int fromY, int toX, int toY, boolean enter, AoiListener listener) {
+        for (int y = Math.max(0, fromY - 1), maxY = Math.min(rows - 1, fromY + 1); y <= maxY; y++) {
+            for (int x = Math.max(0, fromX - 1), maxX = Math.min(cols - 1, fromX + 1); x <= maxX; x++) {
+                if (Math.abs(x - toX) <= 1 && Math.abs(y - toY) <= 1) {
+                    continue;
+                }
+                notifyCell(id, x + y * cols, enter, listener);
+            }
+        }
+    }
+
+    private void notifyRange(long id, int minX, int maxX, int minY, int maxY, boolean enter, AoiListener listener) {
+        for (int y = Math.max(0, minY), endY = Math.min(rows - 1, maxY); y <= endY; y++) {
+            for (int x = Math.max(0, minX), endX = Math.min(cols - 1, maxX); x <= endX; x++) {
+                notifyCell(id, x + y * cols, enter, listener);
+            }
+        }
+    }
+
+    private void notifyCell(long id, int cell, boolean enter, AoiListener listener) {
+        long[] ids = cells[cell];
+        for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+            long other = ids[i];
+            if (enter) {
+                listener.onEnter(other, id);
+                listener.onEnter(id, other);
+            } else {
+                listener.onLeave(other, id);
+                listener.onLeave(id, other);
+            }
+        }
+    }
+
+    private void addToCell(long id, Entry entry, int cell) {
+        long[] ids = cells[cell];
+        int count = cellCounts[cell];
+        if (ids == null) {
+            ids = cells[cell] = new long[INITIAL_CELL_CAPACITY];
+        } else if (count == ids.length) {
+            ids = cells[cell] = Arrays.copyOf(ids, count << 1);
+        }
+        ids[count] = id;
+        cellCounts[cell] = count + 1;
+        entry.cell = cell;
+        entry.slot = count;
+    }
+
+    private void removeFromCell(Entry entry) {
+        int cell = entry.cell;
+        long[] ids = cells[cell];
+        int last = --cellCounts[cell];
+        if (entry.slot != last) {
+            long moved = ids[last];
+            ids[entry.slot] = moved;
+            entities.get(moved).slot = entry.slot;
+        }
+    }
+
+    private int cellX(float x) {
+        return clamp((int) (x / cellSize), cols);
+    }
+
+    private int cellY(float y) {
+        return clamp((int) (y / cellSize), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return value < 0 ? 0 : Math.min(value, size - 1);
+    }
+
+    /**
+     * 实体所在格子及其在格内数组中的下标
+     */
+    private static final class Entry {
+        int cell;
+        int slot;
+    }
+}
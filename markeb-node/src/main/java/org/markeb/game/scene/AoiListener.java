@@ -0,0 +1,40 @@
+package org.markeb.game.scene;
+
+/**
+ * 视野变化监听
+ * <p>
+ * 由 {@link AoiGrid} 在实体进入、离开或跨格移动时回调，只针对视野发生变化的实体对回调，
+ * 不会为整张九宫格重复通知。回调在场景 Actor 线程上执行，实现不应阻塞。
+ * </p>
+ */
+public interface AoiListener {
+
+    /**
+     * 不处理视野变化
+     */
+    AoiListener NONE = new AoiListener() {
+        @Override
+        public void onEnter(long watcher, long target) {
+        }
+
+        @Override
+        public void onLeave(long watcher, long target) {
+        }
+    };
+
+    /**
+     * target 进入 watcher 的视野
+     *
+     * @param watcher 观察者实体 ID
+     * @param target  被观察的实体 ID
+     */
+    void onEnter(long watcher, long target);
+
+    /**
+     * target 离开 watcher 的视野
+     *
+     * @param watcher 观察者实体 ID
+     * @param target  被观察的实体 ID
+     */
+    void onLeave(long watcher, long target);
+}
@@ -0,0 +1,138 @@
+package org.markeb.game.scene;
+
+import io.netty.channel.Channel;
+import org.markeb.actor.ActorBehavior;
+import org.markeb.actor.ActorContext;
+import org.markeb.actor.message.SystemMessage;
+import org.markeb.game.actor.Player;
+import org.markeb.game.manager.PlayerManager;
+import org.markeb.game.netty.BatchedChannelWriter;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.PushNotice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * 场景 Actor 行为定义
+ * <p>
+ * 场景内实体的进入、离开、移动和广播都在场景 Actor 内串行处理，视野索引无需加锁。
+ * </p>
+ * <p>
+ * 广播只遍历源实体的九宫格，接收者按所在网关连接归并，每条网关连接写一个 {@link CompactPushNotice}，
+ * 消息体只编码一次，由网关按玩家 ID 列表分发；未启用紧凑玩家 ID 的网关改写一个 {@link PushNotice}。
+ * </p>
+ * <p>
+ * 玩家上下文在实体进入场景时解析并缓存在场景状态中，广播时不再逐个接收者查询加锁的 {@link PlayerManager}；
+ * 缓存的网关连接断开（玩家经其他网关重新绑定）时才重新解析一次。玩家应先完成绑定再进入场景。
+ * </p>
+ */
+public class SceneActorBehavior implements ActorBehavior<SceneState> {
+
+    private static final Logger log = LoggerFactory.getLogger(SceneActorBehavior.class);
+
+    private final PlayerManager playerManager;
+
+    public SceneActorBehavior(PlayerManager playerManager) {
+        this.playerManager = playerManager;
+    }
+
+    @Override
+    public SceneState onMessage(ActorContext context, SceneState state, Object message) {
+        switch (message) {
+            case SceneMessage.Enter enter -> {
+                if (!state.getGrid().enter(enter.entityId(), enter.x(), enter.y(), state.getListener())) {
+                    log.warn("Entity {} already in scene {}", enter.entityId(), state.getSceneId());
+                    return state;
+                }
+                Player player = playerManager.getPlayer(enter.entityId());
+                if (player != null) {
+                    state.players().put(enter.entityId(), player);
+                }
+            }
+            case SceneMessage.Leave leave -> {
+                state.getGrid().leave(leave.entityId(), state.getListener());
+                state.players().remove(leave.entityId());
+            }
+            case SceneMessage.Move move -> {
+                if (!state.getGrid().move(move.entityId(), move.x(), move.y(), state.getListener())) {
+                    log.debug("Entity {} not in scene {}, move ignored", move.entityId(), state.getSceneId());
+                }
+            }
+            case SceneMessage.Broadcast broadcast -> broadcast(state, broadcast);
+            case SystemMessage.Start start -> log.info("Scene {} started", state.getSceneId());
+            case SystemMessage.Stop stop -> log.info("Scene {} stopping, {} entities", state.getSceneId(),
+                    state.getGrid().size());
+            default -> log.debug("Scene {} received unknown message: {}", state.getSceneId(), message);
+        }
+        return state;
+    }
+
+    private void broadcast(SceneState state, SceneMessage.Broadcast broadcast) {
+        Map<Channel, CompactPushNotice.Builder> frames = state.frames();
+        Map<Channel, PushNotice.Builder> legacyFrames = state.legacyFrames();
+        state.getGrid().forEachVisible(broadcast.sourceId(), id -> {
+            Player player = resolve(state, id);
+            if (player == null) {
+                // 非玩家实体（NPC 等）没有连接
+                return;
+            }
+            Channel channel = player.getChannel();
+            if (player.isCompactPlayerId()) {
+                CompactPushNotice.Builder frame = frames.get(channel);
+                if (frame == null) {
+                    frame = CompactPushNotice.newBuilder()
+                            .setMsgId(broadcast.msgId())
+                            .setPayload(broadcast.payload());
+                    frames.put(channel, frame);
+                }
+                frame.addPlayerIds(id);
+            } else {
+                PushNotice.Builder frame = legacyFrames.get(channel);
+                if (frame == null) {
+                    frame = PushNotice.newBuilder()
+                            .setMsgId(broadcast.msgId())
+                            .setPayload(broadcast.payload());
+                    legacyFrames.put(channel, frame);
+                }
+                frame.addPlayerIds(Long.toString(id));
+            }
+        });
+        if (!frames.isEmpty()) {
+            for (Map.Entry<Channel, CompactPushNotice.Builder> entry : frames.entrySet()) {
+                write(entry.getKey(), entry.getValue().build());
+            }
+            frames.clear();
+        }
+        if (!legacyFrames.isEmpty()) {
+            for (Map.Entry<Channel, PushNotice.Builder> entry : legacyFrames.entrySet()) {
+                write(entry.getKey(), entry.getValue().build());
+            }
+            legacyFrames.clear();
+        }
+    }
+
+    /**
+     * 取缓存的玩家上下文，缓存的连接已断开时重新解析一次
+     */
+    private Player resolve(SceneState state, long id) {
+        Player player = state.players().get(id);
+        if (player == null || player.getChannel().isActive()) {
+            return player;
+        }
+        Player current = playerManager.getPlayer(id);
+        if (current == null) {
+            state.players().remove(id);
+        } else if (current != player) {
+            state.players().put(id, current);
+        }
+        return current;
+    }
+
+    private static void write(Channel channel, Object frame) {
+        if (channel.isActive()) {
+            BatchedChannelWriter.of(channel).write(frame);
+        }
+    }
+}
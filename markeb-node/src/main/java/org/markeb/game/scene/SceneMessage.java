@@ -0,0 +1,37 @@
+package org.markeb.game.scene;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * 场景 Actor 消息
+ */
+public sealed interface SceneMessage {
+
+    /**
+     * 实体进入场景
+     */
+    record Enter(long entityId, float x, float y) implements SceneMessage {
+    }
+
+    /**
+     * 实体离开场景
+     */
+    record Leave(long entityId) implements SceneMessage {
+    }
+
+    /**
+     * 实体移动
+     */
+    record Move(long entityId, float x, float y) implements SceneMessage {
+    }
+
+    /**
+     * 向实体视野内的玩家广播，消息体只编码一次
+     *
+     * @param sourceId 广播源实体 ID，不包含在接收者中
+     * @param msgId    业务消息ID
+     * @param payload  业务消息体
+     */
+    record Broadcast(long sourceId, int msgId, ByteString payload) implements SceneMessage {
+    }
+}
@@ -0,0 +1,124 @@
+package org.markeb.game.scene;
+
+import com.google.protobuf.Message;
+import org.markeb.actor.ActorConfig;
+import org.markeb.actor.ActorRef;
+import org.markeb.actor.ActorSystem;
+import org.markeb.actor.message.SystemMessage;
+import org.markeb.game.manager.PlayerManager;
+import org.markeb.net.msg.IMessagePool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 场景服务
+ * <p>
+ * 每个场景对应一个场景 Actor，场景内的视野计算和附近广播都投递到该 Actor 串行处理。
+ * 场景 Actor 与玩家 Actor 共用同一个 ActorSystem，Actor ID 置最高位与玩家 ID 区分。
+ * </p>
+ */
+@Service
+public class SceneService {
+
+    private static final Logger log = LoggerFactory.getLogger(SceneService.class);
+
+    /**
+     * 场景 Actor ID 标记位，玩家 ID 均为正数，不会冲突
+     */
+    private static final long SCENE_ACTOR_FLAG = Long.MIN_VALUE;
+
+    private final ActorSystem actorSystem;
+    private final IMessagePool<Message> messagePool;
+    private final SceneActorBehavior sceneBehavior;
+
+    public SceneService(ActorSystem actorSystem, IMessagePool<Message> messagePool) {
+        this.actorSystem = actorSystem;
+        this.messagePool = messagePool;
+        this.sceneBehavior = new SceneActorBehavior(PlayerManager.getInstance());
+    }
+
+    /**
+     * 创建场景
+     *
+     * @param sceneId  场景 ID
+     * @param width    场景宽度
+     * @param height   场景高度
+     * @param cellSize 格子边长，一般取视野半径
+     * @param listener 视野变化监听，在场景 Actor 线程上回调
+     * @return 场景 Actor 引用
+     */
+    public ActorRef createScene(int sceneId, float width, float height, float cellSize, AoiListener listener) {
+        SceneState state = new SceneState(sceneId, new AoiGrid(width, height, cellSize), listener);
+
+        ActorConfig config = ActorConfig.builder()
+                .mailboxCapacity(0)  // 场景汇聚所有玩家的移动，不限制邮箱
+                .continueOnException(true)
+                .build();
+
+        ActorRef actorRef = actorSystem.spawn(actorId(sceneId), state, sceneBehavior, config);
+        actorRef.tell(new SystemMessage.Start());
+        log.info("Scene {} created, {}x{} cell {}", sceneId, width, height, cellSize);
+        return actorRef;
+    }
+
+    /**
+     * 销毁场景，处理完邮箱中已有的消息后停止
+     *
+     * @param sceneId 场景 ID
+     * @return 场景 Actor 停止后完成的 Future
+     */
+    public CompletableFuture<Void> destroyScene(int sceneId) {
+        long actorId = actorId(sceneId);
+        actorSystem.tell(actorId, new SystemMessage.Stop());
+        return actorSystem.stopGracefully(actorId);
+    }
+
+    /**
+     * 实体进入场景
+     * <p>
+     * 玩家实体的上下文在进入时解析并缓存，玩家应先完成网关绑定再进入场景，否则收不到场景广播。
+     * </p>
+     */
+    public boolean enter(int sceneId, long entityId, float x, float y) {
+        return actorSystem.tell(actorId(sceneId), new SceneMessage.Enter(entityId, x, y));
+    }
+
+    /**
+     * 实体离开场景
+     */
+    public boolean leave(int sceneId, long entityId) {
+        return actorSystem.tell(actorId(sceneId), new SceneMessage.Leave(entityId));
+    }
+
+    /**
+     * 实体移动
+     */
+    public boolean move(int sceneId, long entityId, float x, float y) {
+        return actorSystem.tell(actorId(sceneId), new SceneMessage.Move(entityId, x, y));
+    }
+
+    /**
+     * 向实体视野内的玩家广播
+     * <p>
+     * 消息在调用线程编码一次，场景 Actor 按网关连接归并接收者，每条网关连接只写一帧。
+     * </p>
+     *
+     * @param sceneId  场景 ID
+     * @param sourceId 广播源实体 ID，不会收到自己的广播
+     * @param message  消息
+     * @return 是否成功投递
+     */
+    public boolean broadcast(int sceneId, long sourceId, Message message) {
+        @SuppressWarnings("unchecked")
+        int msgId = messagePool.messageParser().messageId((Class<Message>) message.getClass());
+        return actorSystem.tell(actorId(sceneId),
+                new SceneMessage.Broadcast(sourceId, msgId, message.toByteString()));
+    }
+
+    private static long actorId(int sceneId) {
+        return SCENE_ACTOR_FLAG | (sceneId & 0xFFFFFFFFL);
+    }
+}
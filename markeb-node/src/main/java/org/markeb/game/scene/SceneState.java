@@ -0,0 +1,68 @@
+package org.markeb.game.scene;
+
+import io.netty.channel.Channel;
+import io.netty.util.collection.LongObjectHashMap;
+import org.markeb.game.actor.Player;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.PushNotice;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 场景状态
+ * <p>
+ * 只在场景 Actor 内访问，无需同步。
+ * </p>
+ */
+public class SceneState {
+
+    private final int sceneId;
+    private final AoiGrid grid;
+    private final AoiListener listener;
+
+    /**
+     * 场景内玩家实体的上下文，进入场景时解析一次，广播时不再查全局的 PlayerManager；NPC 等非玩家实体不在其中
+     */
+    private final LongObjectHashMap<Player> players = new LongObjectHashMap<>();
+
+    /**
+     * 广播时按网关连接归并接收者的暂存区，每次广播后清空复用
+     */
+    private final Map<Channel, CompactPushNotice.Builder> frames = new IdentityHashMap<>();
+
+    /**
+     * 同上，用于未启用紧凑玩家 ID 的网关
+     */
+    private final Map<Channel, PushNotice.Builder> legacyFrames = new IdentityHashMap<>();
+
+    public SceneState(int sceneId, AoiGrid grid, AoiListener listener) {
+        this.sceneId = sceneId;
+        this.grid = grid;
+        this.listener = listener;
+    }
+
+    public int getSceneId() {
+        return sceneId;
+    }
+
+    public AoiGrid getGrid() {
+        return grid;
+    }
+
+    public AoiListener getListener() {
+        return listener;
+    }
+
+    LongObjectHashMap<Player> players() {
+        return players;
+    }
+
+    Map<Channel, CompactPushNotice.Builder> frames() {
+        return frames;
+    }
+
+    Map<Channel, PushNotice.Builder> legacyFrames() {
+        return legacyFrames;
+    }
+}
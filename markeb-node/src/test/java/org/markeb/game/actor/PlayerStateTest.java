@@ -0,0 +1,82 @@
+package org.markeb.game.actor;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.entity.PartialEntity;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 玩家状态脏标记：setter 和业务方法只标记实际修改的持久化属性
+ */
+class PlayerStateTest {
+
+    @Test
+    void newStateIsClean() {
+        PlayerState state = new PlayerState(1L);
+        assertFalse(state.dirtyTracker().isDirty());
+    }
+
+    @Test
+    void settersMarkTheirProperty() {
+        PlayerState state = new PlayerState(1L);
+        state.setNickname("n");
+        state.setLevel(3);
+        state.setExperience(10);
+        state.setGold(5);
+        state.setLastLoginTime(100);
+        state.setLastLogoutTime(200);
+
+        assertEquals(Set.of("nickname", "level", "experience", "gold", "lastLoginTime", "lastLogoutTime"),
+                state.dirtyTracker().drain());
+    }
+
+    @Test
+    void transientFieldsAreNotMarked() {
+        PlayerState state = new PlayerState(1L);
+        state.setPlayer(null);
+        state.setFlushScheduleId("timer");
+        assertFalse(state.dirtyTracker().isDirty());
+    }
+
+    @Test
+    void addExperienceMarksLevelOnlyOnLevelUp() {
+        PlayerState state = new PlayerState(1L);
+        state.addExperience(50);
+        assertEquals(Set.of("experience"), state.dirtyTracker().drain());
+
+        // 1 级升 2 级需要 100 经验
+        state.addExperience(60);
+        assertEquals(2, state.getLevel());
+        assertEquals(10, state.getExperience());
+        assertEquals(Set.of("experience", "level"), state.dirtyTracker().drain());
+    }
+
+    @Test
+    void goldChangesMarkOnlyWhenApplied() {
+        PlayerState state = new PlayerState(1L);
+        state.addGold(10);
+        assertEquals(Set.of("gold"), state.dirtyTracker().drain());
+
+        assertFalse(state.deductGold(11));
+        assertFalse(state.dirtyTracker().isDirty());
+
+        assertTrue(state.deductGold(10));
+        assertEquals(Set.of("gold"), state.dirtyTracker().drain());
+    }
+
+    @Test
+    void markedPropertiesCanBeSnapshotted() {
+        PlayerState state = new PlayerState(1L);
+        state.setNickname("n");
+        state.addGold(10);
+
+        // 标记的属性名就是刷盘时部分快照使用的属性名
+        PlayerState partial = PartialEntity.of(state, state.dirtyTracker().drain());
+        assertEquals(1L, partial.getPlayerId());
+        assertEquals("n", partial.getNickname());
+        assertEquals(10, partial.getGold());
+        assertEquals(0, partial.getLevel());
+    }
+}
@@ -0,0 +1,97 @@
+package org.markeb.game.manager;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.game.actor.Player;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 玩家上下文索引：分段写入替换整表、按网关批量移除，以及写入期间无锁读取
+ */
+class PlayerManagerTest {
+
+    private static final int PLAYERS = 1_000;
+
+    private final PlayerManager playerManager = PlayerManager.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        for (long id = 1; id <= PLAYERS; id++) {
+            playerManager.removePlayer(id);
+        }
+    }
+
+    @Test
+    void addReplaceRemove() {
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+        playerManager.addPlayer(new Player(1, first, null, true));
+        assertSame(first, playerManager.getPlayer(1).getChannel());
+
+        playerManager.addPlayer(new Player(1, second, null, true));
+        assertSame(second, playerManager.getPlayer(1).getChannel());
+        assertNull(playerManager.getPlayer(2));
+
+        playerManager.removePlayer(1);
+        playerManager.removePlayer(1);
+        assertNull(playerManager.getPlayer(1));
+    }
+
+    @Test
+    void removePlayersOnlyTakesThatGatewaysPlayers() {
+        Channel gateway = new EmbeddedChannel();
+        Channel other = new EmbeddedChannel();
+        for (long id = 1; id <= PLAYERS; id++) {
+            playerManager.addPlayer(new Player(id, id % 3 == 0 ? gateway : other, null, true));
+        }
+
+        long[] removed = playerManager.removePlayers(gateway);
+
+        Arrays.sort(removed);
+        assertEquals(PLAYERS / 3, removed.length);
+        for (int i = 0; i < removed.length; i++) {
+            assertEquals(3L * (i + 1), removed[i]);
+        }
+        for (long id = 1; id <= PLAYERS; id++) {
+            assertEquals(id % 3 != 0, playerManager.getPlayer(id) != null, "player " + id);
+        }
+        assertEquals(0, playerManager.removePlayers(gateway).length);
+    }
+
+    @Test
+    void readsDuringWritesSeeOnlyTheirOwnPlayer() throws InterruptedException {
+        Channel gateway = new EmbeddedChannel();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (long id = 1; id <= PLAYERS; id++) {
+                    Player player = playerManager.getPlayer(id);
+                    if (player != null && player.getPlayerId() != id) {
+                        failure.compareAndSet(null, "player " + id + " returned " + player.getPlayerId());
+                    }
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int round = 0; round < 20; round++) {
+                for (long id = 1; id <= PLAYERS; id++) {
+                    playerManager.addPlayer(new Player(id, gateway, null, true));
+                }
+                assertEquals(PLAYERS, playerManager.removePlayers(gateway).length);
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+}
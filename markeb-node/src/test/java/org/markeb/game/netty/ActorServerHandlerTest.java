@@ -0,0 +1,120 @@
+package org.markeb.game.netty;
+
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+import org.markeb.game.actor.PlayerActorService;
+import org.markeb.net.codec.ProtoBuffGameDecoder;
+import org.markeb.net.msg.IGameParser;
+import org.markeb.proto.message.Test.ResTestMessage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.markeb.game.netty.ChannelAttributeKey.PLAYER_ID_KEY;
+
+/**
+ * 延迟解析：解码器输出的 LazyProtobufMessage 经 ActorServerHandler 原样投递，在 Actor 线程解析并释放
+ */
+class ActorServerHandlerTest {
+
+    private static final long PLAYER_ID = 1001L;
+    private static final int MSG_ID = 7;
+
+    @Test
+    void lazyMessageIsParsedOnActorThread() throws Exception {
+        AtomicReference<Thread> parseThread = new AtomicReference<>();
+        CountDownLatch parsed = new CountDownLatch(1);
+        DefaultActorSystem system = new DefaultActorSystem("lazy-decode", new ActorProperties());
+        try {
+            // 消息池只在网关转发路径使用，这里不需要
+            PlayerActorService service = new PlayerActorService(system, null);
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    new ProtoBuffGameDecoder(new RecordingParser(parseThread, parsed), true),
+                    new ActorServerHandler(service));
+            service.login(PLAYER_ID, channel).get(5, TimeUnit.SECONDS);
+            channel.attr(PLAYER_ID_KEY).set(PLAYER_ID);
+
+            ByteBuf frame = frame(MSG_ID, new byte[]{1, 2, 3});
+            // EmbeddedChannel 在调用线程上执行 pipeline，调用线程即 I/O 线程
+            Thread ioThread = Thread.currentThread();
+            channel.writeInbound(frame);
+
+            assertTrue(parsed.await(5, TimeUnit.SECONDS), "message was never parsed");
+            assertNotSame(ioThread, parseThread.get());
+            assertReleased(frame);
+            channel.finishAndReleaseAll();
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void lazyMessageIsReleasedWhenActorMissing() {
+        AtomicReference<Thread> parseThread = new AtomicReference<>();
+        DefaultActorSystem system = new DefaultActorSystem("lazy-decode", new ActorProperties());
+        try {
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    new ProtoBuffGameDecoder(new RecordingParser(parseThread, new CountDownLatch(1)), true),
+                    new ActorServerHandler(new PlayerActorService(system, null)));
+            channel.attr(PLAYER_ID_KEY).set(PLAYER_ID);
+
+            ByteBuf frame = frame(MSG_ID, new byte[]{1, 2, 3});
+            channel.writeInbound(frame);
+
+            assertEquals(0, frame.refCnt());
+            assertNull(parseThread.get());
+            channel.finishAndReleaseAll();
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    private static ByteBuf frame(int msgId, byte[] body) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(8 + body.length);
+        buf.writeInt(msgId);
+        buf.writeBytes(body);
+        return buf;
+    }
+
+    private static void assertReleased(ByteBuf frame) throws InterruptedException {
+        // 解析后 Actor 在 finally 中释放，与 latch 计数之间有极短的先后
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (frame.refCnt() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, frame.refCnt());
+    }
+
+    private record RecordingParser(AtomicReference<Thread> parseThread, CountDownLatch parsed)
+            implements IGameParser<Message> {
+
+        @Override
+        public int messageId(Class<Message> message) {
+            return MSG_ID;
+        }
+
+        @Override
+        public Class<Message> messageClazz() {
+            return Message.class;
+        }
+
+        @Override
+        public Message parseFrom(int id, byte[] bodyBytes) {
+            parseThread.set(Thread.currentThread());
+            parsed.countDown();
+            return ResTestMessage.getDefaultInstance();
+        }
+
+        @Override
+        public void register(Class<Message> message) {
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.markeb.game.netty;
+
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import org.junit.jupiter.api.Test;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.PushBatchNotice;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量写入：相邻推送合并为批量帧、按字节上限拆帧、普通消息与推送保持写入顺序、EventLoop 拒绝时释放消息
+ */
+class BatchedChannelWriterTest {
+
+    private static final ByteString MOVE = ByteString.copyFromUtf8("move");
+    private static final ByteString CHAT = ByteString.copyFromUtf8("chat");
+
+    @Test
+    void adjacentPushesAreMergedIntoOneBatch() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        BatchedChannelWriter writer = BatchedChannelWriter.of(channel);
+        assertSame(writer, BatchedChannelWriter.of(channel));
+
+        writer.push(1, 10, MOVE);
+        writer.push(2, 10, MOVE);
+        writer.push(3, 11, CHAT);
+        writer.push(4, 10, MOVE);
+        channel.runPendingTasks();
+
+        PushBatchNotice batch = channel.readOutbound();
+        assertNull(channel.readOutbound());
+        assertEquals(3, batch.getEntriesCount());
+        assertEquals(List.of(1L, 2L), batch.getEntries(0).getPlayerIdsList());
+        assertEquals(10, batch.getEntries(0).getMsgId());
+        assertEquals(MOVE, batch.getEntries(0).getPayload());
+        assertEquals(List.of(3L), batch.getEntries(1).getPlayerIdsList());
+        assertEquals(CHAT, batch.getEntries(1).getPayload());
+        // 只合并相邻条目，不把 4 提前到 3 之前
+        assertEquals(List.of(4L), batch.getEntries(2).getPlayerIdsList());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void singlePushIsWrittenWithoutBatchWrapper() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        BatchedChannelWriter.of(channel).push(1, 10, MOVE);
+        channel.runPendingTasks();
+
+        CompactPushNotice notice = channel.readOutbound();
+        assertEquals(List.of(1L), notice.getPlayerIdsList());
+        assertNull(channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void batchIsSplitAtMaxBytes() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        BatchedChannelWriter writer = BatchedChannelWriter.of(channel);
+        // 每条 30KB，两条之后再加一条超过 64KB 上限
+        for (int i = 0; i < 3; i++) {
+            writer.push(i, 10, payload(30 * 1024, (byte) i));
+        }
+        channel.runPendingTasks();
+
+        PushBatchNotice first = channel.readOutbound();
+        CompactPushNotice second = channel.readOutbound();
+        assertNull(channel.readOutbound());
+        assertEquals(2, first.getEntriesCount());
+        assertEquals(List.of(0L), first.getEntries(0).getPlayerIdsList());
+        assertEquals(List.of(1L), first.getEntries(1).getPlayerIdsList());
+        assertEquals(List.of(2L), second.getPlayerIdsList());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void plainWritesKeepOrderWithPushes() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        BatchedChannelWriter writer = BatchedChannelWriter.of(channel);
+        ByteBuf frame = Unpooled.wrappedBuffer(new byte[]{1, 2, 3});
+
+        writer.push(1, 10, MOVE);
+        writer.write(frame);
+        writer.push(1, 11, CHAT);
+        channel.runPendingTasks();
+
+        CompactPushNotice before = channel.readOutbound();
+        ByteBuf written = channel.readOutbound();
+        CompactPushNotice after = channel.readOutbound();
+        assertNull(channel.readOutbound());
+        assertEquals(10, before.getMsgId());
+        assertSame(frame, written);
+        assertEquals(11, after.getMsgId());
+        written.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void writesToInactiveChannelAreReleased() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        BatchedChannelWriter writer = BatchedChannelWriter.of(channel);
+        ByteBuf frame = Unpooled.wrappedBuffer(new byte[]{1});
+        // EmbeddedChannel 关闭前会先执行排队的任务，所以先关闭再写入
+        channel.close();
+        writer.write(frame);
+        channel.runPendingTasks();
+
+        assertEquals(0, frame.refCnt());
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void rejectedDrainReleasesQueuedMessages() throws InterruptedException {
+        DefaultEventLoopGroup group = new DefaultEventLoopGroup(1);
+        LocalChannel channel = new LocalChannel();
+        group.register(channel).sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+
+        BatchedChannelWriter writer = BatchedChannelWriter.of(channel);
+        ByteBuf first = Unpooled.wrappedBuffer(new byte[]{1});
+        ByteBuf second = Unpooled.wrappedBuffer(new byte[]{2});
+        writer.write(first);
+        // 第一次被拒绝后标记已复位，之后的写入同样被释放，不会滞留在队列中
+        writer.write(second);
+
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+    }
+
+    private static ByteString payload(int size, byte fill) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, fill);
+        return ByteString.copyFrom(bytes);
+    }
+}
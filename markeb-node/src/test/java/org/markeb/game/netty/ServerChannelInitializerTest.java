@@ -0,0 +1,71 @@
+package org.markeb.game.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+import org.markeb.game.actor.PlayerActorService;
+import org.markeb.net.config.NetworkProperties;
+import org.markeb.net.heartbeat.NodeLoad;
+import org.markeb.net.heartbeat.PacketHeartbeatFactory;
+import org.markeb.net.msg.ProtoBuffGameMessagePool;
+import org.markeb.net.msg.ProtoBuffParser;
+import org.markeb.net.netty.NettyProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点 pipeline：网关心跳（消息 ID 0）不经 protobuf 解析，直接应答并附带节点负载
+ */
+class ServerChannelInitializerTest {
+
+    private static final NodeLoad LOAD = new NodeLoad(120, 7, 3, 450);
+
+    @Test
+    void heartbeatIsAnsweredWithNodeLoad() {
+        DefaultActorSystem system = new DefaultActorSystem("heartbeat", new ActorProperties());
+        try {
+            ServerChannelInitializer initializer = new ServerChannelInitializer(
+                    new ProtoBuffGameMessagePool(new ProtoBuffParser(), true), new NettyProperties(),
+                    new PlayerActorService(system, null), new NetworkProperties(), () -> LOAD);
+            EmbeddedChannel channel = new EmbeddedChannel();
+            initializer.initPipeline(channel.pipeline());
+
+            channel.writeInbound(heartbeatRequest(3, 9, 12_345L));
+
+            assertTrue(channel.isActive(), "heartbeat must not fail decoding");
+            ByteBuf response = channel.readOutbound();
+            try {
+                // length 不含自身：sessionId + msgId + seq + serverTime + clientTime + 负载
+                assertEquals(12 + 16 + NodeLoad.ENCODED_LENGTH, response.readInt());
+                assertEquals(3, response.readInt());
+                assertEquals(PacketHeartbeatFactory.INTERNAL_HEARTBEAT_RESPONSE_ID, response.readInt());
+                assertEquals(9, response.readInt());
+                assertTrue(response.readLong() > 0);
+                assertEquals(12_345L, response.readLong());
+                assertEquals(LOAD, NodeLoad.decode(response.nioBuffer()));
+            } finally {
+                response.release();
+            }
+            assertNull(channel.readOutbound());
+            channel.finishAndReleaseAll();
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    /**
+     * 网关发出的心跳请求：length + sessionId + msgId(0) + seq + clientTime
+     */
+    private static ByteBuf heartbeatRequest(int sessionId, int seq, long clientTime) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(12 + 8);
+        buf.writeInt(sessionId);
+        buf.writeInt(PacketHeartbeatFactory.INTERNAL_HEARTBEAT_REQUEST_ID);
+        buf.writeInt(seq);
+        buf.writeLong(clientTime);
+        return buf;
+    }
+}
@@ -0,0 +1,38 @@
+package org.markeb.game.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+import org.markeb.game.actor.PlayerActorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 非 protobuf 的入站对象被记录并丢弃，不会因类型转换失败关闭网关连接
+ */
+class ServerHandlerTest {
+
+    @Test
+    void unexpectedInboundIsReleasedAndChannelStaysOpen() {
+        DefaultActorSystem system = new DefaultActorSystem("server-handler", new ActorProperties());
+        try {
+            // 消息池只在绑定玩家时使用，这里不需要
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    new ServerHandler(null, new PlayerActorService(system, null), true));
+            ByteBuf raw = Unpooled.buffer().writeInt(42);
+
+            channel.writeInbound(raw);
+            channel.writeInbound("not a message");
+
+            assertTrue(channel.isActive());
+            assertEquals(0, raw.refCnt());
+            assertNull(channel.readInbound());
+            channel.finishAndReleaseAll();
+        } finally {
+            system.shutdown();
+        }
+    }
+}
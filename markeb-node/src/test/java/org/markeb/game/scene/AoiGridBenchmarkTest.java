@@ -0,0 +1,156 @@
+package org.markeb.game.scene;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 九宫格视野压测：单场景 5000 个实体以 20 Hz 持续移动，每个 tick 所有实体移动一次并向视野广播一次。
+ * <p>
+ * 同时校验增量的进入/离开事件累积出的视野与直接遍历九宫格得到的视野一致。
+ * 计时用例标记为 {@code benchmark}，默认构建不执行，用 {@code mvn test -Pbenchmark} 运行。
+ */
+class AoiGridBenchmarkTest {
+
+    private static final int ENTITIES = 5_000;
+    private static final int TICK_HZ = 20;
+    private static final float SCENE_SIZE = 4_000;
+    private static final float CELL_SIZE = 100;
+    private static final float STEP = 150f / TICK_HZ;
+    private static final int WARMUP_TICKS = 100;
+    private static final int TICKS = 200;
+
+    @Test
+    @Tag("benchmark")
+    void benchmark(TestReporter reporter) {
+        Random random = new Random(42);
+        AoiGrid grid = new AoiGrid(SCENE_SIZE, SCENE_SIZE, CELL_SIZE);
+        float[] xs = new float[ENTITIES];
+        float[] ys = new float[ENTITIES];
+        long[] events = new long[1];
+        AoiListener listener = new AoiListener() {
+            @Override
+            public void onEnter(long watcher, long target) {
+                events[0]++;
+            }
+
+            @Override
+            public void onLeave(long watcher, long target) {
+                events[0]++;
+            }
+        };
+        for (int i = 0; i < ENTITIES; i++) {
+            xs[i] = random.nextFloat() * SCENE_SIZE;
+            ys[i] = random.nextFloat() * SCENE_SIZE;
+            grid.enter(i, xs[i], ys[i], listener);
+        }
+
+        long[] delivered = new long[1];
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            tick(grid, random, xs, ys, listener, delivered);
+        }
+
+        events[0] = 0;
+        delivered[0] = 0;
+        long maxTick = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            long tickStart = System.nanoTime();
+            tick(grid, random, xs, ys, listener, delivered);
+            maxTick = Math.max(maxTick, System.nanoTime() - tickStart);
+        }
+        long avgTick = (System.nanoTime() - start) / TICKS;
+
+        reporter.publishEntry(Map.of(
+                "entities", String.valueOf(ENTITIES),
+                "avgTickMicros", String.valueOf(TimeUnit.NANOSECONDS.toMicros(avgTick)),
+                "maxTickMicros", String.valueOf(TimeUnit.NANOSECONDS.toMicros(maxTick)),
+                "visibilityEventsPerTick", String.valueOf(events[0] / TICKS),
+                "broadcastReceiversPerTick", String.valueOf(delivered[0] / TICKS)));
+        assertEquals(ENTITIES, grid.size());
+        assertTrue(events[0] > 0, "no visibility change in " + TICKS + " ticks");
+        assertTrue(delivered[0] > 0, "no broadcast receivers in " + TICKS + " ticks");
+        // 20 Hz 下每个 tick 的预算是 50 ms
+        assertTrue(avgTick < TimeUnit.SECONDS.toNanos(1) / TICK_HZ,
+                "tick exceeds budget: " + TimeUnit.NANOSECONDS.toMicros(avgTick) + " us");
+    }
+
+    @Test
+    void incrementalDiffMatchesFullScan() {
+        Random random = new Random(7);
+        AoiGrid grid = new AoiGrid(1_000, 1_000, 50);
+        Map<Long, Set<Long>> views = new HashMap<>();
+        AoiListener listener = new AoiListener() {
+            @Override
+            public void onEnter(long watcher, long target) {
+                assertTrue(views.computeIfAbsent(watcher, k -> new HashSet<>()).add(target),
+                        target + " entered " + watcher + " twice");
+            }
+
+            @Override
+            public void onLeave(long watcher, long target) {
+                assertTrue(views.get(watcher).remove(target), target + " left " + watcher + " without entering");
+            }
+        };
+
+        int entities = 1_000;
+        float[] xs = new float[entities];
+        float[] ys = new float[entities];
+        for (int i = 0; i < entities; i++) {
+            xs[i] = random.nextFloat() * 1_000;
+            ys[i] = random.nextFloat() * 1_000;
+            assertTrue(grid.enter(i, xs[i], ys[i], listener));
+        }
+        for (int tick = 0; tick < 50; tick++) {
+            for (int i = 0; i < entities; i++) {
+                xs[i] = clamp(xs[i] + (random.nextFloat() - 0.5f) * 80, 1_000);
+                ys[i] = clamp(ys[i] + (random.nextFloat() - 0.5f) * 80, 1_000);
+                assertTrue(grid.move(i, xs[i], ys[i], listener));
+            }
+        }
+        for (int i = 0; i < entities; i += 2) {
+            assertTrue(grid.leave(i, listener));
+        }
+        assertFalse(grid.leave(0, listener));
+
+        for (int i = 0; i < entities; i++) {
+            Set<Long> expected = new HashSet<>();
+            int count = grid.forEachVisible(i, expected::add);
+            Set<Long> view = views.getOrDefault((long) i, Set.of());
+            if (i % 2 == 0) {
+                assertEquals(-1, count);
+                assertTrue(view.isEmpty(), "entity " + i + " left but still sees " + view);
+            } else {
+                assertEquals(expected.size(), count);
+                assertEquals(expected, view, "view of entity " + i);
+            }
+        }
+    }
+
+    private static void tick(AoiGrid grid, Random random, float[] xs, float[] ys, AoiListener listener,
+                             long[] delivered) {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = clamp(xs[i] + (random.nextFloat() - 0.5f) * 2 * STEP, SCENE_SIZE);
+            ys[i] = clamp(ys[i] + (random.nextFloat() - 0.5f) * 2 * STEP, SCENE_SIZE);
+            grid.move(i, xs[i], ys[i], listener);
+        }
+        // 位置同步：每个实体向视野广播一次
+        for (int i = 0; i < xs.length; i++) {
+            delivered[0] += grid.forEachVisible(i, id -> {
+            });
+        }
+    }
+
+    private static float clamp(float value, float size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
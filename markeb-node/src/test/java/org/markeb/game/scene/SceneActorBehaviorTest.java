@@ -0,0 +1,127 @@
+package org.markeb.game.scene;
+
+import com.google.protobuf.ByteString;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.game.actor.Player;
+import org.markeb.game.manager.PlayerManager;
+import org.markeb.proto.notice.Forward.CompactPushNotice;
+import org.markeb.proto.notice.Forward.PushNotice;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 场景广播：按网关连接归并、紧凑玩家 ID 开关回退、玩家上下文缓存
+ */
+class SceneActorBehaviorTest {
+
+    private static final int MSG_ID = 42;
+    private static final ByteString PAYLOAD = ByteString.copyFromUtf8("pos");
+    private static final long NPC = 100L;
+
+    private final PlayerManager playerManager = PlayerManager.getInstance();
+    private final SceneActorBehavior behavior = new SceneActorBehavior(playerManager);
+    private SceneState state;
+
+    @BeforeEach
+    void setUp() {
+        state = new SceneState(1, new AoiGrid(1_000, 1_000, 100), AoiListener.NONE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (long id = 1; id <= 4; id++) {
+            playerManager.removePlayer(id);
+        }
+    }
+
+    @Test
+    void framesFollowEachGatewaysPlayerIdFormat() {
+        EmbeddedChannel compact = new EmbeddedChannel();
+        EmbeddedChannel legacy = new EmbeddedChannel();
+        bindAndEnter(1, compact, true);
+        bindAndEnter(2, compact, true);
+        bindAndEnter(3, legacy, false);
+        send(new SceneMessage.Enter(NPC, 50, 50));
+
+        send(new SceneMessage.Broadcast(NPC, MSG_ID, PAYLOAD));
+
+        CompactPushNotice compactFrame = single(compact, CompactPushNotice.class);
+        assertEquals(MSG_ID, compactFrame.getMsgId());
+        assertEquals(PAYLOAD, compactFrame.getPayload());
+        assertEquals(Set.of(1L, 2L), new HashSet<>(compactFrame.getPlayerIdsList()));
+
+        PushNotice legacyFrame = single(legacy, PushNotice.class);
+        assertEquals(MSG_ID, legacyFrame.getMsgId());
+        assertEquals(List.of("3"), legacyFrame.getPlayerIdsList());
+    }
+
+    @Test
+    void sourceAndNpcsReceiveNothing() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        bindAndEnter(1, channel, true);
+        send(new SceneMessage.Enter(NPC, 50, 50));
+
+        send(new SceneMessage.Broadcast(1, MSG_ID, PAYLOAD));
+
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    void playerContextIsResolvedOnEnterAndRefreshedAfterReconnect() {
+        EmbeddedChannel first = new EmbeddedChannel();
+        bindAndEnter(1, first, true);
+        bindAndEnter(2, first, true);
+        send(new SceneMessage.Enter(NPC, 50, 50));
+
+        // 解绑后仍在场景中：广播使用进入时缓存的上下文，不再查询 PlayerManager
+        playerManager.removePlayer(1);
+        send(new SceneMessage.Broadcast(NPC, MSG_ID, PAYLOAD));
+        assertEquals(Set.of(1L, 2L), new HashSet<>(single(first, CompactPushNotice.class).getPlayerIdsList()));
+
+        // 网关断开后玩家 2 经新网关重新绑定，玩家 1 已下线
+        first.close();
+        EmbeddedChannel second = new EmbeddedChannel();
+        playerManager.addPlayer(new Player(2, second, null, false));
+        send(new SceneMessage.Broadcast(NPC, MSG_ID, PAYLOAD));
+
+        assertEquals(List.of("2"), single(second, PushNotice.class).getPlayerIdsList());
+        assertFalse(state.players().containsKey(1L));
+    }
+
+    @Test
+    void leaveDropsCachedContext() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        bindAndEnter(1, channel, true);
+        assertTrue(state.players().containsKey(1L));
+
+        send(new SceneMessage.Leave(1));
+
+        assertFalse(state.players().containsKey(1L));
+    }
+
+    private void bindAndEnter(long playerId, EmbeddedChannel channel, boolean compactPlayerId) {
+        playerManager.addPlayer(new Player(playerId, channel, null, compactPlayerId));
+        send(new SceneMessage.Enter(playerId, 50, 50));
+    }
+
+    private void send(SceneMessage message) {
+        behavior.onMessage(null, state, message);
+    }
+
+    private static <T> T single(EmbeddedChannel channel, Class<T> type) {
+        // 写入经 BatchedChannelWriter 提交到连接的 EventLoop
+        channel.runPendingTasks();
+        Object frame = channel.readOutbound();
+        assertInstanceOf(type, frame);
+        assertNull(channel.readOutbound());
+        return type.cast(frame);
+    }
+}
@@ -67,6 +67,25 @@ public interface ActorSystem {
      */
     boolean stop(long actorId);
 
+    /**
+     * 处理完邮箱中已有的消息后停止指定的 Actor
+     * <p>
+     * 调用后该 Actor 不再接收新消息，不阻塞调用线程，也不占用线程等待排空。
+     * </p>
+     *
+     * @param actorId Actor 唯一标识
+     * @return Actor 停止后完成的 Future，Actor 不存在时返回已完成的 Future
+     */
+    CompletableFuture<Void> stopGracefully(long actorId);
+
+    /**
+     * 批量排空停止，用于网关断开等大量玩家同时下线的场景
+     *
+     * @param actorIds Actor 唯一标识列表
+     * @return 所有 Actor 都停止后完成的 Future
+     */
+    CompletableFuture<Void> stopAllGracefully(long[] actorIds);
+
     /**
      * 向指定 Actor 发送消息
      * <p>
@@ -75,7 +94,7 @@ public interface ActorSystem {
      *
      * @param actorId Actor 唯一标识
      * @param message 消息
-     * @return 如果消息成功发送返回 true
+     * @return 消息进入邮箱返回 true；Actor 不存在、已停止、正在排空或邮箱已满时返回 false
      */
     boolean tell(long actorId, Object message);
 
@@ -96,6 +115,16 @@ public interface ActorSystem {
      */
     int actorCount();
 
+    /**
+     * 获取所有 Actor 邮箱中待处理的消息总数
+     * <p>
+     * 需要遍历所有 Actor，适合低频采样（如负载上报），不要在消息处理路径上调用。
+     * </p>
+     *
+     * @return 待处理消息总数
+     */
+    long mailboxBacklog();
+
     /**
      * 获取执行器类型
      *
@@ -0,0 +1,116 @@
+package org.markeb.actor.game;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 登录准入控制
+ * <p>
+ * 限制同时进行中的登录数量，超出的登录在有界队列中排队，队列满时直接拒绝。
+ * 网关重连等场景下大量玩家同时登录时，踢旧 Actor、创建新 Actor、加载数据按固定并发推进，
+ * 不会一次性把执行器和存储打满。
+ * </p>
+ * <p>
+ * 不占用任何线程：登录任务返回的 Future 完成时释放名额并在完成线程上启动下一个排队任务，
+ * 排空循环用 WIP 计数避免同步完成的任务造成递归。
+ * </p>
+ */
+public class LoginAdmission {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    /**
+     * 已接受且尚未完成的登录数（排队中 + 进行中）
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /**
+     * @param maxConcurrent 同时进行中的登录数上限
+     * @param maxQueued     排队等待的登录数上限
+     */
+    public LoginAdmission(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative: " + maxQueued);
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * 提交登录任务
+     *
+     * @param task 登录任务，返回登录完成的 Future
+     * @param <T>  登录结果类型
+     * @return 登录结果，排队已满时以 {@link RejectedExecutionException} 失败
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        if (admitted.incrementAndGet() > maxConcurrent + maxQueued) {
+            admitted.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Login queue is full"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.offer(() -> start(task, result));
+        drain();
+        return result;
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> task, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            running.decrementAndGet();
+            admitted.decrementAndGet();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+            drain();
+        });
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (running.get() < maxConcurrent) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    break;
+                }
+                running.incrementAndGet();
+                next.run();
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    /**
+     * 进行中的登录数
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * 排队中的登录数
+     */
+    public int getQueued() {
+        return Math.max(0, admitted.get() - running.get());
+    }
+}
@@ -2,7 +2,6 @@ package org.markeb.actor.game;
 
 import org.markeb.actor.ActorBehavior;
 import org.markeb.actor.ActorConfig;
-import org.markeb.actor.ActorRef;
 import org.markeb.actor.ActorSystem;
 import io.netty.channel.Channel;
 import org.slf4j.Logger;
@@ -27,11 +26,15 @@ public class PlayerActorManager<P extends PlayerActor<S>, S> {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerActorManager.class);
 
+    private static final int DEFAULT_LOGIN_CONCURRENCY = 256;
+    private static final int DEFAULT_LOGIN_QUEUE = 100_000;
+
     private final ActorSystem actorSystem;
     private final Map<Long, P> playerActors = new ConcurrentHashMap<>();
     private final Function<Long, P> playerFactory;
     private final Function<P, S> initialStateFactory;
     private final ActorConfig actorConfig;
+    private final LoginAdmission admission;
 
     /**
      * 创建玩家 Actor 管理器
@@ -58,61 +61,120 @@ public class PlayerActorManager<P extends PlayerActor<S>, S> {
                                Function<Long, P> playerFactory,
                                Function<P, S> initialStateFactory,
                                ActorConfig actorConfig) {
+        this(actorSystem, playerFactory, initialStateFactory, actorConfig,
+                new LoginAdmission(DEFAULT_LOGIN_CONCURRENCY, DEFAULT_LOGIN_QUEUE));
+    }
+
+    /**
+     * 创建玩家 Actor 管理器
+     *
+     * @param actorSystem         Actor 系统
+     * @param playerFactory       玩家工厂
+     * @param initialStateFactory 初始状态工厂
+     * @param actorConfig         Actor 配置
+     * @param admission           登录准入控制
+     */
+    public PlayerActorManager(ActorSystem actorSystem,
+                               Function<Long, P> playerFactory,
+                               Function<P, S> initialStateFactory,
+                               ActorConfig actorConfig,
+                               LoginAdmission admission) {
         this.actorSystem = actorSystem;
         this.playerFactory = playerFactory;
         this.initialStateFactory = initialStateFactory;
         this.actorConfig = actorConfig;
+        this.admission = admission;
     }
 
     /**
      * 玩家登录
+     * <p>
+     * 阻塞调用线程直到登录完成，经准入控制排队，旧 Actor 处理完邮箱中的消息后才创建新 Actor。
+     * </p>
      *
      * @param playerId 玩家 ID
      * @param channel  连接通道
      * @return 玩家 Actor
+     * @throws java.util.concurrent.CompletionException 排队已满或登录失败时
+     * @deprecated 会阻塞调用线程，在 I/O 线程上调用可能与旧 Actor 的停止互相等待，使用 {@link #loginAsync}
      */
+    @Deprecated
     public P login(long playerId, Channel channel) {
-        P existingPlayer = playerActors.get(playerId);
-        if (existingPlayer != null) {
-            // 踢掉旧连接
+        return loginAsync(playerId, channel).join();
+    }
+
+    /**
+     * 异步登录
+     * <p>
+     * 经准入控制排队后执行：旧 Actor 先处理完邮箱中的消息再停止，停止后才创建新 Actor，
+     * 调用线程（通常是 I/O 线程）不做任何等待。
+     * </p>
+     *
+     * @param playerId 玩家 ID
+     * @param channel  连接通道
+     * @return 登录完成后的玩家 Actor，排队已满时以 {@link java.util.concurrent.RejectedExecutionException} 失败
+     */
+    public CompletableFuture<P> loginAsync(long playerId, Channel channel) {
+        return admission.submit(() -> {
+            P existingPlayer = playerActors.remove(playerId);
+            if (existingPlayer == null) {
+                return CompletableFuture.completedFuture(spawn(playerId, channel));
+            }
             log.info("Player {} already online, kicking old connection", playerId);
             existingPlayer.kick("Duplicate login");
-            playerActors.remove(playerId);
-            actorSystem.stop(playerId);
-        }
+            return actorSystem.stopGracefully(playerId)
+                    .thenApply(ignored -> spawn(playerId, channel));
+        });
+    }
 
-        // 创建新的玩家 Actor
+    private P spawn(long playerId, Channel channel) {
         P player = playerFactory.apply(playerId);
         S initialState = initialStateFactory.apply(player);
-
         ActorBehavior<S> behavior = (context, state, message) ->
                 player.onMessage(context, state, message);
-
-        ActorRef actorRef = actorSystem.spawn(playerId, initialState, behavior, actorConfig);
-
-        // 设置 ActorRef（需要通过反射或其他方式，这里假设有 setter）
-        // player.setActorRef(actorRef);
-
+        actorSystem.spawn(playerId, initialState, behavior, actorConfig);
         player.onLogin(channel);
         playerActors.put(playerId, player);
-
         log.info("Player {} logged in", playerId);
         return player;
     }
 
     /**
      * 玩家登出
+     * <p>
+     * Actor 处理完邮箱中已有的消息后停止，不阻塞调用线程。
+     * </p>
      *
      * @param playerId 玩家 ID
+     * @return Actor 停止后完成的 Future
      */
-    public void logout(long playerId) {
+    public CompletableFuture<Void> logout(long playerId) {
         P player = playerActors.remove(playerId);
-        if (player != null) {
-            player.onLogout();
-            player.onStop();
-            actorSystem.stop(playerId);
-            log.info("Player {} logged out", playerId);
+        if (player == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        player.onLogout();
+        player.onStop();
+        log.info("Player {} logged out", playerId);
+        return actorSystem.stopGracefully(playerId);
+    }
+
+    /**
+     * 批量登出，用于网关断开等大量玩家同时下线的场景
+     *
+     * @param playerIds 玩家 ID 列表
+     * @return 所有 Actor 停止后完成的 Future
+     */
+    public CompletableFuture<Void> logoutAll(long[] playerIds) {
+        for (long playerId : playerIds) {
+            P player = playerActors.remove(playerId);
+            if (player != null) {
+                player.onLogout();
+                player.onStop();
+            }
         }
+        log.info("{} players logged out", playerIds.length);
+        return actorSystem.stopAllGracefully(playerIds);
     }
 
     /**
@@ -32,6 +32,11 @@ public class DefaultActor<T> implements Actor, ActorRef {
     private final AtomicReference<T> state;
     private final AtomicBoolean stopped = new AtomicBoolean(false);
     private final AtomicBoolean processing = new AtomicBoolean(false);
+    private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+    /**
+     * 排空后停止的请求，设置后不再接收新消息
+     */
+    private volatile boolean draining;
 
     public DefaultActor(long actorId,
                         T initialState,
@@ -63,21 +68,32 @@ public class DefaultActor<T> implements Actor, ActorRef {
 
     @Override
     public void tell(Object message) {
-        if (stopped.get()) {
+        offer(message);
+    }
+
+    /**
+     * 投递消息
+     *
+     * @return 是否进入邮箱，已停止、正在排空或邮箱已满时返回 false
+     */
+    boolean offer(Object message) {
+        if (stopped.get() || draining) {
             log.warn("Actor {} is stopped, message dropped: {}", actorId, message.getClass().getSimpleName());
-            return;
+            return false;
         }
 
         Envelope envelope = new Envelope(message, null);
-        if (mailbox.enqueue(envelope)) {
-            scheduleProcessing();
+        if (!mailbox.enqueue(envelope)) {
+            return false;
         }
+        scheduleProcessing();
+        return true;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <R> CompletableFuture<R> ask(Object message) {
-        if (stopped.get()) {
+        if (stopped.get() || draining) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException("Actor " + actorId + " is stopped"));
         }
@@ -99,8 +115,29 @@ public class DefaultActor<T> implements Actor, ActorRef {
         if (stopped.compareAndSet(false, true)) {
             log.debug("Stopping actor: {}", actorId);
             mailbox.close();
-            system.onActorStopped(actorId);
+            system.onActorStopped(this);
+            terminated.complete(null);
+        }
+    }
+
+    /**
+     * 处理完邮箱中已有的消息后停止
+     * <p>
+     * 调用后新消息不再入队。不占用任何线程等待：由处理消息的线程在邮箱排空时停止 Actor，
+     * 邮箱本来就空时在调用线程上直接停止。返回的 Future 在 Actor 停止后完成，回调可能运行在
+     * Actor 的执行线程或调用线程上，应保持轻量。
+     * </p>
+     *
+     * @return Actor 停止后完成的 Future
+     */
+    public CompletableFuture<Void> stopGracefully() {
+        if (!stopped.get() && !draining) {
+            draining = true;
+            mailbox.close();
+            // 空闲时由本线程取得处理权，发现邮箱为空后直接停止
+            scheduleProcessing();
         }
+        return terminated;
     }
 
     @Override
@@ -130,11 +167,17 @@ public class DefaultActor<T> implements Actor, ActorRef {
         Envelope envelope = mailbox.tryDequeue();
 
         if (envelope == null) {
+            if (draining) {
+                // 仍持有处理权，邮箱已排空
+                stop();
+                return;
+            }
+
             // 邮箱为空，标记处理完成
             processing.set(false);
 
-            // 双重检查：可能在设置 false 后有新消息入队
-            if (!mailbox.isEmpty() && processing.compareAndSet(false, true)) {
+            // 双重检查：可能在设置 false 后有新消息入队或请求了排空停止
+            if ((draining || !mailbox.isEmpty()) && processing.compareAndSet(false, true)) {
                 processNextMessage();
             }
             return;
@@ -92,13 +92,27 @@ public class DefaultActorSystem implements ActorSystem {
     }
 
     @Override
-    public boolean tell(long actorId, Object message) {
+    public CompletableFuture<Void> stopGracefully(long actorId) {
         DefaultActor<?> actor = actors.get(actorId);
-        if (actor != null && !actor.isStopped()) {
-            actor.tell(message);
-            return true;
+        if (actor != null) {
+            return actor.stopGracefully();
         }
-        return false;
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> stopAllGracefully(long[] actorIds) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[actorIds.length];
+        for (int i = 0; i < actorIds.length; i++) {
+            futures[i] = stopGracefully(actorIds[i]);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    @Override
+    public boolean tell(long actorId, Object message) {
+        DefaultActor<?> actor = actors.get(actorId);
+        return actor != null && !actor.isStopped() && actor.offer(message);
     }
 
     @Override
@@ -118,6 +132,15 @@ public class DefaultActorSystem implements ActorSystem {
                 .count();
     }
 
+    @Override
+    public long mailboxBacklog() {
+        long total = 0;
+        for (DefaultActor<?> actor : actors.values()) {
+            total += actor.getMailboxSize();
+        }
+        return total;
+    }
+
     @Override
     public ExecutorType getExecutorType() {
         return properties.getExecutorType();
@@ -147,8 +170,12 @@ public class DefaultActorSystem implements ActorSystem {
     /**
      * 当 Actor 停止时的回调
      */
-    void onActorStopped(long actorId) {
-        actors.remove(actorId);
+    void onActorStopped(DefaultActor<?> actor) {
+        long actorId = actor.actorId();
+        // 只移除自身，避免误删同一 ID 后来创建的 Actor
+        if (!actors.remove(actorId, actor)) {
+            return;
+        }
         if (executor instanceof VirtualThreadExecutor vte) {
             vte.cleanupActor(actorId);
         }
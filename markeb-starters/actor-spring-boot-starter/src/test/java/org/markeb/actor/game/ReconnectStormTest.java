@@ -0,0 +1,101 @@
+package org.markeb.actor.game;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.actor.ActorBehavior;
+import org.markeb.actor.config.ActorProperties;
+import org.markeb.actor.impl.DefaultActorSystem;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重连风暴：5 万玩家在线且邮箱有积压时网关断开，所有玩家立即重连。
+ * <p>
+ * 校验批量排空停止不丢已入队的消息，重连经准入控制后并发不超过上限，且全部成功创建新 Actor。
+ */
+class ReconnectStormTest {
+
+    private static final int PLAYERS = 50_000;
+    private static final int MESSAGES_PER_PLAYER = 4;
+    private static final int LOGIN_CONCURRENCY = 256;
+    private static final long PLAYER_BASE = 10_000_000_000L;
+
+    @Test
+    void reconnectStorm() throws Exception {
+        DefaultActorSystem system = new DefaultActorSystem("storm", new ActorProperties());
+        try {
+            AtomicLong processed = new AtomicLong();
+            ActorBehavior<Integer> behavior = (context, state, message) -> {
+                processed.incrementAndGet();
+                return state + 1;
+            };
+            LoginAdmission admission = new LoginAdmission(LOGIN_CONCURRENCY, PLAYERS);
+
+            CompletableFuture<?>[] logins = new CompletableFuture<?>[PLAYERS];
+            for (int i = 0; i < PLAYERS; i++) {
+                long playerId = PLAYER_BASE + i;
+                logins[i] = admission.submit(() ->
+                        CompletableFuture.completedFuture(system.spawn(playerId, 0, behavior)));
+            }
+            CompletableFuture.allOf(logins).get(30, TimeUnit.SECONDS);
+            assertEquals(PLAYERS, system.actorCount());
+
+            long[] playerIds = new long[PLAYERS];
+            for (int i = 0; i < PLAYERS; i++) {
+                playerIds[i] = PLAYER_BASE + i;
+                for (int m = 0; m < MESSAGES_PER_PLAYER; m++) {
+                    system.tell(playerIds[i], m);
+                }
+            }
+
+            // 网关断开：批量排空停止，同时所有玩家重连
+            CompletableFuture<Void> stopped = system.stopAllGracefully(playerIds);
+            AtomicInteger peakRunning = new AtomicInteger();
+            CompletableFuture<?>[] relogins = new CompletableFuture<?>[PLAYERS];
+            for (int i = 0; i < PLAYERS; i++) {
+                long playerId = playerIds[i];
+                relogins[i] = admission.submit(() -> {
+                    peakRunning.accumulateAndGet(admission.getRunning(), Math::max);
+                    return system.stopGracefully(playerId)
+                            .thenApply(ignored -> system.spawn(playerId, 0, behavior));
+                });
+            }
+            stopped.get(30, TimeUnit.SECONDS);
+            CompletableFuture.allOf(relogins).get(60, TimeUnit.SECONDS);
+
+            assertEquals((long) PLAYERS * MESSAGES_PER_PLAYER, processed.get());
+            assertEquals(PLAYERS, system.actorCount());
+            assertTrue(peakRunning.get() <= LOGIN_CONCURRENCY, "peak running " + peakRunning.get());
+            assertEquals(0, admission.getRunning());
+            assertEquals(0, admission.getQueued());
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void rejectWhenQueueFull() {
+        LoginAdmission admission = new LoginAdmission(1, 1);
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+
+        CompletableFuture<Void> running = admission.submit(() -> blocker);
+        CompletableFuture<String> queued = admission.submit(() -> CompletableFuture.completedFuture("queued"));
+        CompletableFuture<String> rejected = admission.submit(() -> CompletableFuture.completedFuture("rejected"));
+
+        assertEquals(1, admission.getRunning());
+        assertEquals(1, admission.getQueued());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+
+        blocker.complete(null);
+        assertTrue(running.isDone());
+        assertEquals("queued", queued.join());
+        assertEquals(0, admission.getRunning());
+    }
+}
@@ -3,6 +3,8 @@ package org.markeb.metrics;
 import io.micrometer.core.instrument.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -108,6 +110,18 @@ public class NetworkMetrics {
      */
     private final Counter encodeErrorCounter;
 
+    // ============ 带标签的指标缓存（标签值 -> Meter，避免每次调用都查找 MeterRegistry） ============
+
+    private final Map<String, Counter> connectionsOpenedBySource = new ConcurrentHashMap<>();
+    private final Map<String, Counter> connectionsClosedByReason = new ConcurrentHashMap<>();
+    private final Map<String, Counter> connectionsExceptionsByType = new ConcurrentHashMap<>();
+    private final Map<String, Counter> messagesReceivedByType = new ConcurrentHashMap<>();
+    private final Map<String, Counter> messagesSentByType = new ConcurrentHashMap<>();
+    private final Map<String, Counter> decodeErrorsByType = new ConcurrentHashMap<>();
+    private final Map<String, Counter> encodeErrorsByType = new ConcurrentHashMap<>();
+    private final Map<String, Timer> messageLatencyByType = new ConcurrentHashMap<>();
+    private final Map<String, Timer> codecDurationByOperation = new ConcurrentHashMap<>();
+
     public NetworkMetrics(MeterRegistry registry) {
         this.registry = registry;
 
@@ -189,11 +203,8 @@ public class NetworkMetrics {
      */
     public void connectionOpened(String source) {
         connectionOpened();
-        Counter.builder(METRIC_PREFIX + ".connections.opened.by.source")
-                .tag("source", source)
-                .description("按来源统计的连接建立数")
-                .register(registry)
-                .increment();
+        cachedCounter(connectionsOpenedBySource, METRIC_PREFIX + ".connections.opened.by.source", "source", source,
+                "按来源统计的连接建立数").increment();
     }
 
     /**
@@ -211,11 +222,8 @@ public class NetworkMetrics {
      */
     public void connectionClosed(String reason) {
         connectionClosed();
-        Counter.builder(METRIC_PREFIX + ".connections.closed.by.reason")
-                .tag("reason", reason)
-                .description("按原因统计的连接关闭数")
-                .register(registry)
-                .increment();
+        cachedCounter(connectionsClosedByReason, METRIC_PREFIX + ".connections.closed.by.reason", "reason", reason,
+                "按原因统计的连接关闭数").increment();
     }
 
     /**
@@ -232,11 +240,8 @@ public class NetworkMetrics {
      */
     public void connectionException(String exceptionType) {
         connectionExceptionCounter.increment();
-        Counter.builder(METRIC_PREFIX + ".connections.exceptions.by.type")
-                .tag("type", exceptionType)
-                .description("按类型统计的连接异常数")
-                .register(registry)
-                .increment();
+        cachedCounter(connectionsExceptionsByType, METRIC_PREFIX + ".connections.exceptions.by.type", "type", exceptionType,
+                "按类型统计的连接异常数").increment();
     }
 
     /**
@@ -287,11 +292,8 @@ public class NetworkMetrics {
      */
     public void recordMessageReceived(String messageType) {
         messagesReceivedCounter.increment();
-        Counter.builder(METRIC_PREFIX + ".messages.received.by.type")
-                .tag("type", messageType)
-                .description("按类型统计的接收消息数")
-                .register(registry)
-                .increment();
+        cachedCounter(messagesReceivedByType, METRIC_PREFIX + ".messages.received.by.type", "type", messageType,
+                "按类型统计的接收消息数").increment();
     }
 
     /**
@@ -319,11 +321,8 @@ public class NetworkMetrics {
      */
     public void recordMessageSent(String messageType) {
         messagesSentCounter.increment();
-        Counter.builder(METRIC_PREFIX + ".messages.sent.by.type")
-                .tag("type", messageType)
-                .description("按类型统计的发送消息数")
-                .register(registry)
-                .increment();
+        cachedCounter(messagesSentByType, METRIC_PREFIX + ".messages.sent.by.type", "type", messageType,
+                "按类型统计的发送消息数").increment();
     }
 
     /**
@@ -372,11 +371,8 @@ public class NetworkMetrics {
      */
     public void recordLatency(String messageType, long latencyMs) {
         messageLatencyTimer.record(latencyMs, TimeUnit.MILLISECONDS);
-        Timer.builder(METRIC_PREFIX + ".message.latency.by.type")
-                .tag("type", messageType)
-                .description("按消息类型统计的处理延迟")
-                .publishPercentiles(0.5, 0.9, 0.95, 0.99)
-                .register(registry)
+        cachedTimer(messageLatencyByType, METRIC_PREFIX + ".message.latency.by.type", "type", messageType,
+                "按消息类型统计的处理延迟")
                 .record(latencyMs, TimeUnit.MILLISECONDS);
     }
 
@@ -388,11 +384,8 @@ public class NetworkMetrics {
      */
     public void recordCodecDuration(long durationNanos, String operation) {
         codecTimer.record(durationNanos, TimeUnit.NANOSECONDS);
-        Timer.builder(METRIC_PREFIX + ".codec.duration.by.operation")
-                .tag("operation", operation)
-                .description("按操作类型统计的编解码耗时")
-                .publishPercentiles(0.5, 0.9, 0.95, 0.99)
-                .register(registry)
+        cachedTimer(codecDurationByOperation, METRIC_PREFIX + ".codec.duration.by.operation", "operation", operation,
+                "按操作类型统计的编解码耗时")
                 .record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
@@ -412,11 +405,8 @@ public class NetworkMetrics {
      */
     public void recordDecodeError(String errorType) {
         decodeErrorCounter.increment();
-        Counter.builder(METRIC_PREFIX + ".decode.errors.by.type")
-                .tag("type", errorType)
-                .description("按类型统计的解码错误数")
-                .register(registry)
-                .increment();
+        cachedCounter(decodeErrorsByType, METRIC_PREFIX + ".decode.errors.by.type", "type", errorType,
+                "按类型统计的解码错误数").increment();
     }
 
     /**
@@ -433,11 +423,8 @@ public class NetworkMetrics {
      */
     public void recordEncodeError(String errorType) {
         encodeErrorCounter.increment();
-        Counter.builder(METRIC_PREFIX + ".encode.errors.by.type")
-                .tag("type", errorType)
-                .description("按类型统计的编码错误数")
-                .register(registry)
-                .increment();
+        cachedCounter(encodeErrorsByType, METRIC_PREFIX + ".encode.errors.by.type", "type", errorType,
+                "按类型统计的编码错误数").increment();
     }
 
     /**
@@ -446,5 +433,31 @@ public class NetworkMetrics {
     public MeterRegistry getRegistry() {
         return registry;
     }
-}
 
+    // ============ 内部方法 ============
+
+    private Counter cachedCounter(Map<String, Counter> cache, String name, String tagKey, String tagValue,
+                                  String description) {
+        Counter counter = cache.get(tagValue);
+        if (counter == null) {
+            counter = cache.computeIfAbsent(tagValue, value -> Counter.builder(name)
+                    .tag(tagKey, value)
+                    .description(description)
+                    .register(registry));
+        }
+        return counter;
+    }
+
+    private Timer cachedTimer(Map<String, Timer> cache, String name, String tagKey, String tagValue,
+                              String description) {
+        Timer timer = cache.get(tagValue);
+        if (timer == null) {
+            timer = cache.computeIfAbsent(tagValue, value -> Timer.builder(name)
+                    .tag(tagKey, value)
+                    .description(description)
+                    .publishPercentiles(0.5, 0.9, 0.95, 0.99)
+                    .register(registry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,219 @@
+package org.markeb.metrics.binder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.markeb.net.metrics.BackendConnectionStats;
+import org.markeb.net.metrics.CodecStats;
+import org.markeb.net.metrics.MessageStats;
+import org.markeb.net.metrics.NetworkInstrumentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网络埋点指标绑定器
+ * <p>
+ * 把 {@link NetworkInstrumentation} 中累加的计数发布为 FunctionCounter / Gauge / FunctionTimer，
+ * 数值在抓取时才读取，消息热路径上不发生任何 MeterRegistry 查找。
+ * 每个消息ID只在首次出现时注册一次指标；单独统计的消息ID数有上限，超出的归入 {@code msg_id=other}。
+ * </p>
+ * <p>
+ * 后端连接按 {@code node} / {@code slot} 标签导出，连接登记时注册、注销时从 MeterRegistry 移除。
+ * </p>
+ */
+@Slf4j
+public class NetworkInstrumentationMetricsBinder implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "network.pipeline";
+
+    private final NetworkInstrumentation instrumentation;
+    private final Map<BackendConnectionStats, List<Meter>> backendMeters = new ConcurrentHashMap<>();
+
+    public NetworkInstrumentationMetricsBinder(NetworkInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // 连接
+        FunctionCounter.builder(METRIC_PREFIX + ".connections.opened", instrumentation,
+                        NetworkInstrumentation::getConnectionsOpened)
+                .description("连接建立总数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".connections.closed", instrumentation,
+                        NetworkInstrumentation::getConnectionsClosed)
+                .description("连接关闭总数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".connections.active", instrumentation,
+                        NetworkInstrumentation::getActiveConnections)
+                .description("当前活跃连接数")
+                .register(registry);
+
+        // 流量
+        FunctionCounter.builder(METRIC_PREFIX + ".bytes.received", instrumentation,
+                        NetworkInstrumentation::getBytesReceived)
+                .description("接收字节总数")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".bytes.sent", instrumentation,
+                        NetworkInstrumentation::getBytesSent)
+                .description("发送字节总数")
+                .baseUnit("bytes")
+                .register(registry);
+
+        // 背压
+        FunctionCounter.builder(METRIC_PREFIX + ".writability.changes", instrumentation,
+                        NetworkInstrumentation::getWritabilityChanges)
+                .description("连接可写性翻转次数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".connections.unwritable", instrumentation,
+                        NetworkInstrumentation::getUnwritableConnections)
+                .description("当前不可写的连接数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".outbound.pending", instrumentation,
+                        NetworkInstrumentation::getPendingOutboundBytes)
+                .description("出站缓冲区待写出字节总数")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".outbound.pending.max", instrumentation,
+                        NetworkInstrumentation::getMaxPendingOutboundBytes)
+                .description("单连接出站缓冲区待写出字节数最大值")
+                .baseUnit("bytes")
+                .register(registry);
+
+        // 批量推送
+        FunctionCounter.builder(METRIC_PREFIX + ".push.batches", instrumentation,
+                        NetworkInstrumentation::getPushBatches)
+                .description("收到的批量推送帧数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".push.batch.entries", instrumentation,
+                        NetworkInstrumentation::getPushBatchEntries)
+                .description("批量推送帧内的推送条目总数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".push.batch.entries.max", instrumentation,
+                        NetworkInstrumentation::getMaxPushBatchEntries)
+                .description("单个批量推送帧的最大条目数")
+                .register(registry);
+
+        // 编解码采样
+        bindCodec(registry, "decode", instrumentation.getDecodeStats());
+        bindCodec(registry, "encode", instrumentation.getEncodeStats());
+
+        // 按消息ID统计：先挂回调再补注册已有的，重复注册会返回同一个 Meter
+        instrumentation.setMessageStatsListener(stats -> bindMessage(registry, stats));
+        instrumentation.forEachMessageStats(stats -> bindMessage(registry, stats));
+
+        // 后端连接：同样先挂回调再补注册已登记的
+        instrumentation.setBackendConnectionListener(new NetworkInstrumentation.BackendConnectionListener() {
+            @Override
+            public void onRegistered(BackendConnectionStats connection) {
+                bindBackendConnection(registry, connection);
+            }
+
+            @Override
+            public void onUnregistered(BackendConnectionStats connection) {
+                List<Meter> meters = backendMeters.remove(connection);
+                if (meters != null) {
+                    meters.forEach(registry::remove);
+                }
+            }
+        });
+        instrumentation.forEachBackendConnection(connection -> bindBackendConnection(registry, connection));
+
+        log.info("Network instrumentation metrics bound to registry");
+    }
+
+    private void bindCodec(MeterRegistry registry, String operation, CodecStats stats) {
+        FunctionTimer.builder(METRIC_PREFIX + ".codec.sampled", stats,
+                        CodecStats::getCount, CodecStats::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tag("operation", operation)
+                .description("采样的编解码耗时")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".codec.sampled.max", stats, CodecStats::getMaxNanos)
+                .tag("operation", operation)
+                .description("采样的编解码最大耗时（纳秒）")
+                .register(registry);
+    }
+
+    private void bindMessage(MeterRegistry registry, MessageStats stats) {
+        String msgId = switch (stats.getMessageId()) {
+            case NetworkInstrumentation.UNKNOWN_MESSAGE_ID -> "unknown";
+            case NetworkInstrumentation.OTHER_MESSAGE_ID -> "other";
+            default -> String.valueOf(stats.getMessageId());
+        };
+
+        FunctionCounter.builder(METRIC_PREFIX + ".messages.received", stats, MessageStats::getReceivedCount)
+                .tag("msg_id", msgId)
+                .description("按消息ID统计的接收消息数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".messages.received.bytes", stats, MessageStats::getReceivedBytes)
+                .tag("msg_id", msgId)
+                .description("按消息ID统计的接收消息体字节数")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".messages.sent", stats, MessageStats::getSentCount)
+                .tag("msg_id", msgId)
+                .description("按消息ID统计的发送消息数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".messages.sent.bytes", stats, MessageStats::getSentBytes)
+                .tag("msg_id", msgId)
+                .description("按消息ID统计的发送消息体字节数")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void bindBackendConnection(MeterRegistry registry, BackendConnectionStats connection) {
+        Tags tags = Tags.of("node", connection.getNodeAddress(), "slot", String.valueOf(connection.getSlot()));
+        String prefix = METRIC_PREFIX + ".backend";
+        List<Meter> meters = List.of(
+                FunctionCounter.builder(prefix + ".messages.sent", connection, BackendConnectionStats::getMessagesSent)
+                        .tags(tags)
+                        .description("后端连接发送消息数")
+                        .register(registry),
+                FunctionCounter.builder(prefix + ".bytes.sent", connection, BackendConnectionStats::getBytesSent)
+                        .tags(tags)
+                        .description("后端连接发送消息体字节数")
+                        .baseUnit("bytes")
+                        .register(registry),
+                FunctionCounter.builder(prefix + ".messages.received", connection,
+                                BackendConnectionStats::getMessagesReceived)
+                        .tags(tags)
+                        .description("后端连接接收消息数")
+                        .register(registry),
+                FunctionCounter.builder(prefix + ".bytes.received", connection,
+                                BackendConnectionStats::getBytesReceived)
+                        .tags(tags)
+                        .description("后端连接接收消息体字节数")
+                        .baseUnit("bytes")
+                        .register(registry),
+                Gauge.builder(prefix + ".outbound.pending", connection, BackendConnectionStats::getPendingBytes)
+                        .tags(tags)
+                        .description("后端连接出站缓冲区待写出字节数")
+                        .baseUnit("bytes")
+                        .register(registry),
+                Gauge.builder(prefix + ".connected", connection, c -> c.isActive() ? 1 : 0)
+                        .tags(tags)
+                        .description("后端连接是否已连接（1/0）")
+                        .register(registry),
+                Gauge.builder(prefix + ".heartbeat.missed", connection, BackendConnectionStats::getMissedHeartbeats)
+                        .tags(tags)
+                        .description("后端连接连续丢失的心跳次数")
+                        .register(registry),
+                Gauge.builder(prefix + ".heartbeat.latency", connection,
+                                BackendConnectionStats::getHeartbeatLatencyMillis)
+                        .tags(tags)
+                        .description("后端连接最近一次心跳往返延迟（毫秒），未知时为 -1")
+                        .baseUnit("milliseconds")
+                        .register(registry)
+        );
+        backendMeters.put(connection, meters);
+    }
+}
@@ -0,0 +1,51 @@
+package org.markeb.metrics.binder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.markeb.persistent.service.WriteBehindBuffer;
+
+/**
+ * 持久化写入合并指标绑定器
+ * <p>
+ * 把 {@link WriteBehindBuffer} 中累加的提交数、发出的消息数发布为 FunctionCounter，
+ * 合并比例和待刷出实体数发布为 Gauge，均在抓取时读取。
+ * </p>
+ */
+@Slf4j
+public class WriteBehindMetricsBinder implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "persistent.write.behind";
+
+    private final WriteBehindBuffer buffer;
+
+    public WriteBehindMetricsBinder(WriteBehindBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".submitted", buffer, WriteBehindBuffer::getSubmitted)
+                .description("异步保存和更新的提交次数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".written", buffer, WriteBehindBuffer::getWritten)
+                .description("合并后发出的持久化消息数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".flushes", buffer, WriteBehindBuffer::getFlushes)
+                .description("刷出轮数")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".failures", buffer, WriteBehindBuffer::getFailures)
+                .description("序列化或发送失败次数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".pending", buffer, WriteBehindBuffer::getPending)
+                .description("当前待刷出的实体数")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".coalescing.ratio", buffer, WriteBehindBuffer::getCoalescingRatio)
+                .description("每条持久化消息平均合并的提交次数")
+                .register(registry);
+
+        log.info("Write-behind metrics bound to registry");
+    }
+}
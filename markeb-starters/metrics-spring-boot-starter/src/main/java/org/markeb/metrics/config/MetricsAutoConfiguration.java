@@ -8,6 +8,10 @@ import org.markeb.metrics.GameMetrics;
 import org.markeb.metrics.NetworkMetrics;
 import org.markeb.metrics.binder.ActorSystemMetricsBinder;
 import org.markeb.metrics.binder.JvmExtendedMetricsBinder;
+import org.markeb.metrics.binder.NetworkInstrumentationMetricsBinder;
+import org.markeb.metrics.binder.WriteBehindMetricsBinder;
+import org.markeb.net.metrics.NetworkInstrumentation;
+import org.markeb.persistent.service.WriteBehindBuffer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
@@ -24,7 +28,10 @@ import org.springframework.util.StringUtils;
  * 监控指标自动配置
  */
 @Slf4j
-@AutoConfiguration
+@AutoConfiguration(afterName = {
+        "org.markeb.net.config.NetworkInstrumentationAutoConfiguration",
+        "org.markeb.persistent.config.PersistentAutoConfiguration"
+})
 @ConditionalOnClass(MeterRegistry.class)
 @ConditionalOnProperty(prefix = "markeb.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
 @EnableConfigurationProperties(MetricsProperties.class)
@@ -111,6 +118,40 @@ public class MetricsAutoConfiguration {
             log.info("Creating NetworkMetrics bean");
             return new NetworkMetrics(registry);
         }
+
+        /**
+         * 网络层 pipeline 埋点（需要 network starter）
+         */
+        @Configuration
+        @ConditionalOnClass(name = "org.markeb.net.metrics.NetworkInstrumentation")
+        static class NetworkInstrumentationConfiguration {
+
+            @Bean
+            @ConditionalOnBean(NetworkInstrumentation.class)
+            @ConditionalOnMissingBean
+            public NetworkInstrumentationMetricsBinder networkInstrumentationMetricsBinder(
+                    NetworkInstrumentation instrumentation) {
+                log.info("Creating NetworkInstrumentationMetricsBinder bean");
+                return new NetworkInstrumentationMetricsBinder(instrumentation);
+            }
+        }
+    }
+
+    /**
+     * 持久化写入合并指标配置（需要 persistent starter）
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.markeb.persistent.service.WriteBehindBuffer")
+    @ConditionalOnProperty(prefix = "markeb.metrics.persistent", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class PersistentMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(WriteBehindBuffer.class)
+        @ConditionalOnMissingBean
+        public WriteBehindMetricsBinder writeBehindMetricsBinder(WriteBehindBuffer buffer) {
+            log.info("Creating WriteBehindMetricsBinder bean");
+            return new WriteBehindMetricsBinder(buffer);
+        }
     }
 
     /**
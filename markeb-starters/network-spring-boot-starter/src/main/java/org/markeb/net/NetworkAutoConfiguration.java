@@ -34,7 +34,7 @@ public class NetworkAutoConfiguration {
     public IMessagePool<?> messagePool(IGameParser<?> gameParser, NetworkProperties networkProperties) {
         // 根据协议类型选择编解码器
         boolean gatewayInternalMode = networkProperties.getProtocol() == org.markeb.net.protocol.ProtocolType.GATEWAY_INTERNAL;
-        return new ProtoBuffGameMessagePool(gameParser, gatewayInternalMode);
+        return new ProtoBuffGameMessagePool(gameParser, gatewayInternalMode, networkProperties.isLazyDecode());
     }
 
     @Bean
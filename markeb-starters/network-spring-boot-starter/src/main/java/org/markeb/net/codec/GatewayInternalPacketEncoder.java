@@ -0,0 +1,28 @@
+package org.markeb.net.codec;
+
+import org.markeb.net.protocol.GatewayInternalPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+/**
+ * 网关内部协议的 {@link GatewayInternalPacket} 编码器
+ * <p>
+ * 用于游戏服应答网关心跳等框架内部消息，协议格式与 {@link ProtoBuffGatewayEncoder} 相同：
+ * length(4) + sessionId(4) + msgId(4) + seq(4) + body(n)，length 不含自身。
+ */
+public class GatewayInternalPacketEncoder extends MessageToByteEncoder<GatewayInternalPacket> {
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, GatewayInternalPacket msg, ByteBuf out) {
+        byte[] body = msg.getBody();
+        int bodyLength = body != null ? body.length : 0;
+        out.writeInt(12 + bodyLength);
+        out.writeInt(msg.getSessionId());
+        out.writeInt(msg.getMessageId());
+        out.writeInt(msg.getSeqInt());
+        if (bodyLength > 0) {
+            out.writeBytes(body);
+        }
+    }
+}
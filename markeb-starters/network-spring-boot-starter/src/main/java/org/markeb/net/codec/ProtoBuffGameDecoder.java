@@ -1,5 +1,6 @@
 package org.markeb.net.codec;
 
+import org.markeb.net.message.LazyProtobufMessage;
 import org.markeb.net.msg.IGameParser;
 import com.google.protobuf.Message;
 import io.netty.buffer.ByteBuf;
@@ -10,15 +11,23 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
  * 消息解码器     长度:4   +   消息ID:4   +  sequence:4  +  主体数据:n
  * 消息结构 +----------+ | 总长度 | +----------+ | 消息ID | +----------+ | 主体数据 |
  * +----------+ 总长度 = 4(长度标示) + 4(消息ID) + 主体数据
+ * <p>
+ * lazy 模式下输出 {@link LazyProtobufMessage}，消息体在首次 unwrap 时才解析。
  */
 public class ProtoBuffGameDecoder extends LengthFieldBasedFrameDecoder {
 
     private final IGameParser<Message> parser;
+    private final boolean lazy;
 
     public ProtoBuffGameDecoder(IGameParser<Message> parser) {
+        this(parser, false);
+    }
+
+    public ProtoBuffGameDecoder(IGameParser<Message> parser, boolean lazy) {
         super(1024 * 1024, 0,
                 4, -4, 4);
         this.parser = parser;
+        this.lazy = lazy;
     }
 
     @Override
@@ -27,13 +36,20 @@ public class ProtoBuffGameDecoder extends LengthFieldBasedFrameDecoder {
         if (frame == null) {
             return null;
         }
+        boolean release = true;
         try {
             int msgId = frame.readInt();
+            if (lazy) {
+                release = false;
+                return new LazyProtobufMessage(msgId, frame, parser::parseFrom);
+            }
             byte[] bodyBytes = new byte[frame.readableBytes()];
             frame.readBytes(bodyBytes);
             return parser.parseFrom(msgId, bodyBytes);
         } finally {
-            frame.release();
+            if (release) {
+                frame.release();
+            }
         }
     }
 
@@ -1,6 +1,9 @@
 package org.markeb.net.codec;
 
+import org.markeb.net.heartbeat.PacketHeartbeatFactory;
+import org.markeb.net.message.LazyProtobufMessage;
 import org.markeb.net.msg.IGameParser;
+import org.markeb.net.protocol.GatewayInternalPacket;
 import com.google.protobuf.Message;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -14,6 +17,12 @@ import io.netty.util.AttributeKey;
  * length(4) + sessionId(4) + msgId(4) + seq(4) + body(n)
  * <p>
  * 解码后将 sessionId 和 seq 存储到 Channel 属性中，供业务层使用。
+ * <p>
+ * 开启 lazy 模式后不在 I/O 线程解析消息体，而是输出持有消息体缓冲区的 {@link LazyProtobufMessage}，
+ * 由处理消息的线程在首次 unwrap 时解析。
+ * <p>
+ * 网关心跳（保留消息 ID {@link PacketHeartbeatFactory#INTERNAL_HEARTBEAT_REQUEST_ID}）不是业务消息，
+ * 输出为 {@link GatewayInternalPacket} 交给 {@code HeartbeatHandler} 应答，响应由 {@link GatewayInternalPacketEncoder} 编码。
  */
 public class ProtoBuffGatewayDecoder extends LengthFieldBasedFrameDecoder {
 
@@ -28,15 +37,25 @@ public class ProtoBuffGatewayDecoder extends LengthFieldBasedFrameDecoder {
     public static final AttributeKey<Integer> SEQ_KEY = AttributeKey.valueOf("seq");
 
     private final IGameParser<Message> parser;
+    private final boolean lazy;
 
     public ProtoBuffGatewayDecoder(IGameParser<Message> parser) {
-        super(1024 * 1024, 0, 4, 0, 4);
-        this.parser = parser;
+        this(parser, 1024 * 1024, false);
     }
 
     public ProtoBuffGatewayDecoder(IGameParser<Message> parser, int maxFrameLength) {
+        this(parser, maxFrameLength, false);
+    }
+
+    /**
+     * @param parser         消息解析器
+     * @param maxFrameLength 最大帧长度
+     * @param lazy           是否延迟解析消息体
+     */
+    public ProtoBuffGatewayDecoder(IGameParser<Message> parser, int maxFrameLength, boolean lazy) {
         super(maxFrameLength, 0, 4, 0, 4);
         this.parser = parser;
+        this.lazy = lazy;
     }
 
     @Override
@@ -45,16 +64,29 @@ public class ProtoBuffGatewayDecoder extends LengthFieldBasedFrameDecoder {
         if (frame == null) {
             return null;
         }
+        boolean release = true;
         try {
             // 读取协议头
             int sessionId = frame.readInt();
             int msgId = frame.readInt();
             int seq = frame.readInt();
 
+            if (msgId == PacketHeartbeatFactory.INTERNAL_HEARTBEAT_REQUEST_ID) {
+                byte[] body = new byte[frame.readableBytes()];
+                frame.readBytes(body);
+                return new GatewayInternalPacket(sessionId, msgId, seq, body);
+            }
+
             // 将 sessionId 和 seq 存储到 Channel 属性中
             ctx.channel().attr(SESSION_ID_KEY).set(sessionId);
             ctx.channel().attr(SEQ_KEY).set(seq);
 
+            if (lazy) {
+                // frame 已是 retained slice，所有权直接交给延迟消息
+                release = false;
+                return new LazyProtobufMessage(msgId, frame, parser::parseFrom);
+            }
+
             // 读取消息体
             byte[] bodyBytes = new byte[frame.readableBytes()];
             frame.readBytes(bodyBytes);
@@ -62,7 +94,9 @@ public class ProtoBuffGatewayDecoder extends LengthFieldBasedFrameDecoder {
             // 解析 protobuf 消息
             return parser.parseFrom(msgId, bodyBytes);
         } finally {
-            frame.release();
+            if (release) {
+                frame.release();
+            }
         }
     }
 
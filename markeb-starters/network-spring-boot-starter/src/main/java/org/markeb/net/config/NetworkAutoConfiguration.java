@@ -5,7 +5,10 @@ import org.markeb.net.handler.MessageDispatcher;
 import org.markeb.net.handler.PacketHandler;
 import org.markeb.net.heartbeat.HeartbeatHandler;
 import org.markeb.net.heartbeat.HeartbeatMessageFactory;
+import org.markeb.net.heartbeat.NodeLoadProvider;
 import org.markeb.net.heartbeat.PacketHeartbeatFactory;
+import org.markeb.net.idle.SharedIdleStateHandler;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import org.markeb.net.protocol.ProtocolType;
 import org.markeb.net.protocol.codec.PacketDecoder;
 import org.markeb.net.protocol.codec.PacketEncoder;
@@ -25,9 +28,9 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -84,12 +87,13 @@ public class NetworkAutoConfiguration {
 
     /**
      * 心跳消息工厂
-     * 根据协议类型自动选择对应的心跳实现
+     * 根据协议类型自动选择对应的心跳实现，存在 {@link NodeLoadProvider} 时心跳响应附带节点负载
      */
     @Bean
     @ConditionalOnMissingBean
-    public HeartbeatMessageFactory heartbeatMessageFactory(NetworkProperties properties) {
-        return new PacketHeartbeatFactory(properties.getProtocol());
+    public HeartbeatMessageFactory heartbeatMessageFactory(NetworkProperties properties,
+                                                           ObjectProvider<NodeLoadProvider> loadProvider) {
+        return new PacketHeartbeatFactory(properties.getProtocol(), loadProvider.getIfAvailable());
     }
 
     /**
@@ -100,11 +104,13 @@ public class NetworkAutoConfiguration {
     public ChannelInitializer<SocketChannel> channelInitializer(
             NetworkProperties properties,
             MessageDispatcher messageDispatcher,
-            HeartbeatMessageFactory heartbeatMessageFactory) {
+            HeartbeatMessageFactory heartbeatMessageFactory,
+            ObjectProvider<NetworkInstrumentation> instrumentationProvider) {
 
         ProtocolType protocolType = properties.getProtocol();
         NetworkProperties.NettyConfig nettyConfig = properties.getNetty();
         NetworkProperties.HeartbeatConfig heartbeatConfig = properties.getHeartbeat();
+        NetworkInstrumentation instrumentation = instrumentationProvider.getIfAvailable();
 
         log.info("Creating ChannelInitializer with protocol: {}, codec: {}, heartbeat: {}",
                 protocolType, properties.getCodec(), heartbeatConfig.isEnabled());
@@ -112,9 +118,14 @@ public class NetworkAutoConfiguration {
         return new ChannelInitializer<>() {
             @Override
             protected void initChannel(SocketChannel ch) {
+                // 网络埋点（字节层）
+                if (instrumentation != null) {
+                    ch.pipeline().addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+                }
+
                 // 空闲检测
                 ch.pipeline().addLast("idleStateHandler",
-                        new IdleStateHandler(
+                        new SharedIdleStateHandler(
                                 nettyConfig.getReaderIdleTime(),
                                 nettyConfig.getWriterIdleTime(),
                                 nettyConfig.getAllIdleTime(),
@@ -125,6 +136,11 @@ public class NetworkAutoConfiguration {
                         new PacketDecoder(protocolType, properties.getMaxFrameLength()));
                 ch.pipeline().addLast("encoder", new PacketEncoder());
 
+                // 网络埋点（消息层）
+                if (instrumentation != null) {
+                    ch.pipeline().addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+                }
+
                 // 心跳处理（在业务处理器之前）
                 if (heartbeatConfig.isEnabled()) {
                     ch.pipeline().addLast("heartbeat",
@@ -146,7 +162,8 @@ public class NetworkAutoConfiguration {
     public TransportServer transportServer(
             NetworkProperties properties,
             ChannelInitializer<SocketChannel> channelInitializer,
-            MessageDispatcher messageDispatcher) {
+            MessageDispatcher messageDispatcher,
+            ObjectProvider<NetworkInstrumentation> instrumentationProvider) {
 
         TransportType transportType = properties.getTransport();
         int port = properties.getPort();
@@ -164,14 +181,15 @@ public class NetworkAutoConfiguration {
                     port,
                     nettyConfig.getWorkerThreads(),
                     channelInitializer);
-            case WEBSOCKET -> createWebSocketServer(properties, messageDispatcher);
+            case WEBSOCKET -> createWebSocketServer(properties, messageDispatcher, instrumentationProvider.getIfAvailable());
         };
     }
 
     /**
      * 创建 WebSocket 服务器
      */
-    private TransportServer createWebSocketServer(NetworkProperties properties, MessageDispatcher messageDispatcher) {
+    private TransportServer createWebSocketServer(NetworkProperties properties, MessageDispatcher messageDispatcher,
+                                                  NetworkInstrumentation instrumentation) {
         NetworkProperties.WebSocketConfig wsConfig = properties.getWebsocket();
         NetworkProperties.NettyConfig nettyConfig = properties.getNetty();
 
@@ -187,12 +205,15 @@ public class NetworkAutoConfiguration {
                 .websocketPath(wsConfig.getPath())
                 .maxFrameSize(wsConfig.getMaxFrameSize())
                 .enableCompression(wsConfig.isEnableCompression())
+                .compressionThreshold(wsConfig.getCompressionThreshold())
+                .leanMode(wsConfig.isLeanMode())
                 .readerIdleTime(nettyConfig.getReaderIdleTime())
                 .writerIdleTime(nettyConfig.getWriterIdleTime())
                 .allIdleTime(nettyConfig.getAllIdleTime())
                 .protocolType(properties.getProtocol())
                 .maxFrameLength(properties.getMaxFrameLength())
                 .messageDispatcher(messageDispatcher)
+                .instrumentation(instrumentation)
                 .build();
 
         return new WebSocketTransportServer(
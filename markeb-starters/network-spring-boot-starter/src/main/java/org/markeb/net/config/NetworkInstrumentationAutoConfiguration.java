@@ -0,0 +1,37 @@
+package org.markeb.net.config;
+
+import org.markeb.net.metrics.NetworkInstrumentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 网络埋点自动配置
+ * <p>
+ * 不依赖 {@code markeb.network.enabled}，自建服务器（如网关）同样可以注入 {@link NetworkInstrumentation}。
+ * 只有 classpath 中存在 Micrometer 时才创建，指标由 metrics starter 在抓取时发布。
+ * </p>
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(NetworkProperties.class)
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+@ConditionalOnProperty(prefix = "markeb.network.instrumentation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NetworkInstrumentationAutoConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(NetworkInstrumentationAutoConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NetworkInstrumentation networkInstrumentation(NetworkProperties properties) {
+        int sampleRate = properties.getInstrumentation().getCodecSampleRate();
+        int maxMessageIds = properties.getInstrumentation().getMaxMessageIds();
+        log.info("Creating NetworkInstrumentation with codec sample rate 1/{}, at most {} message ids",
+                sampleRate, maxMessageIds);
+        return new NetworkInstrumentation(sampleRate, maxMessageIds);
+    }
+}
@@ -43,6 +43,14 @@ public class NetworkProperties {
      */
     private int maxFrameLength = 1024 * 1024;
 
+    /**
+     * 是否延迟解析消息体
+     * <p>
+     * 开启后解码器只保留消息体缓冲区，在业务线程首次 unwrap 时才解析。
+     * 客户端直连时由 Actor 线程解析；网关连接上的通知需要在 I/O 线程读出玩家 ID，只有内层业务消息体延后解析
+     */
+    private boolean lazyDecode = false;
+
     /**
      * Netty 配置
      */
@@ -128,6 +136,13 @@ public class NetworkProperties {
          * 是否启用游戏服模式
          */
         private boolean enabled = false;
+
+        /**
+         * 下发给网关的通知是否使用 int64 玩家 ID（Compact* 通知），开启后推送按网关连接合并为批量帧
+         * <p>
+         * 两种格式的入站通知始终都能处理；网关全部升级到能解析 Compact* 通知后再开启
+         */
+        private boolean compactPlayerId = false;
     }
 
     /**
@@ -152,6 +167,19 @@ public class NetworkProperties {
          */
         private boolean enableCompression = true;
 
+        /**
+         * 压缩阈值（字节），仅精简模式生效，小于该值的出站帧不压缩
+         */
+        private int compressionThreshold = 256;
+
+        /**
+         * 精简模式
+         * <p>
+         * 一个二进制帧对应一个数据包，帧内不带 length 字段；握手后不保留聚合器。
+         * 客户端需要按同样的约定收发，因此默认关闭
+         */
+        private boolean leanMode = false;
+
         /**
          * 是否启用 SSL
          */
@@ -177,5 +205,27 @@ public class NetworkProperties {
          */
         private String subprotocols;
     }
-}
 
+    /**
+     * 网络埋点配置
+     */
+    private InstrumentationConfig instrumentation = new InstrumentationConfig();
+
+    @Data
+    public static class InstrumentationConfig {
+        /**
+         * 是否启用网络埋点（需要 classpath 中存在 Micrometer）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 编解码耗时采样率，每 N 次采样一次
+         */
+        private int codecSampleRate = 64;
+
+        /**
+         * 最多单独统计的消息ID数，超出后新出现的消息ID归入 other
+         */
+        private int maxMessageIds = 1024;
+    }
+}
@@ -1,5 +1,10 @@
 package org.markeb.net.gateway;
 
+import org.markeb.net.gateway.backend.PendingRequestTable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCounted;
+
 /**
  * 网关内部统一的包格式，已解析出协议头。
  * <p>
@@ -8,19 +13,40 @@ package org.markeb.net.gateway;
  * <p>
  * sessionId: 网关为每个前端连接分配的唯一标识，游戏服回包时原样返回，网关据此路由回正确的玩家连接。
  * seq: 客户端请求序号，用于请求-响应关联。
+ * <p>
+ * 消息体有两种持有方式：
+ * <ul>
+ *   <li>{@code byte[]}：普通模式，解码时复制</li>
+ *   <li>{@link ByteBuf}：零拷贝转发模式，直接持有接收缓冲区中消息体的切片，此时本对象需要按引用计数释放。
+ *   网关只改写协议头，消息体原样交给 {@code GatewayEncoder} 与新协议头组合写出，全程不复制、不进堆</li>
+ * </ul>
+ * 对于 byte[] 模式，引用计数相关方法均为空操作。
+ * </p>
  */
-public class GatewayPacket {
+public class GatewayPacket implements ReferenceCounted {
 
     private final int sessionId;  // 网关分配的连接标识
     private final int msgId;
     private final int seq;
-    private final byte[] body;
+    private final ByteBuf content;
+    private byte[] body;
 
     public GatewayPacket(int sessionId, int msgId, int seq, byte[] body) {
         this.sessionId = sessionId;
         this.msgId = msgId;
         this.seq = seq;
         this.body = body;
+        this.content = null;
+    }
+
+    /**
+     * 零拷贝模式，接管 content 的一个引用
+     */
+    public GatewayPacket(int sessionId, int msgId, int seq, ByteBuf content) {
+        this.sessionId = sessionId;
+        this.msgId = msgId;
+        this.seq = seq;
+        this.content = content;
     }
 
     public int getSessionId() {
@@ -35,15 +61,106 @@ public class GatewayPacket {
         return seq;
     }
 
+    /**
+     * 消息体字节数组
+     * <p>
+     * 零拷贝模式下首次调用会复制一份消息体，仅用于心跳、通知等需要读取内容的小消息，转发路径不要调用。
+     * </p>
+     */
     public byte[] getBody() {
+        if (body == null && content != null) {
+            body = ByteBufUtil.getBytes(content);
+        }
         return body;
     }
 
     /**
-     * 生成用于 pending 映射的唯一 key
+     * 零拷贝模式下的消息体缓冲区，普通模式返回 null
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    /**
+     * 消息体长度，不会触发复制
+     */
+    public int bodyLength() {
+        if (content != null) {
+            return content.readableBytes();
+        }
+        return body == null ? 0 : body.length;
+    }
+
+    /**
+     * 只改写 sessionId，消息体与当前包共享（零拷贝模式下增加一次引用）
+     */
+    public GatewayPacket retainedWithSessionId(int sessionId) {
+        if (content != null) {
+            return new GatewayPacket(sessionId, msgId, seq, content.retain());
+        }
+        return new GatewayPacket(sessionId, msgId, seq, body);
+    }
+
+    /**
+     * 生成用于 pending 映射的唯一 key：(sessionId << 32) | seq
+     */
+    public long getPendingId() {
+        return PendingRequestTable.key(sessionId, seq);
+    }
+
+    /**
+     * 生成可读的 pending key（sessionId:seq），仅用于日志
      */
     public String getPendingKey() {
         return sessionId + ":" + seq;
     }
-}
 
+    // ============ 引用计数（委托给 content） ============
+
+    @Override
+    public int refCnt() {
+        return content == null ? 1 : content.refCnt();
+    }
+
+    @Override
+    public GatewayPacket retain() {
+        if (content != null) {
+            content.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public GatewayPacket retain(int increment) {
+        if (content != null) {
+            content.retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public GatewayPacket touch() {
+        if (content != null) {
+            content.touch();
+        }
+        return this;
+    }
+
+    @Override
+    public GatewayPacket touch(Object hint) {
+        if (content != null) {
+            content.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content != null && content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content != null && content.release(decrement);
+    }
+}
@@ -4,6 +4,7 @@ import org.markeb.net.gateway.GatewayPacket;
 import org.markeb.net.gateway.config.GatewayBackendProperties;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -14,52 +15,61 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.net.InetSocketAddress;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 维护网关到各区服后端的长连接。
  * <p>
- * 使用 (sessionId:seq) 作为 pending 映射的 key，确保不同连接的请求不会冲突。
+ * 使用 (sessionId, seq) 打包的 long 作为 pending 映射的 key，确保不同连接的请求不会冲突。
  */
 public class BackendConnectionManager {
 
     private static final Logger log = LoggerFactory.getLogger(BackendConnectionManager.class);
 
     private final GatewayBackendProperties backendProperties;
+    private final NetworkInstrumentation instrumentation;
     private final EventLoopGroup workerGroup = new NioEventLoopGroup();
 
     /**
-     * zoneId -> Channel（到后端游戏服的连接）
+     * zoneId -> 到后端游戏服的异步连接
      */
-    private final Map<String, Channel> backendChannels = new ConcurrentHashMap<>();
+    private final Map<String, BackendLink> backendLinks = new ConcurrentHashMap<>();
 
     /**
-     * pendingKey (sessionId:seq) -> 前端 Channel
-     * 游戏服回包时，用 sessionId:seq 找到对应的前端连接
+     * (sessionId, seq) -> 前端 Channel
+     * 游戏服回包时，用 sessionId + seq 找到对应的前端连接
      */
-    private final ConcurrentHashMap<String, Channel> pendingRequests = new ConcurrentHashMap<>();
+    private final PendingRequestTable<Channel> pendingRequests;
 
     public BackendConnectionManager(GatewayBackendProperties backendProperties) {
+        this(backendProperties, null);
+    }
+
+    public BackendConnectionManager(GatewayBackendProperties backendProperties, NetworkInstrumentation instrumentation) {
         this.backendProperties = backendProperties;
+        this.instrumentation = instrumentation;
+        this.pendingRequests = new PendingRequestTable<>(backendProperties.getPendingTimeoutMillis(), TimeUnit.MILLISECONDS);
+        // 定期清理后端一直未响应的请求
+        long period = Math.max(100, backendProperties.getPendingTimeoutMillis() / 4);
+        workerGroup.scheduleAtFixedRate(this::expirePendingRequests, period, period, TimeUnit.MILLISECONDS);
     }
 
     public void shutdown() {
-        backendChannels.values().forEach(ch -> {
-            try {
-                ch.close().sync();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        backendLinks.values().forEach(BackendLink::close);
+        backendLinks.clear();
         workerGroup.shutdownGracefully();
     }
 
+    public GatewayBackendProperties getBackendProperties() {
+        return backendProperties;
+    }
+
     /**
-     * 转发请求到后端游戏服
+     * 转发请求到后端游戏服，packet 的引用由本方法接管
      *
      * @param zoneId       区服ID
      * @param packet       内部协议包（已包含 sessionId）
@@ -67,28 +77,26 @@ public class BackendConnectionManager {
      */
     public CompletableFuture<Void> forward(String zoneId, GatewayPacket packet, Channel frontChannel) {
         Objects.requireNonNull(zoneId, "zoneId");
-        Channel backend = backendChannels.computeIfAbsent(zoneId, this::connect);
-        if (backend == null || !backend.isActive()) {
+        // 只创建连接对象，建连异步进行，连上之前的请求在连接内排队
+        BackendLink backend = backendLinks.computeIfAbsent(zoneId, this::createLink);
+        if (backend == null) {
+            packet.release();
             return CompletableFuture.failedFuture(new IllegalStateException("backend not available for zone " + zoneId));
         }
 
-        // 用 sessionId:seq 作为 key，确保不同连接的请求不会冲突
-        String pendingKey = packet.getPendingKey();
-        pendingRequests.put(pendingKey, frontChannel);
-
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        backend.writeAndFlush(packet).addListener(f -> {
-            if (f.isSuccess()) {
-                future.complete(null);
-            } else {
-                future.completeExceptionally(f.cause());
-                pendingRequests.remove(pendingKey);
+        // 用 sessionId + seq 作为 key，确保不同连接的请求不会冲突
+        int sessionId = packet.getSessionId();
+        int seq = packet.getSeq();
+        pendingRequests.put(sessionId, seq, frontChannel);
+
+        return backend.write(packet).whenComplete((v, ex) -> {
+            if (ex != null) {
+                pendingRequests.remove(sessionId, seq);
             }
         });
-        return future;
     }
 
-    private Channel connect(String zoneId) {
+    private BackendLink createLink(String zoneId) {
         String target = backendProperties.getZones().get(zoneId);
         if (!StringUtils.hasText(target)) {
             log.error("zone {} target not configured", zoneId);
@@ -100,64 +108,82 @@ public class BackendConnectionManager {
             return null;
         }
         String host = hp[0];
-        int port = Integer.parseInt(hp[1]);
+        int port;
+        try {
+            port = Integer.parseInt(hp[1]);
+        } catch (NumberFormatException e) {
+            log.error("invalid backend port for zone {}: {}", zoneId, target);
+            return null;
+        }
 
         Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(workerGroup)
             .channel(NioSocketChannel.class)
             .option(ChannelOption.SO_KEEPALIVE, true)
             .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, backendProperties.getConnectTimeoutMillis())
             .handler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 protected void initChannel(SocketChannel ch) {
+                    if (instrumentation != null) {
+                        ch.pipeline().addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+                    }
                     // 后端连接使用内部协议（有 sessionId）
-                    ch.pipeline().addLast(new GatewayDecoder(false));
+                    ch.pipeline().addLast(new GatewayDecoder(false, backendProperties.isZeroCopyForward()));
                     ch.pipeline().addLast(new GatewayEncoder(false));
+                    if (instrumentation != null) {
+                        ch.pipeline().addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+                    }
                     ch.pipeline().addLast(new GatewayBackendHandler(BackendConnectionManager.this, zoneId));
                 }
             });
-        try {
-            ChannelFuture cf = bootstrap.connect(new InetSocketAddress(host, port)).sync();
-            log.info("Connected backend zone {} -> {}:{}", zoneId, host, port);
-            return cf.channel();
-        } catch (Exception e) {
-            log.error("Connect backend failed zone {} target {}", zoneId, target, e);
-            return null;
-        }
+        BackendLink link = new BackendLink("zone-" + zoneId, bootstrap, InetSocketAddress.createUnresolved(host, port),
+            backendProperties.getMaxQueuedWrites(),
+            backendProperties.getReconnectInitialDelayMillis(),
+            backendProperties.getReconnectMaxDelayMillis());
+        link.connect();
+        return link;
     }
 
     /**
      * 处理后端游戏服的响应，路由回对应的前端连接
      */
     void handleResponse(String zoneId, GatewayPacket packet) {
-        String pendingKey = packet.getPendingKey();
-        Channel front = pendingRequests.remove(pendingKey);
+        Channel front = pendingRequests.remove(packet.getSessionId(), packet.getSeq());
         if (front == null || !front.isActive()) {
-            log.warn("Front channel missing/closed for pendingKey {} zone {}", pendingKey, zoneId);
+            log.warn("Front channel missing/closed for session {} seq {} zone {}",
+                packet.getSessionId(), packet.getSeq(), zoneId);
             return;
         }
         // 回给客户端时，转换为客户端协议（不含 sessionId）
-        // 注意：这里直接写 packet，由 GatewayEncoder(forFrontend=true) 处理
-        front.writeAndFlush(packet);
+        // 注意：这里直接写 packet，由 GatewayEncoder(forFrontend=true) 处理；
+        // 入站处理器返回后会释放 packet，写出前需要再持有一次
+        front.writeAndFlush(packet.retain());
     }
 
     /**
      * 清理指定 sessionId 相关的所有 pending 请求（连接断开时调用）
      */
     public void cleanupSession(int sessionId) {
-        String prefix = sessionId + ":";
-        Iterator<Map.Entry<String, Channel>> it = pendingRequests.entrySet().iterator();
-        int count = 0;
-        while (it.hasNext()) {
-            Map.Entry<String, Channel> entry = it.next();
-            if (entry.getKey().startsWith(prefix)) {
-                it.remove();
-                count++;
-            }
-        }
+        int count = pendingRequests.removeSession(sessionId);
         if (count > 0) {
             log.info("Cleaned up {} pending requests for sessionId {}", count, sessionId);
         }
     }
+
+    /**
+     * 当前 pending 请求数
+     */
+    public int pendingCount() {
+        return pendingRequests.size();
+    }
+
+    private void expirePendingRequests() {
+        int expired = pendingRequests.expire((sessionId, seq, front) ->
+            log.debug("Pending request expired, session {} seq {}", sessionId, seq));
+        if (expired > 0) {
+            log.warn("Expired {} pending requests without backend response", expired);
+        }
+    }
 }
 
@@ -0,0 +1,316 @@
+package org.markeb.net.gateway.backend;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 到单个后端地址的异步连接
+ * <p>
+ * 建连完全异步，调用线程（通常是前端 EventLoop）不会被 {@code connect().sync()} 阻塞：
+ * <ul>
+ *   <li>连接建立期间的写入进入有界队列，连上后按顺序写出；队列满时立即失败</li>
+ *   <li>建连失败时队列中的写入全部立即失败，随后按指数退避自动重连，退避期间的写入直接失败</li>
+ *   <li>已建立的连接断开后同样按退避策略自动重连，直到调用 {@link #close()}</li>
+ * </ul>
+ * 已连接时写入只读一次 volatile 字段，不加锁。
+ * </p>
+ */
+public class BackendLink {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendLink.class);
+
+    public enum State {
+        /**
+         * 尚未发起连接
+         */
+        IDLE,
+        /**
+         * 连接中，写入进入队列
+         */
+        CONNECTING,
+        /**
+         * 已连接
+         */
+        CONNECTED,
+        /**
+         * 连接失败，等待重连，写入直接失败
+         */
+        BACKOFF,
+        /**
+         * 已关闭
+         */
+        CLOSED
+    }
+
+    private final String name;
+    private final Bootstrap bootstrap;
+    private final SocketAddress remoteAddress;
+    private final int maxQueuedWrites;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<QueuedWrite> queue = new ArrayDeque<>();
+
+    /**
+     * 以下字段只在持有 lock 时修改
+     */
+    private State state = State.IDLE;
+    private long backoffMillis;
+
+    /**
+     * 已连接且排队写入已全部写出时才设置，写入快路径只读这个字段
+     */
+    private volatile Channel channel;
+
+    /**
+     * @param name                 连接名称，用于日志
+     * @param bootstrap            已配置好 group/channel/handler 的 Bootstrap
+     * @param remoteAddress        后端地址
+     * @param maxQueuedWrites      连接建立期间最多排队的写入数
+     * @param initialBackoffMillis 首次重连延迟（毫秒）
+     * @param maxBackoffMillis     最大重连延迟（毫秒）
+     */
+    public BackendLink(String name, Bootstrap bootstrap, SocketAddress remoteAddress,
+                       int maxQueuedWrites, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxQueuedWrites < 0) {
+            throw new IllegalArgumentException("maxQueuedWrites must not be negative: " + maxQueuedWrites);
+        }
+        if (initialBackoffMillis <= 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("invalid backoff: " + initialBackoffMillis + "~" + maxBackoffMillis);
+        }
+        this.name = name;
+        this.bootstrap = bootstrap;
+        this.remoteAddress = remoteAddress;
+        this.maxQueuedWrites = maxQueuedWrites;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.backoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * 发起连接（非阻塞），已在连接中或已连接时忽略
+     */
+    public void connect() {
+        synchronized (lock) {
+            if (state == State.IDLE) {
+                doConnect();
+            }
+        }
+    }
+
+    /**
+     * 写入并刷新
+     *
+     * @return 写出完成时完成；连接不可用、队列已满或建连失败时异常完成
+     */
+    public CompletableFuture<Void> write(Object msg) {
+        Channel ch = channel;
+        if (ch != null) {
+            return writeNow(ch, msg);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (lock) {
+            ch = channel;
+            if (ch == null) {
+                switch (state) {
+                    case IDLE -> {
+                        // 先入队再建连，建连同步失败（如注册失败）时这条写入随队列一起失败
+                        enqueue(msg, future);
+                        doConnect();
+                    }
+                    case CONNECTING -> enqueue(msg, future);
+                    case BACKOFF -> fail(msg, future, new IllegalStateException("backend " + name + " unavailable, reconnecting"));
+                    case CLOSED -> fail(msg, future, new IllegalStateException("backend " + name + " closed"));
+                    // 连接刚断开、尚未进入退避
+                    case CONNECTED -> fail(msg, future, new IllegalStateException("backend " + name + " disconnected"));
+                }
+                return future;
+            }
+        }
+        return writeNow(ch, msg);
+    }
+
+    public State state() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    public boolean isConnected() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    public boolean isConnecting() {
+        synchronized (lock) {
+            return state == State.CONNECTING;
+        }
+    }
+
+    /**
+     * 当前连接，未连接时返回 null
+     */
+    public Channel channel() {
+        return channel;
+    }
+
+    /**
+     * 连接建立期间排队的写入数
+     */
+    public int queuedWrites() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * 关闭连接，不再重连，排队中的写入立即失败
+     */
+    public void close() {
+        Channel ch;
+        synchronized (lock) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+            ch = channel;
+            channel = null;
+            failQueued(new IllegalStateException("backend " + name + " closed"));
+        }
+        if (ch != null) {
+            ch.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // ============ 内部实现 ============
+
+    private CompletableFuture<Void> writeNow(Channel ch, Object msg) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ch.writeAndFlush(msg).addListener(f -> {
+            if (f.isSuccess()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(f.cause());
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(Object msg, CompletableFuture<Void> future) {
+        if (queue.size() >= maxQueuedWrites) {
+            fail(msg, future, new IllegalStateException("backend " + name + " write queue full"));
+            return;
+        }
+        queue.add(new QueuedWrite(msg, future));
+    }
+
+    private static void fail(Object msg, CompletableFuture<Void> future, Throwable cause) {
+        ReferenceCountUtil.release(msg);
+        future.completeExceptionally(cause);
+    }
+
+    private void failQueued(Throwable cause) {
+        QueuedWrite write;
+        while ((write = queue.poll()) != null) {
+            fail(write.msg, write.future, cause);
+        }
+    }
+
+    /**
+     * 调用方持有 lock
+     */
+    private void doConnect() {
+        state = State.CONNECTING;
+        ChannelFuture cf = bootstrap.connect(remoteAddress);
+        cf.addListener(f -> onConnectComplete(cf));
+    }
+
+    private void onConnectComplete(ChannelFuture cf) {
+        Channel ch = cf.channel();
+        synchronized (lock) {
+            if (!cf.isSuccess()) {
+                // 注册失败时 channel 没有 EventLoop，不能再访问
+                if (state == State.CLOSED) {
+                    return;
+                }
+                log.warn("Connect backend {} ({}) failed, retry in {}ms: {}",
+                        name, remoteAddress, backoffMillis, String.valueOf(cf.cause()));
+                failQueued(new IllegalStateException("connect backend " + name + " failed", cf.cause()));
+                scheduleReconnect();
+                return;
+            }
+            if (state == State.CLOSED) {
+                ch.close();
+                return;
+            }
+
+            // 在 EventLoop 内按顺序写出排队的请求，之后才开放快路径
+            QueuedWrite write;
+            while ((write = queue.poll()) != null) {
+                CompletableFuture<Void> future = write.future;
+                ch.write(write.msg).addListener(wf -> {
+                    if (wf.isSuccess()) {
+                        future.complete(null);
+                    } else {
+                        future.completeExceptionally(wf.cause());
+                    }
+                });
+            }
+            ch.flush();
+            state = State.CONNECTED;
+            backoffMillis = initialBackoffMillis;
+            channel = ch;
+        }
+        log.info("Connected backend {} -> {}", name, remoteAddress);
+        ch.closeFuture().addListener(f -> onDisconnected(ch));
+    }
+
+    private void onDisconnected(Channel ch) {
+        synchronized (lock) {
+            if (channel != ch || state == State.CLOSED) {
+                return;
+            }
+            channel = null;
+            log.info("Backend {} disconnected, reconnect in {}ms", name, backoffMillis);
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * 调用方持有 lock
+     * <p>
+     * 重连定时任务挂在 Bootstrap 的 group 上，不依赖失败连接的 channel 是否已注册。
+     * </p>
+     */
+    private void scheduleReconnect() {
+        state = State.BACKOFF;
+        long delay = backoffMillis;
+        backoffMillis = Math.min(maxBackoffMillis, backoffMillis * 2);
+        bootstrap.config().group().schedule(() -> {
+            synchronized (lock) {
+                if (state == State.BACKOFF) {
+                    doConnect();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private record QueuedWrite(Object msg, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,290 @@
+package org.markeb.net.gateway.backend;
+
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.LongObjectHashMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关 pending 请求表
+ * <p>
+ * 以 {@code (sessionId << 32) | seq} 打包成的 long 作为 key，请求和响应路径都不再拼接字符串。
+ * 内部按 sessionId 分段加锁，同一会话的所有请求落在同一分段内，并串成一条会话链表：
+ * <ul>
+ *   <li>put / remove：分段内原始类型哈希表，O(1)</li>
+ *   <li>removeSession：沿会话链表删除，O(该会话的请求数)，不再扫描整张表</li>
+ *   <li>expire：超时时间固定，分段内按插入顺序即截止时间顺序，从最老的开始摘除，O(过期数)</li>
+ * </ul>
+ * </p>
+ *
+ * @param <V> 请求关联的值（如前端连接、会话）
+ */
+public class PendingRequestTable<V> {
+
+    /**
+     * 过期回调
+     */
+    @FunctionalInterface
+    public interface ExpiryListener<V> {
+
+        /**
+         * 请求超时未收到响应
+         *
+         * @param sessionId 会话ID
+         * @param seq       请求序号
+         * @param value     请求关联的值
+         */
+        void onExpired(int sessionId, int seq, V value);
+    }
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final long timeoutNanos;
+    private final Stripe<V>[] stripes;
+    private final int stripeMask;
+
+    public PendingRequestTable(long timeout, TimeUnit unit) {
+        this(timeout, unit, DEFAULT_STRIPES);
+    }
+
+    @SuppressWarnings("unchecked")
+    public PendingRequestTable(long timeout, TimeUnit unit, int stripeCount) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        }
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two: " + stripeCount);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * 打包 pending key
+     */
+    public static long key(int sessionId, int seq) {
+        return ((long) sessionId << 32) | (seq & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 登记 pending 请求；同一会话同一序号的旧请求会被替换
+     */
+    public void put(int sessionId, int seq, V value) {
+        long key = key(sessionId, seq);
+        Entry<V> entry = new Entry<>(key, sessionId, seq, value, System.nanoTime() + timeoutNanos);
+        Stripe<V> stripe = stripe(sessionId);
+        synchronized (stripe) {
+            Entry<V> old = stripe.byKey.put(key, entry);
+            if (old != null) {
+                stripe.unlink(old);
+            }
+            stripe.link(entry);
+        }
+    }
+
+    /**
+     * 移除并返回 pending 请求
+     *
+     * @return 请求关联的值，不存在（已响应、已过期或会话已清理）返回 null
+     */
+    public V remove(int sessionId, int seq) {
+        long key = key(sessionId, seq);
+        Stripe<V> stripe = stripe(sessionId);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.byKey.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            stripe.unlink(entry);
+            return entry.value;
+        }
+    }
+
+    /**
+     * 清理会话的所有 pending 请求（连接断开时调用）
+     *
+     * @return 清理的请求数
+     */
+    public int removeSession(int sessionId) {
+        Stripe<V> stripe = stripe(sessionId);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.sessionHeads.remove(sessionId);
+            int count = 0;
+            while (entry != null) {
+                Entry<V> next = entry.sessionNext;
+                stripe.byKey.remove(entry.key);
+                stripe.unlinkTime(entry);
+                entry.sessionPrev = entry.sessionNext = null;
+                entry = next;
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 摘除所有已超时的请求
+     *
+     * @param listener 过期回调，在锁外调用，可为 null
+     * @return 过期的请求数
+     */
+    public int expire(ExpiryListener<? super V> listener) {
+        long now = System.nanoTime();
+        int total = 0;
+        for (Stripe<V> stripe : stripes) {
+            Entry<V> expired = null;
+            Entry<V> expiredTail = null;
+            synchronized (stripe) {
+                Entry<V> entry = stripe.oldest;
+                while (entry != null && now - entry.deadline >= 0) {
+                    Entry<V> next = entry.timeNext;
+                    stripe.byKey.remove(entry.key);
+                    stripe.unlink(entry);
+                    // 复用 timeNext 按截止时间顺序串起过期链表，出锁后回调
+                    if (expiredTail == null) {
+                        expired = entry;
+                    } else {
+                        expiredTail.timeNext = entry;
+                    }
+                    expiredTail = entry;
+                    entry = next;
+                }
+            }
+            while (expired != null) {
+                total++;
+                if (listener != null) {
+                    listener.onExpired(expired.sessionId, expired.seq, expired.value);
+                }
+                expired = expired.timeNext;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 当前 pending 请求总数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.byKey.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 清空所有请求
+     */
+    public void clear() {
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.byKey.clear();
+                stripe.sessionHeads.clear();
+                stripe.oldest = stripe.newest = null;
+            }
+        }
+    }
+
+    private Stripe<V> stripe(int sessionId) {
+        int h = sessionId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    private static final class Entry<V> {
+        final long key;
+        final int sessionId;
+        final int seq;
+        final V value;
+        final long deadline;
+
+        /**
+         * 分段内按截止时间排序的双向链表
+         */
+        Entry<V> timePrev;
+        Entry<V> timeNext;
+
+        /**
+         * 同一会话的双向链表
+         */
+        Entry<V> sessionPrev;
+        Entry<V> sessionNext;
+
+        Entry(long key, int sessionId, int seq, V value, long deadline) {
+            this.key = key;
+            this.sessionId = sessionId;
+            this.seq = seq;
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 分段，所有字段只在持有该分段锁时访问
+     */
+    private static final class Stripe<V> {
+        final LongObjectHashMap<Entry<V>> byKey = new LongObjectHashMap<>();
+        final IntObjectHashMap<Entry<V>> sessionHeads = new IntObjectHashMap<>();
+        Entry<V> oldest;
+        Entry<V> newest;
+
+        void link(Entry<V> entry) {
+            // 时间链表尾部
+            entry.timePrev = newest;
+            if (newest == null) {
+                oldest = entry;
+            } else {
+                newest.timeNext = entry;
+            }
+            newest = entry;
+
+            // 会话链表头部
+            Entry<V> head = sessionHeads.put(entry.sessionId, entry);
+            entry.sessionNext = head;
+            if (head != null) {
+                head.sessionPrev = entry;
+            }
+        }
+
+        void unlink(Entry<V> entry) {
+            unlinkTime(entry);
+
+            Entry<V> prev = entry.sessionPrev;
+            Entry<V> next = entry.sessionNext;
+            if (prev == null) {
+                if (next == null) {
+                    sessionHeads.remove(entry.sessionId);
+                } else {
+                    sessionHeads.put(entry.sessionId, next);
+                }
+            } else {
+                prev.sessionNext = next;
+            }
+            if (next != null) {
+                next.sessionPrev = prev;
+            }
+            entry.sessionPrev = entry.sessionNext = null;
+        }
+
+        void unlinkTime(Entry<V> entry) {
+            Entry<V> prev = entry.timePrev;
+            Entry<V> next = entry.timeNext;
+            if (prev == null) {
+                oldest = next;
+            } else {
+                prev.timeNext = next;
+            }
+            if (next == null) {
+                newest = prev;
+            } else {
+                next.timePrev = prev;
+            }
+            entry.timePrev = entry.timeNext = null;
+        }
+    }
+}
@@ -14,12 +14,16 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
  * 通过 forFrontend 参数区分：
  * - forFrontend=true: 解析客户端协议（无 sessionId），sessionId 由外部填充
  * - forFrontend=false: 解析内部协议（有 sessionId）
+ * <p>
+ * zeroCopy=true 时只解析协议头，消息体以接收缓冲区切片的形式交给 {@link GatewayPacket}（见其引用计数说明），
+ * 用于网关只改写协议头、不关心消息体的转发场景。
  */
 public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
 
     private static final int MAX_FRAME_LENGTH = 1024 * 1024;
 
     private final boolean forFrontend;
+    private final boolean zeroCopy;
 
     /**
      * 默认用于前端连接（客户端协议）
@@ -32,12 +36,21 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
      * @param forFrontend true=解析客户端协议（无sessionId），false=解析内部协议（有sessionId）
      */
     public GatewayDecoder(boolean forFrontend) {
+        this(forFrontend, false);
+    }
+
+    /**
+     * @param forFrontend true=解析客户端协议（无sessionId），false=解析内部协议（有sessionId）
+     * @param zeroCopy    true=消息体不复制，直接持有缓冲区切片
+     */
+    public GatewayDecoder(boolean forFrontend, boolean zeroCopy) {
         super(MAX_FRAME_LENGTH,
             0,      // lengthFieldOffset
             4,      // lengthFieldLength
             0,      // lengthAdjustment
             4);     // initialBytesToStrip (strip length field)
         this.forFrontend = forFrontend;
+        this.zeroCopy = zeroCopy;
     }
 
     @Override
@@ -46,6 +59,7 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
         if (frame == null) {
             return null;
         }
+        boolean release = true;
         try {
             int sessionId;
             if (forFrontend) {
@@ -57,11 +71,18 @@ public class GatewayDecoder extends LengthFieldBasedFrameDecoder {
             }
             int msgId = frame.readInt();
             int seq = frame.readInt();
+            if (zeroCopy) {
+                // frame 本身就是累积缓冲区的切片，读索引已指向消息体，直接交给 GatewayPacket 持有
+                release = false;
+                return new GatewayPacket(sessionId, msgId, seq, frame);
+            }
             byte[] body = new byte[frame.readableBytes()];
             frame.readBytes(body);
             return new GatewayPacket(sessionId, msgId, seq, body);
         } finally {
-            frame.release();
+            if (release) {
+                frame.release();
+            }
         }
     }
 }
@@ -2,8 +2,11 @@ package org.markeb.net.gateway.codec;
 
 import org.markeb.net.gateway.GatewayPacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
 
 /**
  * 网关协议编码器。
@@ -14,8 +17,11 @@ import io.netty.handler.codec.MessageToByteEncoder;
  * 通过 forFrontend 参数区分：
  * - forFrontend=true: 编码客户端协议（不写 sessionId）
  * - forFrontend=false: 编码内部协议（写 sessionId）
+ * <p>
+ * 零拷贝模式的包（{@link GatewayPacket#content()} 不为 null）只分配一个协议头缓冲区，
+ * 与消息体缓冲区组合成 {@link CompositeByteBuf} 写出，消息体不复制；普通模式按原方式写入一个缓冲区。
  */
-public class GatewayEncoder extends MessageToByteEncoder<GatewayPacket> {
+public class GatewayEncoder extends MessageToMessageEncoder<GatewayPacket> {
 
     private final boolean forFrontend;
 
@@ -34,10 +40,34 @@ public class GatewayEncoder extends MessageToByteEncoder<GatewayPacket> {
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, GatewayPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLen = body == null ? 0 : body.length;
+    protected void encode(ChannelHandlerContext ctx, GatewayPacket packet, List<Object> out) {
+        int headerLen = forFrontend ? 12 : 16;
+        int bodyLen = packet.bodyLength();
+        ByteBuf content = packet.content();
+
+        if (content == null) {
+            ByteBuf buf = ctx.alloc().ioBuffer(headerLen + bodyLen);
+            writeHeader(buf, packet, bodyLen);
+            if (bodyLen > 0) {
+                buf.writeBytes(packet.getBody());
+            }
+            out.add(buf);
+            return;
+        }
+
+        ByteBuf header = ctx.alloc().ioBuffer(headerLen);
+        writeHeader(header, packet, bodyLen);
+        if (bodyLen == 0) {
+            out.add(header);
+            return;
+        }
+        // 编码完成后 packet 会被释放，组合缓冲区需要自己持有一份消息体引用
+        CompositeByteBuf frame = ctx.alloc().compositeBuffer(2);
+        frame.addComponents(true, header, content.retain());
+        out.add(frame);
+    }
 
+    private void writeHeader(ByteBuf out, GatewayPacket packet, int bodyLen) {
         if (forFrontend) {
             // 客户端协议：length + msgId + seq + body
             out.writeInt(8 + bodyLen);
@@ -50,10 +80,5 @@ public class GatewayEncoder extends MessageToByteEncoder<GatewayPacket> {
             out.writeInt(packet.getMsgId());
             out.writeInt(packet.getSeq());
         }
-
-        if (bodyLen > 0) {
-            out.writeBytes(body);
-        }
     }
 }
-
@@ -2,7 +2,9 @@ package org.markeb.net.gateway.config;
 
 import org.markeb.net.gateway.backend.BackendConnectionManager;
 import org.markeb.net.gateway.handler.GatewayChannelInitializer;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import org.markeb.net.netty.NettyProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -18,15 +20,17 @@ import org.springframework.context.annotation.Configuration;
 public class GatewayAutoConfiguration {
 
     @Bean(destroyMethod = "shutdown")
-    public BackendConnectionManager backendConnectionManager(GatewayBackendProperties props) {
-        return new BackendConnectionManager(props);
+    public BackendConnectionManager backendConnectionManager(GatewayBackendProperties props,
+                                                             ObjectProvider<NetworkInstrumentation> instrumentation) {
+        return new BackendConnectionManager(props, instrumentation.getIfAvailable());
     }
 
     @Bean
     @ConditionalOnMissingBean(GatewayChannelInitializer.class)
     public GatewayChannelInitializer gatewayChannelInitializer(BackendConnectionManager manager,
-                                                                NettyProperties nettyProperties) {
-        return new GatewayChannelInitializer(manager, nettyProperties);
+                                                                NettyProperties nettyProperties,
+                                                                ObjectProvider<NetworkInstrumentation> instrumentation) {
+        return new GatewayChannelInitializer(manager, nettyProperties, instrumentation.getIfAvailable());
     }
 }
 
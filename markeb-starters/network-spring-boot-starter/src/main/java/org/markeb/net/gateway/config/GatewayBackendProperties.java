@@ -18,6 +18,36 @@ public class GatewayBackendProperties {
         put("zone1", "127.0.0.1:9000");
     }};
 
+    /**
+     * pending 请求超时时间（毫秒），后端超过该时间未响应则丢弃
+     */
+    private long pendingTimeoutMillis = 30_000;
+
+    /**
+     * 建连超时（毫秒）
+     */
+    private int connectTimeoutMillis = 5_000;
+
+    /**
+     * 连接建立期间最多排队的请求数，超过后新请求立即失败
+     */
+    private int maxQueuedWrites = 1024;
+
+    /**
+     * 首次重连延迟（毫秒），之后每次失败翻倍
+     */
+    private long reconnectInitialDelayMillis = 200;
+
+    /**
+     * 最大重连延迟（毫秒）
+     */
+    private long reconnectMaxDelayMillis = 30_000;
+
+    /**
+     * 零拷贝转发：只解析和改写协议头，消息体不复制
+     */
+    private boolean zeroCopyForward = true;
+
     public Map<String, String> getZones() {
         return zones;
     }
@@ -25,5 +55,52 @@ public class GatewayBackendProperties {
     public void setZones(Map<String, String> zones) {
         this.zones = zones;
     }
-}
 
+    public long getPendingTimeoutMillis() {
+        return pendingTimeoutMillis;
+    }
+
+    public void setPendingTimeoutMillis(long pendingTimeoutMillis) {
+        this.pendingTimeoutMillis = pendingTimeoutMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getMaxQueuedWrites() {
+        return maxQueuedWrites;
+    }
+
+    public void setMaxQueuedWrites(int maxQueuedWrites) {
+        this.maxQueuedWrites = maxQueuedWrites;
+    }
+
+    public long getReconnectInitialDelayMillis() {
+        return reconnectInitialDelayMillis;
+    }
+
+    public void setReconnectInitialDelayMillis(long reconnectInitialDelayMillis) {
+        this.reconnectInitialDelayMillis = reconnectInitialDelayMillis;
+    }
+
+    public long getReconnectMaxDelayMillis() {
+        return reconnectMaxDelayMillis;
+    }
+
+    public void setReconnectMaxDelayMillis(long reconnectMaxDelayMillis) {
+        this.reconnectMaxDelayMillis = reconnectMaxDelayMillis;
+    }
+
+    public boolean isZeroCopyForward() {
+        return zeroCopyForward;
+    }
+
+    public void setZeroCopyForward(boolean zeroCopyForward) {
+        this.zeroCopyForward = zeroCopyForward;
+    }
+}
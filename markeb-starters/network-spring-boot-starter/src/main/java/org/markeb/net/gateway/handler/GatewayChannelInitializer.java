@@ -3,10 +3,11 @@ package org.markeb.net.gateway.handler;
 import org.markeb.net.gateway.backend.BackendConnectionManager;
 import org.markeb.net.gateway.codec.GatewayDecoder;
 import org.markeb.net.gateway.codec.GatewayEncoder;
+import org.markeb.net.idle.SharedIdleStateHandler;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import org.markeb.net.netty.NettyProperties;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
 
@@ -17,21 +18,34 @@ public class GatewayChannelInitializer extends ChannelInitializer<SocketChannel>
 
     private final BackendConnectionManager connectionManager;
     private final NettyProperties properties;
+    private final NetworkInstrumentation instrumentation;
 
     public GatewayChannelInitializer(BackendConnectionManager connectionManager, NettyProperties properties) {
+        this(connectionManager, properties, null);
+    }
+
+    public GatewayChannelInitializer(BackendConnectionManager connectionManager, NettyProperties properties,
+                                     NetworkInstrumentation instrumentation) {
         this.connectionManager = connectionManager;
         this.properties = properties;
+        this.instrumentation = instrumentation;
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
+        if (instrumentation != null) {
+            ch.pipeline().addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+        }
         ch.pipeline().addLast("idleStateHandler",
-            new IdleStateHandler(properties.getReaderIdleTime(),
+            new SharedIdleStateHandler(properties.getReaderIdleTime(),
                 properties.getWriterIdleTime(),
                 properties.getAllIdleTime(),
                 TimeUnit.SECONDS));
-        ch.pipeline().addLast(new GatewayDecoder());
+        ch.pipeline().addLast(new GatewayDecoder(true, connectionManager.getBackendProperties().isZeroCopyForward()));
         ch.pipeline().addLast(new GatewayEncoder());
+        if (instrumentation != null) {
+            ch.pipeline().addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+        }
         ch.pipeline().addLast(new GatewayDispatchHandler(connectionManager));
     }
 
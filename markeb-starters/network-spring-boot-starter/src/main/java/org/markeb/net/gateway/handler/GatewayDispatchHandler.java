@@ -59,8 +59,8 @@ public class GatewayDispatchHandler extends SimpleChannelInboundHandler<GatewayP
             return;
         }
 
-        // 将客户端协议包转换为内部协议包（填充 sessionId）
-        GatewayPacket internalPacket = new GatewayPacket(sessionId, msg.getMsgId(), msg.getSeq(), msg.getBody());
+        // 将客户端协议包转换为内部协议包（只改写 sessionId，消息体共享）
+        GatewayPacket internalPacket = msg.retainedWithSessionId(sessionId);
 
         connectionManager.forward(zoneId, internalPacket, channel)
             .exceptionally(ex -> {
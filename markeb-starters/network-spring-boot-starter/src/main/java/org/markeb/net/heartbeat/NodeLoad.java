@@ -0,0 +1,108 @@
+package org.markeb.net.heartbeat;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * 节点负载快照
+ * <p>
+ * 由节点附带在心跳响应中上报给网关，供网关按负载选择节点。
+ * 编码为固定 16 字节，追加在心跳响应体 serverTime + clientTime 之后，
+ * 不认识负载字段的旧网关只读取前 16 字节，不受影响。
+ * </p>
+ * <p>
+ * 节点同时把负载写入注册中心的实例元数据，供不与节点保持心跳的服务（如匹配服务）按负载选择节点。
+ * </p>
+ *
+ * @param onlineActors   在线 Actor 数
+ * @param mailboxBacklog 所有 Actor 邮箱中待处理的消息总数
+ * @param lagMillis      调度延迟（毫秒），反映 GC 停顿和线程饱和
+ * @param cpuPermille    进程 CPU 使用率（千分比，0~1000），未知时为 -1
+ */
+public record NodeLoad(int onlineActors, int mailboxBacklog, int lagMillis, int cpuPermille) {
+
+    /**
+     * 编码长度（字节）
+     */
+    public static final int ENCODED_LENGTH = 16;
+
+    public static final NodeLoad EMPTY = new NodeLoad(0, 0, 0, -1);
+
+    private static final String META_ACTORS = "load.actors";
+    private static final String META_BACKLOG = "load.backlog";
+    private static final String META_LAG = "load.lag";
+    private static final String META_CPU = "load.cpu";
+
+    private static final double LAG_MILLIS_PER_UNIT = 50.0;
+    private static final double BACKLOG_PER_UNIT = 1000.0;
+    private static final double ACTORS_PER_UNIT = 10_000.0;
+
+    /**
+     * 负载分数，越小越空闲，大致以"一个满载 CPU"为 1：
+     * CPU 千分比 / 1000，调度延迟每 50ms 记 1，邮箱积压每 1000 条记 1，在线 Actor 每 10000 个记 1
+     */
+    public double score() {
+        double cpu = cpuPermille >= 0 ? cpuPermille / 1000.0 : 0;
+        return cpu
+                + lagMillis / LAG_MILLIS_PER_UNIT
+                + mailboxBacklog / BACKLOG_PER_UNIT
+                + onlineActors / ACTORS_PER_UNIT;
+    }
+
+    /**
+     * 单个在线 Actor 对应的分数，用于估算两次上报之间新分配的负载
+     */
+    public static double actorScore() {
+        return 1 / ACTORS_PER_UNIT;
+    }
+
+    /**
+     * 编码为注册中心实例元数据
+     */
+    public Map<String, String> toMetadata() {
+        return Map.of(
+                META_ACTORS, String.valueOf(onlineActors),
+                META_BACKLOG, String.valueOf(mailboxBacklog),
+                META_LAG, String.valueOf(lagMillis),
+                META_CPU, String.valueOf(cpuPermille));
+    }
+
+    /**
+     * 从注册中心实例元数据解码
+     *
+     * @return 负载，元数据中没有负载字段或格式错误时返回 null
+     */
+    public static NodeLoad fromMetadata(Map<String, String> metadata) {
+        if (metadata == null || !metadata.containsKey(META_ACTORS)) {
+            return null;
+        }
+        try {
+            return new NodeLoad(
+                    Integer.parseInt(metadata.get(META_ACTORS)),
+                    Integer.parseInt(metadata.getOrDefault(META_BACKLOG, "0")),
+                    Integer.parseInt(metadata.getOrDefault(META_LAG, "0")),
+                    Integer.parseInt(metadata.getOrDefault(META_CPU, "-1")));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(onlineActors);
+        buffer.putInt(mailboxBacklog);
+        buffer.putInt(lagMillis);
+        buffer.putInt(cpuPermille);
+    }
+
+    /**
+     * 从缓冲区当前位置解码
+     *
+     * @return 负载，剩余字节不足时返回 null
+     */
+    public static NodeLoad decode(ByteBuffer buffer) {
+        if (buffer.remaining() < ENCODED_LENGTH) {
+            return null;
+        }
+        return new NodeLoad(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+}
@@ -0,0 +1,14 @@
+package org.markeb.net.heartbeat;
+
+/**
+ * 节点负载提供者
+ * <p>
+ * 节点注册该 Bean 后，心跳响应会附带当前负载。
+ * 每次心跳响应都会调用，实现应返回预先采样好的快照，不要在调用时做耗时统计。
+ * </p>
+ */
+@FunctionalInterface
+public interface NodeLoadProvider {
+
+    NodeLoad currentLoad();
+}
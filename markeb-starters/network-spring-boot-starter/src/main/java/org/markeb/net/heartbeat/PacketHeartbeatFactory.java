@@ -18,8 +18,9 @@ import java.nio.ByteBuffer;
  * 心跳协议格式：
  * <ul>
  *   <li>请求体：clientTime (8 bytes)</li>
- *   <li>响应体：serverTime (8 bytes) + clientTime (8 bytes)</li>
+ *   <li>响应体：serverTime (8 bytes) + clientTime (8 bytes) [+ {@link NodeLoad} (16 bytes)]</li>
  * </ul>
+ * 配置了 {@link NodeLoadProvider} 时响应体追加节点负载。
  * </p>
  */
 public class PacketHeartbeatFactory implements HeartbeatMessageFactory {
@@ -32,13 +33,23 @@ public class PacketHeartbeatFactory implements HeartbeatMessageFactory {
     public static final int INTERNAL_HEARTBEAT_RESPONSE_ID = 1;
 
     private final ProtocolType protocolType;
+    private final NodeLoadProvider loadProvider;
 
     public PacketHeartbeatFactory() {
         this(ProtocolType.GATEWAY);
     }
 
     public PacketHeartbeatFactory(ProtocolType protocolType) {
+        this(protocolType, null);
+    }
+
+    /**
+     * @param protocolType 协议类型
+     * @param loadProvider 节点负载提供者，为 null 时响应不附带负载
+     */
+    public PacketHeartbeatFactory(ProtocolType protocolType, NodeLoadProvider loadProvider) {
         this.protocolType = protocolType;
+        this.loadProvider = loadProvider;
     }
 
     @Override
@@ -68,11 +79,15 @@ public class PacketHeartbeatFactory implements HeartbeatMessageFactory {
             clientTime = bytesToLong(requestBody);
         }
 
-        // 响应体：serverTime (8 bytes) + clientTime (8 bytes)
-        byte[] body = new byte[16];
+        // 响应体：serverTime (8 bytes) + clientTime (8 bytes) [+ 节点负载 (16 bytes)]
+        NodeLoad load = loadProvider != null ? loadProvider.currentLoad() : null;
+        byte[] body = new byte[load != null ? 16 + NodeLoad.ENCODED_LENGTH : 16];
         ByteBuffer buffer = ByteBuffer.wrap(body);
         buffer.putLong(serverTime);
         buffer.putLong(clientTime);
+        if (load != null) {
+            load.encode(buffer);
+        }
 
         // 根据请求类型创建对应的响应
         if (request instanceof GatewayPacket gp) {
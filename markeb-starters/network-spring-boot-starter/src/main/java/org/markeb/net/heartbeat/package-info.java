@@ -16,6 +16,7 @@
  *   <li>{@link org.markeb.net.heartbeat.HeartbeatHandler} - Netty 心跳处理器</li>
  *   <li>{@link org.markeb.net.heartbeat.HeartbeatMessageFactory} - 心跳消息工厂接口</li>
  *   <li>{@link org.markeb.net.heartbeat.PacketHeartbeatFactory} - 基于 Packet 协议的实现</li>
+ *   <li>{@link org.markeb.net.heartbeat.NodeLoadProvider} - 节点负载，附带在心跳响应中上报给网关</li>
  * </ul>
  *
  * <h2>工作流程</h2>
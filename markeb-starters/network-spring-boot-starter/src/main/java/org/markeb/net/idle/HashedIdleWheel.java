@@ -0,0 +1,156 @@
+package org.markeb.net.idle;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个 EventLoop 上的哈希时间轮
+ * <p>
+ * 只在所属 EventLoop 线程内访问，因此不需要任何同步。
+ * 每个 {@link SharedIdleStateHandler} 自身就是链表节点，挂入/摘除都是 O(1)，不产生额外对象。
+ * 时间轮为空时停止 tick，有新节点挂入时再启动。
+ * </p>
+ */
+final class HashedIdleWheel {
+
+    private final EventLoop eventLoop;
+    private final LongSupplier ticker;
+    private final long tickNanos;
+    private final int mask;
+    /**
+     * 每个槽位一个哨兵节点，构成双向循环链表
+     */
+    private final SharedIdleStateHandler[] buckets;
+
+    private long tick;
+    private long nowNanos;
+    private int size;
+    private ScheduledFuture<?> tickFuture;
+
+    HashedIdleWheel(EventLoop eventLoop, long tickNanos, int wheelSize) {
+        this(eventLoop, System::nanoTime, tickNanos, wheelSize);
+    }
+
+    /**
+     * @param ticker 时间源，返回值语义同 {@link System#nanoTime()}
+     */
+    HashedIdleWheel(EventLoop eventLoop, LongSupplier ticker, long tickNanos, int wheelSize) {
+        this.eventLoop = eventLoop;
+        this.ticker = ticker;
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.buckets = new SharedIdleStateHandler[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            SharedIdleStateHandler sentinel = SharedIdleStateHandler.sentinel();
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            buckets[i] = sentinel;
+        }
+        this.nowNanos = ticker.getAsLong();
+    }
+
+    EventLoop eventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * 最近一次 tick 时的 nanoTime，精度为一个 tick
+     * <p>
+     * 读写路径只需要记录这个值，不必每次都调用 {@link System#nanoTime()}。
+     * </p>
+     */
+    long now() {
+        return nowNanos;
+    }
+
+    /**
+     * 读取时间源的当前时间，用于连接初始化等需要精确时间的低频场景
+     */
+    long nanoTime() {
+        return ticker.getAsLong();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 在指定截止时间挂入节点（如已挂入则先摘除）
+     */
+    void schedule(SharedIdleStateHandler node, long deadlineNanos) {
+        if (node.next != null) {
+            unlink(node);
+        }
+        if (tickFuture == null) {
+            // 时间轮刚从空闲恢复，先校准当前时间
+            nowNanos = ticker.getAsLong();
+        }
+        long ticks = (deadlineNanos - nowNanos + tickNanos - 1) / tickNanos;
+        if (ticks < 1) {
+            ticks = 1;
+        }
+        node.expireTick = tick + ticks;
+        SharedIdleStateHandler head = buckets[(int) (node.expireTick & mask)];
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        size++;
+        if (tickFuture == null) {
+            tickFuture = eventLoop.scheduleAtFixedRate(this::onTick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 摘除节点
+     */
+    void cancel(SharedIdleStateHandler node) {
+        if (node.next != null) {
+            unlink(node);
+        }
+        if (size == 0) {
+            stopTicking();
+        }
+    }
+
+    private void unlink(SharedIdleStateHandler node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    private void onTick() {
+        nowNanos = ticker.getAsLong();
+        tick++;
+        SharedIdleStateHandler head = buckets[(int) (tick & mask)];
+        SharedIdleStateHandler node = head.next;
+        while (node != head) {
+            SharedIdleStateHandler next = node.next;
+            if (node.expireTick <= tick) {
+                // 先摘除再回调，回调内可以重新挂入（包括挂回当前槽位的尾部，会在本轮被跳过）
+                unlink(node);
+                node.onTimeout(nowNanos);
+                if (next.next == null) {
+                    // 回调中关闭连接可能连带摘除了后继节点，从槽位头部重新扫描
+                    next = head.next;
+                }
+            }
+            node = next;
+        }
+        if (size == 0) {
+            stopTicking();
+        }
+    }
+
+    private void stopTicking() {
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+        }
+    }
+}
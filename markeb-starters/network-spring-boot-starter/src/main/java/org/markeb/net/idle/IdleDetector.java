@@ -0,0 +1,105 @@
+package org.markeb.net.idle;
+
+import io.netty.channel.EventLoop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 共享空闲检测器
+ * <p>
+ * 为每个 EventLoop 维护一个 {@link HashedIdleWheel}，同一 EventLoop 上的所有连接共用一个 tick 定时任务，
+ * 取代每个连接各自持有 1~3 个 {@code IdleStateHandler} 定时任务并不断重新调度的做法。
+ * </p>
+ * <p>
+ * 检测精度为一个 tick（默认 100ms），对秒级的空闲/心跳检测足够。
+ * EventLoop 终止时对应的时间轮会被自动移除；不支持终止通知的 EventLoop（如 EmbeddedChannel）除外。
+ * </p>
+ */
+public final class IdleDetector {
+
+    /**
+     * 默认 tick 间隔（毫秒）
+     */
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    /**
+     * 默认时间轮槽位数
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final IdleDetector SHARED = new IdleDetector(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+
+    private final LongSupplier ticker;
+    private final long tickNanos;
+    private final int wheelSize;
+    private final Map<EventLoop, HashedIdleWheel> wheels = new ConcurrentHashMap<>();
+
+    /**
+     * @param tickMillis tick 间隔（毫秒）
+     * @param wheelSize  槽位数，会向上取整为 2 的幂
+     */
+    public IdleDetector(long tickMillis, int wheelSize) {
+        this(tickMillis, wheelSize, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 时间源，返回值语义同 {@link System#nanoTime()}，测试中用来推进时间
+     */
+    IdleDetector(long tickMillis, int wheelSize, LongSupplier ticker) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        this.ticker = ticker;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheelSize = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+    }
+
+    /**
+     * 进程内共享的默认检测器
+     */
+    public static IdleDetector shared() {
+        return SHARED;
+    }
+
+    /**
+     * 获取 EventLoop 对应的时间轮，不存在时创建
+     */
+    HashedIdleWheel wheel(EventLoop eventLoop) {
+        HashedIdleWheel wheel = wheels.get(eventLoop);
+        if (wheel != null) {
+            return wheel;
+        }
+        return wheels.computeIfAbsent(eventLoop, loop -> {
+            try {
+                loop.terminationFuture().addListener(f -> wheels.remove(loop));
+            } catch (UnsupportedOperationException e) {
+                // EmbeddedChannel 的 EventLoop 不会终止，也不提供终止通知
+            }
+            return new HashedIdleWheel(loop, ticker, tickNanos, wheelSize);
+        });
+    }
+
+    /**
+     * 当前有时间轮的 EventLoop 数量
+     */
+    public int eventLoopCount() {
+        return wheels.size();
+    }
+
+    /**
+     * 当前挂在时间轮上的连接数（近似值，各 EventLoop 线程并发修改）
+     */
+    public int trackedChannels() {
+        int total = 0;
+        for (HashedIdleWheel wheel : wheels.values()) {
+            total += wheel.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,252 @@
+package org.markeb.net.idle;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于共享时间轮的空闲检测处理器
+ * <p>
+ * 与 {@link io.netty.handler.timeout.IdleStateHandler} 参数和语义一致，触发相同的 {@link IdleStateEvent}，
+ * 因此 {@code HeartbeatHandler} 等下游处理器无需任何改动。区别在于：
+ * <ul>
+ *   <li>不为每个连接创建定时任务，而是挂到所属 EventLoop 的 {@link HashedIdleWheel} 上</li>
+ *   <li>读写路径只记录时间轮缓存的时间戳，不调用 {@link System#nanoTime()}，也不给写操作挂监听器</li>
+ *   <li>读、写、读写三种空闲合并为一个时间轮节点，截止时间取三者最小值</li>
+ * </ul>
+ * 写空闲以调用 {@code write} 的时刻为准，而不是写入完成的时刻。
+ * </p>
+ * <p>
+ * 本处理器持有连接状态，不可共享，每个连接需要新建实例。
+ * </p>
+ */
+public class SharedIdleStateHandler extends ChannelDuplexHandler {
+
+    private static final int ST_INITIAL = 0;
+    private static final int ST_ACTIVE = 1;
+    private static final int ST_DESTROYED = 2;
+
+    private final IdleDetector detector;
+    private final long readerIdleNanos;
+    private final long writerIdleNanos;
+    private final long allIdleNanos;
+
+    private ChannelHandlerContext ctx;
+    private HashedIdleWheel wheel;
+    private int state;
+
+    private boolean reading;
+    private long lastReadTime;
+    private long lastWriteTime;
+
+    private long readerDeadline;
+    private long writerDeadline;
+    private long allDeadline;
+
+    private boolean firstReaderIdleEvent = true;
+    private boolean firstWriterIdleEvent = true;
+    private boolean firstAllIdleEvent = true;
+
+    /*
+     * 时间轮链表字段，仅由 HashedIdleWheel 在 EventLoop 线程内访问
+     */
+    SharedIdleStateHandler prev;
+    SharedIdleStateHandler next;
+    long expireTick;
+
+    /**
+     * 使用进程共享的检测器，时间单位为秒
+     *
+     * @param readerIdleTime 读空闲时间，0 表示不检测
+     * @param writerIdleTime 写空闲时间，0 表示不检测
+     * @param allIdleTime    读写空闲时间，0 表示不检测
+     */
+    public SharedIdleStateHandler(long readerIdleTime, long writerIdleTime, long allIdleTime) {
+        this(readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.SECONDS);
+    }
+
+    public SharedIdleStateHandler(long readerIdleTime, long writerIdleTime, long allIdleTime, TimeUnit unit) {
+        this(IdleDetector.shared(), readerIdleTime, writerIdleTime, allIdleTime, unit);
+    }
+
+    public SharedIdleStateHandler(IdleDetector detector, long readerIdleTime, long writerIdleTime,
+                                  long allIdleTime, TimeUnit unit) {
+        if (detector == null) {
+            throw new IllegalArgumentException("detector must not be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit must not be null");
+        }
+        this.detector = detector;
+        this.readerIdleNanos = readerIdleTime <= 0 ? 0 : unit.toNanos(readerIdleTime);
+        this.writerIdleNanos = writerIdleTime <= 0 ? 0 : unit.toNanos(writerIdleTime);
+        this.allIdleNanos = allIdleTime <= 0 ? 0 : unit.toNanos(allIdleTime);
+    }
+
+    /**
+     * 时间轮哨兵节点
+     */
+    static SharedIdleStateHandler sentinel() {
+        return new SharedIdleStateHandler(IdleDetector.shared(), 0, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive() && ctx.channel().isRegistered()) {
+            initialize(ctx);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        destroy();
+    }
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive()) {
+            initialize(ctx);
+        }
+        super.channelRegistered(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (readerIdleNanos > 0 || allIdleNanos > 0) {
+            reading = true;
+            firstReaderIdleEvent = firstAllIdleEvent = true;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (reading) {
+            lastReadTime = wheel != null ? wheel.now() : System.nanoTime();
+            reading = false;
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (writerIdleNanos > 0 || allIdleNanos > 0) {
+            lastWriteTime = wheel != null ? wheel.now() : System.nanoTime();
+            firstWriterIdleEvent = firstAllIdleEvent = true;
+        }
+        ctx.write(msg, promise);
+    }
+
+    private void initialize(ChannelHandlerContext ctx) {
+        if (state != ST_INITIAL) {
+            return;
+        }
+        state = ST_ACTIVE;
+        this.ctx = ctx;
+        if (readerIdleNanos <= 0 && writerIdleNanos <= 0 && allIdleNanos <= 0) {
+            return;
+        }
+
+        wheel = detector.wheel(ctx.channel().eventLoop());
+        long now = wheel.nanoTime();
+        lastReadTime = lastWriteTime = now;
+        readerDeadline = readerIdleNanos > 0 ? now + readerIdleNanos : Long.MAX_VALUE;
+        writerDeadline = writerIdleNanos > 0 ? now + writerIdleNanos : Long.MAX_VALUE;
+        allDeadline = allIdleNanos > 0 ? now + allIdleNanos : Long.MAX_VALUE;
+        wheel.schedule(this, nextDeadline());
+    }
+
+    private void destroy() {
+        state = ST_DESTROYED;
+        if (wheel != null) {
+            wheel.cancel(this);
+        }
+    }
+
+    /**
+     * 时间轮到期回调，由 {@link HashedIdleWheel} 在 EventLoop 线程内调用，调用前节点已被摘除
+     */
+    void onTimeout(long now) {
+        if (state != ST_ACTIVE || !ctx.channel().isOpen()) {
+            return;
+        }
+
+        if (readerIdleNanos > 0 && now - readerDeadline >= 0) {
+            long lastRead = reading ? now : lastReadTime;
+            long nextDelay = readerIdleNanos - (now - lastRead);
+            if (nextDelay <= 0) {
+                readerDeadline = now + readerIdleNanos;
+                boolean first = firstReaderIdleEvent;
+                firstReaderIdleEvent = false;
+                fire(IdleState.READER_IDLE, first);
+            } else {
+                readerDeadline = now + nextDelay;
+            }
+        }
+
+        if (state == ST_ACTIVE && writerIdleNanos > 0 && now - writerDeadline >= 0) {
+            long nextDelay = writerIdleNanos - (now - lastWriteTime);
+            if (nextDelay <= 0) {
+                writerDeadline = now + writerIdleNanos;
+                boolean first = firstWriterIdleEvent;
+                firstWriterIdleEvent = false;
+                fire(IdleState.WRITER_IDLE, first);
+            } else {
+                writerDeadline = now + nextDelay;
+            }
+        }
+
+        if (state == ST_ACTIVE && allIdleNanos > 0 && now - allDeadline >= 0) {
+            long lastRead = reading ? now : lastReadTime;
+            long nextDelay = allIdleNanos - (now - Math.max(lastRead, lastWriteTime));
+            if (nextDelay <= 0) {
+                allDeadline = now + allIdleNanos;
+                boolean first = firstAllIdleEvent;
+                firstAllIdleEvent = false;
+                fire(IdleState.ALL_IDLE, first);
+            } else {
+                allDeadline = now + nextDelay;
+            }
+        }
+
+        // 事件处理器可能已经关闭连接
+        if (state == ST_ACTIVE && ctx.channel().isOpen()) {
+            wheel.schedule(this, nextDeadline());
+        }
+    }
+
+    private long nextDeadline() {
+        return Math.min(readerDeadline, Math.min(writerDeadline, allDeadline));
+    }
+
+    private void fire(IdleState idleState, boolean first) {
+        ctx.fireUserEventTriggered(newIdleStateEvent(idleState, first));
+    }
+
+    /**
+     * 创建空闲事件，复用 Netty 预置的事件实例
+     */
+    protected IdleStateEvent newIdleStateEvent(IdleState idleState, boolean first) {
+        return switch (idleState) {
+            case READER_IDLE -> first ? IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT : IdleStateEvent.READER_IDLE_STATE_EVENT;
+            case WRITER_IDLE -> first ? IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT : IdleStateEvent.WRITER_IDLE_STATE_EVENT;
+            case ALL_IDLE -> first ? IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT : IdleStateEvent.ALL_IDLE_STATE_EVENT;
+        };
+    }
+}
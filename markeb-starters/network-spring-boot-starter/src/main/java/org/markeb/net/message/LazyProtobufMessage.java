@@ -0,0 +1,168 @@
+package org.markeb.net.message;
+
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * 延迟解析的 Protobuf 消息
+ * <p>
+ * 解码阶段只持有消息体的 ByteBuf（已 retain），首次调用 {@link #unwrap()} 时才真正解析。
+ * 这样解析工作发生在实际处理消息的线程（如 Actor 线程），而不是 Netty I/O 线程；
+ * 被限流丢弃或仅做转发的消息可以完全跳过解析。
+ * </p>
+ * <p>
+ * 遵循 Netty 引用计数约定：跨线程传递前需要 {@link #retain()}，处理完毕或丢弃时需要 {@link #release()}。
+ * 解析成功后底层缓冲区会被立即释放，之后只保留解析结果。
+ * </p>
+ */
+public class LazyProtobufMessage extends AbstractReferenceCounted implements IMessage {
+
+    /**
+     * 消息体解析函数
+     */
+    @FunctionalInterface
+    public interface BodyParser {
+
+        /**
+         * 解析消息体
+         *
+         * @param messageId 消息ID
+         * @param body      消息体（只读视图，解析器不负责释放）
+         * @return 解析后的消息
+         * @throws Exception 解析失败
+         */
+        Message parse(int messageId, ByteBuf body) throws Exception;
+    }
+
+    private final int messageId;
+    private final BodyParser bodyParser;
+    private ByteBuf body;
+    private volatile Message payload;
+
+    /**
+     * @param messageId  消息ID
+     * @param body       消息体，所有权转移给本对象
+     * @param bodyParser 消息体解析函数
+     */
+    public LazyProtobufMessage(int messageId, ByteBuf body, BodyParser bodyParser) {
+        this.messageId = messageId;
+        this.body = body;
+        this.bodyParser = bodyParser;
+    }
+
+    @Override
+    public int getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * 是否已经解析
+     */
+    public boolean isParsed() {
+        return payload != null;
+    }
+
+    /**
+     * 获取尚未解析的消息体（不改变读索引，不转移所有权）
+     *
+     * @return 消息体，如果已解析返回 null
+     */
+    public synchronized ByteBuf content() {
+        return body;
+    }
+
+    /**
+     * 序列化为字节数组
+     * <p>
+     * 未解析时直接复制原始字节，不会触发解析。
+     * </p>
+     */
+    @Override
+    public byte[] toBytes() {
+        Message parsed = payload;
+        if (parsed != null) {
+            return parsed.toByteArray();
+        }
+        synchronized (this) {
+            if (payload != null) {
+                return payload.toByteArray();
+            }
+            ByteBuf buf = ensureBody();
+            return ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes());
+        }
+    }
+
+    /**
+     * 获取解析后的消息，首次调用时解析
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap() {
+        Message parsed = payload;
+        if (parsed == null) {
+            parsed = parse();
+        }
+        return (T) parsed;
+    }
+
+    /**
+     * 获取消息类型（会触发解析）
+     */
+    @Override
+    public Class<?> getPayloadType() {
+        Message parsed = unwrap();
+        return parsed.getClass();
+    }
+
+    private synchronized Message parse() {
+        if (payload != null) {
+            return payload;
+        }
+        ByteBuf buf = ensureBody();
+        Message parsed;
+        try {
+            parsed = bodyParser.parse(messageId, buf.duplicate());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse message with id " + messageId, e);
+        }
+        payload = parsed;
+        body = null;
+        buf.release();
+        return parsed;
+    }
+
+    private ByteBuf ensureBody() {
+        if (body == null) {
+            throw new IllegalReferenceCountException(refCnt());
+        }
+        return body;
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+
+    @Override
+    public synchronized ReferenceCounted touch(Object hint) {
+        if (body != null) {
+            body.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyProtobufMessage{" +
+                "messageId=" + messageId +
+                ", parsed=" + isParsed() +
+                '}';
+    }
+}
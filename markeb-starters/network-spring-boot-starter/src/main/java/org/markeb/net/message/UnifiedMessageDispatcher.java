@@ -1,6 +1,7 @@
 package org.markeb.net.message;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
 import org.markeb.net.handler.MessageContext;
 import org.markeb.net.protocol.GameServerPacket;
 import org.markeb.net.protocol.Packet;
@@ -85,35 +86,42 @@ public class UnifiedMessageDispatcher {
     }
 
     /**
-     * 分发已解析的消息
+     * 分发已解析（或延迟解析）的消息
+     * <p>
+     * 本方法接管 message 的所有权：处理完毕后释放。对于 {@link LazyProtobufMessage}，
+     * 没有处理器时消息体不会被解析。
+     * </p>
      *
      * @param ctx     Channel 上下文
-     * @param message 已解析的消息
+     * @param message 消息
      * @param packet  原始数据包（用于获取元信息）
      */
     @SuppressWarnings("unchecked")
     public void dispatch(ChannelHandlerContext ctx, IMessage message, Packet packet) {
         int messageId = message.getMessageId();
-
-        // 查找处理器
-        IMessageHandler<Object> handler = (IMessageHandler<Object>) handlers.get(messageId);
-        if (handler == null) {
-            log.warn("No handler found for message ID: {}", messageId);
-            return;
-        }
-
-        // 构建上下文
-        MessageContext context = buildContext(ctx, packet);
-
-        // 执行处理
         try {
-            Object payload = message.unwrap();
-            Object response = handler.handle(context, payload);
-            if (response != null) {
-                sendResponse(ctx, packet, response);
+            // 查找处理器
+            IMessageHandler<Object> handler = (IMessageHandler<Object>) handlers.get(messageId);
+            if (handler == null) {
+                log.warn("No handler found for message ID: {}", messageId);
+                return;
             }
-        } catch (Exception e) {
-            log.error("Error handling message ID: {}", messageId, e);
+
+            // 构建上下文
+            MessageContext context = buildContext(ctx, packet);
+
+            // 执行处理
+            try {
+                Object payload = message.unwrap();
+                Object response = handler.handle(context, payload);
+                if (response != null) {
+                    sendResponse(ctx, packet, response);
+                }
+            } catch (Exception e) {
+                log.error("Error handling message ID: {}", messageId, e);
+            }
+        } finally {
+            ReferenceCountUtil.release(message);
         }
     }
 
@@ -0,0 +1,49 @@
+package org.markeb.net.metrics;
+
+/**
+ * 单条后端连接的统计
+ * <p>
+ * 由持有连接池的一方（如网关）实现，并通过 {@link NetworkInstrumentation#registerBackendConnection}
+ * 登记，指标在抓取时读取。节点地址和槽位在连接的生命周期内不变，用作指标标签。
+ * </p>
+ */
+public interface BackendConnectionStats {
+
+    /**
+     * 后端节点地址 (host:port)
+     */
+    String getNodeAddress();
+
+    /**
+     * 在该节点连接池中的槽位
+     */
+    int getSlot();
+
+    /**
+     * 当前是否已连接
+     */
+    boolean isActive();
+
+    long getMessagesSent();
+
+    long getBytesSent();
+
+    long getMessagesReceived();
+
+    long getBytesReceived();
+
+    /**
+     * 出站缓冲区中待写出的字节数
+     */
+    long getPendingBytes();
+
+    /**
+     * 连续丢失的心跳次数
+     */
+    int getMissedHeartbeats();
+
+    /**
+     * 最近一次心跳往返延迟（毫秒），未知时为 -1
+     */
+    long getHeartbeatLatencyMillis();
+}
@@ -0,0 +1,44 @@
+package org.markeb.net.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 编解码耗时采样统计
+ * <p>
+ * 只累加次数、总耗时和最大值，由抓取方换算为 Micrometer 的 FunctionTimer。
+ * </p>
+ */
+public final class CodecStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * 采样次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 采样总耗时（纳秒）
+     */
+    public double getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * 采样最大耗时（纳秒）
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
@@ -0,0 +1,55 @@
+package org.markeb.net.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个消息ID的收发统计
+ * <p>
+ * 计数使用 {@link LongAdder}，多个 EventLoop 并发累加时不会争用同一缓存行；
+ * 读取只在指标抓取时发生。
+ * </p>
+ */
+public final class MessageStats {
+
+    private final int messageId;
+    final LongAdder received = new LongAdder();
+    final LongAdder receivedBytes = new LongAdder();
+    final LongAdder sent = new LongAdder();
+    final LongAdder sentBytes = new LongAdder();
+
+    MessageStats(int messageId) {
+        this.messageId = messageId;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * 接收消息数
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * 接收消息体字节数
+     */
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    /**
+     * 发送消息数
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * 发送消息体字节数
+     */
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+}
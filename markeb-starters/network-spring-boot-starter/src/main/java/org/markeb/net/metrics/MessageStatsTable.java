@@ -0,0 +1,155 @@
+package org.markeb.net.metrics;
+
+import java.util.function.Consumer;
+
+/**
+ * 消息ID -> {@link MessageStats} 的只读快照表
+ * <p>
+ * 开放寻址的 int 键数组，读路径无锁、无装箱；新消息ID出现时在锁内复制扩容后整体替换快照。
+ * 消息ID集合在运行一段时间后基本稳定，因此写入极少。
+ * </p>
+ * <p>
+ * 消息ID来自对端，不可信：表中最多保留 {@code maxSize} 个消息ID，之后新出现的消息ID都归入同一个
+ * {@link NetworkInstrumentation#OTHER_MESSAGE_ID} 统计，表和指标数量都不会随对端发送的任意ID增长。
+ * 表满后未知ID走无锁路径直接返回溢出统计，不进入锁。
+ * </p>
+ */
+final class MessageStatsTable {
+
+    private static final class Snapshot {
+        final int[] keys;
+        final MessageStats[] values;
+        final int size;
+
+        Snapshot(int capacity, int size) {
+            this.keys = new int[capacity];
+            this.values = new MessageStats[capacity];
+            this.size = size;
+        }
+    }
+
+    private final int maxSize;
+    private volatile Snapshot snapshot = new Snapshot(64, 0);
+    private volatile MessageStats overflow;
+
+    /**
+     * @param maxSize 最多单独统计的消息ID数
+     */
+    MessageStatsTable(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取消息ID对应的统计，不存在时创建
+     *
+     * @param messageId 消息ID
+     * @param onCreate  新建时的回调（在锁内调用，可为 null）
+     */
+    MessageStats get(int messageId, Consumer<MessageStats> onCreate) {
+        Snapshot current = snapshot;
+        MessageStats stats = find(current, messageId);
+        if (stats != null) {
+            return stats;
+        }
+        if (current.size >= maxSize) {
+            MessageStats other = overflow;
+            if (other != null) {
+                return other;
+            }
+        }
+        synchronized (this) {
+            current = snapshot;
+            stats = find(current, messageId);
+            if (stats != null) {
+                return stats;
+            }
+            if (current.size >= maxSize) {
+                return overflow(onCreate);
+            }
+            stats = new MessageStats(messageId);
+            int capacity = current.keys.length;
+            if ((current.size + 1) * 2 > capacity) {
+                capacity <<= 1;
+            }
+            Snapshot next = new Snapshot(capacity, current.size + 1);
+            for (MessageStats existing : current.values) {
+                if (existing != null) {
+                    insert(next, existing);
+                }
+            }
+            insert(next, stats);
+            snapshot = next;
+            if (onCreate != null) {
+                onCreate.accept(stats);
+            }
+            return stats;
+        }
+    }
+
+    void forEach(Consumer<MessageStats> action) {
+        for (MessageStats stats : snapshot.values) {
+            if (stats != null) {
+                action.accept(stats);
+            }
+        }
+        MessageStats other = overflow;
+        if (other != null) {
+            action.accept(other);
+        }
+    }
+
+    /**
+     * 单独统计的消息ID数，不含溢出统计
+     */
+    int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * 获取溢出统计，不存在时创建；调用方持有锁
+     */
+    private MessageStats overflow(Consumer<MessageStats> onCreate) {
+        MessageStats other = overflow;
+        if (other == null) {
+            other = new MessageStats(NetworkInstrumentation.OTHER_MESSAGE_ID);
+            overflow = other;
+            if (onCreate != null) {
+                onCreate.accept(other);
+            }
+        }
+        return other;
+    }
+
+    private static MessageStats find(Snapshot s, int messageId) {
+        int mask = s.keys.length - 1;
+        int i = mix(messageId) & mask;
+        while (true) {
+            MessageStats stats = s.values[i];
+            if (stats == null) {
+                return null;
+            }
+            if (s.keys[i] == messageId) {
+                return stats;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static void insert(Snapshot s, MessageStats stats) {
+        int mask = s.keys.length - 1;
+        int i = mix(stats.getMessageId()) & mask;
+        while (s.values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        s.keys[i] = stats.getMessageId();
+        s.values[i] = stats;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,454 @@
+package org.markeb.net.metrics;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.markeb.net.gateway.GatewayPacket;
+import org.markeb.net.message.IMessage;
+import org.markeb.net.message.LazyProtobufMessage;
+import org.markeb.net.protocol.Packet;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 网络层埋点
+ * <p>
+ * 提供两个可共享的处理器，所有连接共用同一组实例：
+ * <ul>
+ *   <li>{@link #wireHandler()}：放在 pipeline 最前面，统计连接数、原始字节数、可写性翻转次数，并标记编解码采样点</li>
+ *   <li>{@link #messageHandler()}：放在编解码器之后，按消息ID统计收发次数和消息体大小，并结束编解码采样</li>
+ * </ul>
+ * 热路径只做 {@link LongAdder} 累加，不访问 MeterRegistry；编解码耗时按 1/{@code sampleRate} 采样，
+ * 同一 EventLoop 上解码/编码是同步完成的，采样起点记在线程本地变量中即可。
+ * 出站缓冲区大小、不可写连接数在抓取时遍历连接计算。
+ * </p>
+ * <p>
+ * 按消息ID的统计最多保留 {@code maxMessageIds} 个ID，超出后新出现的ID归入 {@link #OTHER_MESSAGE_ID}，
+ * 防止对端发送任意消息ID撑大统计表和指标数量。
+ * </p>
+ *
+ * <pre>{@code
+ * pipeline.addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+ * pipeline.addLast("decoder", new PacketDecoder(...));
+ * pipeline.addLast("encoder", new PacketEncoder());
+ * pipeline.addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+ * }</pre>
+ */
+public class NetworkInstrumentation {
+
+    public static final String WIRE_HANDLER_NAME = "metricsWire";
+    public static final String MESSAGE_HANDLER_NAME = "metricsMessage";
+
+    /**
+     * 无法识别消息ID时使用的ID
+     */
+    public static final int UNKNOWN_MESSAGE_ID = -1;
+
+    /**
+     * 超出消息ID数量上限后，新出现的消息ID共用的统计ID
+     */
+    public static final int OTHER_MESSAGE_ID = -2;
+
+    /**
+     * 默认最多单独统计的消息ID数
+     */
+    public static final int DEFAULT_MAX_MESSAGE_IDS = 1024;
+
+    private static final FastThreadLocal<SampleState> SAMPLE_STATE = new FastThreadLocal<>() {
+        @Override
+        protected SampleState initialValue() {
+            return new SampleState();
+        }
+    };
+
+    private final int sampleMask;
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder writabilityChanges = new LongAdder();
+    private final LongAdder pushBatches = new LongAdder();
+    private final LongAdder pushBatchEntries = new LongAdder();
+    private final LongAccumulator maxPushBatchEntries = new LongAccumulator(Long::max, 0);
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    private final MessageStatsTable messageStats;
+    private final CodecStats decodeStats = new CodecStats();
+    private final CodecStats encodeStats = new CodecStats();
+    private volatile Consumer<MessageStats> messageStatsListener;
+    private final Set<BackendConnectionStats> backendConnections = ConcurrentHashMap.newKeySet();
+    private volatile BackendConnectionListener backendConnectionListener;
+
+    private final WireHandler wireHandler = new WireHandler();
+    private final MessageHandler messageHandler = new MessageHandler();
+
+    /**
+     * @param sampleRate    编解码耗时采样率，每 N 次采样一次，会向上取整为 2 的幂
+     * @param maxMessageIds 最多单独统计的消息ID数
+     */
+    public NetworkInstrumentation(int sampleRate, int maxMessageIds) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        int rate = sampleRate == 1 ? 1 : Integer.highestOneBit(sampleRate - 1) << 1;
+        this.sampleMask = rate - 1;
+        this.messageStats = new MessageStatsTable(maxMessageIds);
+    }
+
+    /**
+     * @param sampleRate 编解码耗时采样率，每 N 次采样一次，会向上取整为 2 的幂
+     */
+    public NetworkInstrumentation(int sampleRate) {
+        this(sampleRate, DEFAULT_MAX_MESSAGE_IDS);
+    }
+
+    public NetworkInstrumentation() {
+        this(64);
+    }
+
+    public ChannelHandler wireHandler() {
+        return wireHandler;
+    }
+
+    public ChannelHandler messageHandler() {
+        return messageHandler;
+    }
+
+    /**
+     * 记录收到的一个批量推送帧
+     *
+     * @param entries 帧内推送条目数
+     */
+    public void recordPushBatch(int entries) {
+        pushBatches.increment();
+        pushBatchEntries.add(entries);
+        maxPushBatchEntries.accumulate(entries);
+    }
+
+    // ============ 抓取接口 ============
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long getConnectionsClosed() {
+        return connectionsClosed.sum();
+    }
+
+    public int getActiveConnections() {
+        return channels.size();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getWritabilityChanges() {
+        return writabilityChanges.sum();
+    }
+
+    /**
+     * 当前不可写的连接数（遍历连接计算）
+     */
+    public int getUnwritableConnections() {
+        int count = 0;
+        for (Channel channel : channels) {
+            if (!channel.isWritable()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 所有连接出站缓冲区中待写出的字节总数（遍历连接计算）
+     */
+    public long getPendingOutboundBytes() {
+        long total = 0;
+        for (Channel channel : channels) {
+            total += pendingOutboundBytes(channel);
+        }
+        return total;
+    }
+
+    /**
+     * 单个连接出站缓冲区中待写出字节数的最大值（遍历连接计算）
+     */
+    public long getMaxPendingOutboundBytes() {
+        long max = 0;
+        for (Channel channel : channels) {
+            max = Math.max(max, pendingOutboundBytes(channel));
+        }
+        return max;
+    }
+
+    public long getPushBatches() {
+        return pushBatches.sum();
+    }
+
+    public long getPushBatchEntries() {
+        return pushBatchEntries.sum();
+    }
+
+    public long getMaxPushBatchEntries() {
+        return maxPushBatchEntries.get();
+    }
+
+    public CodecStats getDecodeStats() {
+        return decodeStats;
+    }
+
+    public CodecStats getEncodeStats() {
+        return encodeStats;
+    }
+
+    /**
+     * 遍历已出现过的消息ID统计
+     */
+    public void forEachMessageStats(Consumer<MessageStats> action) {
+        messageStats.forEach(action);
+    }
+
+    /**
+     * 设置新消息ID首次出现时的回调，用于注册对应的指标（每个消息ID只回调一次）
+     */
+    public void setMessageStatsListener(Consumer<MessageStats> listener) {
+        this.messageStatsListener = listener;
+    }
+
+    /**
+     * 登记一条后端连接，其统计按节点和槽位导出，连接关闭不再重连时应调用 {@link #unregisterBackendConnection}
+     */
+    public void registerBackendConnection(BackendConnectionStats connection) {
+        if (backendConnections.add(connection)) {
+            BackendConnectionListener listener = backendConnectionListener;
+            if (listener != null) {
+                listener.onRegistered(connection);
+            }
+        }
+    }
+
+    /**
+     * 注销后端连接
+     */
+    public void unregisterBackendConnection(BackendConnectionStats connection) {
+        if (backendConnections.remove(connection)) {
+            BackendConnectionListener listener = backendConnectionListener;
+            if (listener != null) {
+                listener.onUnregistered(connection);
+            }
+        }
+    }
+
+    /**
+     * 遍历已登记的后端连接
+     */
+    public void forEachBackendConnection(Consumer<BackendConnectionStats> action) {
+        backendConnections.forEach(action);
+    }
+
+    /**
+     * 设置后端连接登记/注销时的回调，用于注册和移除对应的指标
+     */
+    public void setBackendConnectionListener(BackendConnectionListener listener) {
+        this.backendConnectionListener = listener;
+    }
+
+    /**
+     * 后端连接登记/注销回调
+     */
+    public interface BackendConnectionListener {
+
+        void onRegistered(BackendConnectionStats connection);
+
+        void onUnregistered(BackendConnectionStats connection);
+    }
+
+    // ============ 内部实现 ============
+
+    private static long pendingOutboundBytes(Channel channel) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    private MessageStats statsOf(int messageId) {
+        return messageStats.get(messageId, messageStatsListener);
+    }
+
+    private boolean shouldSample(SampleState state) {
+        return (state.counter++ & sampleMask) == 0;
+    }
+
+    private static int messageId(Object msg) {
+        if (msg instanceof Packet packet) {
+            return packet.getMessageId();
+        }
+        if (msg instanceof GatewayPacket packet) {
+            return packet.getMsgId();
+        }
+        if (msg instanceof IMessage message) {
+            return message.getMessageId();
+        }
+        return UNKNOWN_MESSAGE_ID;
+    }
+
+    private static int bodySize(Object msg) {
+        if (msg instanceof Packet packet) {
+            byte[] body = packet.getBody();
+            return body == null ? 0 : body.length;
+        }
+        if (msg instanceof GatewayPacket packet) {
+            return packet.bodyLength();
+        }
+        if (msg instanceof LazyProtobufMessage message) {
+            ByteBuf body = message.content();
+            return body == null ? 0 : body.readableBytes();
+        }
+        return 0;
+    }
+
+    private static int wireSize(Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            return buf.readableBytes();
+        }
+        if (msg instanceof ByteBufHolder holder) {
+            return holder.content().readableBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * 线程本地的采样状态
+     */
+    private static final class SampleState {
+        int counter;
+        long decodeStart;
+        long encodeStart;
+    }
+
+    /**
+     * 字节层处理器，位于编解码器之前
+     */
+    @ChannelHandler.Sharable
+    private final class WireHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            connectionsOpened.increment();
+            channels.add(ctx.channel());
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (channels.remove(ctx.channel())) {
+                connectionsClosed.increment();
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            writabilityChanges.increment();
+            super.channelWritabilityChanged(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            int size = wireSize(msg);
+            if (size == 0) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            bytesReceived.add(size);
+
+            SampleState state = SAMPLE_STATE.get();
+            if (!shouldSample(state)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            state.decodeStart = System.nanoTime();
+            try {
+                ctx.fireChannelRead(msg);
+            } finally {
+                // 半包时解码器不会产出消息，采样作废
+                state.decodeStart = 0;
+            }
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            int size = wireSize(msg);
+            if (size > 0) {
+                bytesSent.add(size);
+                SampleState state = SAMPLE_STATE.get();
+                if (state.encodeStart != 0) {
+                    encodeStats.record(System.nanoTime() - state.encodeStart);
+                    state.encodeStart = 0;
+                }
+            }
+            ctx.write(msg, promise);
+        }
+    }
+
+    /**
+     * 消息层处理器，位于编解码器之后
+     */
+    @ChannelHandler.Sharable
+    private final class MessageHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            SampleState state = SAMPLE_STATE.get();
+            if (state.decodeStart != 0) {
+                decodeStats.record(System.nanoTime() - state.decodeStart);
+                state.decodeStart = 0;
+            }
+
+            MessageStats stats = statsOf(messageId(msg));
+            stats.received.increment();
+            int size = bodySize(msg);
+            if (size > 0) {
+                stats.receivedBytes.add(size);
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            MessageStats stats = statsOf(messageId(msg));
+            stats.sent.increment();
+            int size = bodySize(msg);
+            if (size > 0) {
+                stats.sentBytes.add(size);
+            }
+
+            SampleState state = SAMPLE_STATE.get();
+            if (!shouldSample(state)) {
+                ctx.write(msg, promise);
+                return;
+            }
+            state.encodeStart = System.nanoTime();
+            try {
+                ctx.write(msg, promise);
+            } finally {
+                state.encodeStart = 0;
+            }
+        }
+    }
+}
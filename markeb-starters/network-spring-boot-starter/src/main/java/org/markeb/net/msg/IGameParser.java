@@ -1,5 +1,9 @@
 package org.markeb.net.msg;
 
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
 public interface IGameParser<M> {
 
     int messageId(Class<M> message);
@@ -8,6 +12,22 @@ public interface IGameParser<M> {
 
     M parseFrom(int id, byte[] bodyBytes);
 
+    /**
+     * 直接从 ByteBuf 解析，不改变读索引，也不负责释放。
+     * 默认实现会复制一次字节，实现类可以覆盖以避免复制。
+     */
+    default M parseFrom(int id, ByteBuf body) {
+        return parseFrom(id, ByteBufUtil.getBytes(body, body.readerIndex(), body.readableBytes(), false));
+    }
+
+    /**
+     * 从 ByteString 解析（如转发通知中的内层消息体）。
+     * 默认实现会复制一次字节，实现类可以覆盖以直接读取 ByteString 的底层数组。
+     */
+    default M parseFrom(int id, ByteString body) {
+        return parseFrom(id, body.toByteArray());
+    }
+
     void register(Class<M> message);
 
 }
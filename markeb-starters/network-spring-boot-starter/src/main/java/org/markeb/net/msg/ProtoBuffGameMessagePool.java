@@ -17,6 +17,7 @@ public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
 
     private final IGameParser<?> protoBuffParser;
     private final boolean gatewayMode;
+    private final boolean lazyDecode;
 
     private static final Map<Integer, IContextHandle<? extends GameActorContext, Message>> handlerPool = new HashMap<>();
 
@@ -31,8 +32,20 @@ public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
      * @param gatewayMode     是否为网关模式（接收网关转发的消息）
      */
     public ProtoBuffGameMessagePool(IGameParser<?> protoBuffParser, boolean gatewayMode) {
+        this(protoBuffParser, gatewayMode, false);
+    }
+
+    /**
+     * 创建消息池
+     *
+     * @param protoBuffParser 消息解析器
+     * @param gatewayMode     是否为网关模式（接收网关转发的消息）
+     * @param lazyDecode      是否延迟解析消息体（解码器输出 LazyProtobufMessage）
+     */
+    public ProtoBuffGameMessagePool(IGameParser<?> protoBuffParser, boolean gatewayMode, boolean lazyDecode) {
         this.protoBuffParser = protoBuffParser;
         this.gatewayMode = gatewayMode;
+        this.lazyDecode = lazyDecode;
     }
 
     @Override
@@ -52,9 +65,9 @@ public class ProtoBuffGameMessagePool implements IMessagePool<Message> {
     @Override
     public ByteToMessageDecoder decoder() {
         if (gatewayMode) {
-            return new ProtoBuffGatewayDecoder(messageParser());
+            return new ProtoBuffGatewayDecoder(messageParser(), 1024 * 1024, lazyDecode);
         }
-        return new ProtoBuffGameDecoder(messageParser());
+        return new ProtoBuffGameDecoder(messageParser(), lazyDecode);
     }
 
     @Override
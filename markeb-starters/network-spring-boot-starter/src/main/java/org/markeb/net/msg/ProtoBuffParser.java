@@ -1,10 +1,12 @@
 package org.markeb.net.msg;
 
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.DescriptorProtos;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +62,34 @@ public class ProtoBuffParser implements IGameParser<Message> {
         }
     }
 
+    @Override
+    public Message parseFrom(int id, ByteBuf body) {
+        Parser<? extends Message> parser = parserMap.get(id);
+        if (parser == null) {
+            throw new IllegalArgumentException("Unknown message id: " + id);
+        }
+        try {
+            // nioBuffer 对单段缓冲区返回视图，不复制字节
+            return parser.parseFrom(body.nioBuffer());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse message with id " + id, e);
+        }
+    }
+
+    @Override
+    public Message parseFrom(int id, ByteString body) {
+        Parser<? extends Message> parser = parserMap.get(id);
+        if (parser == null) {
+            throw new IllegalArgumentException("Unknown message id: " + id);
+        }
+        try {
+            // ByteString 的 CodedInputStream 直接读取其底层数组，不复制字节
+            return parser.parseFrom(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse message with id " + id, e);
+        }
+    }
+
     @Override
     public void register(Class<Message> clazz) {
         int msgId = findMsgIdFromClass(clazz);
@@ -37,21 +37,36 @@ public class PacketDecoder extends LengthFieldBasedFrameDecoder {
         }
 
         try {
-            return switch (protocolType) {
-                case GATEWAY -> decodeGatewayPacket(frame);
-                case GATEWAY_INTERNAL -> decodeGatewayInternalPacket(frame, ctx);
-                case GAME_SERVER -> decodeGameServerPacket(frame);
-            };
+            return decodeFrame(protocolType, frame);
         } finally {
             frame.release();
         }
     }
 
+    /**
+     * 解码一个已经完成分帧的数据包（不含 length 字段）
+     * <p>
+     * 供自带分帧的传输层（如 WebSocket 二进制帧）直接复用，不需要再经过长度字段解码。
+     * 只读取 frame，不负责释放。
+     * </p>
+     *
+     * @param protocolType 协议类型
+     * @param frame        去掉 length 字段后的完整帧
+     * @return 数据包
+     */
+    public static Packet decodeFrame(ProtocolType protocolType, ByteBuf frame) {
+        return switch (protocolType) {
+            case GATEWAY -> decodeGatewayPacket(frame);
+            case GATEWAY_INTERNAL -> decodeGatewayInternalPacket(frame);
+            case GAME_SERVER -> decodeGameServerPacket(frame);
+        };
+    }
+
     /**
      * 解码网关协议
      * 4 messageId + 2 seq + 2 magicNum + body
      */
-    private Packet decodeGatewayPacket(ByteBuf frame) {
+    private static Packet decodeGatewayPacket(ByteBuf frame) {
         int messageId = frame.readInt();
         short seq = frame.readShort();
         short magicNum = frame.readShort();
@@ -66,7 +81,7 @@ public class PacketDecoder extends LengthFieldBasedFrameDecoder {
      * 解码网关内部协议
      * 4 sessionId + 4 msgId + 4 seq + body
      */
-    private Packet decodeGatewayInternalPacket(ByteBuf frame, ChannelHandlerContext ctx) {
+    private static Packet decodeGatewayInternalPacket(ByteBuf frame) {
         int sessionId = frame.readInt();
         int messageId = frame.readInt();
         int seqInt = frame.readInt();
@@ -81,7 +96,7 @@ public class PacketDecoder extends LengthFieldBasedFrameDecoder {
      * 解码游戏服协议
      * 4 messageId + 2 seq + 2 gateId + 8 roleId + 8 conId + body
      */
-    private Packet decodeGameServerPacket(ByteBuf frame) {
+    private static Packet decodeGameServerPacket(ByteBuf frame) {
         int messageId = frame.readInt();
         short seq = frame.readShort();
         short gateId = frame.readShort();
@@ -14,8 +14,45 @@ import io.netty.handler.codec.MessageToByteEncoder;
  */
 public class PacketEncoder extends MessageToByteEncoder<Packet> {
 
+    /**
+     * length 字段长度
+     */
+    public static final int LENGTH_FIELD_LENGTH = 4;
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Packet msg, ByteBuf out) {
+        // length 包含自身
+        out.writeInt(LENGTH_FIELD_LENGTH + frameLength(msg));
+        writeFrame(msg, out);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Packet msg, boolean preferDirect) {
+        int size = LENGTH_FIELD_LENGTH + frameLength(msg);
+        return preferDirect ? ctx.alloc().ioBuffer(size) : ctx.alloc().heapBuffer(size);
+    }
+
+    /**
+     * 计算不含 length 字段的帧长度（协议头 + 消息体）
+     */
+    public static int frameLength(Packet msg) {
+        byte[] body = msg.getBody();
+        int bodyLength = body != null ? body.length : 0;
+        return switch (msg) {
+            case GatewayPacket ignored -> 8 + bodyLength; // 4 + 2 + 2 + body
+            case GatewayInternalPacket ignored -> 12 + bodyLength; // 4 + 4 + 4 + body
+            case GameServerPacket ignored -> 24 + bodyLength; // 4 + 2 + 2 + 8 + 8 + body
+            default -> throw new IllegalArgumentException("Unknown packet type: " + msg.getClass());
+        };
+    }
+
+    /**
+     * 写出不含 length 字段的帧（协议头 + 消息体）
+     * <p>
+     * 供自带分帧的传输层（如 WebSocket 二进制帧）直接复用。
+     * </p>
+     */
+    public static void writeFrame(Packet msg, ByteBuf out) {
         switch (msg) {
             case GatewayPacket gp -> encodeGatewayPacket(gp, out);
             case GatewayInternalPacket gip -> encodeGatewayInternalPacket(gip, out);
@@ -26,58 +63,42 @@ public class PacketEncoder extends MessageToByteEncoder<Packet> {
 
     /**
      * 编码网关协议
-     * 4 length + 4 messageId + 2 seq + 2 magicNum + body
+     * 4 messageId + 2 seq + 2 magicNum + body
      */
-    private void encodeGatewayPacket(GatewayPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLength = body != null ? body.length : 0;
-        int totalLength = 12 + bodyLength; // 4 + 4 + 2 + 2 + body
-
-        out.writeInt(totalLength);
+    private static void encodeGatewayPacket(GatewayPacket packet, ByteBuf out) {
         out.writeInt(packet.getMessageId());
         out.writeShort(packet.getSeq());
         out.writeShort(packet.getMagicNum());
-        if (body != null && bodyLength > 0) {
-            out.writeBytes(body);
-        }
+        writeBody(packet.getBody(), out);
     }
 
     /**
      * 编码网关内部协议
-     * 4 length + 4 sessionId + 4 messageId + 4 seq + body
+     * 4 sessionId + 4 messageId + 4 seq + body
      */
-    private void encodeGatewayInternalPacket(GatewayInternalPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLength = body != null ? body.length : 0;
-        int totalLength = 16 + bodyLength; // 4 + 4 + 4 + 4 + body
-
-        out.writeInt(totalLength);
+    private static void encodeGatewayInternalPacket(GatewayInternalPacket packet, ByteBuf out) {
         out.writeInt(packet.getSessionId());
         out.writeInt(packet.getMessageId());
         out.writeInt(packet.getSeqInt());
-        if (body != null && bodyLength > 0) {
-            out.writeBytes(body);
-        }
+        writeBody(packet.getBody(), out);
     }
 
     /**
      * 编码游戏服协议
-     * 4 length + 4 messageId + 2 seq + 2 gateId + 8 roleId + 8 conId + body
+     * 4 messageId + 2 seq + 2 gateId + 8 roleId + 8 conId + body
      */
-    private void encodeGameServerPacket(GameServerPacket packet, ByteBuf out) {
-        byte[] body = packet.getBody();
-        int bodyLength = body != null ? body.length : 0;
-        int totalLength = 28 + bodyLength; // 4 + 4 + 2 + 2 + 8 + 8 + body
-
-        out.writeInt(totalLength);
+    private static void encodeGameServerPacket(GameServerPacket packet, ByteBuf out) {
         out.writeInt(packet.getMessageId());
         out.writeShort(packet.getSeq());
         out.writeShort(packet.getGateId());
         out.writeLong(packet.getRoleId());
         out.writeLong(packet.getConId());
-        if (body != null && bodyLength > 0) {
+        writeBody(packet.getBody(), out);
+    }
+
+    private static void writeBody(byte[] body, ByteBuf out) {
+        if (body != null && body.length > 0) {
             out.writeBytes(body);
         }
     }
 }
-
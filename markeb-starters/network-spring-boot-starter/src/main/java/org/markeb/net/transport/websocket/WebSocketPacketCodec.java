@@ -0,0 +1,76 @@
+package org.markeb.net.transport.websocket;
+
+import org.markeb.net.protocol.Packet;
+import org.markeb.net.protocol.ProtocolType;
+import org.markeb.net.protocol.codec.PacketDecoder;
+import org.markeb.net.protocol.codec.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 精简模式的 WebSocket 数据包编解码器
+ * <p>
+ * WebSocket 本身已经分帧，一个二进制帧直接对应一个 {@link Packet}，帧内不再携带 length 字段，
+ * 省掉 {@link WebSocketFrameHandler} 的 retain 转发和 {@link PacketDecoder} 的第二次长度分帧。
+ * 出站时按包大小从 Channel 的分配器（池化）申请缓冲区，直接写入协议头和消息体后包装成 {@link BinaryWebSocketFrame}。
+ * </p>
+ * <p>
+ * 约定一个消息只用一个完整帧发送：收到分片帧（非 FIN）时按协议错误关闭连接；
+ * 帧长度不足协议头时按无效数据关闭连接，不把越界异常抛进 pipeline。
+ * Ping/Pong/Close 由 {@code WebSocketServerProtocolHandler} 处理，不会到达这里。
+ * </p>
+ */
+public class WebSocketPacketCodec extends MessageToMessageCodec<WebSocketFrame, Packet> {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketPacketCodec.class);
+
+    private final ProtocolType protocolType;
+
+    public WebSocketPacketCodec(ProtocolType protocolType) {
+        this.protocolType = protocolType;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Packet msg, List<Object> out) {
+        ByteBuf buf = ctx.alloc().ioBuffer(PacketEncoder.frameLength(msg));
+        try {
+            PacketEncoder.writeFrame(msg, buf);
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+        out.add(new BinaryWebSocketFrame(buf));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) {
+        if (!frame.isFinalFragment() || !(frame instanceof BinaryWebSocketFrame)) {
+            log.warn("Unsupported WebSocket frame {} (final={}) from {}, closing",
+                    frame.getClass().getSimpleName(), frame.isFinalFragment(), ctx.channel().remoteAddress());
+            close(ctx, WebSocketCloseStatus.INVALID_MESSAGE_TYPE);
+            return;
+        }
+        int headerLength = protocolType.getHeaderLength() - PacketEncoder.LENGTH_FIELD_LENGTH;
+        if (frame.content().readableBytes() < headerLength) {
+            log.warn("Short WebSocket frame ({} < {} bytes) from {}, closing",
+                    frame.content().readableBytes(), headerLength, ctx.channel().remoteAddress());
+            close(ctx, WebSocketCloseStatus.INVALID_PAYLOAD_DATA);
+            return;
+        }
+        // MessageToMessageCodec 会在 decode 返回后释放 frame
+        out.add(PacketDecoder.decodeFrame(protocolType, frame.content()));
+    }
+
+    private static void close(ChannelHandlerContext ctx, WebSocketCloseStatus status) {
+        ctx.writeAndFlush(new CloseWebSocketFrame(status)).addListener(f -> ctx.close());
+    }
+}
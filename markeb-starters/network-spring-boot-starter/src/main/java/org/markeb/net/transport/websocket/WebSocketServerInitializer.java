@@ -2,27 +2,52 @@ package org.markeb.net.transport.websocket;
 
 import org.markeb.net.handler.MessageDispatcher;
 import org.markeb.net.handler.PacketHandler;
+import org.markeb.net.idle.SharedIdleStateHandler;
+import org.markeb.net.metrics.NetworkInstrumentation;
 import org.markeb.net.protocol.ProtocolType;
 import org.markeb.net.protocol.codec.PacketDecoder;
 import org.markeb.net.protocol.codec.PacketEncoder;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket 服务器 Channel 初始化器
+ * <p>
+ * 支持两种模式：
+ * <ul>
+ *   <li>兼容模式（默认）：帧内容按 TCP 字节流处理，仍带 length 字段，经 {@link PacketDecoder} 再次分帧</li>
+ *   <li>精简模式（leanMode）：一个二进制帧对应一个数据包，帧内不带 length 字段，由 {@link WebSocketPacketCodec} 直接编解码；
+ *       握手完成后 pipeline 中不再有聚合器，压缩只对协商了 permessage-deflate 的客户端生效，且跳过小于阈值的帧</li>
+ * </ul>
+ * </p>
  */
 public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel> {
 
+    /**
+     * 精简模式下握手请求允许的最大内容长度（握手请求本身没有 body）
+     */
+    private static final int HANDSHAKE_MAX_CONTENT_LENGTH = 8192;
+
+    /**
+     * permessage-deflate 的最大窗口大小
+     */
+    private static final int MAX_WINDOW_SIZE = 15;
+
     private final SslContext sslContext;
     private final String websocketPath;
     private final int maxFrameSize;
@@ -33,6 +58,9 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
     private final ProtocolType protocolType;
     private final int maxFrameLength;
     private final MessageDispatcher messageDispatcher;
+    private final NetworkInstrumentation instrumentation;
+    private final boolean leanMode;
+    private final int compressionThreshold;
 
     public WebSocketServerInitializer(
             SslContext sslContext,
@@ -44,7 +72,10 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
             long allIdleTime,
             ProtocolType protocolType,
             int maxFrameLength,
-            MessageDispatcher messageDispatcher) {
+            MessageDispatcher messageDispatcher,
+            NetworkInstrumentation instrumentation,
+            boolean leanMode,
+            int compressionThreshold) {
         this.sslContext = sslContext;
         this.websocketPath = websocketPath;
         this.maxFrameSize = maxFrameSize;
@@ -55,12 +86,20 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         this.protocolType = protocolType;
         this.maxFrameLength = maxFrameLength;
         this.messageDispatcher = messageDispatcher;
+        this.instrumentation = instrumentation;
+        this.leanMode = leanMode;
+        this.compressionThreshold = compressionThreshold;
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
         ChannelPipeline pipeline = ch.pipeline();
 
+        // 网络埋点（字节层，统计的是 SSL 之前的原始流量）
+        if (instrumentation != null) {
+            pipeline.addLast(NetworkInstrumentation.WIRE_HANDLER_NAME, instrumentation.wireHandler());
+        }
+
         // SSL 支持（可选）
         if (sslContext != null) {
             pipeline.addLast("ssl", sslContext.newHandler(ch.alloc()));
@@ -68,24 +107,35 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
 
         // 空闲检测
         pipeline.addLast("idleStateHandler",
-                new IdleStateHandler(readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.SECONDS));
+                new SharedIdleStateHandler(readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.SECONDS));
 
         // HTTP 编解码
         pipeline.addLast("httpServerCodec", new HttpServerCodec());
-        pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(65536));
-        pipeline.addLast("chunkedWriteHandler", new ChunkedWriteHandler());
+        if (leanMode) {
+            // 聚合器只用于握手请求，握手完成后由 WebSocketServerHandshaker 自动移除
+            pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(HANDSHAKE_MAX_CONTENT_LENGTH));
+        } else {
+            pipeline.addLast("httpObjectAggregator", new HttpObjectAggregator(65536));
+            pipeline.addLast("chunkedWriteHandler", new ChunkedWriteHandler());
+        }
 
-        // WebSocket 压缩（可选）- 使用 permessage-deflate 扩展
+        // WebSocket 压缩（可选）- 使用 permessage-deflate 扩展，只有客户端在握手中协商后才会真正装配编解码器
         if (enableCompression) {
-            @SuppressWarnings("deprecation")
-            WebSocketServerCompressionHandler compressionHandler = new WebSocketServerCompressionHandler();
-            pipeline.addLast("webSocketCompression", compressionHandler);
+            pipeline.addLast("webSocketCompression",
+                    leanMode ? newLeanCompressionHandler() : newCompressionHandler());
         }
 
         // WebSocket 协议处理
         pipeline.addLast("webSocketServerProtocolHandler",
                 new WebSocketServerProtocolHandler(websocketPath, null, true, maxFrameSize));
 
+        if (leanMode) {
+            // 一个二进制帧 <-> 一个数据包
+            pipeline.addLast("webSocketPacketCodec", new WebSocketPacketCodec(protocolType));
+            addHandlers(pipeline);
+            return;
+        }
+
         // WebSocket 帧处理 -> ByteBuf
         pipeline.addLast("webSocketFrameHandler", new WebSocketFrameHandler());
 
@@ -96,10 +146,46 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         pipeline.addLast("decoder", new PacketDecoder(protocolType, maxFrameLength));
         pipeline.addLast("encoder", new PacketEncoder());
 
+        addHandlers(pipeline);
+    }
+
+    private void addHandlers(ChannelPipeline pipeline) {
+        // 网络埋点（消息层）
+        if (instrumentation != null) {
+            pipeline.addLast(NetworkInstrumentation.MESSAGE_HANDLER_NAME, instrumentation.messageHandler());
+        }
+
         // 消息处理
         pipeline.addLast("handler", new PacketHandler(messageDispatcher));
     }
 
+    @SuppressWarnings("deprecation")
+    private ChannelHandler newCompressionHandler() {
+        return new WebSocketServerCompressionHandler();
+    }
+
+    /**
+     * 精简模式的压缩处理器：小于阈值的出站帧不压缩（游戏小包压缩收益低于 CPU 开销）
+     */
+    @SuppressWarnings("deprecation")
+    private ChannelHandler newLeanCompressionHandler() {
+        int threshold = compressionThreshold;
+        WebSocketExtensionFilterProvider filterProvider = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return frame -> frame.content().readableBytes() < threshold;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+        return new WebSocketServerExtensionHandler(new PerMessageDeflateServerExtensionHandshaker(
+                6, ZlibCodecFactory.isSupportingWindowSizeAndMemLevel(), MAX_WINDOW_SIZE,
+                false, false, filterProvider));
+    }
+
     /**
      * 构建器
      */
@@ -118,6 +204,9 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
         private ProtocolType protocolType = ProtocolType.GATEWAY;
         private int maxFrameLength = 1024 * 1024;
         private MessageDispatcher messageDispatcher;
+        private NetworkInstrumentation instrumentation;
+        private boolean leanMode = false;
+        private int compressionThreshold = 256;
 
         public Builder sslContext(SslContext sslContext) {
             this.sslContext = sslContext;
@@ -169,6 +258,21 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
             return this;
         }
 
+        public Builder instrumentation(NetworkInstrumentation instrumentation) {
+            this.instrumentation = instrumentation;
+            return this;
+        }
+
+        public Builder leanMode(boolean leanMode) {
+            this.leanMode = leanMode;
+            return this;
+        }
+
+        public Builder compressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
         public WebSocketServerInitializer build() {
             return new WebSocketServerInitializer(
                     sslContext,
@@ -180,7 +284,10 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
                     allIdleTime,
                     protocolType,
                     maxFrameLength,
-                    messageDispatcher
+                    messageDispatcher,
+                    instrumentation,
+                    leanMode,
+                    compressionThreshold
             );
         }
     }
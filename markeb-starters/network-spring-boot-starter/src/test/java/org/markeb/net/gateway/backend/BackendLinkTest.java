@@ -0,0 +1,217 @@
+package org.markeb.net.gateway.backend;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 后端连接状态机：排队写出、建连失败退避、断线重连、注册失败和关闭
+ * <p>
+ * 使用 LocalChannel，不占用端口；通过 channel 工厂记录每次建连的时间。
+ */
+class BackendLinkTest {
+
+    private static final long INITIAL_BACKOFF = 20;
+    private static final long MAX_BACKOFF = 80;
+
+    private DefaultEventLoopGroup group;
+    private LocalAddress address;
+    private Channel server;
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+    private final List<Channel> accepted = new CopyOnWriteArrayList<>();
+    private final List<Long> attempts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("backend-link-" + System.nanoTime());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    void writesQueuedWhileConnectingAreFlushedInOrder() throws Exception {
+        startServer();
+        BackendLink link = newLink(LocalChannel::new, 16);
+
+        // IDLE 状态下的首次写入触发建连
+        CompletableFuture<Void> a = link.write("a");
+        CompletableFuture<Void> b = link.write("b");
+        CompletableFuture<Void> c = link.write("c");
+        CompletableFuture.allOf(a, b, c).get(1, TimeUnit.SECONDS);
+
+        awaitTrue(() -> received.size() == 3);
+        assertEquals(List.of("a", "b", "c"), received);
+        assertEquals(BackendLink.State.CONNECTED, link.state());
+        assertEquals(0, link.queuedWrites());
+        assertEquals(1, attempts.size());
+
+        // 已连接后走快路径
+        link.write("d").get(1, TimeUnit.SECONDS);
+        awaitTrue(() -> received.size() == 4);
+        link.close();
+    }
+
+    @Test
+    void queueFullFailsImmediately() {
+        BackendLink link = newLink(LocalChannel::new, 0);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> link.write("a").get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("queue full"));
+        link.close();
+    }
+
+    @Test
+    void connectFailureFailsQueuedWritesAndBacksOffExponentially() throws Exception {
+        BackendLink link = newLink(LocalChannel::new, 16);
+
+        CompletableFuture<Void> queued = link.write("a");
+        assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        awaitTrue(() -> attempts.size() >= 5);
+        link.close();
+
+        // 每次重连间隔不小于当前退避，退避翻倍直到上限
+        long[] expected = {INITIAL_BACKOFF, 2 * INITIAL_BACKOFF, MAX_BACKOFF, MAX_BACKOFF};
+        for (int i = 0; i < expected.length; i++) {
+            long gap = TimeUnit.NANOSECONDS.toMillis(attempts.get(i + 1) - attempts.get(i));
+            assertTrue(gap >= expected[i], "attempt " + (i + 1) + " gap " + gap + "ms < " + expected[i] + "ms");
+        }
+    }
+
+    @Test
+    void writeDuringBackoffFailsFast() throws Exception {
+        BackendLink link = newLink(LocalChannel::new, 16);
+        link.connect();
+        awaitTrue(() -> link.state() == BackendLink.State.BACKOFF);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> link.write("a").get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("unavailable"));
+        link.close();
+    }
+
+    @Test
+    void reconnectsWhenBackendComesUpAndAfterDisconnect() throws Exception {
+        BackendLink link = newLink(LocalChannel::new, 16);
+        link.connect();
+        awaitTrue(() -> link.state() == BackendLink.State.BACKOFF);
+
+        startServer();
+        awaitTrue(link::isConnected);
+        Channel first = link.channel();
+
+        // 后端主动断开，退避后重新连上新的 channel
+        awaitTrue(() -> accepted.size() == 1);
+        accepted.get(0).close().syncUninterruptibly();
+        awaitTrue(() -> link.isConnected() && link.channel() != first);
+        assertEquals(BackendLink.State.CONNECTED, link.state());
+
+        link.write("after-reconnect").get(1, TimeUnit.SECONDS);
+        awaitTrue(() -> received.contains("after-reconnect"));
+        link.close();
+    }
+
+    @Test
+    void registrationFailureStillSchedulesReconnect() throws Exception {
+        // NIO channel 无法注册到 DefaultEventLoop，失败的 channel 没有 EventLoop
+        BackendLink link = newLink(NioSocketChannel::new, 16);
+
+        CompletableFuture<Void> queued = link.write("a");
+        assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        awaitTrue(() -> attempts.size() >= 3);
+        assertNotEquals(BackendLink.State.CONNECTED, link.state());
+        link.close();
+    }
+
+    @Test
+    void closeStopsReconnectingAndFailsWrites() throws Exception {
+        BackendLink link = newLink(LocalChannel::new, 16);
+        link.connect();
+        awaitTrue(() -> link.state() == BackendLink.State.BACKOFF);
+        link.close();
+
+        int attemptsAtClose = attempts.size();
+        Thread.sleep(3 * MAX_BACKOFF);
+        assertEquals(attemptsAtClose, attempts.size());
+        assertEquals(BackendLink.State.CLOSED, link.state());
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> link.write("a").get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("closed"));
+    }
+
+    private BackendLink newLink(Supplier<Channel> channels, int maxQueuedWrites) {
+        ChannelFactory<Channel> factory = () -> {
+            attempts.add(System.nanoTime());
+            return channels.get();
+        };
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channelFactory(factory)
+                // 每次重连都是新 channel，handler 需要可共享
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                    }
+                });
+        return new BackendLink("test", bootstrap, address, maxQueuedWrites, INITIAL_BACKOFF, MAX_BACKOFF);
+    }
+
+    private void startServer() {
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        accepted.add(ch);
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                received.add(msg);
+                            }
+                        });
+                    }
+                })
+                .bind(address)
+                .syncUninterruptibly()
+                .channel();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
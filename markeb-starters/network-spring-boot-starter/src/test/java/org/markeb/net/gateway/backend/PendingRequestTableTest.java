@@ -0,0 +1,162 @@
+package org.markeb.net.gateway.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * pending 请求表：超时摘除、响应与超时竞争、会话清理和提前移除
+ */
+class PendingRequestTableTest {
+
+    @Test
+    void putReplacesAndRemoveReturnsOnce() {
+        PendingRequestTable<String> table = new PendingRequestTable<>(1, TimeUnit.MINUTES);
+        table.put(1, 10, "a");
+        table.put(1, 10, "b");
+        table.put(1, 11, "c");
+
+        assertEquals(2, table.size());
+        assertEquals("b", table.remove(1, 10));
+        assertNull(table.remove(1, 10));
+        assertEquals("c", table.remove(1, 11));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void keyKeepsNegativeSeqApart() {
+        assertNotEquals(PendingRequestTable.key(1, -1), PendingRequestTable.key(0, -1));
+        assertNotEquals(PendingRequestTable.key(1, -1), PendingRequestTable.key(2, 0));
+    }
+
+    @Test
+    void expireRemovesOnlyTimedOutRequestsInDeadlineOrder() throws Exception {
+        // 单分段，所有会话共享一条时间链表
+        PendingRequestTable<String> table = new PendingRequestTable<>(30, TimeUnit.MILLISECONDS, 1);
+        table.put(1, 1, "old-1");
+        table.put(2, 1, "old-2");
+        table.put(1, 2, "old-3");
+        Thread.sleep(60);
+        table.put(3, 1, "fresh");
+
+        List<String> expired = new ArrayList<>();
+        int count = table.expire((sessionId, seq, value) -> expired.add(value));
+
+        assertEquals(3, count);
+        assertEquals(List.of("old-1", "old-2", "old-3"), expired);
+        assertEquals(1, table.size());
+        assertEquals("fresh", table.remove(3, 1));
+        assertEquals(0, table.expire(null));
+    }
+
+    @Test
+    void replacedRequestGetsNewDeadline() throws Exception {
+        PendingRequestTable<String> table = new PendingRequestTable<>(40, TimeUnit.MILLISECONDS, 1);
+        table.put(1, 1, "first");
+        Thread.sleep(60);
+        // 同一序号重新登记，从时间链表头部移到尾部
+        table.put(1, 1, "retry");
+
+        assertEquals(0, table.expire(null));
+        assertEquals("retry", table.remove(1, 1));
+    }
+
+    @Test
+    void removedBeforeExpiryIsNeverReported() throws Exception {
+        PendingRequestTable<String> table = new PendingRequestTable<>(20, TimeUnit.MILLISECONDS, 1);
+        table.put(1, 1, "answered");
+        table.put(1, 2, "lost");
+        assertEquals("answered", table.remove(1, 1));
+        Thread.sleep(40);
+
+        List<String> expired = new ArrayList<>();
+        assertEquals(1, table.expire((sessionId, seq, value) -> expired.add(value)));
+        assertEquals(List.of("lost"), expired);
+        assertNull(table.remove(1, 1));
+        assertNull(table.remove(1, 2));
+    }
+
+    @Test
+    void removeSessionClearsOnlyThatSession() throws Exception {
+        PendingRequestTable<String> table = new PendingRequestTable<>(20, TimeUnit.MILLISECONDS, 1);
+        for (int seq = 0; seq < 5; seq++) {
+            table.put(1, seq, "s1-" + seq);
+            table.put(2, seq, "s2-" + seq);
+        }
+        // 从会话链表中间移除一个，链表仍然完整
+        assertEquals("s1-2", table.remove(1, 2));
+
+        assertEquals(4, table.removeSession(1));
+        assertEquals(0, table.removeSession(1));
+        assertEquals(5, table.size());
+        assertNull(table.remove(1, 0));
+        assertEquals("s2-0", table.remove(2, 0));
+
+        Thread.sleep(40);
+        List<Integer> expiredSessions = new ArrayList<>();
+        assertEquals(4, table.expire((sessionId, seq, value) -> expiredSessions.add(sessionId)));
+        assertEquals(List.of(2, 2, 2, 2), expiredSessions);
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void responseRacingTimeoutResolvesEachRequestOnce() throws Exception {
+        int sessions = 64;
+        int perSession = 500;
+        PendingRequestTable<Integer> table = new PendingRequestTable<>(1, TimeUnit.MILLISECONDS);
+        for (int s = 0; s < sessions; s++) {
+            for (int seq = 0; seq < perSession; seq++) {
+                table.put(s, seq, s * perSession + seq);
+            }
+        }
+
+        ConcurrentHashMap<Integer, Boolean> resolved = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread responder = new Thread(() -> {
+            await(start);
+            for (int s = 0; s < sessions; s++) {
+                for (int seq = 0; seq < perSession; seq++) {
+                    Integer value = table.remove(s, seq);
+                    if (value != null && resolved.putIfAbsent(value, Boolean.TRUE) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            }
+        });
+        Thread expirer = new Thread(() -> {
+            await(start);
+            while (table.size() > 0) {
+                table.expire((sessionId, seq, value) -> {
+                    if (resolved.putIfAbsent(value, Boolean.TRUE) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                });
+            }
+        });
+        responder.start();
+        expirer.start();
+        start.countDown();
+        responder.join(10_000);
+        expirer.join(10_000);
+
+        assertEquals(0, duplicates.get());
+        assertEquals(sessions * perSession, resolved.size());
+        assertEquals(0, table.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.markeb.net.idle;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 时间轮到期、跨圈、提前摘除和重新挂入
+ * <p>
+ * 所有操作都提交到时间轮所属的 EventLoop 上执行，与生产中的线程约束一致。
+ */
+class HashedIdleWheelTest {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private EventLoop eventLoop;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    void expiresNotBeforeDeadline() throws Exception {
+        HashedIdleWheel wheel = new HashedIdleWheel(eventLoop, TICK_NANOS, 8);
+        RecordingNode node = new RecordingNode();
+        long deadline = onLoop(() -> {
+            long d = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+            wheel.schedule(node, d);
+            return d;
+        });
+
+        assertTrue(node.fired.await(1, TimeUnit.SECONDS));
+        assertEquals(1, node.firedAt.size());
+        // 精度为一个 tick
+        assertTrue(node.firedAt.get(0) >= deadline - TICK_NANOS);
+        assertEquals(0, (int) onLoop(wheel::size));
+    }
+
+    @Test
+    void deadlineBeyondOneRoundWrapsAround() throws Exception {
+        // 4 个槽位、到期需要 25 个 tick，对应槽位在前几圈被扫到时都不能触发
+        HashedIdleWheel wheel = new HashedIdleWheel(eventLoop, TICK_NANOS, 4);
+        RecordingNode far = new RecordingNode();
+        RecordingNode near = new RecordingNode();
+        long[] deadlines = onLoop(() -> {
+            long now = System.nanoTime();
+            long farDeadline = now + 25 * TICK_NANOS;
+            long nearDeadline = now + 3 * TICK_NANOS;
+            wheel.schedule(far, farDeadline);
+            wheel.schedule(near, nearDeadline);
+            return new long[]{farDeadline, nearDeadline};
+        });
+
+        assertTrue(near.fired.await(1, TimeUnit.SECONDS));
+        assertTrue(far.fired.await(1, TimeUnit.SECONDS));
+        assertEquals(1, far.firedAt.size());
+        assertTrue(far.firedAt.get(0) >= deadlines[0] - TICK_NANOS);
+        assertTrue(near.firedAt.get(0) >= deadlines[1] - TICK_NANOS);
+    }
+
+    @Test
+    void cancelledNodeNeverFires() throws Exception {
+        HashedIdleWheel wheel = new HashedIdleWheel(eventLoop, TICK_NANOS, 8);
+        RecordingNode cancelled = new RecordingNode();
+        RecordingNode kept = new RecordingNode();
+        onLoop(() -> {
+            long now = System.nanoTime();
+            wheel.schedule(cancelled, now + 5 * TICK_NANOS);
+            wheel.schedule(kept, now + 10 * TICK_NANOS);
+            wheel.cancel(cancelled);
+            return null;
+        });
+
+        // kept 晚于 cancelled 到期，它触发时 cancelled 的槽位已经被扫过
+        assertTrue(kept.fired.await(1, TimeUnit.SECONDS));
+        assertTrue(cancelled.firedAt.isEmpty());
+        assertEquals(0, (int) onLoop(wheel::size));
+
+        // 重复摘除是安全的
+        onLoop(() -> {
+            wheel.cancel(cancelled);
+            return null;
+        });
+        assertEquals(0, (int) onLoop(wheel::size));
+    }
+
+    @Test
+    void rescheduleReplacesDeadline() throws Exception {
+        HashedIdleWheel wheel = new HashedIdleWheel(eventLoop, TICK_NANOS, 8);
+        RecordingNode node = new RecordingNode();
+        RecordingNode marker = new RecordingNode();
+        long deadline = onLoop(() -> {
+            long now = System.nanoTime();
+            wheel.schedule(node, now + 3 * TICK_NANOS);
+            wheel.schedule(marker, now + 10 * TICK_NANOS);
+            long later = now + 20 * TICK_NANOS;
+            wheel.schedule(node, later);
+            return later;
+        });
+
+        assertEquals(2, (int) onLoop(wheel::size));
+        assertTrue(marker.fired.await(1, TimeUnit.SECONDS));
+        assertTrue(node.firedAt.isEmpty());
+        assertTrue(node.fired.await(1, TimeUnit.SECONDS));
+        assertEquals(1, node.firedAt.size());
+        assertTrue(node.firedAt.get(0) >= deadline - TICK_NANOS);
+    }
+
+    @Test
+    void nodeCanRescheduleItselfFromCallback() throws Exception {
+        HashedIdleWheel wheel = new HashedIdleWheel(eventLoop, TICK_NANOS, 4);
+        CountDownLatch thrice = new CountDownLatch(3);
+        RecordingNode node = new RecordingNode() {
+            @Override
+            void onTimeout(long now) {
+                super.onTimeout(now);
+                thrice.countDown();
+                if (firedAt.size() < 3) {
+                    wheel.schedule(this, now + 3 * TICK_NANOS);
+                }
+            }
+        };
+        onLoop(() -> {
+            wheel.schedule(node, System.nanoTime() + TICK_NANOS);
+            return null;
+        });
+
+        assertTrue(thrice.await(1, TimeUnit.SECONDS));
+        assertEquals(3, node.firedAt.size());
+        assertEquals(0, (int) onLoop(wheel::size));
+    }
+
+    private <T> T onLoop(Callable<T> task) throws Exception {
+        return eventLoop.submit(task).get(1, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingNode extends SharedIdleStateHandler {
+        final List<Long> firedAt = new CopyOnWriteArrayList<>();
+        final CountDownLatch fired = new CountDownLatch(1);
+
+        RecordingNode() {
+            super(IdleDetector.shared(), 0, 0, 0, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        void onTimeout(long now) {
+            firedAt.add(now);
+            fired.countDown();
+        }
+    }
+}
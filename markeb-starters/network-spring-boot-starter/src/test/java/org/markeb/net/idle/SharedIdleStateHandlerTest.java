@@ -0,0 +1,158 @@
+package org.markeb.net.idle;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 空闲检测处理器：读、写、读写空闲事件的触发时机、首次标记，以及读写对截止时间的顺延
+ * <p>
+ * 时间轮使用手动推进的时间源，EmbeddedChannel 冻结自身时钟后按 tick 同步推进，tick 任务只在测试推进时执行。
+ */
+class SharedIdleStateHandlerTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final List<IdleStateEvent> events = new ArrayList<>();
+    private long nanoTime = TimeUnit.SECONDS.toNanos(1);
+    private final IdleDetector detector = new IdleDetector(TICK_MILLIS, 8, () -> nanoTime);
+
+    @Test
+    void readerIdleFiresAfterTimeoutAndRepeats() {
+        EmbeddedChannel channel = channel(100, 0, 0);
+
+        advance(channel, 90);
+        assertEquals(List.of(), events);
+        advance(channel, 10);
+        assertEquals(List.of(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT), drain());
+
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.READER_IDLE_STATE_EVENT), drain());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void readPostponesReaderIdleAndResetsFirstFlag() {
+        EmbeddedChannel channel = channel(100, 0, 0);
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT), drain());
+
+        advance(channel, 60);
+        channel.writeInbound("ping");
+        assertEquals("ping", channel.readInbound());
+
+        // 上次读取在 160ms，下一次读空闲在 260ms，而不是原定的 200ms
+        advance(channel, 90);
+        assertEquals(List.of(), events);
+        advance(channel, 10);
+        assertEquals(List.of(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT), drain());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void writerIdleCountsFromLastWrite() {
+        EmbeddedChannel channel = channel(0, 100, 0);
+
+        advance(channel, 50);
+        channel.writeOutbound("pong");
+        assertEquals("pong", channel.readOutbound());
+        // 读取不影响写空闲
+        channel.writeInbound("ping");
+        channel.readInbound();
+
+        advance(channel, 90);
+        assertEquals(List.of(), events);
+        advance(channel, 10);
+        assertEquals(List.of(IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT), drain());
+
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.WRITER_IDLE_STATE_EVENT), drain());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void allIdleCountsFromLatestReadOrWrite() {
+        EmbeddedChannel channel = channel(0, 0, 100);
+
+        advance(channel, 40);
+        channel.writeInbound("ping");
+        channel.readInbound();
+        advance(channel, 40);
+        channel.writeOutbound("pong");
+        channel.readOutbound();
+
+        // 最近一次读写在 80ms，读写空闲在 180ms
+        advance(channel, 90);
+        assertEquals(List.of(), events);
+        advance(channel, 10);
+        assertEquals(List.of(IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT), drain());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void allThreeStatesFireIndependently() {
+        EmbeddedChannel channel = channel(100, 200, 300);
+
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT), drain());
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.READER_IDLE_STATE_EVENT,
+                IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT), drain());
+        advance(channel, 100);
+        assertEquals(List.of(IdleStateEvent.READER_IDLE_STATE_EVENT,
+                IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT), drain());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void closedChannelLeavesTheWheel() {
+        EmbeddedChannel channel = channel(100, 100, 100);
+        assertEquals(1, detector.trackedChannels());
+
+        channel.close();
+        assertEquals(0, detector.trackedChannels());
+        advance(channel, 300);
+        assertEquals(List.of(), events);
+    }
+
+    private EmbeddedChannel channel(long readerIdleMillis, long writerIdleMillis, long allIdleMillis) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // 先冻结时钟再加入处理器，tick 任务从冻结的时刻开始计时
+        channel.freezeTime();
+        channel.pipeline().addLast(
+                new SharedIdleStateHandler(detector, readerIdleMillis, writerIdleMillis, allIdleMillis,
+                        TimeUnit.MILLISECONDS),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                        events.add((IdleStateEvent) evt);
+                    }
+                });
+        return channel;
+    }
+
+    /**
+     * 按 tick 同步推进时间源和 EventLoop 时钟，每个 tick 执行一次到期的时间轮任务
+     */
+    private void advance(EmbeddedChannel channel, long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += TICK_MILLIS) {
+            nanoTime += TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+            channel.advanceTimeBy(TICK_MILLIS, TimeUnit.MILLISECONDS);
+            channel.runScheduledPendingTasks();
+        }
+    }
+
+    private List<IdleStateEvent> drain() {
+        List<IdleStateEvent> drained = new ArrayList<>(events);
+        events.clear();
+        return drained;
+    }
+}
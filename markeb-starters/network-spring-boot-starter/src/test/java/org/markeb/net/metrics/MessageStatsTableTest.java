@@ -0,0 +1,51 @@
+package org.markeb.net.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 消息ID统计表：超出上限的消息ID归入同一个 other 统计，表和新建回调都不再增长
+ */
+class MessageStatsTableTest {
+
+    @Test
+    void idsBeyondLimitShareOtherStats() {
+        MessageStatsTable table = new MessageStatsTable(4);
+        List<Integer> created = new ArrayList<>();
+
+        for (int id = 0; id < 4; id++) {
+            assertEquals(id, table.get(id, stats -> created.add(stats.getMessageId())).getMessageId());
+        }
+        MessageStats other = table.get(1_000, stats -> created.add(stats.getMessageId()));
+        for (int id = 1_001; id < 100_000; id++) {
+            assertSame(other, table.get(id, stats -> created.add(stats.getMessageId())));
+        }
+
+        assertEquals(NetworkInstrumentation.OTHER_MESSAGE_ID, other.getMessageId());
+        assertEquals(4, table.size());
+        assertEquals(List.of(0, 1, 2, 3, NetworkInstrumentation.OTHER_MESSAGE_ID), created);
+        // 已登记的ID仍然单独统计
+        assertEquals(2, table.get(2, null).getMessageId());
+
+        List<Integer> visited = new ArrayList<>();
+        table.forEach(stats -> visited.add(stats.getMessageId()));
+        assertEquals(5, visited.size());
+        assertTrue(visited.contains(NetworkInstrumentation.OTHER_MESSAGE_ID));
+    }
+
+    @Test
+    void growsBeyondInitialCapacityBelowLimit() {
+        MessageStatsTable table = new MessageStatsTable(1024);
+        for (int id = 0; id < 500; id++) {
+            table.get(id * 31, null);
+        }
+        assertEquals(500, table.size());
+        for (int id = 0; id < 500; id++) {
+            assertEquals(id * 31, table.get(id * 31, null).getMessageId());
+        }
+    }
+}
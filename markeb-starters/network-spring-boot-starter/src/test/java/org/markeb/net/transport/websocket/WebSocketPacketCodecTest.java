@@ -0,0 +1,124 @@
+package org.markeb.net.transport.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import org.junit.jupiter.api.Test;
+import org.markeb.net.protocol.GameServerPacket;
+import org.markeb.net.protocol.GatewayInternalPacket;
+import org.markeb.net.protocol.GatewayPacket;
+import org.markeb.net.protocol.ProtocolType;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 精简模式 WebSocket 编解码：一个二进制帧对应一个数据包，帧内不带 length 字段；分片帧和短帧关闭连接
+ */
+class WebSocketPacketCodecTest {
+
+    private static final byte[] BODY = "payload".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void gatewayPacketRoundTrip() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GATEWAY));
+        GatewayPacket decoded = roundTrip(channel, new GatewayPacket(1001, (short) 7, GatewayPacket.DEFAULT_MAGIC, BODY),
+                8 + BODY.length);
+
+        assertEquals(1001, decoded.getMessageId());
+        assertEquals(7, decoded.getSeq());
+        assertEquals(GatewayPacket.DEFAULT_MAGIC, decoded.getMagicNum());
+        assertArrayEquals(BODY, decoded.getBody());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void gatewayInternalPacketRoundTrip() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GATEWAY_INTERNAL));
+        GatewayInternalPacket decoded = roundTrip(channel, new GatewayInternalPacket(42, 1001, 70_000, BODY),
+                12 + BODY.length);
+
+        assertEquals(42, decoded.getSessionId());
+        assertEquals(1001, decoded.getMessageId());
+        assertEquals(70_000, decoded.getSeqInt());
+        assertArrayEquals(BODY, decoded.getBody());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void gameServerPacketRoundTripWithEmptyBody() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GAME_SERVER));
+        GameServerPacket decoded = roundTrip(channel,
+                new GameServerPacket(1001, (short) 3, (short) 2, 10_000_000_001L, 99L, new byte[0]), 24);
+
+        assertEquals(1001, decoded.getMessageId());
+        assertEquals(3, decoded.getSeq());
+        assertEquals(2, decoded.getGateId());
+        assertEquals(10_000_000_001L, decoded.getRoleId());
+        assertEquals(99L, decoded.getConId());
+        assertEquals(0, decoded.getBody().length);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void shortFrameClosesWithInvalidPayload() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GATEWAY));
+        // 网关协议头 8 字节，这里只有 msgId 和半个 seq
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(Unpooled.buffer().writeInt(1001).writeByte(0));
+
+        assertFalse(channel.writeInbound(frame));
+
+        assertEquals(0, frame.refCnt());
+        assertClosedWith(channel, WebSocketCloseStatus.INVALID_PAYLOAD_DATA);
+    }
+
+    @Test
+    void emptyFrameClosesWithInvalidPayload() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GAME_SERVER));
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(Unpooled.EMPTY_BUFFER);
+
+        assertFalse(channel.writeInbound(frame));
+
+        assertClosedWith(channel, WebSocketCloseStatus.INVALID_PAYLOAD_DATA);
+    }
+
+    @Test
+    void fragmentedFrameClosesWithInvalidMessageType() {
+        EmbeddedChannel channel = new EmbeddedChannel(new WebSocketPacketCodec(ProtocolType.GATEWAY));
+        ByteBuf content = Unpooled.buffer().writeInt(1001).writeShort(1).writeShort(GatewayPacket.DEFAULT_MAGIC);
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(false, 0, content);
+
+        assertFalse(channel.writeInbound(frame));
+
+        assertEquals(0, frame.refCnt());
+        assertClosedWith(channel, WebSocketCloseStatus.INVALID_MESSAGE_TYPE);
+    }
+
+    /**
+     * 编码后检查帧长度（不含 length 字段），再把同一帧送回解码
+     */
+    private static <T> T roundTrip(EmbeddedChannel channel, Object packet, int expectedLength) {
+        assertTrue(channel.writeOutbound(packet));
+        BinaryWebSocketFrame frame = channel.readOutbound();
+        assertNull(channel.readOutbound());
+        assertEquals(expectedLength, frame.content().readableBytes());
+
+        assertTrue(channel.writeInbound(frame));
+        assertEquals(0, frame.refCnt());
+        T decoded = channel.readInbound();
+        assertNull(channel.readInbound());
+        return decoded;
+    }
+
+    private static void assertClosedWith(EmbeddedChannel channel, WebSocketCloseStatus status) {
+        assertNull(channel.readInbound());
+        CloseWebSocketFrame close = channel.readOutbound();
+        assertEquals(status.code(), close.statusCode());
+        close.release();
+        assertFalse(channel.isOpen());
+    }
+}
@@ -5,8 +5,10 @@ import org.markeb.persistent.service.PersistentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 数据中心门面类
@@ -51,6 +53,20 @@ public class DataCenter {
         service.saveAsync(entity);
     }
 
+    /**
+     * 异步部分更新，只写指定属性
+     */
+    public static <T extends Identifiable<ID>, ID> void updateAsync(T entity, Collection<String> properties) {
+        service.updateAsync(entity, properties);
+    }
+
+    /**
+     * 立即刷出实体尚未写出的异步保存和更新
+     */
+    public static <T extends Identifiable<ID>, ID> CompletableFuture<Void> flush(Class<T> clazz, ID id) {
+        return service.flush(clazz, id);
+    }
+
     /**
      * 删除实体
      */
@@ -9,9 +9,11 @@ import org.markeb.persistent.serialization.ProtostuffEntitySerializer;
 import org.markeb.persistent.service.DefaultPersistentService;
 import org.markeb.persistent.service.PersistentMessageConsumer;
 import org.markeb.persistent.service.PersistentService;
+import org.markeb.persistent.service.WriteBehindBuffer;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -54,19 +56,33 @@ public class PersistentAutoConfiguration {
         return new ProtostuffEntitySerializer();
     }
 
+    /**
+     * 异步写入合并缓冲，关闭时先于消息队列刷出剩余实体
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "markeb.persistent.queue.write-behind", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public WriteBehindBuffer writeBehindBuffer(PersistentQueue persistentQueue, EntitySerializer entitySerializer) {
+        PersistentProperties.WriteBehindConfig config = properties.getQueue().getWriteBehind();
+        log.info("Creating WriteBehindBuffer, interval: {}, maxPending: {}", config.getInterval(), config.getMaxPending());
+        return new WriteBehindBuffer(persistentQueue, entitySerializer, config.getInterval(), config.getMaxPending());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public PersistentService persistentService(Repository<Identifiable<Object>, Object> repository,
                                                 CacheManager cacheManager,
                                                 PersistentQueue persistentQueue,
-                                                EntitySerializer entitySerializer) {
+                                                EntitySerializer entitySerializer,
+                                                ObjectProvider<WriteBehindBuffer> writeBehindBuffer) {
         log.info("Creating PersistentService");
         return new DefaultPersistentService(
                 repository,
                 cacheManager,
                 persistentQueue,
                 entitySerializer,
-                properties.getCache().getRedis().getDefaultTtl()
+                properties.getCache().getRedis().getDefaultTtl(),
+                writeBehindBuffer.getIfAvailable()
         );
     }
 
@@ -104,6 +104,11 @@ public class PersistentProperties {
          */
         private boolean asyncEnabled = true;
 
+        /**
+         * 异步写入合并配置
+         */
+        private WriteBehindConfig writeBehind = new WriteBehindConfig();
+
         /**
          * RocketMQ 配置
          */
@@ -120,6 +125,24 @@ public class PersistentProperties {
         private MemoryConfig memory = new MemoryConfig();
     }
 
+    @Data
+    public static class WriteBehindConfig {
+        /**
+         * 是否合并异步保存和更新，关闭时每次调用立即发送一条持久化消息
+         */
+        private boolean enabled = true;
+
+        /**
+         * 刷出间隔
+         */
+        private Duration interval = Duration.ofSeconds(1);
+
+        /**
+         * 待刷出实体数达到该值时提前刷出
+         */
+        private int maxPending = 10000;
+    }
+
     @Data
     public static class RocketMQConfig {
         /**
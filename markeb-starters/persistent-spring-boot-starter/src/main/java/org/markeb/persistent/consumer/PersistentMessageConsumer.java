@@ -9,6 +9,8 @@ import org.markeb.persistent.service.EntityMetadataRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * 持久化消息消费者基类
  * 提供消息处理的通用逻辑，具体的消息监听由子类实现
@@ -45,6 +47,7 @@ public abstract class PersistentMessageConsumer {
 
             switch (message.getType()) {
                 case SAVE -> handleSave(message, entityClass);
+                case UPDATE -> handleUpdate(message, entityClass);
                 case DELETE -> handleDelete(message, entityClass);
                 default -> log.warn("Unknown message type: {}", message.getType());
             }
@@ -75,6 +78,33 @@ public abstract class PersistentMessageConsumer {
         log.info("Saved entity to database: {}", cacheKey);
     }
 
+    /**
+     * 处理部分更新消息
+     * <p>
+     * 与保存一样从缓存取最新实体，只写消息中列出的属性。
+     * </p>
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected void handleUpdate(PersistentMessage message, Class<?> entityClass) {
+        String cacheKey = message.getCacheKey();
+
+        var entityOpt = cacheManager.get(cacheKey, entityClass);
+        if (entityOpt.isEmpty()) {
+            log.error("Cache miss for key: {}", cacheKey);
+            throw new RuntimeException("Cache miss for key: " + cacheKey);
+        }
+
+        Object entity = entityOpt.get();
+        Repository repository = repositoryFactory.getRepository((Class<Identifiable>) entityClass);
+        List<String> fields = message.getFields();
+        if (fields == null || fields.isEmpty()) {
+            repository.save((Identifiable) entity);
+        } else {
+            repository.update((Identifiable) entity, fields);
+        }
+        log.info("Updated entity in database: {} {}", cacheKey, fields);
+    }
+
     /**
      * 处理删除消息
      */
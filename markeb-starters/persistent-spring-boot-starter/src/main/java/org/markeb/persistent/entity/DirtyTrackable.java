@@ -0,0 +1,17 @@
+package org.markeb.persistent.entity;
+
+/**
+ * 支持字段级脏标记的实体
+ * <p>
+ * 实现类持有一个 {@link DirtyTracker}（应声明为 transient，不参与序列化和持久化），
+ * 并在 setter 中标记被修改的属性，刷盘时通过 {@link org.markeb.persistent.DataCenter#updateAsync}
+ * 只写出修改过的属性。
+ * </p>
+ */
+public interface DirtyTrackable {
+
+    /**
+     * 获取脏标记
+     */
+    DirtyTracker dirtyTracker();
+}
@@ -0,0 +1,58 @@
+package org.markeb.persistent.entity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 字段级脏标记
+ * <p>
+ * 实体的 setter 调用 {@link #mark(String)} 记录被修改的属性名，刷盘时 {@link #drain()} 取出并清空。
+ * 同一属性在两次刷盘之间多次修改只记录一次，刷盘时只写这些属性。
+ * 非线程安全，应在实体所属的 Actor 线程内使用。
+ * </p>
+ */
+public final class DirtyTracker {
+
+    private Set<String> dirty = new HashSet<>();
+
+    /**
+     * 标记属性已修改
+     *
+     * @param property 属性名（Java 字段名，不是数据库列名）
+     */
+    public void mark(String property) {
+        dirty.add(property);
+    }
+
+    /**
+     * 重新标记一批属性，用于刷盘交接失败后把取出的属性放回，下一轮再写
+     *
+     * @param properties 属性名
+     */
+    public void markAll(Collection<String> properties) {
+        dirty.addAll(properties);
+    }
+
+    /**
+     * 是否有未刷盘的修改
+     */
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * 取出已修改的属性名并清空标记
+     *
+     * @return 已修改的属性名，没有修改时返回空集合
+     */
+    public Set<String> drain() {
+        if (dirty.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> drained = dirty;
+        dirty = new HashSet<>();
+        return drained;
+    }
+}
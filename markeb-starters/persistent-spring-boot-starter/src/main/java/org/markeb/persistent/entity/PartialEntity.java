@@ -0,0 +1,132 @@
+package org.markeb.persistent.entity;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 部分实体快照
+ * <p>
+ * 部分更新只需要写出修改过的属性：{@link #of} 新建一个同类型实例，只复制 ID 和指定属性，
+ * 序列化后的消息体不再携带整个实体。{@link #snapshot} 复制全部持久化属性，供整体保存延后序列化。
+ * 快照在调用线程（实体所属的 Actor 线程）上生成，之后与原实体互不影响。
+ * </p>
+ * <p>
+ * 属性值按引用复制（浅拷贝），原地修改的可变属性（集合等）应在修改后整体替换，否则快照会看到后续修改。
+ * 实体类需要无参构造器，属性名为 Java 字段名，static 和 transient 字段不是持久化属性。
+ * </p>
+ */
+public final class PartialEntity {
+
+    private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessors computeValue(Class<?> type) {
+            return new Accessors(type);
+        }
+    };
+
+    private PartialEntity() {
+    }
+
+    /**
+     * 生成只包含 ID 和指定属性的新实例
+     *
+     * @param entity     原实体
+     * @param properties 要复制的属性名
+     * @return 新实例，未列出的属性保持默认值
+     * @throws IllegalArgumentException 属性不存在或实体类无法实例化时
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Identifiable<ID>, ID> T of(T entity, Collection<String> properties) {
+        T partial = (T) newInstance(entity.getClass());
+        partial.setId(entity.getId());
+        copy(entity, partial, properties);
+        return partial;
+    }
+
+    /**
+     * 生成复制了全部持久化属性的新实例
+     *
+     * @param entity 原实体
+     * @return 新实例
+     * @throws IllegalArgumentException 实体类无法实例化时
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T snapshot(T entity) {
+        Accessors accessors = ACCESSORS.get(entity.getClass());
+        T copy = (T) newInstance(entity.getClass());
+        for (Field field : accessors.fields.values()) {
+            try {
+                field.set(copy, field.get(entity));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot copy property " + field.getName(), e);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 把指定属性从 source 复制到同类型的 target
+     *
+     * @throws IllegalArgumentException 属性不存在时
+     */
+    public static void copy(Object source, Object target, Collection<String> properties) {
+        Accessors accessors = ACCESSORS.get(source.getClass());
+        for (String property : properties) {
+            Field field = accessors.fields.get(property);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown property " + property + " of " + source.getClass().getName());
+            }
+            try {
+                field.set(target, field.get(source));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot copy property " + property, e);
+            }
+        }
+    }
+
+    /**
+     * 新建实体实例
+     *
+     * @throws IllegalArgumentException 实体类没有可用的无参构造器时
+     */
+    public static Object newInstance(Class<?> type) {
+        try {
+            return ACCESSORS.get(type).constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 按类缓存的无参构造器和持久化字段
+     */
+    private static final class Accessors {
+        final Constructor<?> constructor;
+        final Map<String, Field> fields = new HashMap<>();
+
+        Accessors(Class<?> type) {
+            try {
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName() + " has no no-arg constructor", e);
+            }
+            // 子类字段优先
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                            || fields.containsKey(field.getName())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.put(field.getName(), field);
+                }
+            }
+        }
+    }
+}
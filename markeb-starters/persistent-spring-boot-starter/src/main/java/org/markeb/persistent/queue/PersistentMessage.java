@@ -3,6 +3,7 @@ package org.markeb.persistent.queue;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * 持久化消息
@@ -35,6 +36,11 @@ public class PersistentMessage implements Serializable {
      */
     private byte[] payload;
 
+    /**
+     * 要更新的属性名（仅 UPDATE 消息）
+     */
+    private List<String> fields;
+
     /**
      * 时间戳
      */
@@ -80,6 +86,11 @@ public class PersistentMessage implements Serializable {
          */
         SAVE,
 
+        /**
+         * 部分更新，只写 fields 中的属性
+         */
+        UPDATE,
+
         /**
          * 删除
          */
@@ -2,6 +2,7 @@ package org.markeb.persistent.repository;
 
 import org.markeb.persistent.entity.Identifiable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +40,19 @@ public interface Repository<T extends Identifiable<ID>, ID> {
      */
     <E extends T> E save(E entity);
 
+    /**
+     * 只更新实体的部分属性，实体不存在时插入
+     * <p>
+     * 默认实现退化为保存整个实体，支持部分更新的存储应覆盖此方法。
+     * </p>
+     *
+     * @param entity     实体
+     * @param properties 要更新的属性名
+     */
+    default <E extends T> void update(E entity, Collection<String> properties) {
+        save(entity);
+    }
+
     /**
      * 删除实体
      *
@@ -1,6 +1,7 @@
 package org.markeb.persistent.repository.jpa;
 
 import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.entity.PartialEntity;
 import org.markeb.persistent.repository.Repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
@@ -10,6 +11,7 @@ import jakarta.persistence.criteria.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -47,6 +49,33 @@ public class JpaRepository<T extends Identifiable<ID>, ID> implements Repository
         }
     }
 
+    /**
+     * 部分更新：先加载已有记录，只把指定属性复制过去再合并，未列出的列保持原值；记录不存在时插入
+     * <p>
+     * 传入的通常是只含指定属性的部分快照，直接 merge 会把其余列覆盖为默认值。
+     * </p>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E extends T> void update(E entity, Collection<String> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+        E stored = entityManager.find((Class<E>) entity.getClass(), entity.getId());
+        if (stored == null) {
+            entityManager.persist(entity);
+            return;
+        }
+        for (String name : properties) {
+            try {
+                PartialEntity.copy(entity, stored, List.of(name));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skip unknown property {} of {}", name, entity.getClass().getSimpleName());
+            }
+        }
+        entityManager.merge(stored);
+    }
+
     @Override
     public <E extends T> void delete(E entity) {
         if (entityManager.contains(entity)) {
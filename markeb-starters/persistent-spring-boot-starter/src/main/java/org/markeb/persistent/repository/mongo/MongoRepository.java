@@ -4,10 +4,15 @@ import org.markeb.persistent.entity.Identifiable;
 import org.markeb.persistent.repository.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +45,34 @@ public class MongoRepository<T extends Identifiable<ID>, ID> implements Reposito
         return mongoTemplate.save(entity);
     }
 
+    /**
+     * 以 $set 只写出指定属性，属性名由 MongoTemplate 映射为文档字段名
+     */
+    @Override
+    public <E extends T> void update(E entity, Collection<String> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+        MongoPersistentEntity<?> persistentEntity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entity.getClass());
+        PersistentPropertyAccessor<E> accessor = persistentEntity.getPropertyAccessor(entity);
+
+        Update update = new Update();
+        for (String name : properties) {
+            MongoPersistentProperty property = persistentEntity.getPersistentProperty(name);
+            if (property == null || property.isIdProperty()) {
+                log.warn("Skip unknown property {} of {}", name, entity.getClass().getSimpleName());
+                continue;
+            }
+            update.set(name, accessor.getProperty(property));
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").is(entity.getId()));
+        mongoTemplate.upsert(query, update, entity.getClass());
+    }
+
     @Override
     public <E extends T> void delete(E entity) {
         mongoTemplate.remove(entity);
@@ -3,6 +3,7 @@ package org.markeb.persistent.service;
 import org.markeb.persistent.annotation.PersistentEntity;
 import org.markeb.persistent.cache.CacheManager;
 import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.entity.PartialEntity;
 import org.markeb.persistent.queue.PersistentMessage;
 import org.markeb.persistent.queue.PersistentQueue;
 import org.markeb.persistent.repository.Repository;
@@ -11,11 +12,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 默认持久化服务实现
+ * <p>
+ * 配置了 {@link WriteBehindBuffer} 时，异步保存和部分更新先合并再定期刷出；否则每次调用立即序列化并发送。
+ * </p>
  */
 public class DefaultPersistentService implements PersistentService {
 
@@ -26,18 +33,29 @@ public class DefaultPersistentService implements PersistentService {
     private final PersistentQueue persistentQueue;
     private final EntitySerializer entitySerializer;
     private final Duration defaultCacheTtl;
+    private final WriteBehindBuffer writeBehindBuffer;
 
-    @SuppressWarnings("unchecked")
     public DefaultPersistentService(Repository<?, ?> repository,
                                      CacheManager cacheManager,
                                      PersistentQueue persistentQueue,
                                      EntitySerializer entitySerializer,
                                      Duration defaultCacheTtl) {
+        this(repository, cacheManager, persistentQueue, entitySerializer, defaultCacheTtl, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public DefaultPersistentService(Repository<?, ?> repository,
+                                     CacheManager cacheManager,
+                                     PersistentQueue persistentQueue,
+                                     EntitySerializer entitySerializer,
+                                     Duration defaultCacheTtl,
+                                     WriteBehindBuffer writeBehindBuffer) {
         this.repository = (Repository<Identifiable<Object>, Object>) repository;
         this.cacheManager = cacheManager;
         this.persistentQueue = persistentQueue;
         this.entitySerializer = entitySerializer;
         this.defaultCacheTtl = defaultCacheTtl != null ? defaultCacheTtl : Duration.ofMinutes(30);
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
     @Override
@@ -87,6 +105,12 @@ public class DefaultPersistentService implements PersistentService {
         Duration ttl = getCacheTtl(entity.getClass());
         cacheManager.put(cacheKey, entity, ttl);
 
+        // 在当前线程生成快照并合并到待写缓冲，刷出时序列化
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.save(entity);
+            return;
+        }
+
         // 发送异步消息
         byte[] payload = entitySerializer.serialize(entity);
         PersistentMessage message = new PersistentMessage(
@@ -106,9 +130,66 @@ public class DefaultPersistentService implements PersistentService {
         log.debug("Async save entity: {} -> {}", entity.getClass().getSimpleName(), entity.getId());
     }
 
+    @Override
+    public <T extends Identifiable<ID>, ID> void updateAsync(T entity, Collection<String> properties) {
+        if (properties.isEmpty()) {
+            return;
+        }
+
+        // 先更新缓存
+        String cacheKey = buildCacheKey(entity.getClass(), entity.getId());
+        Duration ttl = getCacheTtl(entity.getClass());
+        cacheManager.put(cacheKey, entity, ttl);
+
+        // 在调用线程上生成只含这些属性的快照，消息体只携带修改过的属性
+        T partial = PartialEntity.of(entity, properties);
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.update(partial, properties);
+            return;
+        }
+
+        // 发送异步消息，消费端只写 fields 中的属性
+        byte[] payload = entitySerializer.serialize(partial);
+        PersistentMessage message = new PersistentMessage(
+                PersistentMessage.MessageType.UPDATE,
+                entity.getClass().getName(),
+                String.valueOf(entity.getId()),
+                payload
+        );
+        message.setFields(new ArrayList<>(properties));
+
+        persistentQueue.sendAsync(message)
+                .exceptionally(ex -> {
+                    log.error("Failed to send async update message: {} -> {}",
+                            entity.getClass().getSimpleName(), entity.getId(), ex);
+                    return null;
+                });
+
+        log.debug("Async update entity: {} -> {} {}", entity.getClass().getSimpleName(), entity.getId(), properties);
+    }
+
+    @Override
+    public <T extends Identifiable<ID>, ID> CompletableFuture<Void> flush(Class<T> clazz, ID id) {
+        return writeBehindBuffer != null
+                ? writeBehindBuffer.flush(clazz, id)
+                : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> flushAll() {
+        return writeBehindBuffer != null
+                ? writeBehindBuffer.flushAll()
+                : CompletableFuture.completedFuture(null);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Identifiable<ID>, ID> void delete(T entity) {
+        // 丢弃待写条目，避免刷出时把实体写回
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.discard(entity.getClass(), entity.getId());
+        }
+
         // 删除数据库
         repository.delete((Identifiable<Object>) entity);
 
@@ -122,6 +203,11 @@ public class DefaultPersistentService implements PersistentService {
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Identifiable<ID>, ID> void deleteById(Class<T> clazz, ID id) {
+        // 丢弃待写条目，避免刷出时把实体写回
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.discard(clazz, id);
+        }
+
         // 删除数据库
         repository.deleteById((Class<Identifiable<Object>>) clazz, id);
 
@@ -8,6 +8,8 @@ import org.markeb.persistent.serialization.EntitySerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * 持久化消息消费者
  * 处理异步持久化消息
@@ -37,6 +39,7 @@ public class PersistentMessageConsumer implements PersistentMessageHandler {
 
             switch (message.getType()) {
                 case SAVE -> handleSave(message, entityClass);
+                case UPDATE -> handleUpdate(message, entityClass);
                 case DELETE -> handleDelete(message, entityClass);
                 default -> log.warn("Unknown message type: {}", message.getType());
             }
@@ -63,6 +66,25 @@ public class PersistentMessageConsumer implements PersistentMessageHandler {
                 message.getEntityClass(), message.getEntityId());
     }
 
+    @SuppressWarnings("unchecked")
+    private void handleUpdate(PersistentMessage message, Class<?> entityClass) {
+        if (message.getPayload() == null || message.getPayload().length == 0) {
+            log.warn("Empty payload for update message: {} -> {}",
+                    message.getEntityClass(), message.getEntityId());
+            return;
+        }
+
+        Object entity = entitySerializer.deserialize(message.getPayload(), entityClass);
+        List<String> fields = message.getFields();
+        if (fields == null || fields.isEmpty()) {
+            repository.save((Identifiable<Object>) entity);
+        } else {
+            repository.update((Identifiable<Object>) entity, fields);
+        }
+        log.debug("Updated entity from message: {} -> {} {}",
+                message.getEntityClass(), message.getEntityId(), fields);
+    }
+
     @SuppressWarnings("unchecked")
     private void handleDelete(PersistentMessage message, Class<?> entityClass) {
         // 尝试解析 ID
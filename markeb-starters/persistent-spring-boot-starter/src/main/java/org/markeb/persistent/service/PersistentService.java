@@ -2,8 +2,10 @@ package org.markeb.persistent.service;
 
 import org.markeb.persistent.entity.Identifiable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 持久化服务接口
@@ -29,13 +31,47 @@ public interface PersistentService {
 
     /**
      * 异步保存实体（先写缓存，异步写数据库）
+     * <p>
+     * 调用时即生成实体快照（启用写入合并时为属性的浅拷贝，刷出时才序列化），调用返回后对实体的修改不影响本次写入。
+     * </p>
      *
      * @param entity 实体
      */
     <T extends Identifiable<ID>, ID> void saveAsync(T entity);
 
+    /**
+     * 异步部分更新（先写缓存，异步只写指定属性到数据库）
+     * <p>
+     * 调用时即生成只含指定属性的快照（{@link org.markeb.persistent.entity.PartialEntity}），
+     * 消息体不携带其余属性，调用返回后对实体的修改不影响本次写入。
+     * </p>
+     *
+     * @param entity     实体
+     * @param properties 要更新的属性名
+     */
+    <T extends Identifiable<ID>, ID> void updateAsync(T entity, Collection<String> properties);
+
+    /**
+     * 立即刷出实体尚未写出的异步保存和更新（如玩家下线时）
+     *
+     * @param clazz 实体类型
+     * @param id    实体ID
+     * @return 已交给消息队列时完成
+     */
+    <T extends Identifiable<ID>, ID> CompletableFuture<Void> flush(Class<T> clazz, ID id);
+
+    /**
+     * 立即刷出所有尚未写出的异步保存和更新
+     *
+     * @return 已交给消息队列时完成
+     */
+    CompletableFuture<Void> flushAll();
+
     /**
      * 删除实体
+     * <p>
+     * 同时丢弃该实体尚未刷出的异步保存和更新。
+     * </p>
      *
      * @param entity 实体
      */
@@ -43,6 +79,9 @@ public interface PersistentService {
 
     /**
      * 根据ID删除实体
+     * <p>
+     * 同时丢弃该实体尚未刷出的异步保存和更新。
+     * </p>
      *
      * @param clazz 实体类型
      * @param id    实体ID
@@ -0,0 +1,292 @@
+package org.markeb.persistent.service;
+
+import org.markeb.persistent.entity.Identifiable;
+import org.markeb.persistent.entity.PartialEntity;
+import org.markeb.persistent.queue.PersistentMessage;
+import org.markeb.persistent.queue.PersistentQueue;
+import org.markeb.persistent.serialization.EntitySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步写入合并缓冲
+ * <p>
+ * 同一实体（类型 + ID）在两次刷出之间无论提交多少次，都只发送一条持久化消息：
+ * 较新的整体保存覆盖之前的提交，部分更新合并进之前的整体保存或部分更新。
+ * 每隔 {@code interval} 刷出一次，待刷出实体数达到 {@code maxPending} 时提前刷出。
+ * </p>
+ * <p>
+ * 缓冲不持有业务线程仍在修改的实体：整体保存持有提交线程生成的完整快照（{@link PartialEntity#snapshot}），
+ * 部分更新持有部分快照，合并只在快照之间复制属性。序列化只在刷出线程上进行，每条消息一次，不读取实体本身。
+ * 同一实体的消息按提交顺序发出；强制刷出（下线、关闭）也提交到刷出线程。
+ * 删除实体前应先 {@link #discard} 丢弃待写条目，否则刷出时会把已删除的实体重新写回。
+ * </p>
+ * <p>
+ * 热路径只做 {@link LongAdder} 累加，合并比例等指标由 metrics starter 在抓取时读取。
+ * </p>
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    /**
+     * 序列化连续失败多少次后放弃该实体
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final PersistentQueue persistentQueue;
+    private final EntitySerializer entitySerializer;
+    private final int maxPending;
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "persistent-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public WriteBehindBuffer(PersistentQueue persistentQueue, EntitySerializer entitySerializer,
+                             Duration interval, int maxPending) {
+        this.persistentQueue = persistentQueue;
+        this.entitySerializer = entitySerializer;
+        this.maxPending = maxPending;
+        long intervalMillis = Math.max(1, interval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushAllNow, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记整体保存，在调用线程上生成完整快照，刷出时再序列化
+     *
+     * @throws IllegalArgumentException 实体类无法实例化时，实体不会被登记
+     */
+    public void save(Identifiable<?> entity) {
+        submit(entity, new Pending(PartialEntity.snapshot(entity), null, 0));
+    }
+
+    /**
+     * 登记部分更新
+     *
+     * @param entity     只包含要写出属性的部分实体快照（{@link PartialEntity#of}）
+     * @param properties 要写出的属性名
+     */
+    public void update(Identifiable<?> entity, Collection<String> properties) {
+        submit(entity, new Pending(entity, Set.copyOf(properties), 0));
+    }
+
+    /**
+     * 丢弃指定实体的待写条目，删除实体前调用
+     * <p>
+     * 已经发出的消息无法撤回，只保证之后不会再把该实体写回。
+     * </p>
+     */
+    public void discard(Class<?> type, Object id) {
+        pending.remove(new Key(type, id));
+    }
+
+    /**
+     * 立即刷出指定实体，用于玩家下线等需要尽快落库的场景
+     *
+     * @return 刷出线程处理完该实体后完成，不等待消息队列确认
+     */
+    public CompletableFuture<Void> flush(Class<?> type, Object id) {
+        return CompletableFuture.runAsync(() -> {
+            Key key = new Key(type, id);
+            Pending entry = pending.remove(key);
+            if (entry != null) {
+                write(key, entry);
+            }
+        }, flusher);
+    }
+
+    /**
+     * 立即刷出全部待写实体
+     *
+     * @return 刷出线程处理完后完成，不等待消息队列确认
+     */
+    public CompletableFuture<Void> flushAll() {
+        return CompletableFuture.runAsync(this::flushAllNow, flusher);
+    }
+
+    /**
+     * 刷出全部待写实体并停止刷出线程，应在消息队列关闭之前调用
+     */
+    @Override
+    public void close() {
+        if (flusher.isShutdown()) {
+            return;
+        }
+        try {
+            flushAll().get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("Failed to flush {} pending entities on close", pending.size(), e);
+        } finally {
+            flusher.shutdown();
+        }
+    }
+
+    private void submit(Identifiable<?> entity, Pending entry) {
+        submitted.increment();
+        pending.merge(new Key(entity.getClass(), entity.getId()), entry, this::merge);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushAllNow();
+            });
+        }
+    }
+
+    private void flushAllNow() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushes.increment();
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            Pending entry = pending.remove(key);
+            if (entry != null) {
+                write(key, entry);
+            }
+        }
+    }
+
+    private void write(Key key, Pending entry) {
+        byte[] payload;
+        try {
+            payload = entitySerializer.serialize(entry.snapshot());
+        } catch (RuntimeException e) {
+            failures.increment();
+            if (entry.attempts() + 1 >= MAX_ATTEMPTS) {
+                log.error("Give up writing entity {} -> {} after {} attempts",
+                        key.type().getSimpleName(), key.id(), MAX_ATTEMPTS, e);
+                return;
+            }
+            // 快照按引用复制属性，可变属性可能仍被业务线程修改，重新登记等下一轮；期间又有新的提交时合并进去
+            log.warn("Failed to serialize entity {} -> {}, retry on next flush",
+                    key.type().getSimpleName(), key.id(), e);
+            pending.merge(key, entry.retry(), (newer, failed) -> merge(failed, newer));
+            return;
+        }
+
+        PersistentMessage message = new PersistentMessage(
+                entry.properties() == null ? PersistentMessage.MessageType.SAVE : PersistentMessage.MessageType.UPDATE,
+                key.type().getName(),
+                String.valueOf(key.id()),
+                payload
+        );
+        if (entry.properties() != null) {
+            message.setFields(new ArrayList<>(entry.properties()));
+        }
+        written.increment();
+        persistentQueue.sendAsync(message)
+                .exceptionally(ex -> {
+                    failures.increment();
+                    log.error("Failed to send write-behind message: {} -> {}",
+                            key.type().getSimpleName(), key.id(), ex);
+                    return null;
+                });
+    }
+
+    /**
+     * 累计提交次数（saveAsync + updateAsync）
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * 累计发出的持久化消息数
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * 累计刷出轮数
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * 累计序列化或发送失败次数
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 当前待刷出的实体数
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * 合并比例：每条持久化消息平均对应的提交次数，未发出消息时为 0
+     */
+    public double getCoalescingRatio() {
+        long messages = written.sum();
+        return messages == 0 ? 0 : (double) submitted.sum() / messages;
+    }
+
+    /**
+     * 合并同一实体较新的提交
+     * <p>
+     * 较新的整体保存直接覆盖；部分更新的属性复制进已有的完整快照或部分快照，两次部分更新的属性取并集。
+     * 快照只由缓冲持有，离开 {@link #pending} 之前不会被刷出线程读取，可以原地修改；合并不做序列化。
+     * </p>
+     */
+    private Pending merge(Pending older, Pending newer) {
+        if (newer.properties() == null) {
+            return new Pending(newer.snapshot(), null, older.attempts());
+        }
+        if (older.properties() != null && newer.properties().containsAll(older.properties())) {
+            return new Pending(newer.snapshot(), newer.properties(), older.attempts());
+        }
+        PartialEntity.copy(newer.snapshot(), older.snapshot(), newer.properties());
+        if (older.properties() == null) {
+            return older;
+        }
+        Set<String> union = new HashSet<>(older.properties());
+        union.addAll(newer.properties());
+        return new Pending(older.snapshot(), Set.copyOf(union), older.attempts());
+    }
+
+    private record Key(Class<?> type, Object id) {
+    }
+
+    /**
+     * 待写条目
+     *
+     * @param snapshot   整体保存时为完整快照，部分更新时为部分快照
+     * @param properties 要写出的属性，为 null 时整体保存
+     * @param attempts   已失败的序列化次数
+     */
+    private record Pending(Identifiable<?> snapshot, Set<String> properties, int attempts) {
+
+        Pending retry() {
+            return new Pending(snapshot, properties, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.markeb.persistent;
+
+import org.markeb.persistent.entity.DirtyTrackable;
+import org.markeb.persistent.entity.DirtyTracker;
+import org.markeb.persistent.entity.Identifiable;
+import org.springframework.data.annotation.Id;
+
+/**
+ * 测试用实体，setter 记录脏标记
+ */
+public class TestEntity implements Identifiable<Long>, DirtyTrackable {
+
+    @Id
+    private Long id;
+    private String name;
+    private int level;
+    private long gold;
+
+    private final transient DirtyTracker dirtyTracker = new DirtyTracker();
+
+    public TestEntity() {
+    }
+
+    public TestEntity(long id, String name, int level, long gold) {
+        this.id = id;
+        this.name = name;
+        this.level = level;
+        this.gold = gold;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        dirtyTracker.mark("name");
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+        dirtyTracker.mark("level");
+    }
+
+    public long getGold() {
+        return gold;
+    }
+
+    public void setGold(long gold) {
+        this.gold = gold;
+        dirtyTracker.mark("gold");
+    }
+
+    @Override
+    public DirtyTracker dirtyTracker() {
+        return dirtyTracker;
+    }
+}
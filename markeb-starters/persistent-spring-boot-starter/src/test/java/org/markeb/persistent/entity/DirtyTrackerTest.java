@@ -0,0 +1,68 @@
+package org.markeb.persistent.entity;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.TestEntity;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 脏标记：去重、取出后清空、失败后重新标记
+ */
+class DirtyTrackerTest {
+
+    @Test
+    void drainReturnsMarkedOnceAndClears() {
+        DirtyTracker tracker = new DirtyTracker();
+        assertFalse(tracker.isDirty());
+        assertTrue(tracker.drain().isEmpty());
+
+        tracker.mark("gold");
+        tracker.mark("level");
+        tracker.mark("gold");
+        assertTrue(tracker.isDirty());
+
+        assertEquals(Set.of("gold", "level"), tracker.drain());
+        assertFalse(tracker.isDirty());
+        assertTrue(tracker.drain().isEmpty());
+    }
+
+    @Test
+    void drainedSetIsDetachedFromLaterMarks() {
+        DirtyTracker tracker = new DirtyTracker();
+        tracker.mark("gold");
+        Set<String> drained = tracker.drain();
+
+        tracker.mark("level");
+        assertEquals(Set.of("gold"), drained);
+        assertEquals(Set.of("level"), tracker.drain());
+    }
+
+    @Test
+    void markAllRestoresDrainedProperties() {
+        DirtyTracker tracker = new DirtyTracker();
+        tracker.mark("gold");
+        Set<String> drained = tracker.drain();
+
+        // 交接失败期间又有新的修改
+        tracker.mark("level");
+        tracker.markAll(drained);
+        assertEquals(Set.of("gold", "level"), tracker.drain());
+
+        tracker.markAll(List.of());
+        assertFalse(tracker.isDirty());
+    }
+
+    @Test
+    void settersMarkTheirProperty() {
+        TestEntity entity = new TestEntity(1L, "a", 1, 0);
+        assertFalse(entity.dirtyTracker().isDirty());
+
+        entity.setGold(10);
+        entity.setGold(20);
+        entity.setName("b");
+        assertEquals(Set.of("gold", "name"), entity.dirtyTracker().drain());
+    }
+}
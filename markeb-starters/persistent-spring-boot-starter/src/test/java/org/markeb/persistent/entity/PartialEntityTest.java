@@ -0,0 +1,79 @@
+package org.markeb.persistent.entity;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.TestEntity;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 部分实体快照：只复制 ID 和指定属性，与原实体互不影响；完整快照复制全部持久化属性
+ */
+class PartialEntityTest {
+
+    @Test
+    void copiesOnlyIdAndListedProperties() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+
+        TestEntity partial = PartialEntity.of(entity, Set.of("gold"));
+
+        assertNotSame(entity, partial);
+        assertEquals(7L, (long) partial.getId());
+        assertEquals(100, partial.getGold());
+        assertNull(partial.getName());
+        assertEquals(0, partial.getLevel());
+        // 快照的脏标记是新实例自己的，不继承原实体的
+        assertFalse(partial.dirtyTracker().isDirty());
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterChanges() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        TestEntity partial = PartialEntity.of(entity, List.of("gold", "name"));
+
+        entity.setGold(200);
+        entity.setName("renamed");
+
+        assertEquals(100, partial.getGold());
+        assertEquals("name", partial.getName());
+    }
+
+    @Test
+    void fullSnapshotCopiesEveryPersistentProperty() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        entity.setGold(150);
+
+        TestEntity snapshot = PartialEntity.snapshot(entity);
+        entity.setLevel(6);
+
+        assertNotSame(entity, snapshot);
+        assertEquals(7L, (long) snapshot.getId());
+        assertEquals("name", snapshot.getName());
+        assertEquals(5, snapshot.getLevel());
+        assertEquals(150, snapshot.getGold());
+        assertNotSame(entity.dirtyTracker(), snapshot.dirtyTracker());
+        assertFalse(snapshot.dirtyTracker().isDirty());
+    }
+
+    @Test
+    void copyOverwritesOnlyListedProperties() {
+        TestEntity older = new TestEntity(7L, "old", 1, 10);
+        TestEntity newer = new TestEntity(7L, "new", 2, 20);
+
+        PartialEntity.copy(newer, older, List.of("level"));
+
+        assertEquals(2, older.getLevel());
+        assertEquals("old", older.getName());
+        assertEquals(10, older.getGold());
+    }
+
+    @Test
+    void unknownOrTransientPropertyIsRejected() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+
+        assertThrows(IllegalArgumentException.class, () -> PartialEntity.of(entity, Set.of("missing")));
+        assertThrows(IllegalArgumentException.class, () -> PartialEntity.of(entity, Set.of("dirtyTracker")));
+    }
+}
@@ -0,0 +1,70 @@
+package org.markeb.persistent.repository.jpa;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.TestEntity;
+import org.markeb.persistent.entity.PartialEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 部分更新：只覆盖指定列，未列出的列保持数据库中的值
+ */
+class JpaRepositoryTest {
+
+    private EntityManager entityManager;
+    private JpaRepository<TestEntity, Long> repository;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        repository = new JpaRepository<>(entityManager);
+    }
+
+    @Test
+    void unlistedColumnsSurviveUpdate() {
+        TestEntity stored = new TestEntity(7L, "stored", 5, 100);
+        when(entityManager.find(TestEntity.class, 7L)).thenReturn(stored);
+        TestEntity live = new TestEntity(7L, "live", 6, 200);
+
+        repository.update(PartialEntity.of(live, List.of("gold")), List.of("gold"));
+
+        verify(entityManager).merge(stored);
+        assertEquals(200, stored.getGold());
+        assertEquals("stored", stored.getName());
+        assertEquals(5, stored.getLevel());
+    }
+
+    @Test
+    void unknownPropertiesAreSkipped() {
+        TestEntity stored = new TestEntity(7L, "stored", 5, 100);
+        when(entityManager.find(TestEntity.class, 7L)).thenReturn(stored);
+
+        repository.update(new TestEntity(7L, "live", 6, 200), List.of("missing", "level"));
+
+        assertEquals(6, stored.getLevel());
+        assertEquals(100, stored.getGold());
+    }
+
+    @Test
+    void missingRowIsInserted() {
+        TestEntity partial = PartialEntity.of(new TestEntity(7L, "live", 6, 200), List.of("gold"));
+
+        repository.update(partial, List.of("gold"));
+
+        verify(entityManager).persist(partial);
+        verify(entityManager, never()).merge(any());
+    }
+
+    @Test
+    void nothingToWriteSkipsLookup() {
+        repository.update(new TestEntity(7L, "live", 6, 200), List.of());
+
+        verifyNoInteractions(entityManager);
+    }
+}
@@ -0,0 +1,75 @@
+package org.markeb.persistent.repository.mongo;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.TestEntity;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 部分更新：按 ID upsert，只 $set 指定的属性
+ */
+class MongoRepositoryTest {
+
+    private MongoTemplate template;
+    private MongoRepository<TestEntity, Long> repository;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        template = mock(MongoTemplate.class);
+        when(template.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        repository = new MongoRepository<>(template);
+    }
+
+    @Test
+    void updateUpsertsOnlyListedProperties() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+
+        repository.update(entity, List.of("gold", "level"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(template).upsert(query.capture(), update.capture(), eq(TestEntity.class));
+        verify(template, never()).save(any());
+
+        assertEquals(new Document("_id", 7L), query.getValue().getQueryObject());
+        Document updateObject = update.getValue().getUpdateObject();
+        assertEquals(new Document("$set", new Document(Map.of("gold", 100L, "level", 5))), updateObject);
+    }
+
+    @Test
+    void idAndUnknownPropertiesAreSkipped() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+
+        repository.update(entity, List.of("id", "missing", "name"));
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(template).upsert(any(Query.class), update.capture(), eq(TestEntity.class));
+        assertEquals(new Document("$set", new Document("name", "name")), update.getValue().getUpdateObject());
+    }
+
+    @Test
+    void nothingToWriteSkipsUpsert() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+
+        repository.update(entity, List.of());
+        repository.update(entity, List.of("id", "missing"));
+
+        verify(template, never()).upsert(any(Query.class), any(UpdateDefinition.class), any(Class.class));
+    }
+}
@@ -0,0 +1,291 @@
+package org.markeb.persistent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.markeb.persistent.TestEntity;
+import org.markeb.persistent.cache.CacheManager;
+import org.markeb.persistent.entity.PartialEntity;
+import org.markeb.persistent.queue.PersistentMessage;
+import org.markeb.persistent.queue.PersistentMessageHandler;
+import org.markeb.persistent.queue.PersistentQueue;
+import org.markeb.persistent.queue.QueueType;
+import org.markeb.persistent.repository.Repository;
+import org.markeb.persistent.serialization.EntitySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 写入合并缓冲：提交时快照、刷出时才序列化、同一实体合并为一条消息、删除时丢弃、序列化失败重试
+ */
+class WriteBehindBufferTest {
+
+    private final RecordingQueue queue = new RecordingQueue();
+    private final TextSerializer serializer = new TextSerializer();
+    private WriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        // 定时刷出和提前刷出都不会触发，只由测试显式刷出
+        buffer = new WriteBehindBuffer(queue, serializer, Duration.ofHours(1), Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.close();
+    }
+
+    @Test
+    void saveIsSnapshottedOnSubmitAndSerializedOnFlush() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        buffer.save(entity);
+        assertEquals(0, serializer.serialized.get());
+
+        // 刷出前业务线程继续修改实体
+        entity.setGold(200);
+        buffer.flushAll().join();
+
+        PersistentMessage message = single();
+        assertEquals(PersistentMessage.MessageType.SAVE, message.getType());
+        assertEquals(TestEntity.class.getName(), message.getEntityClass());
+        assertEquals("7", message.getEntityId());
+        assertEquals(100, decode(message).getGold());
+        assertEquals(1, serializer.serialized.get());
+    }
+
+    @Test
+    void updateAfterSaveIsFoldedIntoTheSave() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        buffer.save(entity);
+        entity.setGold(200);
+        update(entity, "gold");
+        entity.setName("later");
+        buffer.flushAll().join();
+
+        // 合并只在快照之间复制属性，整条消息只序列化一次
+        assertEquals(1, serializer.serialized.get());
+        PersistentMessage message = single();
+        assertEquals(PersistentMessage.MessageType.SAVE, message.getType());
+        assertNull(message.getFields());
+        TestEntity written = decode(message);
+        assertEquals(200, written.getGold());
+        assertEquals("name", written.getName());
+        assertEquals(5, written.getLevel());
+        assertEquals(2.0, buffer.getCoalescingRatio());
+    }
+
+    @Test
+    void saveAfterUpdateReplacesIt() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        update(entity, "gold");
+        entity.setLevel(6);
+        buffer.save(entity);
+        buffer.flushAll().join();
+
+        PersistentMessage message = single();
+        assertEquals(PersistentMessage.MessageType.SAVE, message.getType());
+        assertEquals(6, decode(message).getLevel());
+    }
+
+    @Test
+    void updatesMergeIntoPropertyUnionWithLatestValues() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        entity.setGold(110);
+        update(entity, "gold");
+        entity.setLevel(6);
+        update(entity, "level");
+        entity.setGold(120);
+        update(entity, "gold");
+        buffer.flushAll().join();
+
+        assertEquals(1, serializer.serialized.get());
+        PersistentMessage message = single();
+        assertEquals(PersistentMessage.MessageType.UPDATE, message.getType());
+        assertEquals(Set.of("gold", "level"), new HashSet<>(message.getFields()));
+        TestEntity written = decode(message);
+        assertEquals(120, written.getGold());
+        assertEquals(6, written.getLevel());
+        // 未列出的属性不随消息写出
+        assertNull(written.getName());
+    }
+
+    @Test
+    void entitiesAreFlushedSeparately() {
+        buffer.save(new TestEntity(1L, "a", 1, 0));
+        buffer.save(new TestEntity(2L, "b", 1, 0));
+        buffer.flush(TestEntity.class, 1L).join();
+
+        assertEquals("1", single().getEntityId());
+        assertEquals(1, buffer.getPending());
+    }
+
+    @Test
+    void discardDropsPendingEntry() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        buffer.save(entity);
+        update(entity, "gold");
+
+        buffer.discard(TestEntity.class, 7L);
+        buffer.flushAll().join();
+
+        assertTrue(queue.messages.isEmpty());
+        assertEquals(0, buffer.getPending());
+    }
+
+    @Test
+    void deleteDiscardsPendingWriteBeforeRepositoryDelete() {
+        @SuppressWarnings("unchecked")
+        Repository<TestEntity, Long> repository = mock(Repository.class);
+        DefaultPersistentService service = new DefaultPersistentService(repository, mock(CacheManager.class),
+                queue, serializer, Duration.ofMinutes(1), buffer);
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        service.saveAsync(entity);
+        service.saveAsync(new TestEntity(8L, "other", 1, 0));
+
+        service.delete(entity);
+        service.deleteById(TestEntity.class, 8L);
+        buffer.flushAll().join();
+
+        verify(repository).delete(entity);
+        verify(repository).deleteById(TestEntity.class, 8L);
+        assertTrue(queue.messages.isEmpty());
+    }
+
+    @Test
+    void failedUpdateIsRetriedThenGivenUp() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        update(entity, "gold");
+        serializer.failing = true;
+
+        buffer.flushAll().join();
+        assertEquals(1, buffer.getPending());
+        buffer.flushAll().join();
+        assertEquals(1, buffer.getPending());
+        buffer.flushAll().join();
+
+        assertEquals(0, buffer.getPending());
+        assertEquals(3, buffer.getFailures());
+        assertTrue(queue.messages.isEmpty());
+    }
+
+    @Test
+    void failedUpdateMergesWithLaterSubmission() {
+        TestEntity entity = new TestEntity(7L, "name", 5, 100);
+        update(entity, "gold");
+        serializer.failing = true;
+        buffer.flushAll().join();
+
+        entity.setLevel(6);
+        update(entity, "level");
+        serializer.failing = false;
+        buffer.flushAll().join();
+
+        PersistentMessage message = single();
+        assertEquals(Set.of("gold", "level"), new HashSet<>(message.getFields()));
+        assertEquals(100, decode(message).getGold());
+        assertEquals(6, decode(message).getLevel());
+    }
+
+    @Test
+    void closeFlushesEverythingPending() {
+        buffer.save(new TestEntity(1L, "a", 1, 0));
+        update(new TestEntity(2L, "b", 1, 0), "name");
+
+        buffer.close();
+
+        assertEquals(2, queue.messages.size());
+        assertEquals(0, buffer.getPending());
+        assertEquals(2, buffer.getWritten());
+    }
+
+    private void update(TestEntity entity, String... properties) {
+        List<String> list = List.of(properties);
+        buffer.update(PartialEntity.of(entity, list), list);
+    }
+
+    private PersistentMessage single() {
+        assertEquals(1, queue.messages.size());
+        return queue.messages.get(0);
+    }
+
+    private TestEntity decode(PersistentMessage message) {
+        return serializer.deserialize(message.getPayload(), TestEntity.class);
+    }
+
+    /**
+     * 记录发出的消息
+     */
+    private static final class RecordingQueue implements PersistentQueue {
+
+        final List<PersistentMessage> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public QueueType getType() {
+            return QueueType.MEMORY;
+        }
+
+        @Override
+        public CompletableFuture<Void> sendAsync(PersistentMessage message) {
+            messages.add(message);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void sendSync(PersistentMessage message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void subscribe(PersistentMessageHandler handler) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    /**
+     * 按文本编码 {@link TestEntity}，可切换为部分快照序列化失败
+     */
+    private static final class TextSerializer implements EntitySerializer {
+
+        private static final String NULL = "~";
+
+        final AtomicInteger serialized = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public byte[] serialize(Object entity) {
+            TestEntity e = (TestEntity) entity;
+            serialized.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("serialize failed");
+            }
+            String text = e.getId() + "|" + (e.getName() == null ? NULL : e.getName()) + "|" + e.getLevel() + "|" + e.getGold();
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T deserialize(byte[] data, Class<T> clazz) {
+            String[] parts = new String(data, StandardCharsets.UTF_8).split("\\|");
+            String name = NULL.equals(parts[1]) ? null : parts[1];
+            TestEntity entity = new TestEntity(Long.parseLong(parts[0]), name,
+                    Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+            return clazz.cast(entity);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.context.annotation.Configuration;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 服务自动注册器
@@ -118,6 +120,36 @@ public class ServiceAutoRegistrar {
         }
     }
 
+    /**
+     * 本实例注册的服务实例
+     *
+     * @return 未注册（注册被禁用或缺少配置）时返回 null
+     */
+    public ServiceInstance getRegisteredInstance() {
+        return registeredInstance;
+    }
+
+    /**
+     * 更新本实例的元数据并重新注册，用于发布负载等运行时信息
+     *
+     * @param metadata 要合并的元数据
+     */
+    public synchronized void updateMetadata(Map<String, String> metadata) {
+        if (registeredInstance == null) {
+            return;
+        }
+        Map<String, String> merged = registeredInstance.getMetadata() != null
+                ? new HashMap<>(registeredInstance.getMetadata())
+                : new HashMap<>();
+        merged.putAll(metadata);
+        registeredInstance.setMetadata(merged);
+        try {
+            serviceRegistry.register(registeredInstance);
+        } catch (Exception e) {
+            log.warn("Failed to update metadata of {}", registeredInstance.getInstanceId(), e);
+        }
+    }
+
     /**
      * 解析服务名称
      * <p>优先级：markeb.registry.service-name > spring.application.name</p>
@@ -58,13 +58,24 @@ public class EtcdServiceRegistry implements ServiceRegistry {
     @Override
     public void register(ServiceInstance instance) {
         try {
+            String key = buildKey(instance);
+            String value = serializeInstance(instance);
+
+            // 已注册的实例重新注册（如更新元数据）时沿用原租约，不重复创建租约和保活任务
+            Long existingLease = leaseIdMap.get(key);
+            if (existingLease != null) {
+                kvClient.put(
+                        ByteSequence.from(key, StandardCharsets.UTF_8),
+                        ByteSequence.from(value, StandardCharsets.UTF_8),
+                        PutOption.builder().withLeaseId(existingLease).build()
+                ).get();
+                return;
+            }
+
             // 创建租约
             LeaseGrantResponse leaseResponse = leaseClient.grant(ttl).get();
             long leaseId = leaseResponse.getID();
 
-            String key = buildKey(instance);
-            String value = serializeInstance(instance);
-
             // 使用租约存储服务信息
             PutOption option = PutOption.builder().withLeaseId(leaseId).build();
             kvClient.put(
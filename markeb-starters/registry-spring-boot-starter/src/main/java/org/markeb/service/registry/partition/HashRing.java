@@ -0,0 +1,165 @@
+package org.markeb.service.registry.partition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一致性哈希环
+ * <p>
+ * 每个节点按权重放置若干虚拟节点，虚拟节点位置为 64 位哈希，预先排序到原始类型数组中，
+ * 查找时对键做 64 位混合后二分查找第一个不小于它的位置（越过末尾回到开头）。
+ * 增删一个节点时只有落在该节点虚拟节点区间内的键会迁移，约占 1/N。
+ * </p>
+ * <p>
+ * 不可变，成员变化时整体重建。
+ * </p>
+ */
+public final class HashRing {
+
+    /**
+     * 权重为 1.0 的节点放置的虚拟节点数
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final String[] nodeIds;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * 等权重构建
+     */
+    public HashRing(List<String> nodeIds) {
+        this(nodeIds, null, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param nodeIds      节点ID，不能重复
+     * @param weights      节点权重，与 nodeIds 一一对应，为 null 时全部为 1.0
+     * @param virtualNodes 权重为 1.0 的节点放置的虚拟节点数
+     */
+    public HashRing(List<String> nodeIds, double[] weights, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("nodeIds must not be empty");
+        }
+        if (weights != null && weights.length != nodeIds.size()) {
+            throw new IllegalArgumentException("weights length " + weights.length
+                    + " does not match nodes " + nodeIds.size());
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        this.nodeIds = nodeIds.toArray(new String[0]);
+
+        int[] counts = new int[this.nodeIds.length];
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            double weight = weights == null ? 1.0 : weights[i];
+            // 权重非法或过小时至少保留一个虚拟节点
+            counts[i] = Math.max(1, (int) Math.round(weight * virtualNodes));
+            total += counts[i];
+        }
+
+        long[] rawPoints = new long[total];
+        int[] rawOwners = new int[total];
+        int n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            String nodeId = this.nodeIds[i];
+            for (int v = 0; v < counts[i]; v++) {
+                rawPoints[n] = hash(nodeId, v);
+                rawOwners[n] = i;
+                n++;
+            }
+        }
+
+        // 按位置排序，位置相同时按节点ID排序，使结果与节点列表顺序无关
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(rawPoints[a], rawPoints[b]);
+            return c != 0 ? c : this.nodeIds[rawOwners[a]].compareTo(this.nodeIds[rawOwners[b]]);
+        });
+        this.points = new long[total];
+        this.owners = new int[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = rawPoints[order[i]];
+            owners[i] = rawOwners[order[i]];
+        }
+    }
+
+    /**
+     * 查找键所属节点在构建列表中的下标
+     */
+    public int locate(long key) {
+        long h = mix(key);
+        long[] points = this.points;
+        int lo = 0;
+        int hi = points.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (points[mid] < h) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return owners[lo == points.length ? 0 : lo];
+    }
+
+    /**
+     * 查找键所属节点ID
+     */
+    public String nodeFor(long key) {
+        return nodeIds[locate(key)];
+    }
+
+    /**
+     * 字符串键（如分区名）的 64 位哈希，作为 {@link #locate(long)} 的键
+     */
+    public static long hash(String key) {
+        return fnv1a(key);
+    }
+
+    /**
+     * 节点数
+     */
+    public int size() {
+        return nodeIds.length;
+    }
+
+    /**
+     * 虚拟节点总数
+     */
+    public int pointCount() {
+        return points.length;
+    }
+
+    /**
+     * 64 位混合（MurmurHash3 fmix64），使相邻的玩家ID均匀散布在环上
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * 虚拟节点位置：节点ID的 64 位 FNV-1a 与副本序号混合
+     */
+    private static long hash(String nodeId, int replica) {
+        return mix(fnv1a(nodeId) ^ mix(replica + 1L));
+    }
+
+    private static long fnv1a(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,95 @@
+package org.markeb.service.registry.partition;
+
+import org.markeb.service.registry.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 分区归属表
+ * <p>
+ * 某个服务当前健康实例的快照，以实例ID和权重构建 {@link HashRing}，分区键哈希到环上得到归属实例。
+ * 同一批实例无论由谁构建、列表顺序如何，得到的归属都相同，因此请求方和服务方可以各自计算、结果一致。
+ * </p>
+ * <p>
+ * 不可变，成员变化时整体重建。
+ * </p>
+ */
+public final class PartitionTable {
+
+    public static final PartitionTable EMPTY = new PartitionTable(List.of(), null);
+
+    private final List<ServiceInstance> instances;
+    private final HashRing ring;
+
+    private PartitionTable(List<ServiceInstance> instances, HashRing ring) {
+        this.instances = instances;
+        this.ring = ring;
+    }
+
+    /**
+     * 以健康且启用的实例构建归属表
+     */
+    public static PartitionTable of(List<ServiceInstance> instances) {
+        List<ServiceInstance> available = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (instance.isHealthy() && instance.isEnabled()) {
+                available.add(instance);
+            }
+        }
+        if (available.isEmpty()) {
+            return EMPTY;
+        }
+        available.sort(Comparator.comparing(ServiceInstance::getInstanceId));
+        List<String> ids = new ArrayList<>(available.size());
+        double[] weights = new double[available.size()];
+        for (int i = 0; i < available.size(); i++) {
+            ids.add(available.get(i).getInstanceId());
+            weights[i] = available.get(i).getWeight();
+        }
+        return new PartitionTable(List.copyOf(available),
+                new HashRing(ids, weights, HashRing.DEFAULT_VIRTUAL_NODES));
+    }
+
+    /**
+     * 分区的归属实例
+     *
+     * @return 归属实例，没有可用实例时返回 null
+     */
+    public ServiceInstance owner(String partitionKey) {
+        if (ring == null) {
+            return null;
+        }
+        return instances.get(ring.locate(HashRing.hash(partitionKey)));
+    }
+
+    /**
+     * 当前可用实例，按实例ID排序
+     */
+    public List<ServiceInstance> instances() {
+        return instances;
+    }
+
+    public boolean isEmpty() {
+        return instances.isEmpty();
+    }
+
+    /**
+     * 与另一张表的成员（实例ID、地址和权重）是否相同，相同时所有分区的归属都不变
+     */
+    public boolean sameMembers(PartitionTable other) {
+        if (instances.size() != other.instances.size()) {
+            return false;
+        }
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance a = instances.get(i);
+            ServiceInstance b = other.instances.get(i);
+            if (!a.getInstanceId().equals(b.getInstanceId()) || !a.getAddress().equals(b.getAddress())
+                    || a.getWeight() != b.getWeight()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
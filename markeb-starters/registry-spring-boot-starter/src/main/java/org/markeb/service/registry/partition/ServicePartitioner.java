@@ -0,0 +1,97 @@
+package org.markeb.service.registry.partition;
+
+import org.markeb.service.registry.ServiceChangeListener;
+import org.markeb.service.registry.ServiceDiscovery;
+import org.markeb.service.registry.ServiceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 服务分区器
+ * <p>
+ * 订阅某个服务的实例变更，按一致性哈希把分区键分配给各实例。服务方据此判断哪些分区归自己处理，
+ * 请求方据此把请求直接发给归属实例；双方使用同一套计算，只要看到的成员一致，归属就一致。
+ * 成员增减时只有约 1/N 的分区换主。
+ * </p>
+ * <p>
+ * 归属表只在变更事件中重建并原子替换，查询只读一次 volatile 快照。
+ * </p>
+ */
+public class ServicePartitioner {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicePartitioner.class);
+
+    private final ServiceDiscovery serviceDiscovery;
+    private final String serviceName;
+    private final List<Consumer<PartitionTable>> listeners = new CopyOnWriteArrayList<>();
+    private final ServiceChangeListener changeListener = this::onInstancesChanged;
+
+    private volatile PartitionTable table = PartitionTable.EMPTY;
+
+    public ServicePartitioner(ServiceDiscovery serviceDiscovery, String serviceName) {
+        this.serviceDiscovery = serviceDiscovery;
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * 加载当前实例并订阅变更
+     */
+    public void start() {
+        onInstancesChanged(serviceName, serviceDiscovery.getInstances(serviceName));
+        serviceDiscovery.subscribe(serviceName, changeListener);
+    }
+
+    /**
+     * 取消订阅
+     */
+    public void stop() {
+        serviceDiscovery.unsubscribe(serviceName, changeListener);
+    }
+
+    /**
+     * 添加归属变更监听，成员变化导致归属表重建后回调
+     */
+    public void addListener(Consumer<PartitionTable> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 分区的归属实例
+     *
+     * @return 归属实例，没有可用实例时返回 null
+     */
+    public ServiceInstance owner(String partitionKey) {
+        return table.owner(partitionKey);
+    }
+
+    /**
+     * 当前归属表
+     */
+    public PartitionTable table() {
+        return table;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    private synchronized void onInstancesChanged(String serviceName, List<ServiceInstance> instances) {
+        PartitionTable updated = PartitionTable.of(instances == null ? List.of() : instances);
+        if (updated.sameMembers(table)) {
+            return;
+        }
+        table = updated;
+        log.info("Partitions of {} rebuilt, {} instances", serviceName, updated.instances().size());
+        for (Consumer<PartitionTable> listener : listeners) {
+            try {
+                listener.accept(updated);
+            } catch (Exception e) {
+                log.error("Partition listener of {} failed", serviceName, e);
+            }
+        }
+    }
+}
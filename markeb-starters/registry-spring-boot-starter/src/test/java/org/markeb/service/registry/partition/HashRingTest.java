@@ -0,0 +1,134 @@
+package org.markeb.service.registry.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性哈希环测试：节点增删时的迁移比例、均匀与加权分布、映射的稳定性。
+ */
+class HashRingTest {
+
+    private static final int NODES = 10;
+    private static final int KEYS = 200_000;
+
+    @Test
+    void addNodeRemapsOnlyItsShare() {
+        List<String> nodes = nodeIds(NODES);
+        HashRing before = new HashRing(nodes);
+        List<String> grown = new ArrayList<>(nodes);
+        grown.add("node-new");
+        HashRing after = new HashRing(grown);
+
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            String from = before.nodeFor(key);
+            String to = after.nodeFor(key);
+            if (!from.equals(to)) {
+                moved++;
+                // 只会迁移到新节点
+                assertEquals("node-new", to);
+            }
+        }
+        double fraction = (double) moved / KEYS;
+        assertTrue(fraction < 1.5 / (NODES + 1), "remapped fraction too high: " + fraction);
+    }
+
+    @Test
+    void removeNodeRemapsOnlyItsKeys() {
+        List<String> nodes = nodeIds(NODES);
+        HashRing before = new HashRing(nodes);
+        List<String> shrunk = new ArrayList<>(nodes);
+        shrunk.remove("node-3");
+        HashRing after = new HashRing(shrunk);
+
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            String from = before.nodeFor(key);
+            String to = after.nodeFor(key);
+            if (!from.equals(to)) {
+                moved++;
+                // 只有被移除节点上的键会迁移
+                assertEquals("node-3", from);
+            } else {
+                assertNotEquals("node-3", from);
+            }
+        }
+        double fraction = (double) moved / KEYS;
+        assertTrue(fraction < 1.5 / NODES, "remapped fraction too high: " + fraction);
+    }
+
+    @Test
+    void weightScalesShare() {
+        List<String> nodes = nodeIds(NODES);
+        double[] weights = new double[NODES];
+        Arrays.fill(weights, 1.0);
+        weights[0] = 2.0;
+        HashRing ring = new HashRing(nodes, weights, HashRing.DEFAULT_VIRTUAL_NODES);
+
+        int[] counts = new int[NODES];
+        for (long key = 0; key < KEYS; key++) {
+            counts[ring.locate(key)]++;
+        }
+        double others = (double) (KEYS - counts[0]) / (NODES - 1);
+        double ratio = counts[0] / others;
+        assertTrue(ratio > 1.6 && ratio < 2.4, "unexpected weight ratio: " + ratio);
+    }
+
+    @Test
+    void independentOfNodeOrder() {
+        List<String> nodes = nodeIds(NODES);
+        List<String> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        HashRing a = new HashRing(nodes);
+        HashRing b = new HashRing(reversed);
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(a.nodeFor(key), b.nodeFor(key));
+        }
+    }
+
+    @Test
+    void equalWeightsSpreadKeysEvenly() {
+        HashRing ring = new HashRing(nodeIds(NODES));
+        assertEquals(NODES * HashRing.DEFAULT_VIRTUAL_NODES, ring.pointCount());
+
+        int[] counts = new int[NODES];
+        for (long key = 0; key < KEYS; key++) {
+            counts[ring.locate(key)]++;
+        }
+        double mean = (double) KEYS / NODES;
+        for (int i = 0; i < NODES; i++) {
+            double share = counts[i] / mean;
+            assertTrue(share > 0.75 && share < 1.25,
+                    "node-" + i + " share " + share + " of mean, counts " + Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void mappingIsStableAcrossRebuilds() {
+        List<String> nodes = nodeIds(NODES);
+        HashRing ring = new HashRing(nodes);
+        HashRing rebuilt = new HashRing(nodeIds(NODES));
+        for (long key = 0; key < 10_000; key++) {
+            long spread = key * 0x9E3779B97F4A7C15L;
+            int index = ring.locate(spread);
+            // 同一个环重复查找、相同节点重建的环都得到同一个节点
+            assertEquals(index, ring.locate(spread));
+            assertEquals(index, rebuilt.locate(spread));
+            assertEquals(nodes.get(index), ring.nodeFor(spread));
+        }
+    }
+
+    private static List<String> nodeIds(int count) {
+        List<String> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add("node-" + i);
+        }
+        return nodes;
+    }
+}
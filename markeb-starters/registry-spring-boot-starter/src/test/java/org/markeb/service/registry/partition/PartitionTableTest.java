@@ -0,0 +1,95 @@
+package org.markeb.service.registry.partition;
+
+import org.junit.jupiter.api.Test;
+import org.markeb.service.registry.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分区归属表测试：归属与实例列表顺序无关，只计入可用实例，增加实例时只有新实例接管分区。
+ */
+class PartitionTableTest {
+
+    private static final String[] MODES = {"1v1", "2v2", "5v5", "battle_royale"};
+    private static final String[] REGIONS = {"cn-east", "cn-south", "cn-north", "ap-se", "ap-ne", "eu-west",
+            "us-east", "us-west"};
+
+    @Test
+    void ownerIndependentOfListOrder() {
+        List<ServiceInstance> instances = instances(5);
+        PartitionTable table = PartitionTable.of(instances);
+        List<ServiceInstance> shuffled = new ArrayList<>(instances);
+        Collections.shuffle(shuffled, new Random(3));
+        PartitionTable other = PartitionTable.of(shuffled);
+
+        assertTrue(table.sameMembers(other));
+        for (String key : keys()) {
+            assertEquals(table.owner(key).getInstanceId(), other.owner(key).getInstanceId());
+        }
+    }
+
+    @Test
+    void unavailableInstancesOwnNothing() {
+        List<ServiceInstance> instances = instances(3);
+        instances.get(0).setHealthy(false);
+        instances.get(1).setEnabled(false);
+        PartitionTable table = PartitionTable.of(instances);
+
+        assertEquals(1, table.instances().size());
+        for (String key : keys()) {
+            assertEquals("mesh-2", table.owner(key).getInstanceId());
+        }
+        assertNull(PartitionTable.of(List.of()).owner("1v1:cn-east"));
+        assertTrue(PartitionTable.EMPTY.sameMembers(PartitionTable.of(List.of())));
+    }
+
+    @Test
+    void addInstanceMovesOnlyToNewInstance() {
+        List<ServiceInstance> instances = instances(4);
+        PartitionTable before = PartitionTable.of(instances);
+        List<ServiceInstance> grown = new ArrayList<>(instances);
+        grown.add(instance("mesh-new", 9100));
+        PartitionTable after = PartitionTable.of(grown);
+
+        assertFalse(before.sameMembers(after));
+        for (String key : keys()) {
+            String from = before.owner(key).getInstanceId();
+            String to = after.owner(key).getInstanceId();
+            if (!from.equals(to)) {
+                assertEquals("mesh-new", to);
+            }
+        }
+    }
+
+    private static List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (String mode : MODES) {
+            for (String region : REGIONS) {
+                keys.add(mode + ":" + region);
+            }
+        }
+        return keys;
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(instance("mesh-" + i, 9000 + i));
+        }
+        return instances;
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return ServiceInstance.builder()
+                .instanceId(id)
+                .serviceName("markeb-mesh")
+                .host("127.0.0.1")
+                .port(port)
+                .build();
+    }
+}